@@ -0,0 +1,86 @@
+/*
+ * Copyright © 2017-2020 factcast.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.factcast.benchmarks;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.factcast.core.DefaultFact;
+import org.factcast.core.Fact;
+import org.factcast.core.util.FactCastJson;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Header handling on the read path: parsing a header into a DefaultFact,
+ * accessing meta, and adding the serial to the header.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(value = 2)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+public class FactHeaderBenchmark {
+
+    String header;
+
+    String payload;
+
+    Fact parsed;
+
+    @Setup
+    public void setup() {
+        Fact f = Fact.builder()
+                .ns("benchmark")
+                .type("created")
+                .version(1)
+                .aggId(UUID.randomUUID())
+                .meta("tenant", "foo")
+                .build("{\"id\":42}");
+        header = f.jsonHeader();
+        payload = f.jsonPayload();
+        parsed = DefaultFact.of(header, payload);
+    }
+
+    @Benchmark
+    public Fact parseHeader() {
+        return DefaultFact.of(header, payload);
+    }
+
+    @Benchmark
+    public String parseHeaderAndReadMeta() {
+        return DefaultFact.of(header, payload).meta("tenant");
+    }
+
+    @Benchmark
+    public String readMeta() {
+        return parsed.meta("tenant");
+    }
+
+    @Benchmark
+    public String addSerToHeader() {
+        return FactCastJson.addSerToHeader(4711L, header);
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright © 2017-2020 factcast.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.factcast.benchmarks;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.factcast.core.Fact;
+import org.factcast.core.spec.FactSpec;
+import org.factcast.core.spec.FactSpecMatcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Matching a fact against specs of increasing complexity, as done for every
+ * fact of a subscription.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(value = 2)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+public class FactSpecMatcherBenchmark {
+
+    Fact fact;
+
+    FactSpecMatcher nsAndType;
+
+    FactSpecMatcher withMeta;
+
+    FactSpecMatcher withScript;
+
+    @Setup
+    public void setup() {
+        UUID aggId = UUID.randomUUID();
+        fact = Fact.builder()
+                .ns("benchmark")
+                .type("created")
+                .aggId(aggId)
+                .meta("tenant", "foo")
+                .meta("source", "bar")
+                .build("{\"id\":42,\"name\":\"benchmark\"}");
+
+        nsAndType = new FactSpecMatcher(FactSpec.ns("benchmark").type("created"));
+        withMeta = new FactSpecMatcher(FactSpec.ns("benchmark")
+                .type("created")
+                .aggId(aggId)
+                .meta("tenant", "foo")
+                .meta("source", "bar"));
+        withScript = new FactSpecMatcher(FactSpec.ns("benchmark")
+                .type("created")
+                .jsFilterScript("function (h,e){ return h.meta.tenant=='foo' && e.id==42 }"));
+    }
+
+    @Benchmark
+    public boolean nsAndType() {
+        return nsAndType.test(fact);
+    }
+
+    @Benchmark
+    public boolean withMeta() {
+        return withMeta.test(fact);
+    }
+
+    @Benchmark
+    public boolean withScript() {
+        return withScript.test(fact);
+    }
+}
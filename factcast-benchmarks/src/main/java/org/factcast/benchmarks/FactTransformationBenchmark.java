@@ -0,0 +1,152 @@
+/*
+ * Copyright © 2017-2020 factcast.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.factcast.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.factcast.core.Fact;
+import org.factcast.store.pgsql.internal.RequestedVersions;
+import org.factcast.store.pgsql.registry.SchemaRegistry;
+import org.factcast.store.pgsql.registry.metrics.RegistryMetricsImpl;
+import org.factcast.store.pgsql.registry.transformation.FactTransformersImpl;
+import org.factcast.store.pgsql.registry.transformation.SingleTransformation;
+import org.factcast.store.pgsql.registry.transformation.Transformation;
+import org.factcast.store.pgsql.registry.transformation.TransformationKey;
+import org.factcast.store.pgsql.registry.transformation.TransformationStoreListener;
+import org.factcast.store.pgsql.registry.transformation.cache.TransformationCache;
+import org.factcast.store.pgsql.registry.transformation.chains.NashornTransformer;
+import org.factcast.store.pgsql.registry.transformation.chains.TransformationChains;
+import org.factcast.store.pgsql.registry.validation.schema.SchemaKey;
+import org.joda.time.DateTime;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.fge.jsonschema.main.JsonSchema;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Transformation of facts by a Nashorn script, bypassing the cache (every
+ * lookup misses), so that the transformation itself is measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 2)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+public class FactTransformationBenchmark {
+
+    static final int BATCH_SIZE = 100;
+
+    FactTransformersImpl transformers;
+
+    Fact fact;
+
+    List<Fact> batch;
+
+    @Setup
+    public void setup() {
+        TransformationKey key = TransformationKey.of("benchmark", "created");
+        Transformation t = SingleTransformation.of(key, 1, 2,
+                "function transform(e) {e.displayName = e.firstName + ' ' + e.lastName}");
+
+        SchemaRegistry registry = new SchemaRegistry() {
+            @Override
+            public Optional<JsonSchema> get(SchemaKey k) {
+                return Optional.empty();
+            }
+
+            @Override
+            public List<Transformation> get(TransformationKey k) {
+                return key.equals(k) ? Collections.singletonList(t) : Collections.emptyList();
+            }
+
+            @Override
+            public void fetchInitial() {
+            }
+
+            @Override
+            public void refresh() {
+            }
+
+            @Override
+            public void register(TransformationStoreListener listener) {
+            }
+        };
+
+        RegistryMetricsImpl metrics = new RegistryMetricsImpl(new SimpleMeterRegistry());
+        RequestedVersions requested = new RequestedVersions();
+        requested.add("benchmark", "created", 2);
+
+        transformers = new FactTransformersImpl(requested, new TransformationChains(registry,
+                metrics), new NashornTransformer(), new NoCache(), metrics);
+
+        fact = fact();
+        batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batch.add(fact());
+        }
+    }
+
+    private static Fact fact() {
+        return Fact.builder()
+                .ns("benchmark")
+                .type("created")
+                .version(1)
+                .aggId(UUID.randomUUID())
+                .build("{\"firstName\":\"Peter\",\"lastName\":\"Lustig\"}");
+    }
+
+    @Benchmark
+    public Fact transformSingle() throws Exception {
+        return transformers.transformIfNecessary(fact);
+    }
+
+    @Benchmark
+    public List<Fact> transformBatch() throws Exception {
+        return transformers.transformIfNecessary(batch);
+    }
+
+    static class NoCache implements TransformationCache {
+
+        @Override
+        public void put(Fact f, String transformationChainId) {
+        }
+
+        @Override
+        public Optional<Fact> find(UUID eventId, int version, String transformationChainId) {
+            return Optional.empty();
+        }
+
+        @Override
+        public void compact(DateTime thresholdDate) {
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright © 2017-2020 factcast.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.factcast.benchmarks;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.factcast.core.Fact;
+import org.factcast.grpc.api.conv.ProtoConverter;
+import org.factcast.grpc.api.gen.FactStoreProto.MSG_Fact;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Conversion of facts from and to their protobuf representation, as done for
+ * every fact sent over gRPC.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(value = 2)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+public class ProtoConverterBenchmark {
+
+    @Param({ "64", "4096" })
+    int payloadSize;
+
+    final ProtoConverter converter = new ProtoConverter();
+
+    Fact fact;
+
+    MSG_Fact msg;
+
+    @Setup
+    public void setup() {
+        StringBuilder sb = new StringBuilder("{\"data\":\"");
+        while (sb.length() < payloadSize) {
+            sb.append('x');
+        }
+        fact = Fact.builder()
+                .ns("benchmark")
+                .type("created")
+                .aggId(UUID.randomUUID())
+                .build(sb.append("\"}").toString());
+        msg = converter.toProto(fact);
+    }
+
+    @Benchmark
+    public MSG_Fact toProto() {
+        return converter.toProto(fact);
+    }
+
+    @Benchmark
+    public Fact fromProto() {
+        return converter.fromProto(msg);
+    }
+}
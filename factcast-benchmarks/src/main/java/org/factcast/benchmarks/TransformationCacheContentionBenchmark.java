@@ -0,0 +1,99 @@
+/*
+ * Copyright © 2017-2020 factcast.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.factcast.benchmarks;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.factcast.core.Fact;
+import org.factcast.store.pgsql.registry.metrics.RegistryMetricsImpl;
+import org.factcast.store.pgsql.registry.transformation.cache.InMemTransformationCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Concurrent lookups and puts on the InMemTransformationCache, with readers
+ * and a writer contending for the same entries.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 2)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Group)
+public class TransformationCacheContentionBenchmark {
+
+    static final int NUMBER_OF_FACTS = 10_000;
+
+    static final String CHAIN_ID = "benchmark";
+
+    @Param({ "false", "true" })
+    boolean compressed;
+
+    InMemTransformationCache cache;
+
+    Fact[] facts;
+
+    @Setup
+    public void setup() {
+        cache = new InMemTransformationCache(64L * 1024 * 1024, compressed,
+                new RegistryMetricsImpl(new SimpleMeterRegistry()));
+        facts = new Fact[NUMBER_OF_FACTS];
+        for (int i = 0; i < NUMBER_OF_FACTS; i++) {
+            facts[i] = Fact.builder()
+                    .ns("benchmark")
+                    .type("created")
+                    .version(2)
+                    .aggId(UUID.randomUUID())
+                    .build("{\"i\":" + i + ",\"name\":\"benchmark\"}");
+            cache.put(facts[i], CHAIN_ID);
+        }
+    }
+
+    private Fact randomFact() {
+        return facts[ThreadLocalRandom.current().nextInt(NUMBER_OF_FACTS)];
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(3)
+    public Optional<Fact> find() {
+        Fact f = randomFact();
+        return cache.find(f.id(), 2, CHAIN_ID);
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(1)
+    public void put() {
+        cache.put(randomFact(), CHAIN_ID);
+    }
+}
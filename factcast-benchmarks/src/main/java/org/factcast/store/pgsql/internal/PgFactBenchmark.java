@@ -0,0 +1,98 @@
+/*
+ * Copyright © 2017-2020 factcast.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.factcast.store.pgsql.internal;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.factcast.core.Fact;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Creating facts from rows of the fact table, without the database: the
+ * ResultSet is a proxy returning fixed column values.
+ * <p>
+ * Lives in the package of PgFact to reach toUUIDArray.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(value = 2)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+public class PgFactBenchmark {
+
+    ResultSet resultSet;
+
+    String aggIds;
+
+    @Setup
+    public void setup() {
+        Fact f = Fact.builder()
+                .ns("benchmark")
+                .type("created")
+                .version(1)
+                .aggId(UUID.randomUUID())
+                .aggId(UUID.randomUUID())
+                .build("{\"id\":42}");
+        aggIds = "[\"" + String.join("\",\"", f.aggIds()
+                .stream()
+                .map(UUID::toString)
+                .toArray(String[]::new)) + "\"]";
+
+        Map<String, Object> columns = new HashMap<>();
+        columns.put(PgConstants.ALIAS_ID, f.id().toString());
+        columns.put(PgConstants.ALIAS_AGGID, aggIds);
+        columns.put(PgConstants.ALIAS_TYPE, f.type());
+        columns.put(PgConstants.ALIAS_NS, f.ns());
+        columns.put(PgConstants.COLUMN_HEADER, f.jsonHeader());
+        columns.put(PgConstants.COLUMN_PAYLOAD, f.jsonPayload());
+        columns.put(PgConstants.COLUMN_VERSION, f.version());
+        columns.put(PgConstants.COLUMN_SER, 4711L);
+
+        resultSet = (ResultSet) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] { ResultSet.class }, (proxy, method, args) -> {
+                    if (args != null && args.length == 1 && args[0] instanceof String) {
+                        return columns.get(args[0]);
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    @Benchmark
+    public Fact from() {
+        return PgFact.from(resultSet);
+    }
+
+    @Benchmark
+    public Set<UUID> toUUIDArray() {
+        return PgFact.toUUIDArray(aggIds);
+    }
+}
@@ -15,6 +15,7 @@
  */
 package org.factcast.client.grpc;
 
+import org.factcast.core.Fact;
 import org.factcast.core.subscription.Subscription;
 import org.factcast.core.subscription.SubscriptionImpl;
 import org.factcast.core.subscription.TransformationException;
@@ -23,8 +24,8 @@
 import org.factcast.grpc.api.gen.FactStoreProto.MSG_Notification;
 
 import io.grpc.stub.StreamObserver;
+import io.micrometer.core.instrument.Metrics;
 import lombok.NonNull;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -36,7 +37,6 @@
  *
  * @author <uwe.schaefer@prisma-capacity.eu>
  */
-@RequiredArgsConstructor
 @Slf4j
 class ClientStreamObserver implements StreamObserver<FactStoreProto.MSG_Notification> {
 
@@ -45,21 +45,56 @@ class ClientStreamObserver implements StreamObserver<FactStoreProto.MSG_Notifica
     @NonNull
     final SubscriptionImpl subscription;
 
+    // null, if facts are to be passed on the transport thread
+    final PartitionedDispatcher dispatcher;
+
+    @NonNull
+    final GrpcClientMetrics metrics;
+
+    ClientStreamObserver(@NonNull SubscriptionImpl subscription) {
+        this(subscription, null);
+    }
+
+    ClientStreamObserver(@NonNull SubscriptionImpl subscription,
+            PartitionedDispatcher dispatcher) {
+        this(subscription, dispatcher, new GrpcClientMetrics(Metrics.globalRegistry));
+    }
+
+    ClientStreamObserver(@NonNull SubscriptionImpl subscription,
+            PartitionedDispatcher dispatcher, @NonNull GrpcClientMetrics metrics) {
+        this.subscription = subscription;
+        this.dispatcher = dispatcher;
+        this.metrics = metrics;
+    }
+
     @Override
     public void onNext(MSG_Notification f) {
         log.trace("observer got msg: {}", f);
         switch (f.getType()) {
         case Catchup:
             log.debug("received onCatchup signal");
+            drain();
             subscription.notifyCatchup();
             break;
         case Complete:
             log.debug("received onComplete signal");
-            subscription.notifyComplete();
+            onCompleted();
             break;
         case Fact:
+            metrics.factsReceived(1);
+            try {
+                deliver(converter.fromStructuredProto(f.getFact()));
+            } catch (TransformationException e) {
+                // cannot happen on client side...
+                onError(e);
+            }
+            break;
+        case Facts:
+            metrics.factsReceived(f.getFacts().getFactCount());
             try {
-                subscription.notifyElement(converter.fromProto(f.getFact()));
+                for (Fact fact : converter.fromStructuredProto(f.getFacts())) {
+                    deliver(fact);
+                }
             } catch (TransformationException e) {
                 // cannot happen on client side...
                 onError(e);
@@ -73,13 +108,39 @@ public void onNext(MSG_Notification f) {
         }
     }
 
+    private void deliver(Fact f) throws TransformationException {
+        if (dispatcher == null) {
+            subscription.notifyElement(f);
+        } else {
+            dispatcher.dispatch(f);
+        }
+    }
+
+    private void drain() {
+        if (dispatcher != null) {
+            dispatcher.drain();
+        }
+    }
+
+    private void closeDispatcher() {
+        if (dispatcher != null) {
+            dispatcher.close();
+        }
+    }
+
     @Override
     public void onError(Throwable t) {
+        // facts received before the error are still passed, so that a
+        // reconnect can resume after the last one
+        drain();
         subscription.notifyError(t);
+        closeDispatcher();
     }
 
     @Override
     public void onCompleted() {
+        drain();
         subscription.notifyComplete();
+        closeDispatcher();
     }
 }
@@ -0,0 +1,128 @@
+/*
+ * Copyright © 2017-2020 factcast.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.factcast.client.grpc;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import io.grpc.ClientStreamTracer;
+import io.grpc.Metadata;
+import io.grpc.Status;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.NonNull;
+
+/**
+ * Client side metrics of the GrpcFactStore.
+ * <p>
+ * Together with the handler time recorded by
+ * {@link MicrometerSubscriptionMetrics}, this allows to tell consumers limited
+ * by the network (bytes received close to the bandwidth) from consumers
+ * limited by their own handlers.
+ */
+class GrpcClientMetrics {
+
+    static final String METRIC_NAME_CALLS = "factcast.client.grpc.calls";
+
+    static final String METRIC_NAME_FACTS = "factcast.client.grpc.facts.received";
+
+    static final String METRIC_NAME_BYTES = "factcast.client.grpc.bytes.received";
+
+    static final String TAG_METHOD_KEY = "method";
+
+    static final String TAG_STATUS_KEY = "status";
+
+    static final String TAG_CODEC_KEY = "codec";
+
+    static final String TAG_SIZE_KEY = "size";
+
+    @NonNull
+    final MeterRegistry registry;
+
+    final Counter factsReceived;
+
+    GrpcClientMetrics(@NonNull MeterRegistry registry) {
+        this.registry = registry;
+        factsReceived = Counter.builder(METRIC_NAME_FACTS)
+                .description("Facts received by subscriptions")
+                .register(registry);
+    }
+
+    /**
+     * runs the given call and records its duration, tagged by method and
+     * resulting status.
+     */
+    <T> T timed(@NonNull String method, @NonNull Supplier<T> call) {
+        long start = System.nanoTime();
+        Status.Code status = Status.Code.OK;
+        try {
+            return call.get();
+        } catch (RuntimeException e) {
+            status = Status.fromThrowable(e).getCode();
+            throw e;
+        } finally {
+            Timer.builder(METRIC_NAME_CALLS)
+                    .tags(TAG_METHOD_KEY, method, TAG_STATUS_KEY, status.name())
+                    .publishPercentileHistogram()
+                    .register(registry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    void factsReceived(int count) {
+        factsReceived.increment(count);
+    }
+
+    /**
+     * @return a tracer factory recording the bytes received on the wire and
+     *         after decompression, tagged with the codec currently in use.
+     */
+    ClientStreamTracer.Factory bytesReceived(@NonNull Supplier<String> codec) {
+        return new ClientStreamTracer.Factory() {
+
+            @Override
+            public ClientStreamTracer newClientStreamTracer(ClientStreamTracer.StreamInfo info,
+                    Metadata headers) {
+                Tags tags = Tags.of(TAG_CODEC_KEY, codec.get());
+                DistributionSummary wire = bytes(tags.and(TAG_SIZE_KEY, "wire"));
+                DistributionSummary uncompressed = bytes(tags.and(TAG_SIZE_KEY,
+                        "uncompressed"));
+                return new ClientStreamTracer() {
+
+                    @Override
+                    public void inboundWireSize(long bytes) {
+                        wire.record(bytes);
+                    }
+
+                    @Override
+                    public void inboundUncompressedSize(long bytes) {
+                        uncompressed.record(bytes);
+                    }
+                };
+            }
+        };
+    }
+
+    private DistributionSummary bytes(Tags tags) {
+        return DistributionSummary.builder(METRIC_NAME_BYTES)
+                .baseUnit("bytes")
+                .tags(tags)
+                .register(registry);
+    }
+}
@@ -25,15 +25,18 @@
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import org.factcast.core.Fact;
+import org.factcast.core.spec.FactSpecMatcher;
 import org.factcast.core.store.FactStore;
 import org.factcast.core.store.RetryableException;
 import org.factcast.core.store.StateToken;
 import org.factcast.core.subscription.Subscription;
 import org.factcast.core.subscription.SubscriptionImpl;
 import org.factcast.core.subscription.SubscriptionRequestTO;
+import org.factcast.core.subscription.observer.DispatchAware;
 import org.factcast.core.subscription.observer.FactObserver;
 import org.factcast.grpc.api.Capabilities;
 import org.factcast.grpc.api.CompressionCodecs;
@@ -73,8 +76,11 @@
 import io.grpc.Status.Code;
 import io.grpc.StatusRuntimeException;
 import io.grpc.stub.StreamObserver;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
 import lombok.Generated;
 import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import net.devh.boot.grpc.client.security.CallCredentialsHelper;
 
@@ -101,25 +107,50 @@ public class GrpcFactStore implements FactStore, SmartInitializingSingleton {
 
     private final AtomicBoolean initialized = new AtomicBoolean(false);
 
+    private boolean serverSupportsProjection = false;
+
+    private boolean serverSupportsFilters = false;
+
+    private final GrpcClientMetrics metrics;
+
+    // codec used for calls, as negotiated with the server
+    private volatile String codec = "identity";
+
+    // number of threads to dispatch facts to the observer, 0 to dispatch on
+    // the transport thread
+    @Value("${grpc.client.factstore.dispatch-threads:0}")
+    private int dispatchThreads = 0;
+
     @Autowired
     @Generated
     public GrpcFactStore(FactCastGrpcChannelFactory channelFactory,
             @Value("${grpc.client.factstore.credentials:#{null}}") Optional<String> credentials) {
-        this(channelFactory.createChannel(CHANNEL_NAME), credentials);
+        this(channelFactory, credentials, Metrics.globalRegistry);
+    }
 
+    @Generated
+    public GrpcFactStore(FactCastGrpcChannelFactory channelFactory,
+            Optional<String> credentials, @NonNull MeterRegistry meterRegistry) {
+        this(channelFactory.createChannel(CHANNEL_NAME), credentials, meterRegistry);
     }
 
     @Generated
     @VisibleForTesting
     GrpcFactStore(Channel channel, Optional<String> credentials) {
+        this(channel, credentials, Metrics.globalRegistry);
+    }
+
+    private GrpcFactStore(Channel channel, Optional<String> credentials,
+            MeterRegistry meterRegistry) {
         this(RemoteFactStoreGrpc.newBlockingStub(channel), RemoteFactStoreGrpc.newStub(channel),
-                credentials);
+                credentials, meterRegistry);
     }
 
     private GrpcFactStore(RemoteFactStoreBlockingStub newBlockingStub, RemoteFactStoreStub newStub,
-            Optional<String> credentials) {
+            Optional<String> credentials, MeterRegistry meterRegistry) {
         blockingStub = newBlockingStub;
         stub = newStub;
+        metrics = new GrpcClientMetrics(meterRegistry);
 
         if (credentials.isPresent()) {
             String[] sa = credentials.get().split(":");
@@ -141,7 +172,7 @@ public void publish(@NonNull List<? extends Fact> factsToPublish) {
                 .collect(Collectors.toList());
         MSG_Facts mfs = MSG_Facts.newBuilder().addAllFact(mf).build();
         try {
-            blockingStub.publish(mfs);
+            metrics.timed("publish", () -> blockingStub.publish(mfs));
         } catch (StatusRuntimeException e) {
             if (e.getStatus().equals(Status.UNKNOWN)) {
                 throw FactcastRemoteException.from(e);
@@ -153,20 +184,90 @@ public void publish(@NonNull List<? extends Fact> factsToPublish) {
     @Override
     public Subscription subscribe(@NonNull SubscriptionRequestTO req,
             @NonNull FactObserver observer) {
+        if (req.hasAnyProjections() && !serverSupportsProjection) {
+            log.warn("{} Server does not support payload projection, full payloads will be sent",
+                    req);
+        }
+        if (req.hasAnyFilters() && !serverSupportsFilters) {
+            // the server would filter the facts as published, while we can
+            // only filter the facts as received (after transformation)
+            log.warn("{} Server does not support JsonPathFilters, facts will be filtered locally, "
+                    + "after transformation", req);
+            observer = filtered(observer, FactSpecMatcher.matchesAnyOf(req.specs()));
+        }
         SubscriptionImpl subscription = SubscriptionImpl.on(observer);
+        PartitionedDispatcher dispatcher = dispatchThreads > 0 ? new PartitionedDispatcher(
+                subscription, dispatchThreads) : null;
         StreamObserver<FactStoreProto.MSG_Notification> responseObserver = new ClientStreamObserver(
-                subscription);
+                subscription, dispatcher, metrics);
         ClientCall<MSG_SubscriptionRequest, MSG_Notification> call = stub.getChannel()
                 .newCall(RemoteFactStoreGrpc.getSubscribeMethod(), stub.getCallOptions()
-                        .withWaitForReady());
+                        .withWaitForReady()
+                        .withStreamTracerFactory(metrics.bytesReceived(() -> codec)));
         try {
-            asyncServerStreamingCall(call, converter.toProto(req), responseObserver);
+            // ClientStreamObserver is able to unpack batches, older servers
+            // will just ignore this
+            asyncServerStreamingCall(call, converter.toProto(req, true), responseObserver);
         } catch (StatusRuntimeException e) {
+            close(dispatcher);
             throw wrapRetryable(e);
         }
-        return subscription.onClose(() -> cancel(call));
+        return subscription.onClose(() -> {
+            cancel(call);
+            close(dispatcher);
+        });
+    }
+
+    @VisibleForTesting
+    static FactObserver filtered(FactObserver observer, Predicate<Fact> matcher) {
+        return new FilteringObserver(observer, matcher);
+    }
+
+    @RequiredArgsConstructor
+    private static class FilteringObserver implements FactObserver, DispatchAware {
+
+        final FactObserver observer;
+
+        final Predicate<Fact> matcher;
+
+        @Override
+        public void onDispatched(@NonNull Fact f) {
+            // facts filtered out will never be passed to the observer
+            if (observer instanceof DispatchAware && matcher.test(f)) {
+                ((DispatchAware) observer).onDispatched(f);
+            }
+        }
+
+        @Override
+        public void onNext(@NonNull Fact element) {
+            if (matcher.test(element)) {
+                observer.onNext(element);
+            }
+        }
+
+        @Override
+        public void onCatchup() {
+            observer.onCatchup();
+        }
+
+        @Override
+        public void onComplete() {
+            observer.onComplete();
+        }
+
+        @Override
+        public void onError(@NonNull Throwable exception) {
+            observer.onError(exception);
+        }
     }
 
+    private static void close(PartitionedDispatcher dispatcher) {
+        if (dispatcher != null) {
+            dispatcher.close();
+        }
+    }
+
+
     @VisibleForTesting
     void cancel(final ClientCall<MSG_SubscriptionRequest, MSG_Notification> call) {
         // cancel does not need to be retried.
@@ -200,6 +301,10 @@ public synchronized void initialize() {
             logProtocolVersion(serverProtocolVersion);
             logServerVersion(serverProperties);
             configureCompression(serverProperties.get(Capabilities.CODECS.toString()));
+            serverSupportsProjection = Boolean.parseBoolean(serverProperties.get(
+                    Capabilities.PAYLOAD_PROJECTION.toString()));
+            serverSupportsFilters = Boolean.parseBoolean(serverProperties.get(
+                    Capabilities.JSON_PATH_FILTER.toString()));
         }
     }
 
@@ -228,6 +333,7 @@ private static void logProtocolVersion(ProtocolVersion serverProtocolVersion) {
     void configureCompression(String codecListFromServer) {
         codecs.selectFrom(codecListFromServer).ifPresent(c -> {
             log.info("configuring Codec " + c);
+            codec = c;
             blockingStub = blockingStub.withCompression(c);
             stub = stub.withCompression(c);
         });
@@ -280,7 +386,8 @@ public boolean publishIfUnchanged(@NonNull List<? extends Fact> factsToPublish,
         MSG_ConditionalPublishRequest msg = converter.toProto(req);
         try {
 
-            MSG_ConditionalPublishResult r = blockingStub.publishConditional(msg);
+            MSG_ConditionalPublishResult r = metrics.timed("publishIfUnchanged",
+                    () -> blockingStub.publishConditional(msg));
             return r.getSuccess();
         } catch (StatusRuntimeException e) {
             throw wrapRetryable(e);
@@ -302,7 +409,7 @@ public StateToken stateFor(@NonNull Collection<UUID> forAggIds, @NonNull Optiona
         StateForRequest req = new StateForRequest(Lists.newArrayList(forAggIds), ns.orElse(null));
         MSG_StateForRequest msg = converter.toProto(req);
         try {
-            MSG_UUID result = blockingStub.stateFor(msg);
+            MSG_UUID result = metrics.timed("stateFor", () -> blockingStub.stateFor(msg));
             return new StateToken(converter.fromProto(result));
         } catch (StatusRuntimeException e) {
             throw wrapRetryable(e);
@@ -0,0 +1,80 @@
+/*
+ * Copyright © 2017-2020 factcast.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.factcast.client.grpc;
+
+import java.util.concurrent.TimeUnit;
+
+import org.factcast.core.subscription.SubscriptionMetrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.NonNull;
+
+/**
+ * Records the metrics of subscriptions made through
+ * {@link org.factcast.core.FactCast#subscribe} in a Micrometer registry.
+ */
+public class MicrometerSubscriptionMetrics implements SubscriptionMetrics {
+
+    static final String METER_RECONNECTS = "factcast.client.subscription.reconnects";
+
+    static final String METER_RECONNECT_FAILURES = "factcast.client.subscription.reconnect.failures";
+
+    static final String METER_DISCONNECTED = "factcast.client.subscription.disconnected";
+
+    static final String METER_HANDLER = "factcast.client.subscription.handler";
+
+    private final Counter reconnects;
+
+    private final Counter reconnectFailures;
+
+    private final Timer disconnected;
+
+    private final Timer handler;
+
+    public MicrometerSubscriptionMetrics(@NonNull MeterRegistry registry) {
+        reconnects = Counter.builder(METER_RECONNECTS)
+                .description("Subscriptions reestablished after being lost")
+                .register(registry);
+        reconnectFailures = Counter.builder(METER_RECONNECT_FAILURES)
+                .description("Failed attempts to reestablish a subscription")
+                .register(registry);
+        disconnected = Timer.builder(METER_DISCONNECTED)
+                .description("Time between losing and reestablishing a subscription")
+                .register(registry);
+        handler = Timer.builder(METER_HANDLER)
+                .description("Time spent in FactObserver.onNext")
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    @Override
+    public void reconnected(long disconnectedNanos) {
+        disconnected.record(disconnectedNanos, TimeUnit.NANOSECONDS);
+        reconnects.increment();
+    }
+
+    @Override
+    public void reconnectFailed() {
+        reconnectFailures.increment();
+    }
+
+    @Override
+    public void handled(long nanos) {
+        handler.record(nanos, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright © 2017-2020 factcast.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.factcast.client.grpc;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.factcast.core.Fact;
+import org.factcast.core.subscription.SubscriptionImpl;
+import org.factcast.core.subscription.TransformationException;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Decouples the transport from the FactObserver by handing facts to a number
+ * of worker threads, each with a bounded queue.
+ * <p>
+ * Facts are partitioned by the hash of their aggregate id, so that facts of
+ * the same aggregate are handled in order, while different aggregates are
+ * handled in parallel. Facts with no or more than one aggregate id act as a
+ * barrier: all workers are drained, before the fact is handled on the calling
+ * thread.
+ * <p>
+ * When a worker's queue is full, dispatch blocks, which slows down the
+ * transport (and thus the server) to the speed of the observer.
+ * <p>
+ * Signals (catchup, complete, error) must only be passed on to the
+ * subscription after {@link #drain()}.
+ * <p>
+ * As facts are handled out of order, every fact is announced to the
+ * subscription in order before (see
+ * {@link SubscriptionImpl#notifyDispatched(Fact)}). When a worker fails, the
+ * subscription is failed, and facts queued in the other partitions are
+ * skipped, to be passed again after a reconnect.
+ */
+@Slf4j
+class PartitionedDispatcher implements AutoCloseable {
+
+    static final int DEFAULT_QUEUE_CAPACITY = 1000;
+
+    // interval to recheck if the dispatcher was closed while blocking
+    private static final long CHECK_INTERVAL_IN_MILLIS = 100;
+
+    private static final ThreadFactory daemonThreads = new ThreadFactoryBuilder().setDaemon(true)
+            .setNameFormat("factcast-dispatch-%d")
+            .build();
+
+    @NonNull
+    private final SubscriptionImpl subscription;
+
+    private final BlockingQueue<Fact>[] queues;
+
+    private final ExecutorService workers;
+
+    // facts dispatched, but not yet handled
+    private final AtomicInteger pending = new AtomicInteger(0);
+
+    private final AtomicBoolean failed = new AtomicBoolean(false);
+
+    private volatile boolean closed = false;
+
+    PartitionedDispatcher(@NonNull SubscriptionImpl subscription, int threads) {
+        this(subscription, threads, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    @VisibleForTesting
+    @SuppressWarnings("unchecked")
+    PartitionedDispatcher(@NonNull SubscriptionImpl subscription, int threads,
+            int queueCapacity) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be > 0");
+        }
+        this.subscription = subscription;
+        queues = new BlockingQueue[threads];
+        workers = Executors.newFixedThreadPool(threads, daemonThreads);
+        for (int i = 0; i < threads; i++) {
+            BlockingQueue<Fact> queue = new ArrayBlockingQueue<>(queueCapacity);
+            queues[i] = queue;
+            workers.execute(() -> work(queue));
+        }
+    }
+
+    /**
+     * might block, if the partition's queue is full
+     */
+    void dispatch(@NonNull Fact f) throws TransformationException {
+        if (closed) {
+            return;
+        }
+        // so that a reconnect can resume after the facts handled in order
+        subscription.notifyDispatched(f);
+        Set<UUID> aggIds = f.aggIds();
+        if (aggIds == null || aggIds.size() != 1) {
+            drain();
+            subscription.notifyElement(f);
+            return;
+        }
+
+        BlockingQueue<Fact> queue = queues[partitionOf(aggIds.iterator().next())];
+        pending.incrementAndGet();
+        try {
+            while (!queue.offer(f, CHECK_INTERVAL_IN_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (closed) {
+                    pending.decrementAndGet();
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            pending.decrementAndGet();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @VisibleForTesting
+    int partitionOf(@NonNull UUID aggId) {
+        return Math.floorMod(aggId.hashCode(), queues.length);
+    }
+
+    /**
+     * Blocks until all facts dispatched so far are handled, or the dispatcher
+     * was closed.
+     */
+    void drain() {
+        synchronized (pending) {
+            try {
+                while (pending.get() > 0 && !closed) {
+                    pending.wait(CHECK_INTERVAL_IN_MILLIS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void work(BlockingQueue<Fact> queue) {
+        try {
+            while (!closed) {
+                Fact f = queue.take();
+                try {
+                    subscription.notifyElement(f);
+                } catch (Throwable e) {
+                    fail(e);
+                } finally {
+                    if (pending.decrementAndGet() == 0) {
+                        synchronized (pending) {
+                            pending.notifyAll();
+                        }
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            // closed
+        }
+    }
+
+    private void fail(Throwable e) {
+        // the subscription is closed on error, so that the remaining facts are
+        // skipped
+        if (!failed.getAndSet(true)) {
+            log.warn("Observer failed, closing subscription", e);
+            subscription.notifyError(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        workers.shutdownNow();
+    }
+}
@@ -20,6 +20,7 @@
 import static org.mockito.Mockito.*;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.UUID;
 
 import org.factcast.core.Fact;
@@ -33,9 +34,12 @@
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
 @ExtendWith(MockitoExtension.class)
 class ClientStreamObserverTest {
 
@@ -56,6 +60,18 @@ void setUp() {
         uut = new ClientStreamObserver(subscription);
     }
 
+    @Test
+    void testCountsFactsReceived() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        uut = new ClientStreamObserver(subscription, null, new GrpcClientMetrics(registry));
+        Fact f = Fact.of("{\"ns\":\"ns\",\"id\":\"" + UUID.randomUUID() + "\"}", "{}");
+
+        uut.onNext(converter.createNotificationFor(f));
+
+        verify(factObserver).onNext(any());
+        assertEquals(1, registry.counter(GrpcClientMetrics.METRIC_NAME_FACTS).count());
+    }
+
     @Test
     void testConstructorNull() {
         Assertions.assertThrows(NullPointerException.class, () -> new ClientStreamObserver(null));
@@ -69,6 +85,18 @@ void testOnNext() {
         verify(factObserver).onNext(eq(f));
     }
 
+    @Test
+    void testOnNextBatch() {
+        Fact f1 = Fact.of("{\"ns\":\"ns\",\"id\":\"" + UUID.randomUUID() + "\"}", "{}");
+        Fact f2 = Fact.of("{\"ns\":\"ns\",\"id\":\"" + UUID.randomUUID() + "\"}", "{}");
+        MSG_Notification n = converter.createNotificationFor(converter.toProto(Arrays.asList(f1,
+                f2)));
+        uut.onNext(n);
+        InOrder inOrder = inOrder(factObserver);
+        inOrder.verify(factObserver).onNext(eq(f1));
+        inOrder.verify(factObserver).onNext(eq(f2));
+    }
+
     @Test
     void testOnNextFailsOnUnknownMessage() {
         assertThrows(IllegalArgumentException.class, () -> {
@@ -106,4 +134,37 @@ void testOnError() {
         uut.onError(new IOException());
         verify(factObserver).onError(any());
     }
+
+    @Test
+    void testDispatchesAndDrainsBeforeSignals() throws Exception {
+        PartitionedDispatcher dispatcher = mock(PartitionedDispatcher.class);
+        uut = new ClientStreamObserver(subscription, dispatcher);
+        Fact f = Fact.of("{\"ns\":\"ns\",\"id\":\"" + UUID.randomUUID() + "\"}", "{}");
+
+        uut.onNext(converter.createNotificationFor(f));
+        uut.onNext(converter.createCatchupNotification());
+        uut.onNext(converter.createCompleteNotification());
+
+        InOrder inOrder = inOrder(dispatcher, factObserver);
+        inOrder.verify(dispatcher).dispatch(eq(f));
+        inOrder.verify(dispatcher).drain();
+        inOrder.verify(factObserver).onCatchup();
+        inOrder.verify(dispatcher).drain();
+        inOrder.verify(factObserver).onComplete();
+        inOrder.verify(dispatcher).close();
+        verify(factObserver, never()).onNext(any());
+    }
+
+    @Test
+    void testDrainsBeforeError() {
+        PartitionedDispatcher dispatcher = mock(PartitionedDispatcher.class);
+        uut = new ClientStreamObserver(subscription, dispatcher);
+
+        uut.onError(new IOException());
+
+        InOrder inOrder = inOrder(dispatcher, factObserver);
+        inOrder.verify(dispatcher).drain();
+        inOrder.verify(factObserver).onError(any());
+        inOrder.verify(dispatcher).close();
+    }
 }
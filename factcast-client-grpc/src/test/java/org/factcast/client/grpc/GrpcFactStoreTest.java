@@ -32,6 +32,9 @@
 
 import org.assertj.core.util.Lists;
 import org.factcast.core.Fact;
+import org.factcast.core.spec.FactSpec;
+import org.factcast.core.spec.FactSpecMatcher;
+import org.factcast.core.spec.JsonPathFilter;
 import org.factcast.core.store.RetryableException;
 import org.factcast.core.store.StateToken;
 import org.factcast.core.subscription.SubscriptionRequestTO;
@@ -55,6 +58,7 @@
 import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import com.google.common.collect.Sets;
@@ -63,6 +67,8 @@
 import io.grpc.ClientCall;
 import io.grpc.Status;
 import io.grpc.StatusRuntimeException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 @SuppressWarnings("OptionalUsedAsFieldOrParameterType")
 @ExtendWith(MockitoExtension.class)
@@ -77,6 +83,9 @@ class GrpcFactStoreTest {
     @Mock
     private RemoteFactStoreStub stub;
 
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     @Mock
     private FactCastGrpcChannelFactory factory;
 
@@ -102,6 +111,27 @@ void testPublish() {
         assertEquals(fact.id(), published.id());
     }
 
+    @Test
+    void testPublishIsTimed() {
+        when(blockingStub.publish(any())).thenReturn(MSG_Empty.newBuilder().build())
+                .thenThrow(new StatusRuntimeException(Status.PERMISSION_DENIED));
+
+        uut.publish(Collections.singletonList(new TestFact()));
+        assertThrows(StatusRuntimeException.class, () -> uut.publish(Collections.singletonList(
+                new TestFact())));
+
+        assertEquals(1, meterRegistry.get(GrpcClientMetrics.METRIC_NAME_CALLS)
+                .tags(GrpcClientMetrics.TAG_METHOD_KEY, "publish", GrpcClientMetrics.TAG_STATUS_KEY,
+                        "OK")
+                .timer()
+                .count());
+        assertEquals(1, meterRegistry.get(GrpcClientMetrics.METRIC_NAME_CALLS)
+                .tags(GrpcClientMetrics.TAG_METHOD_KEY, "publish", GrpcClientMetrics.TAG_STATUS_KEY,
+                        "PERMISSION_DENIED")
+                .timer()
+                .count());
+    }
+
     @Test
     void testPublishNullParameter() {
         assertThrows(NullPointerException.class, () -> uut.publish(null));
@@ -487,4 +517,40 @@ void testCurrentTimePropagatesRetryableExceptionOnUnavailableStatus() {
                 Status.UNAVAILABLE));
         assertThrows(RetryableException.class, () -> uut.enumerateNamespaces());
     }
+
+    @Test
+    void testFilteredObserver() {
+        FactObserver observer = mock(FactObserver.class);
+        Fact hit = new TestFact();
+        Fact miss = new TestFact();
+        FactObserver filtered = GrpcFactStore.filtered(observer, f -> f == hit);
+
+        filtered.onNext(hit);
+        filtered.onNext(miss);
+        filtered.onCatchup();
+        filtered.onComplete();
+
+        verify(observer).onNext(hit);
+        verify(observer, never()).onNext(miss);
+        verify(observer).onCatchup();
+        verify(observer).onComplete();
+    }
+
+    @Test
+    void testLocalFilterMatchesFactsAsReceived() {
+        FactObserver observer = mock(FactObserver.class);
+        FactObserver filtered = GrpcFactStore.filtered(observer, FactSpecMatcher.matchesAnyOf(
+                Collections.singletonList(FactSpec.ns("test").filter(JsonPathFilter.payload(
+                        "total").gte(100)))));
+        // as transformed to the requested version, no matter what the
+        // published version contained
+        Fact hit = Fact.builder().ns("test").version(2).build("{\"total\":150}");
+        Fact miss = Fact.builder().ns("test").version(2).build("{\"total\":50}");
+
+        filtered.onNext(hit);
+        filtered.onNext(miss);
+
+        verify(observer).onNext(hit);
+        verify(observer, never()).onNext(miss);
+    }
 }
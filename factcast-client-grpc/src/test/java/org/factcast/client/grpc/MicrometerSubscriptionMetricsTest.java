@@ -0,0 +1,57 @@
+/*
+ * Copyright © 2017-2020 factcast.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.factcast.client.grpc;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class MicrometerSubscriptionMetricsTest {
+
+    final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    final MicrometerSubscriptionMetrics uut = new MicrometerSubscriptionMetrics(registry);
+
+    @Test
+    void testReconnected() {
+        uut.reconnected(TimeUnit.SECONDS.toNanos(2));
+
+        assertThat(registry.counter(MicrometerSubscriptionMetrics.METER_RECONNECTS).count())
+                .isEqualTo(1);
+        assertThat(registry.timer(MicrometerSubscriptionMetrics.METER_DISCONNECTED).totalTime(
+                TimeUnit.SECONDS)).isEqualTo(2);
+    }
+
+    @Test
+    void testReconnectFailed() {
+        uut.reconnectFailed();
+
+        assertThat(registry.counter(MicrometerSubscriptionMetrics.METER_RECONNECT_FAILURES)
+                .count()).isEqualTo(1);
+    }
+
+    @Test
+    void testHandled() {
+        uut.handled(1000);
+
+        assertThat(registry.timer(MicrometerSubscriptionMetrics.METER_HANDLER).count())
+                .isEqualTo(1);
+    }
+}
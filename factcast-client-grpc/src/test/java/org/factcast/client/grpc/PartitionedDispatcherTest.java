@@ -0,0 +1,244 @@
+/*
+ * Copyright © 2017-2020 factcast.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.factcast.client.grpc;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.factcast.core.Fact;
+import org.factcast.core.spec.FactSpec;
+import org.factcast.core.store.FactStore;
+import org.factcast.core.subscription.ReconnectingFactSubscriptionWrapper;
+import org.factcast.core.subscription.Subscription;
+import org.factcast.core.subscription.SubscriptionImpl;
+import org.factcast.core.subscription.SubscriptionRequest;
+import org.factcast.core.subscription.SubscriptionRequestTO;
+import org.factcast.core.subscription.observer.FactObserver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class PartitionedDispatcherTest {
+
+    @Mock
+    FactObserver observer;
+
+    PartitionedDispatcher uut;
+
+    @AfterEach
+    void tearDown() {
+        if (uut != null) {
+            uut.close();
+        }
+    }
+
+    private static Fact fact(UUID... aggIds) {
+        Fact.Builder b = Fact.builder().ns("test");
+        for (UUID aggId : aggIds) {
+            b.aggId(aggId);
+        }
+        return b.build("{}");
+    }
+
+    @Test
+    void testRejectsZeroThreads() {
+        assertThatThrownBy(() -> new PartitionedDispatcher(SubscriptionImpl.on(observer), 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void testKeepsOrderPerAggregate() throws Exception {
+        Map<UUID, List<Fact>> received = new ConcurrentHashMap<>();
+        doAnswer(i -> {
+            Fact f = i.getArgument(0);
+            received.computeIfAbsent(f.aggIds().iterator().next(), k -> Collections
+                    .synchronizedList(new ArrayList<>())).add(f);
+            return null;
+        }).when(observer).onNext(any());
+        uut = new PartitionedDispatcher(SubscriptionImpl.on(observer), 4, 2);
+
+        List<UUID> aggIds = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            aggIds.add(UUID.randomUUID());
+        }
+        Map<UUID, List<Fact>> sent = new ConcurrentHashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            UUID aggId = aggIds.get(i % aggIds.size());
+            Fact f = fact(aggId);
+            sent.computeIfAbsent(aggId, k -> new ArrayList<>()).add(f);
+            uut.dispatch(f);
+        }
+        uut.drain();
+
+        assertThat(received).isEqualTo(sent);
+    }
+
+    @Test
+    void testHandlesPartitionsConcurrently() throws Exception {
+        uut = new PartitionedDispatcher(SubscriptionImpl.on(observer), 2);
+        UUID a = UUID.randomUUID();
+        UUID b = UUID.randomUUID();
+        while (uut.partitionOf(b) == uut.partitionOf(a)) {
+            b = UUID.randomUUID();
+        }
+        // both need to be handled at the same time to pass the latch
+        CountDownLatch bothRunning = new CountDownLatch(2);
+        AtomicInteger passed = new AtomicInteger(0);
+        doAnswer(i -> {
+            bothRunning.countDown();
+            if (bothRunning.await(1, TimeUnit.SECONDS)) {
+                passed.incrementAndGet();
+            }
+            return null;
+        }).when(observer).onNext(any());
+
+        uut.dispatch(fact(a));
+        uut.dispatch(fact(b));
+        uut.drain();
+
+        assertThat(passed.get()).isEqualTo(2);
+    }
+
+    @Test
+    void testFactsWithoutSingleAggIdWaitForOthers() throws Exception {
+        List<Fact> received = Collections.synchronizedList(new ArrayList<>());
+        doAnswer(i -> {
+            Fact f = i.getArgument(0);
+            if (f.aggIds().size() == 1) {
+                Thread.sleep(50);
+            }
+            received.add(f);
+            return null;
+        }).when(observer).onNext(any());
+        uut = new PartitionedDispatcher(SubscriptionImpl.on(observer), 2);
+
+        Fact single = fact(UUID.randomUUID());
+        Fact none = fact();
+        Fact multiple = fact(UUID.randomUUID(), UUID.randomUUID());
+        uut.dispatch(single);
+        uut.dispatch(none);
+        uut.dispatch(multiple);
+
+        // the barrier facts are passed on this thread
+        assertThat(received).containsExactly(single, none, multiple);
+    }
+
+    @Test
+    void testFailureIsReportedOnce() throws Exception {
+        SubscriptionImpl subscription = SubscriptionImpl.on(observer);
+        doThrow(new IllegalStateException("boom")).when(observer).onNext(any());
+        uut = new PartitionedDispatcher(subscription, 2);
+
+        uut.dispatch(fact(UUID.randomUUID()));
+        uut.dispatch(fact(UUID.randomUUID()));
+        uut.drain();
+
+        verify(observer).onError(any(IllegalStateException.class));
+        assertThat(subscription.isClosed()).isTrue();
+    }
+
+    @Test
+    void testDispatchAfterCloseIsIgnored() throws Exception {
+        uut = new PartitionedDispatcher(SubscriptionImpl.on(observer), 1, 1);
+        uut.close();
+
+        uut.dispatch(fact(UUID.randomUUID()));
+        uut.drain();
+
+        verifyNoInteractions(observer);
+    }
+
+    @Test
+    void testReconnectsBeforeFactsNotHandledInOtherPartitions() throws Exception {
+        UUID slow = UUID.randomUUID();
+        UUID failing = inOtherPartition(slow);
+        Fact f1 = fact(1, failing);
+        Fact f2 = fact(2, slow);
+        Fact f3 = fact(3, failing);
+        Fact f4 = fact(4, failing);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(i -> {
+            UUID id = i.<Fact> getArgument(0).id();
+            if (id.equals(f2.id())) {
+                release.await();
+            } else if (id.equals(f4.id())) {
+                throw new IllegalStateException("boom");
+            }
+            return null;
+        }).when(observer).onNext(any());
+
+        FactStore store = mock(FactStore.class);
+        when(store.subscribe(any(), any())).thenAnswer(i -> {
+            SubscriptionImpl subscription = SubscriptionImpl.on(i.<FactObserver> getArgument(1));
+            uut = new PartitionedDispatcher(subscription, 2);
+            return subscription.onClose(uut::close);
+        }).thenReturn(mock(Subscription.class));
+        ReconnectingFactSubscriptionWrapper wrapper = new ReconnectingFactSubscriptionWrapper(
+                store, SubscriptionRequestTO.forFacts(SubscriptionRequest.follow(FactSpec.ns(
+                        "test")).fromScratch()), observer);
+        try {
+            uut.dispatch(f1);
+            uut.dispatch(f2);
+            uut.dispatch(f3);
+            uut.dispatch(f4);
+
+            ArgumentCaptor<SubscriptionRequestTO> req = ArgumentCaptor.forClass(
+                    SubscriptionRequestTO.class);
+            verify(store, timeout(5000).times(2)).subscribe(req.capture(), any());
+            // f2 is still pending, and f4 failed
+            SubscriptionRequestTO reconnect = req.getAllValues().get(1);
+            assertThat(reconnect.startingAfterSerial()).isEqualTo(OptionalLong.of(1));
+            assertThat(reconnect.startingAfter()).contains(f1.id());
+        } finally {
+            release.countDown();
+            wrapper.close();
+        }
+    }
+
+    private static Fact fact(long serial, UUID aggId) {
+        return Fact.builder().ns("test").aggId(aggId).meta("_ser", String.valueOf(serial)).build(
+                "{}");
+    }
+
+    private UUID inOtherPartition(UUID aggId) {
+        PartitionedDispatcher probe = new PartitionedDispatcher(SubscriptionImpl.on(observer), 2);
+        try {
+            UUID other;
+            do {
+                other = UUID.randomUUID();
+            } while (probe.partitionOf(other) == probe.partitionOf(aggId));
+            return other;
+        } finally {
+            probe.close();
+        }
+    }
+}
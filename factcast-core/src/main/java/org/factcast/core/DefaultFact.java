@@ -63,6 +63,13 @@ public String toString() {
 
     transient Header deserializedHeader;
 
+    // true, if deserializedHeader was built from known fields, rather than
+    // parsed from jsonHeader, so that meta needs to be parsed on demand
+    transient volatile boolean metaPending = false;
+
+    // 0 if unknown, so that it is taken from meta
+    transient long knownSerial = 0;
+
     // needed for Externalizable – do not use !
     @Deprecated
     public DefaultFact() {
@@ -72,6 +79,24 @@ public static Fact of(@NonNull String jsonHeader, @NonNull String jsonPayload) {
         return new DefaultFact(jsonHeader, jsonPayload);
     }
 
+    /**
+     * Creates a Fact from header fields that are already known, so that the
+     * jsonHeader only needs to be parsed if meta data is requested.
+     */
+    public static Fact of(@NonNull String jsonHeader, @NonNull String jsonPayload,
+            @NonNull UUID id, @NonNull String ns, String type, int version,
+            @NonNull Set<UUID> aggIds, long serial) {
+        Header h = new Header().id(id).ns(ns).type(type).version(version).aggIds(aggIds);
+        DefaultFact f = new DefaultFact();
+        f.jsonHeader = jsonHeader;
+        f.jsonPayload = jsonPayload;
+        f.deserializedHeader = h;
+        f.knownSerial = serial;
+        f.metaPending = true;
+        f.validate();
+        return f;
+    }
+
     @SneakyThrows
     protected DefaultFact(String jsonHeader, String jsonPayload) {
         this.jsonHeader = jsonHeader;
@@ -131,9 +156,23 @@ static class Header {
 
     @Override
     public String meta(String key) {
+        if (metaPending) {
+            // replacing the header as a whole is idempotent, so no need to
+            // synchronize here
+            deserializedHeader = FactCastJson.readValue(Header.class, jsonHeader);
+            metaPending = false;
+        }
         return deserializedHeader.meta.get(key);
     }
 
+    @Override
+    public long serial() {
+        if (knownSerial > 0) {
+            return knownSerial;
+        }
+        return Fact.super.serial();
+    }
+
     @Override
     public void writeExternal(ObjectOutput out) throws IOException {
         // write only header & payload
@@ -25,6 +25,7 @@
 import org.factcast.core.subscription.ReconnectingFactSubscriptionWrapper;
 import org.factcast.core.subscription.Subscription;
 import org.factcast.core.subscription.SubscriptionRequest;
+import org.factcast.core.subscription.SubscriptionMetrics;
 import org.factcast.core.subscription.SubscriptionRequestTO;
 import org.factcast.core.subscription.observer.FactObserver;
 
@@ -42,6 +43,13 @@ class DefaultFactCast implements FactCast {
     @NonNull
     final FactStore store;
 
+    @NonNull
+    final SubscriptionMetrics subscriptionMetrics;
+
+    DefaultFactCast(@NonNull FactStore store) {
+        this(store, SubscriptionMetrics.NOP);
+    }
+
     @Override
     @NonNull
     public Subscription subscribeEphemeral(@NonNull SubscriptionRequest req,
@@ -88,6 +96,6 @@ public Subscription subscribe(@NonNull SubscriptionRequest request,
             @NonNull FactObserver observer) {
         return new ReconnectingFactSubscriptionWrapper(store, SubscriptionRequestTO.forFacts(
                 request),
-                observer);
+                observer, subscriptionMetrics);
     }
 }
@@ -20,6 +20,7 @@
 
 import org.factcast.core.lock.LockedOperationBuilder;
 import org.factcast.core.store.FactStore;
+import org.factcast.core.subscription.SubscriptionMetrics;
 
 import lombok.NonNull;
 
@@ -44,6 +45,16 @@ static FactCast from(@NonNull FactStore store) {
         return new DefaultFactCast(store);
     }
 
+    /**
+     * @param subscriptionMetrics
+     *            to record subscription metrics (like the time spent in
+     *            observers) to
+     */
+    static FactCast from(@NonNull FactStore store,
+            @NonNull SubscriptionMetrics subscriptionMetrics) {
+        return new DefaultFactCast(store, subscriptionMetrics);
+    }
+
     static ReadFactCast fromReadOnly(@NonNull FactStore store) {
         return new DefaultFactCast(store);
     }
@@ -15,7 +15,10 @@
  */
 package org.factcast.core.spec;
 
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
@@ -59,11 +62,32 @@ public class FactSpec {
     @JsonProperty
     final Map<String, String> meta = new HashMap<>();
 
+    /**
+     * declarative filters, that all have to match. Other than filterScripts,
+     * these can be evaluated by the store (see {@link JsonPathFilter}).
+     */
+    @NonNull
+    @JsonProperty
+    final List<JsonPathFilter> filters = new LinkedList<>();
+
+    /**
+     * optional list of dot-separated paths into the payload. If set, the
+     * server may reduce the payload of matching facts to just these paths
+     * (see {@link PayloadProjection}).
+     */
+    @JsonProperty
+    List<String> projection = null;
+
     public FactSpec meta(@NonNull String k, @NonNull String v) {
         meta.put(k, v);
         return this;
     }
 
+    public FactSpec filter(@NonNull JsonPathFilter... f) {
+        filters.addAll(Arrays.asList(f));
+        return this;
+    }
+
     public static FactSpec ns(String ns) {
         return new FactSpec(ns);
     }
@@ -115,6 +139,19 @@ else if (filterScript == null && jsFilterScript != null)
             return null;
     }
 
+    public List<String> projection() {
+        return projection;
+    }
+
+    public FactSpec projection(List<String> paths) {
+        this.projection = paths;
+        return this;
+    }
+
+    public FactSpec projection(@NonNull String... paths) {
+        return projection(Arrays.asList(paths));
+    }
+
     public static <T> FactSpec from(Class<T> clazz) {
         Specification annotationSpec = clazz.getAnnotation(Specification.class);
 
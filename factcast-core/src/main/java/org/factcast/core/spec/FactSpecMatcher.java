@@ -19,14 +19,13 @@
 import java.util.Map;
 import java.util.UUID;
 import java.util.function.Predicate;
-import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
-import javax.script.ScriptEngine;
-
 import org.factcast.core.Fact;
+import org.factcast.core.spec.JsonPathFilter.Source;
+import org.factcast.core.util.FactCastJson;
 
-import com.fasterxml.jackson.databind.util.LRUMap;
+import com.fasterxml.jackson.databind.JsonNode;
 
 import lombok.Generated;
 import lombok.NonNull;
@@ -39,9 +38,6 @@
  */
 public final class FactSpecMatcher implements Predicate<Fact> {
 
-    private static final LRUMap<FilterScript, ScriptEngine> scriptEngineCache = new LRUMap<>(10,
-            200);
-
     @NonNull
     final String ns;
 
@@ -53,11 +49,11 @@ public final class FactSpecMatcher implements Predicate<Fact> {
 
     final Map<String, String> meta;
 
-    final FilterScript script;
+    final List<JsonPathFilter> headerFilters;
 
-    final ScriptEngine scriptEngine;
+    final List<JsonPathFilter> payloadFilters;
 
-    private static final Supplier<ScriptEngine> jsScriptEngineSupplier = new JavaScriptEngineSupplier();
+    final FilterScript script;
 
     public FactSpecMatcher(@NonNull FactSpec spec) {
         // opt: prevent method calls by prefetching to final fields.
@@ -70,8 +66,19 @@ public FactSpecMatcher(@NonNull FactSpec spec) {
         version = spec.version();
         aggId = spec.aggId();
         meta = spec.meta();
+        headerFilters = spec.filters()
+                .stream()
+                .filter(f -> f.source() == Source.HEADER)
+                .collect(Collectors.toList());
+        payloadFilters = spec.filters()
+                .stream()
+                .filter(f -> f.source() == Source.PAYLOAD)
+                .collect(Collectors.toList());
         script = spec.filterScript();
-        scriptEngine = getEngine(script);
+        if (script != null) {
+            // fail early on unsupported or broken scripts
+            FilterScriptEngines.get(script);
+        }
     }
 
     @Override
@@ -81,6 +88,7 @@ public boolean test(Fact t) {
         match = match && versionMatch(t);
         match = match && aggIdMatch(t);
         match = match && metaMatch(t);
+        match = match && filterMatch(t);
         match = match && scriptMatch(t);
         return match;
     }
@@ -120,38 +128,35 @@ protected boolean aggIdMatch(Fact t) {
     }
 
     @SneakyThrows
-    @Generated
-    protected boolean scriptMatch(Fact t) {
-        if (script == null) {
-            return true;
+    protected boolean filterMatch(Fact t) {
+        if (!headerFilters.isEmpty()) {
+            JsonNode header = FactCastJson.readTree(t.jsonHeader());
+            for (JsonPathFilter f : headerFilters) {
+                if (!f.test(header)) {
+                    return false;
+                }
+            }
         }
-        return (Boolean) scriptEngine.eval("test(" + t.jsonHeader() + "," + t.jsonPayload() + ")");
+        if (!payloadFilters.isEmpty()) {
+            JsonNode payload = FactCastJson.readTree(t.jsonPayload());
+            for (JsonPathFilter f : payloadFilters) {
+                if (!f.test(payload)) {
+                    return false;
+                }
+            }
+        }
+        return true;
     }
 
     @SneakyThrows
     @Generated
-    private static synchronized ScriptEngine getEngine(FilterScript filterScript) {
-        if (filterScript == null) {
-            return null;
-        }
-
-        // TODO: currently only supports language js:
-        if ("js".equals(filterScript.languageIdentifier())) {
-
-            ScriptEngine cachedEngine = scriptEngineCache.get(filterScript);
-            if (cachedEngine != null) {
-                return cachedEngine;
-            } else {
-                ScriptEngine engine = jsScriptEngineSupplier.get();
-                engine.eval("var test=" + filterScript.source());
-                scriptEngineCache.put(filterScript, engine);
-                return engine;
-            }
-        } else {
-            // TODO really?
-            throw new IllegalArgumentException("Unsupported Script language: " + filterScript
-                    .languageIdentifier());
+    protected boolean scriptMatch(Fact t) {
+        if (script == null) {
+            return true;
         }
+        // functions are bound to the calling thread, so matchers can be shared
+        return FilterScriptEngines.test(script, FactCastJson.readTree(t.jsonHeader()),
+                FactCastJson.readTree(t.jsonPayload()));
     }
 
     public static Predicate<Fact> matchesAnyOf(@NonNull List<FactSpec> spec) {
@@ -0,0 +1,130 @@
+/*
+ * Copyright © 2017-2020 factcast.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.factcast.core.spec;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.script.Bindings;
+import javax.script.Compilable;
+import javax.script.CompiledScript;
+import javax.script.ScriptEngine;
+import javax.script.ScriptException;
+
+import org.factcast.core.util.JsonNodeBridge;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import jdk.nashorn.api.scripting.ScriptObjectMirror;
+import lombok.NonNull;
+import lombok.SneakyThrows;
+
+/**
+ * Runs filter scripts on one shared script engine.
+ * <p>
+ * Scripts are compiled once and shared between all threads, while each thread
+ * evaluates them into its own global scope, so that filters can run in
+ * parallel. Only compiling and creating scopes is synchronized on the engine,
+ * which happens once per script and thread. Header and payload are passed as
+ * already parsed nodes (see {@link JsonNodeBridge}), rather than as JSON to be
+ * parsed within the engine.
+ */
+final class FilterScriptEngines {
+
+    /**
+     * name of the variable the filter function is assigned to
+     */
+    static final String FUNCTION = "__factcast_filter";
+
+    private static final int COMPILED_SCRIPT_CACHE_CAPACITY = 128;
+
+    private static final int FUNCTION_CACHE_CAPACITY_PER_THREAD = 50;
+
+    private static final ScriptEngine engine = new JavaScriptEngineSupplier().get();
+
+    // guarded by engine
+    private static final Map<FilterScript, CompiledScript> compiledScripts = lru(
+            COMPILED_SCRIPT_CACHE_CAPACITY);
+
+    private static final ThreadLocal<Map<FilterScript, ScriptObjectMirror>> functions = ThreadLocal
+            .withInitial(() -> lru(FUNCTION_CACHE_CAPACITY_PER_THREAD));
+
+    private FilterScriptEngines() {
+    }
+
+    /**
+     * @return the filter function for the given script, that is only to be
+     *         used on the calling thread
+     */
+    @SneakyThrows
+    static ScriptObjectMirror get(@NonNull FilterScript filterScript) {
+        Map<FilterScript, ScriptObjectMirror> cache = functions.get();
+        ScriptObjectMirror function = cache.get(filterScript);
+        if (function == null) {
+            function = create(filterScript);
+            cache.put(filterScript, function);
+        }
+        return function;
+    }
+
+    /**
+     * evaluates the given script against the header and payload of a fact
+     */
+    static boolean test(@NonNull FilterScript filterScript, @NonNull JsonNode header,
+            @NonNull JsonNode payload) {
+        Object result = get(filterScript).call(null, JsonNodeBridge.toJava(header),
+                JsonNodeBridge.toJava(payload));
+        return Boolean.TRUE.equals(result);
+    }
+
+    private static ScriptObjectMirror create(FilterScript filterScript) throws ScriptException {
+        // TODO: currently only supports language js:
+        if (!"js".equals(filterScript.languageIdentifier())) {
+            // TODO really?
+            throw new IllegalArgumentException("Unsupported Script language: " + filterScript
+                    .languageIdentifier());
+        }
+        Bindings global;
+        CompiledScript script;
+        // the engine itself is not thread-safe, only evaluating into separate
+        // global scopes is
+        synchronized (engine) {
+            global = engine.createBindings();
+            script = compiledScripts.get(filterScript);
+            if (script == null) {
+                script = ((Compilable) engine).compile("var " + FUNCTION + "=" + filterScript
+                        .source() + ";");
+                compiledScripts.put(filterScript, script);
+            }
+        }
+        script.eval(global);
+        Object f = global.get(FUNCTION);
+        if (!(f instanceof ScriptObjectMirror && ((ScriptObjectMirror) f).isFunction())) {
+            throw new ScriptException("Filter script does not evaluate to a function");
+        }
+        return (ScriptObjectMirror) f;
+    }
+
+    @SuppressWarnings("serial")
+    private static <V> Map<FilterScript, V> lru(int capacity) {
+        return new LinkedHashMap<FilterScript, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<FilterScript, V> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright © 2017-2020 factcast.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.factcast.core.spec;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Declarative filter on a value in the header or payload of a fact, that -
+ * unlike a {@link FilterScript} - can be evaluated by the store itself.
+ * <p>
+ * The path is a dot-separated list of property names (the member-access
+ * subset of JSONPath, without the leading "$."). Equality is supported for
+ * strings, numbers and booleans, range comparisons for numbers and strings.
+ * Values of a different type never match, numbers are compared by value and
+ * strings by code point.
+ * <p>
+ * Payload filters apply to the payload as published, before any
+ * transformation.
+ *
+ * <pre>
+ * FactSpec.ns("orders").filter(JsonPathFilter.payload("amount").gte(100));
+ * </pre>
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class JsonPathFilter {
+
+    public enum Source {
+        HEADER, PAYLOAD
+    }
+
+    public enum Operator {
+        EQ, LT, LTE, GT, GTE
+    }
+
+    @NonNull
+    Source source;
+
+    @NonNull
+    String path;
+
+    @NonNull
+    Operator operator;
+
+    @NonNull
+    JsonNode value;
+
+    public static Builder header(@NonNull String path) {
+        return new Builder(Source.HEADER, path);
+    }
+
+    public static Builder payload(@NonNull String path) {
+        return new Builder(Source.PAYLOAD, path);
+    }
+
+    public List<String> pathSegments() {
+        return Arrays.asList(path.split("\\."));
+    }
+
+    /**
+     * @param root
+     *            header or payload (depending on {@link #source()}) of the fact
+     *            to test
+     */
+    public boolean test(JsonNode root) {
+        JsonNode actual = root;
+        for (String segment : pathSegments()) {
+            if (actual == null || !actual.isObject()) {
+                return false;
+            }
+            actual = actual.get(segment);
+        }
+        if (actual == null) {
+            return false;
+        }
+
+        if (operator == Operator.EQ) {
+            if (actual.isNumber() && value.isNumber()) {
+                return actual.decimalValue().compareTo(value.decimalValue()) == 0;
+            }
+            return actual.equals(value);
+        }
+
+        int c;
+        if (actual.isNumber() && value.isNumber()) {
+            c = actual.decimalValue().compareTo(value.decimalValue());
+        } else if (actual.isTextual() && value.isTextual()) {
+            c = actual.textValue().compareTo(value.textValue());
+        } else {
+            return false;
+        }
+        switch (operator) {
+        case LT:
+            return c < 0;
+        case LTE:
+            return c <= 0;
+        case GT:
+            return c > 0;
+        case GTE:
+            return c >= 0;
+        default:
+            throw new IllegalStateException("Unexpected operator " + operator);
+        }
+    }
+
+    @RequiredArgsConstructor
+    public static class Builder {
+
+        private static final JsonNodeFactory nodes = JsonNodeFactory.instance;
+
+        @NonNull
+        private final Source source;
+
+        @NonNull
+        private final String path;
+
+        public JsonPathFilter eq(@NonNull String value) {
+            return new JsonPathFilter(source, path, Operator.EQ, nodes.textNode(value));
+        }
+
+        public JsonPathFilter eq(@NonNull Number value) {
+            return new JsonPathFilter(source, path, Operator.EQ, number(value));
+        }
+
+        public JsonPathFilter eq(boolean value) {
+            return new JsonPathFilter(source, path, Operator.EQ, nodes.booleanNode(value));
+        }
+
+        public JsonPathFilter lt(@NonNull Number value) {
+            return new JsonPathFilter(source, path, Operator.LT, number(value));
+        }
+
+        public JsonPathFilter lt(@NonNull String value) {
+            return new JsonPathFilter(source, path, Operator.LT, nodes.textNode(value));
+        }
+
+        public JsonPathFilter lte(@NonNull Number value) {
+            return new JsonPathFilter(source, path, Operator.LTE, number(value));
+        }
+
+        public JsonPathFilter lte(@NonNull String value) {
+            return new JsonPathFilter(source, path, Operator.LTE, nodes.textNode(value));
+        }
+
+        public JsonPathFilter gt(@NonNull Number value) {
+            return new JsonPathFilter(source, path, Operator.GT, number(value));
+        }
+
+        public JsonPathFilter gt(@NonNull String value) {
+            return new JsonPathFilter(source, path, Operator.GT, nodes.textNode(value));
+        }
+
+        public JsonPathFilter gte(@NonNull Number value) {
+            return new JsonPathFilter(source, path, Operator.GTE, number(value));
+        }
+
+        public JsonPathFilter gte(@NonNull String value) {
+            return new JsonPathFilter(source, path, Operator.GTE, nodes.textNode(value));
+        }
+
+        private static JsonNode number(Number value) {
+            return nodes.numberNode(new BigDecimal(value.toString()));
+        }
+    }
+}
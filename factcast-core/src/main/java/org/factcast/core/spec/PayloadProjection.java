@@ -0,0 +1,219 @@
+/*
+ * Copyright © 2017-2020 factcast.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.factcast.core.spec;
+
+import java.io.StringWriter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import org.factcast.core.Fact;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.filter.FilteringGeneratorDelegate;
+import com.fasterxml.jackson.core.filter.TokenFilter;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+
+/**
+ * Reduces the payload of a fact to the paths requested by the
+ * {@link FactSpec#projection()} of the specs it matches.
+ * <p>
+ * Matching is done on ns and type only, as this is applied after filtering
+ * (and transformation) already happened. If any of the matching specs does
+ * not define a projection, the fact is passed unchanged.
+ * <p>
+ * The payload is reduced in a single streaming pass, without building a tree.
+ */
+public final class PayloadProjection implements Function<Fact, Fact> {
+
+    private static final JsonFactory jsonFactory = new JsonFactory();
+
+    private static final PayloadProjection NONE = new PayloadProjection(null);
+
+    private final List<FactSpec> specs;
+
+    private final Map<Set<String>, TokenFilter> filterCache = new ConcurrentHashMap<>();
+
+    private PayloadProjection(List<FactSpec> specs) {
+        this.specs = specs;
+    }
+
+    public static PayloadProjection of(@NonNull List<FactSpec> specs) {
+        if (specs.stream().anyMatch(PayloadProjection::hasProjection)) {
+            return new PayloadProjection(specs);
+        } else {
+            return NONE;
+        }
+    }
+
+    public boolean isActive() {
+        return specs != null;
+    }
+
+    @Override
+    public Fact apply(@NonNull Fact fact) {
+        if (specs == null) {
+            return fact;
+        }
+        Set<String> paths = collectPaths(fact);
+        if (paths == null) {
+            return fact;
+        }
+        TokenFilter filter = filterCache.computeIfAbsent(paths, PathFilter::of);
+        return new ProjectedFact(fact, project(fact.jsonPayload(), filter));
+    }
+
+    private Set<String> collectPaths(Fact fact) {
+        Set<String> paths = null;
+        String ns = fact.ns();
+        String type = fact.type();
+        for (FactSpec spec : specs) {
+            if (ns.equals(spec.ns()) && (spec.type() == null || spec.type().equals(type))) {
+                if (!hasProjection(spec)) {
+                    // one matching spec wants it all
+                    return null;
+                }
+                if (paths == null) {
+                    paths = new TreeSet<>();
+                }
+                paths.addAll(spec.projection());
+            }
+        }
+        return paths;
+    }
+
+    private static boolean hasProjection(FactSpec spec) {
+        List<String> projection = spec.projection();
+        return projection != null && !projection.isEmpty();
+    }
+
+    @SneakyThrows
+    static String project(@NonNull String json, @NonNull TokenFilter filter) {
+        StringWriter w = new StringWriter(Math.min(json.length(), 1024));
+        try (JsonParser p = jsonFactory.createParser(json);
+                JsonGenerator g = new FilteringGeneratorDelegate(jsonFactory.createGenerator(w),
+                        filter, true, true)) {
+            if (p.nextToken() != null) {
+                g.copyCurrentStructure(p);
+            }
+        }
+        String projected = w.toString();
+        return projected.isEmpty() ? "{}" : projected;
+    }
+
+    /**
+     * TokenFilter that includes a property, if it is a leaf of one of the given
+     * paths, and walks into objects (and arrays of objects) along the paths.
+     */
+    static final class PathFilter extends TokenFilter {
+
+        private final Map<String, PathFilter> children = new HashMap<>();
+
+        private boolean leaf = false;
+
+        static PathFilter of(@NonNull Set<String> paths) {
+            PathFilter root = new PathFilter();
+            for (String path : paths) {
+                PathFilter current = root;
+                for (String segment : path.split("\\.")) {
+                    current = current.children.computeIfAbsent(segment, s -> new PathFilter());
+                }
+                current.leaf = true;
+            }
+            return root;
+        }
+
+        @Override
+        public TokenFilter includeProperty(String name) {
+            PathFilter child = children.get(name);
+            if (child == null) {
+                return null;
+            }
+            return child.leaf ? TokenFilter.INCLUDE_ALL : child;
+        }
+
+        @Override
+        protected boolean _includeScalar() {
+            // we expected an object here, so this is not part of the path
+            return false;
+        }
+    }
+
+    @RequiredArgsConstructor
+    static final class ProjectedFact implements Fact {
+
+        @NonNull
+        final Fact delegate;
+
+        @NonNull
+        final String jsonPayload;
+
+        @Override
+        public UUID id() {
+            return delegate.id();
+        }
+
+        @Override
+        public String ns() {
+            return delegate.ns();
+        }
+
+        @Override
+        public String type() {
+            return delegate.type();
+        }
+
+        @Override
+        public int version() {
+            return delegate.version();
+        }
+
+        @Override
+        public Set<UUID> aggIds() {
+            return delegate.aggIds();
+        }
+
+        @Override
+        public String jsonHeader() {
+            return delegate.jsonHeader();
+        }
+
+        @Override
+        public String jsonPayload() {
+            return jsonPayload;
+        }
+
+        @Override
+        public String meta(String key) {
+            return delegate.meta(key);
+        }
+
+        @Override
+        public long serial() {
+            return delegate.serial();
+        }
+    }
+}
@@ -15,6 +15,9 @@
  */
 package org.factcast.core.subscription;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.factcast.core.Fact;
 
 import lombok.NonNull;
@@ -25,4 +28,20 @@ public interface FactTransformers {
     @NonNull
     Fact transformIfNecessary(@NonNull Fact e) throws TransformationException;
 
+    /**
+     * Transforms a batch of facts, for instance a page of a catchup.
+     * Implementations may override this to share lookups between the facts.
+     *
+     * @return the facts in the same order
+     */
+    @NonNull
+    default List<Fact> transformIfNecessary(@NonNull List<Fact> facts)
+            throws TransformationException {
+        List<Fact> transformed = new ArrayList<>(facts.size());
+        for (Fact f : facts) {
+            transformed.add(transformIfNecessary(f));
+        }
+        return transformed;
+    }
+
 }
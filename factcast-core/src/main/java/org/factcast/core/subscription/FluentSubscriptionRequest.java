@@ -47,6 +47,8 @@ class FluentSubscriptionRequest implements SubscriptionRequest {
 
     UUID startingAfter;
 
+    Long startingAfterSerial;
+
     final List<FactSpec> specs = new LinkedList<>();
 
     boolean idOnly = false;
@@ -92,6 +94,12 @@ public SubscriptionRequest from(@NonNull UUID id) {
             return toBuild;
         }
 
+        @Override
+        public SubscriptionRequest fromSerial(long serial) {
+            toBuild.startingAfterSerial = serial;
+            return toBuild;
+        }
+
         public SpecBuilder follow(FactSpec specification) {
             or(specification);
             toBuild.continuous = true;
@@ -120,6 +128,12 @@ public java.util.Optional<UUID> startingAfter() {
         return java.util.Optional.ofNullable(startingAfter);
     }
 
+    @Override
+    public java.util.OptionalLong startingAfterSerial() {
+        return startingAfterSerial == null ? java.util.OptionalLong.empty()
+                : java.util.OptionalLong.of(startingAfterSerial);
+    }
+
     @Override
     public String toString() {
         return debugInfo;
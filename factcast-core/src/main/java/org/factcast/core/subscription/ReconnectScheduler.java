@@ -0,0 +1,86 @@
+/*
+ * Copyright © 2017-2020 factcast.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.factcast.core.subscription;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import lombok.NonNull;
+
+/**
+ * Schedules reconnect attempts of {@link ReconnectingFactSubscriptionWrapper}s
+ * on a small pool of daemon threads, that is shared by all subscriptions of the
+ * JVM.
+ * <p>
+ * The delay doubles with every failed attempt up to maxDelayInMillis, and is
+ * jittered between half and the full delay, so that clients that lost their
+ * connection at the same time do not reconnect in lockstep.
+ */
+final class ReconnectScheduler {
+
+    static final long DEFAULT_INITIAL_DELAY_IN_MILLIS = 500;
+
+    static final long DEFAULT_MAX_DELAY_IN_MILLIS = 30000;
+
+    private static final int THREADS = 2;
+
+    private static final AtomicLong threadCount = new AtomicLong(0);
+
+    static final ReconnectScheduler INSTANCE = new ReconnectScheduler(Executors
+            .newScheduledThreadPool(THREADS, ReconnectScheduler::newDaemonThread),
+            DEFAULT_INITIAL_DELAY_IN_MILLIS, DEFAULT_MAX_DELAY_IN_MILLIS);
+
+    private final ScheduledExecutorService executor;
+
+    private final long initialDelayInMillis;
+
+    private final long maxDelayInMillis;
+
+    ReconnectScheduler(@NonNull ScheduledExecutorService executor, long initialDelayInMillis,
+            long maxDelayInMillis) {
+        this.executor = executor;
+        this.initialDelayInMillis = initialDelayInMillis;
+        this.maxDelayInMillis = maxDelayInMillis;
+    }
+
+    /**
+     * @param attempt
+     *            number of attempts that failed since the connection was lost,
+     *            starting with 0
+     */
+    ScheduledFuture<?> schedule(@NonNull Runnable reconnect, int attempt) {
+        return executor.schedule(reconnect, delayInMillis(attempt), TimeUnit.MILLISECONDS);
+    }
+
+    long delayInMillis(int attempt) {
+        // limit the shift, so that it cannot overflow
+        long delay = Math.min(maxDelayInMillis, initialDelayInMillis << Math.min(Math.max(
+                attempt, 0), 16));
+        long half = delay / 2;
+        return half + ThreadLocalRandom.current().nextLong(delay - half + 1);
+    }
+
+    private static Thread newDaemonThread(Runnable r) {
+        Thread thread = new Thread(r);
+        thread.setDaemon(true);
+        thread.setName("factcast-reconnect-" + threadCount.incrementAndGet());
+        return thread;
+    }
+}
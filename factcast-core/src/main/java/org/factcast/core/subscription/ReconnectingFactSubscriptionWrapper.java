@@ -15,11 +15,14 @@
  */
 package org.factcast.core.subscription;
 
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
@@ -27,18 +30,25 @@
 
 import org.factcast.core.Fact;
 import org.factcast.core.store.FactStore;
+import org.factcast.core.subscription.observer.DispatchAware;
 import org.factcast.core.subscription.observer.FactObserver;
 import org.factcast.core.util.ExceptionHelper;
 
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Subscription, that transparently resubscribes after the last fact seen, when
+ * the underlying subscription fails for reasons outside of factcast (like a
+ * lost connection).
+ * <p>
+ * Reconnect attempts are scheduled with exponential backoff on the shared
+ * {@link ReconnectScheduler}, and the await methods block until a
+ * subscription is available rather than polling for it.
+ */
 @Slf4j
 public class ReconnectingFactSubscriptionWrapper implements Subscription {
 
-    @NonNull
-    private final AtomicReference<Subscription> currentSubscription = new AtomicReference<>();
-
     @NonNull
     private final FactStore store;
 
@@ -51,125 +61,156 @@ public class ReconnectingFactSubscriptionWrapper implements Subscription {
     @NonNull
     private final FactObserver observer;
 
+    @NonNull
+    private final ReconnectScheduler scheduler;
+
+    @NonNull
+    private final SubscriptionMetrics metrics;
+
     private final AtomicReference<UUID> factIdSeen = new AtomicReference<>();
 
-    private final AtomicBoolean closed = new AtomicBoolean(false);
+    // serial of the fact last seen, 0 if unknown
+    private final AtomicLong serialSeen = new AtomicLong(0);
 
-    private final ExecutorService es = Executors.newCachedThreadPool(new ThreadFactory() {
+    // facts dispatched, but not yet handled in order of the stream, if the
+    // store handles facts concurrently (see DispatchAware)
+    // guarded by itself, as are the two fields below
+    private final LinkedHashMap<UUID, Fact> dispatched = new LinkedHashMap<>();
 
-        AtomicLong threadCount = new AtomicLong(0);
+    private final Set<UUID> handledOutOfOrder = new HashSet<>();
 
-        @Override
-        public Thread newThread(Runnable r) {
-            Thread thread = new Thread(r);
-            thread.setDaemon(true);
-            thread.setName("factcast-recon-sub-wrapper-" + threadCount.incrementAndGet());
-            return thread;
-        }
-    });
+    private boolean tracksDispatch = false;
 
-    @Override
-    public void close() throws Exception {
+    private final AtomicBoolean closed = new AtomicBoolean(false);
 
-        closed.set(true);
-        Subscription cur = currentSubscription.get();
-        if (cur != null) {
-            cur.close();
-        }
-        currentSubscription.set(null);
+    // completed, when a subscription is established, replaced when it is lost
+    // guarded by this
+    private CompletableFuture<Subscription> currentSubscription = new CompletableFuture<>();
+
+    // nanoTime of the disconnect, 0 if connected (or never was)
+    // guarded by this
+    private long disconnectedSince = 0;
+
+    public ReconnectingFactSubscriptionWrapper(@NonNull FactStore store,
+            @NonNull SubscriptionRequestTO req,
+            @NonNull FactObserver obs) {
+        this(store, req, obs, SubscriptionMetrics.NOP);
     }
 
-    @Override
-    public Subscription awaitCatchup() throws SubscriptionCancelledException {
+    public ReconnectingFactSubscriptionWrapper(@NonNull FactStore store,
+            @NonNull SubscriptionRequestTO req,
+            @NonNull FactObserver obs, @NonNull SubscriptionMetrics metrics) {
+        this(store, req, obs, metrics, ReconnectScheduler.INSTANCE);
+    }
 
-        for (;;) {
-            assertSubscriptionStateNotClosed();
-            Subscription cur = currentSubscription.get();
-            if (cur != null) {
+    ReconnectingFactSubscriptionWrapper(@NonNull FactStore store,
+            @NonNull SubscriptionRequestTO req,
+            @NonNull FactObserver obs, @NonNull SubscriptionMetrics metrics,
+            @NonNull ReconnectScheduler scheduler) {
+        this.store = store;
+        this.originalObserver = obs;
+        this.originalRequest = req;
+        this.scheduler = scheduler;
+        this.metrics = metrics;
 
-                cur.awaitCatchup();
-                return this;
+        observer = new ResumingObserver();
 
-            } else {
-                sleep();
-            }
-        }
+        // first attempt is synchronous, so that a healthy store is subscribed
+        // to when the constructor returns
+        reconnect(0);
     }
 
-    private void sleep() {
-        try {
-            Thread.sleep(500);
-        } catch (InterruptedException ignore) {
+    @Override
+    public void close() throws Exception {
+        closed.set(true);
+        CompletableFuture<Subscription> cur;
+        synchronized (this) {
+            cur = currentSubscription;
+            currentSubscription = new CompletableFuture<>();
+            currentSubscription.completeExceptionally(new SubscriptionCancelledException(
+                    "Subscription already cancelled"));
         }
+        // wakes up threads waiting for a subscription
+        cur.completeExceptionally(new SubscriptionCancelledException(
+                "Subscription already cancelled"));
+        Subscription s = getNowOrNull(cur);
+        if (s != null) {
+            s.close();
+        }
+    }
+
+    @Override
+    public Subscription awaitCatchup() throws SubscriptionCancelledException {
+        awaitSubscription().awaitCatchup();
+        return this;
     }
 
     @Override
     public Subscription awaitCatchup(long waitTimeInMillis) throws SubscriptionCancelledException,
             TimeoutException {
-
-        long startTime = System.currentTimeMillis();
-        for (;;) {
-            assertSubscriptionStateNotClosed();
-            Subscription cur = currentSubscription.get();
-
-            if (cur != null) {
-
-                cur.awaitCatchup(waitTimeInMillis);
-                return this;
-
-                // escalate TimeoutException
-            } else {
-                sleep();
-            }
-            if ((System.currentTimeMillis() - startTime) > waitTimeInMillis) {
-                throw new TimeoutException();
-            }
-        }
+        long start = System.nanoTime();
+        Subscription cur = awaitSubscription(waitTimeInMillis);
+        // escalate TimeoutException
+        cur.awaitCatchup(remainingMillis(waitTimeInMillis, start));
+        return this;
     }
 
     @Override
     public Subscription awaitComplete() throws SubscriptionCancelledException {
-
-        for (;;) {
-            assertSubscriptionStateNotClosed();
-            Subscription cur = currentSubscription.get();
-
-            if (cur != null) {
-
-                cur.awaitComplete();
-                return this;
-
-            } else {
-                sleep();
-            }
-        }
-
+        awaitSubscription().awaitComplete();
+        return this;
     }
 
     @Override
     public Subscription awaitComplete(long waitTimeInMillis) throws SubscriptionCancelledException,
             TimeoutException {
+        long start = System.nanoTime();
+        Subscription cur = awaitSubscription(waitTimeInMillis);
+        // escalate TimeoutException
+        cur.awaitComplete(remainingMillis(waitTimeInMillis, start));
+        return this;
+    }
 
-        long startTime = System.currentTimeMillis();
-        for (;;) {
-            assertSubscriptionStateNotClosed();
-            Subscription cur = currentSubscription.get();
-
-            if (cur != null) {
+    private synchronized CompletableFuture<Subscription> currentSubscription() {
+        return currentSubscription;
+    }
 
-                cur.awaitComplete(waitTimeInMillis);
-                return this;
+    private Subscription awaitSubscription() throws SubscriptionCancelledException {
+        assertSubscriptionStateNotClosed();
+        try {
+            return currentSubscription().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SubscriptionCancelledException(e);
+        } catch (ExecutionException e) {
+            throw ExceptionHelper.toRuntime(e.getCause());
+        }
+    }
 
-                // escalate TimeoutException
-            } else {
-                sleep();
-            }
+    private Subscription awaitSubscription(long waitTimeInMillis)
+            throws SubscriptionCancelledException, TimeoutException {
+        assertSubscriptionStateNotClosed();
+        try {
+            return currentSubscription().get(waitTimeInMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SubscriptionCancelledException(e);
+        } catch (ExecutionException e) {
+            throw ExceptionHelper.toRuntime(e.getCause());
+        }
+    }
 
-            if ((System.currentTimeMillis() - startTime) > waitTimeInMillis) {
-                throw new TimeoutException();
-            }
+    private static long remainingMillis(long waitTimeInMillis, long start)
+            throws TimeoutException {
+        long waited = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        if (waited >= waitTimeInMillis) {
+            throw new TimeoutException();
         }
+        return waitTimeInMillis - waited;
+    }
 
+    private static Subscription getNowOrNull(CompletableFuture<Subscription> f) {
+        return f.isDone() && !f.isCompletedExceptionally() ? f.join() : null;
     }
 
     private void assertSubscriptionStateNotClosed() {
@@ -178,84 +219,187 @@ private void assertSubscriptionStateNotClosed() {
         }
     }
 
-    public ReconnectingFactSubscriptionWrapper(@NonNull FactStore store,
-            @NonNull SubscriptionRequestTO req,
-            @NonNull FactObserver obs) {
-        this.store = store;
-        this.originalObserver = obs;
-        this.originalRequest = req;
-
-        observer = new FactObserver() {
+    private void scheduleReconnect(int attempt) {
+        if (!closed.get()) {
+            scheduler.schedule(() -> reconnect(attempt), attempt);
+        }
+    }
 
-            @Override
-            public void onNext(@NonNull Fact element) {
-                originalObserver.onNext(element);
-                factIdSeen.set(element.id());
-            }
+    private void reconnect(int attempt) {
+        if (closed.get()) {
+            return;
+        }
+        Subscription subscription;
+        try {
+            subscription = store.subscribe(createRequest(), observer);
+        } catch (Exception e) {
+            log.debug("Subscribing failed (attempt {}), retrying: {}", attempt + 1, e
+                    .getMessage());
+            metrics.reconnectFailed();
+            scheduleReconnect(attempt + 1);
+            return;
+        }
+        connected(subscription);
+    }
 
-            @Override
-            public void onCatchup() {
-                originalObserver.onCatchup();
+    private SubscriptionRequestTO createRequest() {
+        SubscriptionRequestTO to = SubscriptionRequestTO.forFacts(originalRequest);
+        synchronized (dispatched) {
+            UUID last = factIdSeen.get();
+            if (last != null) {
+                // the id is still passed for stores that do not know about
+                // startingAfterSerial
+                to.startingAfter(last);
+                long lastSerial = serialSeen.get();
+                if (lastSerial > 0) {
+                    to.startingAfterSerial(lastSerial);
+                }
             }
+            // facts not handled yet will be dispatched again
+            dispatched.clear();
+            handledOutOfOrder.clear();
+        }
+        return to;
+    }
 
-            @Override
-            public void onComplete() {
-                originalObserver.onComplete();
+    private void connected(Subscription subscription) {
+        synchronized (this) {
+            if (!closed.get()) {
+                if (disconnectedSince != 0) {
+                    metrics.reconnected(System.nanoTime() - disconnectedSince);
+                    disconnectedSince = 0;
+                }
+                // wakes up threads waiting for a subscription
+                if (!currentSubscription.complete(subscription)) {
+                    currentSubscription = CompletableFuture.completedFuture(subscription);
+                }
+                return;
             }
+        }
+        // closed while subscribing
+        try {
+            subscription.close();
+        } catch (Exception ignore) {
+            log.warn("Ignoring Exception while closing a subscription:", ignore);
+        }
+    }
 
-            @Override
-            public void onError(@NonNull Throwable exception) {
-
-                if (exception.getClass().getCanonicalName().startsWith("org.factcast")) {
-                    // give up
-                    originalObserver.onError(exception);
-                    throw ExceptionHelper.toRuntime(exception);
-                } else {
-                    log.info("Closing & Reconnecting subscription due to onError triggered.",
-                            exception);
-
-                    closeAndDetachSubscription();
-                    CompletableFuture.runAsync(
-                            ReconnectingFactSubscriptionWrapper.this::initiateReconnect, es);
-
-                    // has to be last call, due to older impls. of onError might
-                    // decide to throw an exception
-                    originalObserver.onError(exception);
+    // facts might be handled by several threads concurrently (see
+    // grpc.client.factstore.dispatch-threads). In that case, we only move on
+    // to a fact, once all facts dispatched before it are handled, so that
+    // facts still queued (or failed) are passed again after a reconnect.
+    private void handled(Fact f) {
+        synchronized (dispatched) {
+            if (!tracksDispatch) {
+                seen(f);
+            } else if (dispatched.containsKey(f.id())) {
+                handledOutOfOrder.add(f.id());
+                Iterator<Fact> it = dispatched.values().iterator();
+                while (it.hasNext()) {
+                    Fact next = it.next();
+                    if (!handledOutOfOrder.remove(next.id())) {
+                        break;
+                    }
+                    it.remove();
+                    seen(next);
                 }
             }
-        };
-        initiateReconnect();
+            // otherwise, it was dispatched before the last reconnect, and will
+            // be passed again
+        }
+    }
 
+    // must be called with dispatched held
+    private void seen(Fact f) {
+        factIdSeen.set(f.id());
+        serialSeen.set(serialOf(f));
     }
 
-    private synchronized void initiateReconnect() {
-        SubscriptionRequestTO to = SubscriptionRequestTO.forFacts(originalRequest);
-        UUID last = factIdSeen.get();
-        if (last != null) {
-            to.startingAfter(last);
+    private static long serialOf(Fact f) {
+        try {
+            return f.serial();
+        } catch (IllegalStateException | NumberFormatException e) {
+            // no serial available, so we have to resume by id
+            return 0;
         }
+    }
 
-        for (;;) {
-            try {
-                if (currentSubscription.get() == null) {
-                    // might throw exceptions
-                    Subscription subscribe = store.subscribe(to, observer);
-                    currentSubscription.compareAndSet(null, subscribe);
-                }
+    private void closeAndDetachSubscription() {
+        Subscription current;
+        synchronized (this) {
+            if (closed.get()) {
                 return;
+            }
+            current = getNowOrNull(currentSubscription);
+            if (currentSubscription.isDone()) {
+                currentSubscription = new CompletableFuture<>();
+            }
+            if (disconnectedSince == 0) {
+                disconnectedSince = System.nanoTime();
+            }
+        }
+        if (current != null) {
+            try {
+                current.close();
             } catch (Exception ignore) {
-                sleep();
+                log.warn("Ignoring Exception while closing a subscription:", ignore);
             }
         }
     }
 
-    private void closeAndDetachSubscription() {
-        Subscription current = currentSubscription.getAndSet(null);
-        try {
-            current.close();
-        } catch (Exception ignore) {
-            log.warn("Ignoring Exception while closing a subscription:", ignore);
+    /**
+     * Passes everything on to the original observer and keeps track of the
+     * last fact handled, in order to reconnect after it.
+     */
+    private class ResumingObserver implements FactObserver, DispatchAware {
+
+        @Override
+        public void onDispatched(@NonNull Fact f) {
+            synchronized (dispatched) {
+                tracksDispatch = true;
+                dispatched.put(f.id(), f);
+            }
         }
-    }
 
+        @Override
+        public void onNext(@NonNull Fact element) {
+            long start = System.nanoTime();
+            try {
+                originalObserver.onNext(element);
+            } finally {
+                metrics.handled(System.nanoTime() - start);
+            }
+            handled(element);
+        }
+
+        @Override
+        public void onCatchup() {
+            originalObserver.onCatchup();
+        }
+
+        @Override
+        public void onComplete() {
+            originalObserver.onComplete();
+        }
+
+        @Override
+        public void onError(@NonNull Throwable exception) {
+
+            if (exception.getClass().getCanonicalName().startsWith("org.factcast")) {
+                // give up
+                originalObserver.onError(exception);
+                throw ExceptionHelper.toRuntime(exception);
+            } else {
+                log.info("Closing & Reconnecting subscription due to onError triggered.",
+                        exception);
+
+                closeAndDetachSubscription();
+                scheduleReconnect(0);
+
+                // has to be last call, due to older impls. of onError might
+                // decide to throw an exception
+                originalObserver.onError(exception);
+            }
+        }
+    }
 }
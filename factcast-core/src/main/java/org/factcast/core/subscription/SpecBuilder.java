@@ -27,6 +27,18 @@ public interface SpecBuilder {
 
     SubscriptionRequest from(@NonNull UUID id);
 
+    /**
+     * @param serial
+     *            of the last fact seen, so that the subscription starts after
+     *            it
+     * @throws UnsupportedOperationException
+     *             if not supported by this builder
+     */
+    default SubscriptionRequest fromSerial(long serial) {
+        throw new UnsupportedOperationException("fromSerial not supported by " + getClass()
+                .getName());
+    }
+
     SubscriptionRequest fromScratch();
 
     SubscriptionRequest fromNowOn();
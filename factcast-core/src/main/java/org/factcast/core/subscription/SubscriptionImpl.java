@@ -15,14 +15,19 @@
  */
 package org.factcast.core.subscription;
 
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.factcast.core.Fact;
+import org.factcast.core.subscription.observer.DispatchAware;
 import org.factcast.core.subscription.observer.FactObserver;
+import org.factcast.core.subscription.observer.FlowControl;
 import org.factcast.core.subscription.observer.GenericObserver;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
@@ -58,6 +63,8 @@ public class SubscriptionImpl implements Subscription {
 
     final CompletableFuture<Void> complete = new CompletableFuture<>();
 
+    final AtomicLong waitingForReadyNanos = new AtomicLong(0);
+
     @Override
     public void close() {
         if (!closed.getAndSet(true)) {
@@ -171,6 +178,107 @@ public void notifyElement(@NonNull Fact e) throws TransformationException {
         }
     }
 
+    /**
+     * To be called in order of the fact stream, if facts are passed to
+     * {@link #notifyElement(Fact)} concurrently.
+     *
+     * @see DispatchAware
+     */
+    public void notifyDispatched(@NonNull Fact e) {
+        if (!closed.get() && observer instanceof DispatchAware) {
+            ((DispatchAware) observer).onDispatched(e);
+        }
+    }
+
+    /**
+     * Transforms the facts as a batch, before passing them on in order.
+     */
+    public void notifyElements(@NonNull List<Fact> facts) throws TransformationException {
+        if (!closed.get() && !facts.isEmpty()) {
+            for (Fact f : transformers.transformIfNecessary(facts)) {
+                if (closed.get()) {
+                    return;
+                }
+                observer.onNext(f);
+            }
+        }
+    }
+
+    public boolean isClosed() {
+        return closed.get();
+    }
+
+    /**
+     * @return false, if the observer uses {@link FlowControl} and cannot take
+     *         more elements right now.
+     */
+    public boolean isReady() {
+        return !(observer instanceof FlowControl) || ((FlowControl) observer).isReady();
+    }
+
+    /**
+     * Runs the callback as soon as the observer is ready, or the subscription
+     * was closed. The callback might be run immediately, and on any thread, so
+     * it must not block.
+     */
+    public void whenReady(@NonNull Runnable callback) {
+        if (closed.get() || isReady()) {
+            callback.run();
+        } else {
+            long start = System.nanoTime();
+            ((FlowControl) observer).whenReady(() -> {
+                waitingForReadyNanos.addAndGet(System.nanoTime() - start);
+                callback.run();
+            });
+        }
+    }
+
+    /**
+     * Blocks until the observer is ready, or the subscription was closed.
+     * Suppliers should only call this, while not holding any resources.
+     *
+     * @return the time waited in nanoseconds, 0 if the observer was ready
+     * @throws TimeoutException
+     *             if the observer did not become ready within
+     *             maxWaitInMillis
+     */
+    public long awaitReady(long maxWaitInMillis) throws TimeoutException {
+        if (closed.get() || isReady()) {
+            return 0;
+        }
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(maxWaitInMillis);
+        try {
+            while (!closed.get() && !isReady()) {
+                CountDownLatch ready = new CountDownLatch(1);
+                whenReady(ready::countDown);
+                // recheck closed from time to time, as the observer is not
+                // required to be notified about it
+                while (!ready.await(Math.min(deadline - System.nanoTime(), TimeUnit.SECONDS
+                        .toNanos(1)), TimeUnit.NANOSECONDS)) {
+                    if (closed.get()) {
+                        return System.nanoTime() - start;
+                    }
+                    if (System.nanoTime() - deadline >= 0) {
+                        throw new TimeoutException("Consumer not ready for " + maxWaitInMillis
+                                + "ms");
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * @return the accumulated time this subscription spent waiting for the
+     *         observer to become ready
+     */
+    public long waitingForReadyInMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(waitingForReadyNanos.get());
+    }
+
     public SubscriptionImpl onClose(Runnable e) {
         onClose = e;
         return this;
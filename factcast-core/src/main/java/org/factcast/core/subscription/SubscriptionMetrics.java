@@ -0,0 +1,50 @@
+/*
+ * Copyright © 2017-2020 factcast.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.factcast.core.subscription;
+
+/**
+ * Records client side metrics of subscriptions.
+ * <p>
+ * factcast-core does not depend on a metrics library, see
+ * org.factcast.client.grpc.MicrometerSubscriptionMetrics for an implementation
+ * based on Micrometer.
+ */
+public interface SubscriptionMetrics {
+
+    /**
+     * records nothing
+     */
+    SubscriptionMetrics NOP = new SubscriptionMetrics() {
+    };
+
+    /**
+     * a lost subscription was reestablished after the given time
+     */
+    default void reconnected(long disconnectedNanos) {
+    }
+
+    /**
+     * an attempt to reestablish a subscription failed
+     */
+    default void reconnectFailed() {
+    }
+
+    /**
+     * FactObserver.onNext took the given time
+     */
+    default void handled(long nanos) {
+    }
+}
@@ -18,6 +18,7 @@
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.UUID;
 
 import org.factcast.core.spec.FactSpec;
@@ -41,6 +42,14 @@ public interface SubscriptionRequest {
 
     Optional<UUID> startingAfter();
 
+    /**
+     * if present, takes precedence over {@link #startingAfter()}, as it saves
+     * the store from looking up the serial of the given fact id.
+     */
+    default OptionalLong startingAfterSerial() {
+        return OptionalLong.empty();
+    }
+
     List<FactSpec> specs();
 
     String debugInfo();
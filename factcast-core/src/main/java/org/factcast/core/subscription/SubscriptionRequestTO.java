@@ -19,6 +19,7 @@
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.OptionalLong;
 import java.util.UUID;
 
 import org.factcast.core.spec.FactSpec;
@@ -62,6 +63,9 @@ public class SubscriptionRequestTO implements SubscriptionRequest {
     @JsonProperty
     UUID startingAfter;
 
+    @JsonProperty
+    Long startingAfterSerial;
+
     @JsonProperty
     String debugInfo;
 
@@ -72,17 +76,33 @@ public boolean hasAnyScriptFilters() {
         return specs.stream().anyMatch(s -> s.jsFilterScript() != null);
     }
 
+    public boolean hasAnyProjections() {
+        return specs.stream().anyMatch(s -> s.projection() != null && !s.projection().isEmpty());
+    }
+
+    public boolean hasAnyFilters() {
+        return specs.stream().anyMatch(s -> !s.filters().isEmpty());
+    }
+
     @Override
     public java.util.Optional<UUID> startingAfter() {
         return java.util.Optional.ofNullable(startingAfter);
     }
 
+    @Override
+    public OptionalLong startingAfterSerial() {
+        return startingAfterSerial == null ? OptionalLong.empty()
+                : OptionalLong.of(startingAfterSerial);
+    }
+
     // copy constr. from a SR
     public SubscriptionRequestTO(SubscriptionRequest request) {
         maxBatchDelayInMs = request.maxBatchDelayInMs();
         continuous = request.continuous();
         ephemeral = request.ephemeral();
         startingAfter = request.startingAfter().orElse(null);
+        OptionalLong serial = request.startingAfterSerial();
+        startingAfterSerial = serial.isPresent() ? serial.getAsLong() : null;
         debugInfo = request.debugInfo();
         specs.addAll(request.specs());
     }
@@ -0,0 +1,34 @@
+/*
+ * Copyright © 2017-2020 factcast.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.factcast.core.subscription.observer;
+
+import org.factcast.core.Fact;
+
+import lombok.NonNull;
+
+/**
+ * Optionally implemented by observers, that keep track of the facts handled
+ * (for instance in order to resume a subscription after the last one).
+ * <p>
+ * Fact suppliers, that pass facts to onNext concurrently (and thus not in
+ * order of the fact stream), call {@link #onDispatched(Fact)} for every fact
+ * in order of the stream before passing it on, so that the observer can tell
+ * up to which fact the stream was handled completely.
+ */
+public interface DispatchAware {
+
+    void onDispatched(@NonNull Fact f);
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright © 2017-2020 factcast.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.factcast.core.subscription.observer;
+
+import lombok.NonNull;
+
+/**
+ * Optionally implemented by observers, that are able to tell whether they can
+ * take more elements without having to buffer them (for instance because the
+ * connection to the consumer is congested).
+ * <p>
+ * Fact suppliers are expected to check {@link #isReady()} at convenient points
+ * (like between pages) and pause until the callback passed to
+ * {@link #whenReady(Runnable)} is run, rather than blocking in onNext.
+ */
+public interface FlowControl {
+
+    boolean isReady();
+
+    /**
+     * Runs the callback once, as soon as this observer is ready (or will never
+     * become ready again, because it was cancelled). The callback might be run
+     * immediately, and on any thread, so it must not block.
+     */
+    void whenReady(@NonNull Runnable callback);
+}
@@ -0,0 +1,250 @@
+/*
+ * Copyright © 2017-2020 factcast.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.factcast.core.util;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import jdk.nashorn.api.scripting.ScriptObjectMirror;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Exposes a JsonNode to scripts as java.util.Map / java.util.List views, that
+ * read from and write to the underlying nodes directly.
+ * <p>
+ * Scripts see the same types as they did with a Map converted from the node
+ * (Strings, Numbers, Booleans, Maps and Lists), without the tree being
+ * converted to Maps and back for every transformation or filter script.
+ */
+public final class JsonNodeBridge {
+
+    private static final JsonNodeFactory nodes = JsonNodeFactory.instance;
+
+    private JsonNodeBridge() {
+    }
+
+    /**
+     * @return a view on the node for objects and arrays, the value for scalars
+     */
+    public static Object toJava(JsonNode n) {
+        if (n == null || n.isNull() || n.isMissingNode()) {
+            return null;
+        }
+        if (n.isObject()) {
+            return new ObjectView((ObjectNode) n);
+        }
+        if (n.isArray()) {
+            return new ArrayView((ArrayNode) n);
+        }
+        if (n.isTextual()) {
+            return n.textValue();
+        }
+        if (n.isBoolean()) {
+            return n.booleanValue();
+        }
+        if (n.isNumber()) {
+            return n.numberValue();
+        }
+        return FactCastJson.convertValue(n, Object.class);
+    }
+
+    public static JsonNode toNode(Object o) {
+        if (o == null || ScriptObjectMirror.isUndefined(o)) {
+            return nodes.nullNode();
+        }
+        if (o instanceof ObjectView) {
+            return ((ObjectView) o).node;
+        }
+        if (o instanceof ArrayView) {
+            return ((ArrayView) o).node;
+        }
+        if (o instanceof JsonNode) {
+            return (JsonNode) o;
+        }
+        if (o instanceof CharSequence) {
+            return nodes.textNode(o.toString());
+        }
+        if (o instanceof Boolean) {
+            return nodes.booleanNode((Boolean) o);
+        }
+        if (o instanceof Integer || o instanceof Long || o instanceof Short
+                || o instanceof Byte) {
+            long l = ((Number) o).longValue();
+            // same node types as parsing would produce
+            return (int) l == l ? nodes.numberNode((int) l) : nodes.numberNode(l);
+        }
+        if (o instanceof Double || o instanceof Float) {
+            return nodes.numberNode(((Number) o).doubleValue());
+        }
+        if (o instanceof BigDecimal) {
+            return nodes.numberNode((BigDecimal) o);
+        }
+        if (o instanceof BigInteger) {
+            return nodes.numberNode((BigInteger) o);
+        }
+        if (o instanceof ScriptObjectMirror) {
+            return fromMirror((ScriptObjectMirror) o);
+        }
+        if (o instanceof Map) {
+            ObjectNode on = nodes.objectNode();
+            ((Map<?, ?>) o).forEach((k, v) -> on.set(String.valueOf(k), toNode(v)));
+            return on;
+        }
+        if (o instanceof Collection) {
+            ArrayNode an = nodes.arrayNode();
+            ((Collection<?>) o).forEach(v -> an.add(toNode(v)));
+            return an;
+        }
+        return FactCastJson.valueToTree(o);
+    }
+
+    private static JsonNode fromMirror(ScriptObjectMirror m) {
+        if (m.isArray()) {
+            ArrayNode an = nodes.arrayNode();
+            int length = ((Number) m.getMember("length")).intValue();
+            for (int i = 0; i < length; i++) {
+                an.add(toNode(m.getSlot(i)));
+            }
+            return an;
+        }
+        ObjectNode on = nodes.objectNode();
+        for (String key : m.keySet()) {
+            Object v = m.get(key);
+            // functions are not part of JSON
+            if (!(v instanceof ScriptObjectMirror && ((ScriptObjectMirror) v).isFunction())) {
+                on.set(key, toNode(v));
+            }
+        }
+        return on;
+    }
+
+    @RequiredArgsConstructor
+    static final class ObjectView extends AbstractMap<String, Object> {
+
+        @NonNull
+        final ObjectNode node;
+
+        @Override
+        public Object get(Object key) {
+            return toJava(node.get(String.valueOf(key)));
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return node.has(String.valueOf(key));
+        }
+
+        @Override
+        public Object put(String key, Object value) {
+            return toJava(node.replace(key, toNode(value)));
+        }
+
+        @Override
+        public Object remove(Object key) {
+            return toJava(node.remove(String.valueOf(key)));
+        }
+
+        @Override
+        public int size() {
+            return node.size();
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return new AbstractSet<Entry<String, Object>>() {
+
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    Iterator<Entry<String, JsonNode>> fields = node.fields();
+                    return new Iterator<Entry<String, Object>>() {
+
+                        @Override
+                        public boolean hasNext() {
+                            return fields.hasNext();
+                        }
+
+                        @Override
+                        public Entry<String, Object> next() {
+                            Entry<String, JsonNode> e = fields.next();
+                            return new SimpleImmutableEntry<>(e.getKey(), toJava(e.getValue()));
+                        }
+
+                        @Override
+                        public void remove() {
+                            fields.remove();
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return node.size();
+                }
+            };
+        }
+    }
+
+    @RequiredArgsConstructor
+    static final class ArrayView extends AbstractList<Object> {
+
+        @NonNull
+        final ArrayNode node;
+
+        @Override
+        public Object get(int index) {
+            return toJava(node.get(index));
+        }
+
+        @Override
+        public int size() {
+            return node.size();
+        }
+
+        @Override
+        public Object set(int index, Object element) {
+            Object previous = get(index);
+            node.set(index, toNode(element));
+            return previous;
+        }
+
+        @Override
+        public void add(int index, Object element) {
+            node.insert(index, toNode(element));
+            modCount++;
+        }
+
+        @Override
+        public Object remove(int index) {
+            Object previous = toJava(node.remove(index));
+            modCount++;
+            return previous;
+        }
+    }
+}
@@ -33,6 +33,7 @@
 import org.factcast.core.spec.FactSpec;
 import org.factcast.core.store.FactStore;
 import org.factcast.core.subscription.Subscription;
+import org.factcast.core.subscription.SubscriptionMetrics;
 import org.factcast.core.subscription.SubscriptionRequest;
 import org.factcast.core.subscription.SubscriptionRequestTO;
 import org.factcast.core.subscription.observer.FactObserver;
@@ -53,6 +54,9 @@ public class DefaultFactCastTest {
     @Mock
     private FactStore store;
 
+    @Mock
+    private SubscriptionMetrics subscriptionMetrics;
+
     @InjectMocks
     private DefaultFactCast uut;
 
@@ -25,6 +25,7 @@
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.util.Collections;
 import java.util.UUID;
 
 import org.junit.jupiter.api.Assertions;
@@ -41,6 +42,35 @@ void testNullHeader() {
         });
     }
 
+    @Test
+    void testOfKnownFields() {
+        UUID id = UUID.randomUUID();
+        UUID aggId = UUID.randomUUID();
+        String header = "{\"id\":\"" + id + "\",\"ns\":\"ns\",\"meta\":{\"foo\":\"bar\","
+                + "\"_ser\":\"1\"}}";
+        Fact f = DefaultFact.of(header, "{}", id, "ns", "type", 2, Collections.singleton(aggId),
+                42);
+
+        assertEquals(id, f.id());
+        assertEquals("ns", f.ns());
+        assertEquals("type", f.type());
+        assertEquals(2, f.version());
+        assertEquals(Collections.singleton(aggId), f.aggIds());
+        assertEquals(42L, f.serial());
+        // parsed lazily
+        assertEquals("bar", f.meta("foo"));
+        assertEquals(Fact.of(header, "{}"), f);
+    }
+
+    @Test
+    void testOfKnownFieldsWithoutSerial() {
+        UUID id = UUID.randomUUID();
+        String header = "{\"id\":\"" + id + "\",\"ns\":\"ns\",\"meta\":{\"_ser\":\"7\"}}";
+        Fact f = DefaultFact.of(header, "{}", id, "ns", null, 0, Collections.emptySet(), 0);
+
+        assertEquals(7L, f.serial());
+    }
+
     @Test
     void testNullPayload() {
         Assertions.assertThrows(NullPointerException.class, () -> {
@@ -17,8 +17,13 @@
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.Predicate;
 
 import org.factcast.core.Fact;
@@ -192,6 +197,43 @@ void testMatchesByScript() {
         assertFalse(p.test(new TestFact().ns("1")));
     }
 
+    @Test
+    void testMatchesByFilters() {
+        Predicate<Fact> p = FactSpecMatcher.matches(FactSpec.ns("1").filter(JsonPathFilter
+                .payload("test").gt(1), JsonPathFilter.header("meta.foo").eq("bar")));
+        assertTrue(p.test(new TestFact().ns("1").meta("foo", "bar").jsonPayload("{\"test\":2}")));
+        assertFalse(p.test(new TestFact().ns("1").meta("foo", "baz").jsonPayload(
+                "{\"test\":2}")));
+        assertFalse(p.test(new TestFact().ns("1").meta("foo", "bar").jsonPayload(
+                "{\"test\":1}")));
+        assertFalse(p.test(new TestFact().ns("1")));
+    }
+
+    @Test
+    void testMatchesByScriptConcurrently() throws Exception {
+        Predicate<Fact> p = FactSpecMatcher.matches(FactSpec.ns("1").jsFilterScript(
+                "function (h,p) { return p.i % 2 == 0 }"));
+        ExecutorService es = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                TestFact f = new TestFact().ns("1").jsonPayload("{\"i\":" + i + "}");
+                results.add(es.submit(() -> p.test(f)));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                assertEquals(i % 2 == 0, results.get(i).get());
+            }
+        } finally {
+            es.shutdown();
+        }
+    }
+
+    @Test
+    void testUnsupportedScriptLanguage() {
+        assertThrows(IllegalArgumentException.class, () -> new FactSpecMatcher(FactSpec.ns("1")
+                .filterScript(new FilterScript("lua", "x"))));
+    }
+
     @Test
     void testFactSpecMatcherNullConstructor() {
         Assertions.assertThrows(NullPointerException.class, () -> {
@@ -0,0 +1,78 @@
+/*
+ * Copyright © 2017-2020 factcast.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.factcast.core.spec;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import javax.script.ScriptEngine;
+
+import org.factcast.core.Fact;
+
+/**
+ * Compares matching facts against a filter script by evaluating the source
+ * per fact (as done before) to invoking the compiled function.
+ * <p>
+ * Not a test, run main() manually. Optional args: numberOfFacts, rounds
+ */
+public class FilterScriptBenchmark {
+
+    static final String SCRIPT = "function (h,p) { return h.meta.tenant == 'a' && p.amount > 10 }";
+
+    public static void main(String[] args) throws Exception {
+        int numberOfFacts = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        List<Fact> facts = new ArrayList<>(numberOfFacts);
+        for (int i = 0; i < numberOfFacts; i++) {
+            facts.add(Fact.builder()
+                    .ns("benchmark")
+                    .aggId(UUID.randomUUID())
+                    .meta("tenant", i % 2 == 0 ? "a" : "b")
+                    .build("{\"amount\":" + (i % 20) + ",\"note\":\"some text\"}"));
+        }
+
+        ScriptEngine evalEngine = new JavaScriptEngineSupplier().get();
+        evalEngine.eval("var test=" + SCRIPT);
+        Predicate<Fact> evalPerFact = f -> {
+            try {
+                return (Boolean) evalEngine.eval("test(" + f.jsonHeader() + "," + f
+                        .jsonPayload() + ")");
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        };
+        Predicate<Fact> compiled = FactSpecMatcher.matches(FactSpec.ns("benchmark")
+                .jsFilterScript(SCRIPT));
+
+        for (int round = 1; round <= rounds; round++) {
+            run("eval per fact", round, facts, evalPerFact);
+            run("compiled", round, facts, compiled);
+        }
+    }
+
+    private static void run(String name, int round, List<Fact> facts, Predicate<Fact> p) {
+        long start = System.nanoTime();
+        long matches = facts.stream().filter(p).count();
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("round %d, %-13s: %d facts (%d matches) in %d ms (%.0f facts/s)%n",
+                round, name, facts.size(), matches, TimeUnit.NANOSECONDS.toMillis(elapsed),
+                facts.size() / (elapsed / 1_000_000_000.0));
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright © 2017-2020 factcast.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.factcast.core.spec;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.factcast.core.util.FactCastJson;
+import org.junit.jupiter.api.Test;
+
+import jdk.nashorn.api.scripting.ScriptObjectMirror;
+
+public class FilterScriptEnginesTest {
+
+    @Test
+    void testReusesFunctionOnSameThread() {
+        FilterScript script = FilterScript.js("function (h,p){ return true }");
+
+        assertThat(FilterScriptEngines.get(script)).isSameAs(FilterScriptEngines.get(script));
+    }
+
+    @Test
+    void testSeparateFunctionPerThread() throws Exception {
+        FilterScript script = FilterScript.js("function (h,p){ return true }");
+        ScriptObjectMirror here = FilterScriptEngines.get(script);
+
+        ScriptObjectMirror there = CompletableFuture.supplyAsync(() -> FilterScriptEngines.get(
+                script)).get();
+
+        assertThat(there).isNotSameAs(here);
+    }
+
+    @Test
+    void testPassesParsedHeaderAndPayload() throws Exception {
+        FilterScript script = FilterScript.js(
+                "function (h,p){ return h.ns == 'foo' && p.items[1].qty > 1 }");
+
+        assertThat(FilterScriptEngines.test(script, FactCastJson.readTree("{\"ns\":\"foo\"}"),
+                FactCastJson.readTree("{\"items\":[{\"qty\":1},{\"qty\":2}]}"))).isTrue();
+        assertThat(FilterScriptEngines.test(script, FactCastJson.readTree("{\"ns\":\"bar\"}"),
+                FactCastJson.readTree("{\"items\":[{\"qty\":1},{\"qty\":2}]}"))).isFalse();
+    }
+
+    @Test
+    void testRejectsScriptsNotDefiningAFunction() {
+        assertThatThrownBy(() -> FilterScriptEngines.get(FilterScript.js("42")))
+                .hasMessageContaining("function");
+    }
+
+    @Test
+    void testUnsupportedLanguage() {
+        assertThatThrownBy(() -> FilterScriptEngines.get(new FilterScript("lua", "x")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
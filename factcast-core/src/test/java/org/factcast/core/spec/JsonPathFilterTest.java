@@ -0,0 +1,107 @@
+/*
+ * Copyright © 2017-2020 factcast.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.factcast.core.spec;
+
+import static org.assertj.core.api.Assertions.*;
+
+import org.factcast.core.spec.JsonPathFilter.Operator;
+import org.factcast.core.spec.JsonPathFilter.Source;
+import org.factcast.core.util.FactCastJson;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+public class JsonPathFilterTest {
+
+    static final String PAYLOAD = "{\"amount\":12.5,\"count\":3,\"note\":\"foo\",\"paid\":true,"
+            + "\"customer\":{\"address\":{\"zip\":\"12345\"}},\"items\":[{\"sku\":\"a\"}]}";
+
+    private static boolean test(JsonPathFilter f) throws Exception {
+        return f.test(FactCastJson.readTree(PAYLOAD));
+    }
+
+    @Test
+    void testBuilder() {
+        JsonPathFilter f = JsonPathFilter.header("meta.tenant").eq("a");
+
+        assertThat(f.source()).isEqualTo(Source.HEADER);
+        assertThat(f.path()).isEqualTo("meta.tenant");
+        assertThat(f.pathSegments()).containsExactly("meta", "tenant");
+        assertThat(f.operator()).isEqualTo(Operator.EQ);
+        assertThat(f.value().textValue()).isEqualTo("a");
+    }
+
+    @Test
+    void testEquality() throws Exception {
+        assertThat(test(JsonPathFilter.payload("note").eq("foo"))).isTrue();
+        assertThat(test(JsonPathFilter.payload("note").eq("bar"))).isFalse();
+        assertThat(test(JsonPathFilter.payload("paid").eq(true))).isTrue();
+        assertThat(test(JsonPathFilter.payload("paid").eq(false))).isFalse();
+        assertThat(test(JsonPathFilter.payload("customer.address.zip").eq("12345"))).isTrue();
+    }
+
+    @Test
+    void testNumbersCompareByValue() throws Exception {
+        assertThat(test(JsonPathFilter.payload("count").eq(3))).isTrue();
+        assertThat(test(JsonPathFilter.payload("count").eq(3.0))).isTrue();
+        assertThat(test(JsonPathFilter.payload("amount").eq(12.5))).isTrue();
+        assertThat(test(JsonPathFilter.payload("amount").gt(12))).isTrue();
+        assertThat(test(JsonPathFilter.payload("amount").gte(12.5))).isTrue();
+        assertThat(test(JsonPathFilter.payload("amount").lt(12.5))).isFalse();
+        assertThat(test(JsonPathFilter.payload("amount").lte(12.5))).isTrue();
+    }
+
+    @Test
+    void testStringRanges() throws Exception {
+        assertThat(test(JsonPathFilter.payload("note").gt("fo"))).isTrue();
+        assertThat(test(JsonPathFilter.payload("note").lt("fo"))).isFalse();
+        assertThat(test(JsonPathFilter.payload("customer.address.zip").gte("12345"))).isTrue();
+    }
+
+    @Test
+    void testTypeMismatchNeverMatches() throws Exception {
+        assertThat(test(JsonPathFilter.payload("note").gt(1))).isFalse();
+        assertThat(test(JsonPathFilter.payload("count").lt("z"))).isFalse();
+        assertThat(test(JsonPathFilter.payload("count").eq("3"))).isFalse();
+        assertThat(test(JsonPathFilter.payload("customer").eq("x"))).isFalse();
+    }
+
+    @Test
+    void testMissingPathsNeverMatch() throws Exception {
+        assertThat(test(JsonPathFilter.payload("doesNotExist").eq("foo"))).isFalse();
+        assertThat(test(JsonPathFilter.payload("note.deeper").eq("foo"))).isFalse();
+        // arrays are not walked into
+        assertThat(test(JsonPathFilter.payload("items.sku").eq("a"))).isFalse();
+    }
+
+    @Test
+    void testSerialization() throws Exception {
+        FactSpec spec = FactSpec.ns("foo").filter(JsonPathFilter.payload("amount").gte(10),
+                JsonPathFilter.header("meta.tenant").eq("a"));
+
+        FactSpec copy = FactCastJson.readValue(FactSpec.class, FactCastJson.writeValueAsString(
+                spec));
+
+        assertThat(copy.filters()).hasSize(2);
+        JsonPathFilter range = copy.filters().get(0);
+        assertThat(range.source()).isEqualTo(Source.PAYLOAD);
+        assertThat(range.operator()).isEqualTo(Operator.GTE);
+        assertThat(range.value().isNumber()).isTrue();
+        JsonNode ten = FactCastJson.readTree("10");
+        assertThat(range.value().decimalValue()).isEqualByComparingTo(ten.decimalValue());
+        assertThat(copy.filters().get(1)).isEqualTo(spec.filters().get(1));
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright © 2017-2020 factcast.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.factcast.core.spec;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.factcast.core.Fact;
+import org.factcast.core.TestFact;
+import org.factcast.core.util.FactCastJson;
+import org.junit.jupiter.api.Test;
+
+public class PayloadProjectionTest {
+
+    static final String PAYLOAD = "{\"orderId\":7,\"amount\":12.5,\"note\":\"foo\","
+            + "\"customer\":{\"name\":\"bar\",\"address\":{\"zip\":\"12345\",\"city\":\"baz\"}},"
+            + "\"items\":[{\"sku\":\"a\",\"qty\":1},{\"sku\":\"b\",\"qty\":2}]}";
+
+    @Test
+    void testInactiveWithoutProjection() {
+        PayloadProjection uut = PayloadProjection.of(Collections.singletonList(FactSpec.ns(
+                "default")));
+        Fact f = new TestFact().jsonPayload(PAYLOAD);
+
+        assertThat(uut.isActive()).isFalse();
+        assertThat(uut.apply(f)).isSameAs(f);
+    }
+
+    @Test
+    void testProjectsTopLevelFields() throws Exception {
+        PayloadProjection uut = PayloadProjection.of(Collections.singletonList(FactSpec.ns(
+                "default").projection("orderId", "amount")));
+        Fact f = new TestFact().jsonPayload(PAYLOAD);
+
+        Fact projected = uut.apply(f);
+
+        assertThat(projected.id()).isEqualTo(f.id());
+        assertThat(projected.jsonHeader()).isEqualTo(f.jsonHeader());
+        assertThat(FactCastJson.readTree(projected.jsonPayload())).isEqualTo(FactCastJson.readTree(
+                "{\"orderId\":7,\"amount\":12.5}"));
+    }
+
+    @Test
+    void testProjectsNestedFieldsAndArrays() throws Exception {
+        PayloadProjection uut = PayloadProjection.of(Collections.singletonList(FactSpec.ns(
+                "default").projection("customer.address.zip", "items.sku")));
+        Fact f = new TestFact().jsonPayload(PAYLOAD);
+
+        assertThat(FactCastJson.readTree(uut.apply(f).jsonPayload())).isEqualTo(FactCastJson
+                .readTree(
+                        "{\"customer\":{\"address\":{\"zip\":\"12345\"}},\"items\":[{\"sku\":\"a\"},{\"sku\":\"b\"}]}"));
+    }
+
+    @Test
+    void testIncludesWholeSubtree() throws Exception {
+        PayloadProjection uut = PayloadProjection.of(Collections.singletonList(FactSpec.ns(
+                "default").projection("customer")));
+        Fact f = new TestFact().jsonPayload(PAYLOAD);
+
+        assertThat(FactCastJson.readTree(uut.apply(f).jsonPayload())).isEqualTo(FactCastJson
+                .readTree(
+                        "{\"customer\":{\"name\":\"bar\",\"address\":{\"zip\":\"12345\",\"city\":\"baz\"}}}"));
+    }
+
+    @Test
+    void testNoMatchingPathsLeavesEmptyObject() {
+        PayloadProjection uut = PayloadProjection.of(Collections.singletonList(FactSpec.ns(
+                "default").projection("doesNotExist")));
+        Fact f = new TestFact().jsonPayload(PAYLOAD);
+
+        assertThat(uut.apply(f).jsonPayload()).isEqualTo("{}");
+    }
+
+    @Test
+    void testUnprojectedMatchingSpecWins() {
+        PayloadProjection uut = PayloadProjection.of(Arrays.asList(
+                FactSpec.ns("default").projection("orderId"),
+                FactSpec.ns("default").type("test")));
+        Fact f = new TestFact().jsonPayload(PAYLOAD);
+
+        assertThat(uut.apply(f)).isSameAs(f);
+    }
+
+    @Test
+    void testUnionOfMatchingSpecs() throws Exception {
+        PayloadProjection uut = PayloadProjection.of(Arrays.asList(
+                FactSpec.ns("default").projection("orderId"),
+                FactSpec.ns("default").type("test").projection("note"),
+                FactSpec.ns("other").projection("amount")));
+        Fact f = new TestFact().jsonPayload(PAYLOAD);
+
+        assertThat(FactCastJson.readTree(uut.apply(f).jsonPayload())).isEqualTo(FactCastJson
+                .readTree("{\"orderId\":7,\"note\":\"foo\"}"));
+    }
+
+    @Test
+    void testNonMatchingFactIsUntouched() {
+        PayloadProjection uut = PayloadProjection.of(Collections.singletonList(FactSpec.ns(
+                "other").projection("orderId")));
+        Fact f = new TestFact().jsonPayload(PAYLOAD);
+
+        assertThat(uut.apply(f)).isSameAs(f);
+    }
+}
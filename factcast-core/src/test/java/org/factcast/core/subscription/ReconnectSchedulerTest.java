@@ -0,0 +1,66 @@
+/*
+ * Copyright © 2017-2020 factcast.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.factcast.core.subscription;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+public class ReconnectSchedulerTest {
+
+    @Mock
+    private ScheduledExecutorService executor;
+
+    @Test
+    public void testDelayGrowsExponentiallyWithJitter() {
+        ReconnectScheduler uut = new ReconnectScheduler(executor, 100, 100_000);
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(uut.delayInMillis(0)).isBetween(50L, 100L);
+            assertThat(uut.delayInMillis(1)).isBetween(100L, 200L);
+            assertThat(uut.delayInMillis(3)).isBetween(400L, 800L);
+        }
+    }
+
+    @Test
+    public void testDelayIsCapped() {
+        ReconnectScheduler uut = new ReconnectScheduler(executor, 100, 1000);
+
+        assertThat(uut.delayInMillis(5)).isBetween(500L, 1000L);
+        assertThat(uut.delayInMillis(Integer.MAX_VALUE)).isBetween(500L, 1000L);
+    }
+
+    @Test
+    public void testSchedulesOnExecutor() {
+        ReconnectScheduler uut = new ReconnectScheduler(executor, 100, 100);
+        Runnable r = () -> {
+        };
+
+        uut.schedule(r, 0);
+
+        verify(executor).schedule(eq(r), anyLong(), eq(TimeUnit.MILLISECONDS));
+    }
+}
@@ -20,13 +20,23 @@
 import static org.junit.jupiter.api.Assertions.assertTimeout;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.IOException;
 import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
+import org.factcast.core.Fact;
 import org.factcast.core.store.FactStore;
+import org.factcast.core.subscription.observer.DispatchAware;
 import org.factcast.core.subscription.observer.FactObserver;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -53,6 +63,9 @@ public class ReconnectingFactSubscriptionWrapperTest {
     @Mock
     private Subscription subscription;
 
+    @Mock
+    private SubscriptionMetrics metrics;
+
     @BeforeEach
     public void setup() {
         when(store.subscribe(any(), observerAC.capture())).thenReturn(subscription);
@@ -132,4 +145,141 @@ public void testAssertSubscriptionStateNotClosed() throws Exception {
         });
     }
 
+    @Test
+    public void testReconnectsAfterLastSerialSeen() throws Exception {
+        Fact f = Fact.builder().ns("ns").meta("_ser", "42").build("{}");
+        observerAC.getValue().onNext(f);
+
+        observerAC.getValue().onError(new IOException("connection lost"));
+
+        ArgumentCaptor<SubscriptionRequestTO> reqAC = ArgumentCaptor.forClass(
+                SubscriptionRequestTO.class);
+        verify(store, timeout(1000).times(2)).subscribe(reqAC.capture(), any());
+        SubscriptionRequestTO reconnect = reqAC.getAllValues().get(1);
+        assertThat(reconnect.startingAfterSerial()).isEqualTo(OptionalLong.of(42));
+        assertThat(reconnect.startingAfter()).contains(f.id());
+    }
+
+    @Test
+    public void testReconnectsAfterLastIdSeenWithoutSerial() throws Exception {
+        Fact f = Fact.builder().ns("ns").build("{}");
+        observerAC.getValue().onNext(f);
+
+        observerAC.getValue().onError(new IOException("connection lost"));
+
+        ArgumentCaptor<SubscriptionRequestTO> reqAC = ArgumentCaptor.forClass(
+                SubscriptionRequestTO.class);
+        verify(store, timeout(1000).times(2)).subscribe(reqAC.capture(), any());
+        SubscriptionRequestTO reconnect = reqAC.getAllValues().get(1);
+        assertThat(reconnect.startingAfterSerial()).isEmpty();
+        assertThat(reconnect.startingAfter()).contains(f.id());
+    }
+
+    @Test
+    public void testReconnectsAfterFactsHandledInOrderOfDispatch() throws Exception {
+        Fact f1 = Fact.builder().ns("ns").meta("_ser", "1").build("{}");
+        Fact f2 = Fact.builder().ns("ns").meta("_ser", "2").build("{}");
+        Fact f3 = Fact.builder().ns("ns").meta("_ser", "3").build("{}");
+        DispatchAware dispatch = (DispatchAware) observerAC.getValue();
+        dispatch.onDispatched(f1);
+        dispatch.onDispatched(f2);
+        dispatch.onDispatched(f3);
+
+        // f3 is handled before f2
+        observerAC.getValue().onNext(f1);
+        observerAC.getValue().onNext(f3);
+        observerAC.getValue().onError(new IOException("connection lost"));
+
+        ArgumentCaptor<SubscriptionRequestTO> reqAC = ArgumentCaptor.forClass(
+                SubscriptionRequestTO.class);
+        verify(store, timeout(1000).times(2)).subscribe(reqAC.capture(), any());
+        SubscriptionRequestTO reconnect = reqAC.getAllValues().get(1);
+        assertThat(reconnect.startingAfterSerial()).isEqualTo(OptionalLong.of(1));
+        assertThat(reconnect.startingAfter()).contains(f1.id());
+    }
+
+    @Test
+    public void testIgnoresFactsDispatchedBeforeReconnect() throws Exception {
+        Fact f1 = Fact.builder().ns("ns").meta("_ser", "1").build("{}");
+        Fact f2 = Fact.builder().ns("ns").meta("_ser", "2").build("{}");
+        DispatchAware dispatch = (DispatchAware) observerAC.getValue();
+        dispatch.onDispatched(f1);
+        dispatch.onDispatched(f2);
+        observerAC.getValue().onError(new IOException("connection lost"));
+        verify(store, timeout(1000).times(2)).subscribe(any(), any());
+
+        // handling of f1 finishes after the reconnect
+        observerAC.getValue().onNext(f1);
+        observerAC.getValue().onError(new IOException("connection lost"));
+
+        ArgumentCaptor<SubscriptionRequestTO> reqAC = ArgumentCaptor.forClass(
+                SubscriptionRequestTO.class);
+        verify(store, timeout(1000).times(3)).subscribe(reqAC.capture(), any());
+        assertThat(reqAC.getAllValues().get(2).startingAfter()).isEmpty();
+    }
+
+    @Test
+    public void testAwaitBlocksUntilSubscribed() throws Exception {
+        when(store.subscribe(any(), observerAC.capture())).thenThrow(new IllegalStateException(
+                "unavailable")).thenReturn(subscription);
+
+        uut = new ReconnectingFactSubscriptionWrapper(store, req, obs, metrics, fastScheduler());
+
+        assertTimeout(Duration.ofMillis(1000), () -> {
+            assertThat(uut.awaitCatchup()).isSameAs(uut);
+        });
+        verify(subscription).awaitCatchup();
+        verify(metrics).reconnectFailed();
+        // initial subscription is not a reconnect
+        verify(metrics, never()).reconnected(anyLong());
+    }
+
+    @Test
+    public void testCountsReconnects() throws Exception {
+        uut = new ReconnectingFactSubscriptionWrapper(store, req, obs, metrics, fastScheduler());
+
+        observerAC.getValue().onError(new IOException("connection lost"));
+        uut.awaitCatchup(1000);
+
+        verify(metrics).reconnected(anyLong());
+    }
+
+    @Test
+    public void testRecordsHandlerTime() throws Exception {
+        uut = new ReconnectingFactSubscriptionWrapper(store, req, obs, metrics, fastScheduler());
+
+        observerAC.getValue().onNext(Fact.builder().ns("foo").build("{}"));
+
+        verify(obs).onNext(any());
+        verify(metrics).handled(anyLong());
+    }
+
+    @Test
+    public void testCloseWakesUpWaitingThreads() throws Exception {
+        when(store.subscribe(any(), any())).thenThrow(new IllegalStateException("unavailable"));
+        uut = new ReconnectingFactSubscriptionWrapper(store, req, obs, metrics, fastScheduler());
+
+        CompletableFuture<Subscription> waiting = CompletableFuture.supplyAsync(
+                () -> uut.awaitComplete());
+        uut.close();
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> waiting.get(1,
+                TimeUnit.SECONDS));
+        assertThat(e.getCause()).isInstanceOf(SubscriptionCancelledException.class);
+    }
+
+    @Test
+    public void testAwaitTimesOutWhileDisconnected() throws Exception {
+        when(store.subscribe(any(), any())).thenThrow(new IllegalStateException("unavailable"));
+        uut = new ReconnectingFactSubscriptionWrapper(store, req, obs, metrics, fastScheduler());
+
+        assertThrows(TimeoutException.class, () -> {
+            uut.awaitCatchup(50);
+        });
+        uut.close();
+    }
+
+    private static ReconnectScheduler fastScheduler() {
+        return new ReconnectScheduler(Executors.newSingleThreadScheduledExecutor(), 10, 10);
+    }
 }
@@ -16,20 +16,31 @@
 package org.factcast.core.subscription;
 
 import static org.factcast.core.TestHelper.*;
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.factcast.core.Fact;
 import org.factcast.core.TestFact;
+import org.factcast.core.subscription.observer.FactObserver;
+import org.factcast.core.subscription.observer.FlowControl;
 import org.factcast.core.subscription.observer.GenericObserver;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -144,6 +155,40 @@ void testOn() throws TransformationException {
         // creating a new one...
     }
 
+    @Test
+    void testNotifyElements() throws TransformationException {
+        Fact other = new TestFact();
+        FactTransformers batching = new FactTransformers() {
+
+            @Override
+            public @NonNull Fact transformIfNecessary(@NonNull Fact e) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public @NonNull List<Fact> transformIfNecessary(@NonNull List<Fact> facts) {
+                return Arrays.asList(facts.get(1), facts.get(0));
+            }
+        };
+        SubscriptionImpl on = SubscriptionImpl.on(obs, batching);
+
+        on.notifyElements(Arrays.asList(testFact, other));
+
+        InOrder inOrder = inOrder(obs);
+        inOrder.verify(obs).onNext(other);
+        inOrder.verify(obs).onNext(testFact);
+    }
+
+    @Test
+    void testNotifyElementsAfterClose() throws TransformationException {
+        SubscriptionImpl on = SubscriptionImpl.on(obs, ft);
+        on.close();
+
+        on.notifyElements(Arrays.asList(testFact));
+
+        verify(obs, never()).onNext(any());
+    }
+
     @Test
     void testOnError() {
         SubscriptionImpl on = SubscriptionImpl.on(obs, ft);
@@ -233,4 +278,91 @@ public void testCloseThrowsException() throws Exception {
         // this must return without exceptions
         uut.notifyComplete();
     }
+
+    interface FlowControlledObserver extends FactObserver, FlowControl {
+    }
+
+    @Test
+    void testReadyWithoutFlowControl() throws Exception {
+        assertTrue(uut.isReady());
+        assertEquals(0, uut.awaitReady(10));
+        Runnable callback = mock(Runnable.class);
+        uut.whenReady(callback);
+        verify(callback).run();
+    }
+
+    @Test
+    void testWhenReadyWaitsForObserver() {
+        FlowControlledObserver fo = mock(FlowControlledObserver.class);
+        when(fo.isReady()).thenReturn(false);
+        ArgumentCaptor<Runnable> registered = ArgumentCaptor.forClass(Runnable.class);
+        doNothing().when(fo).whenReady(registered.capture());
+        SubscriptionImpl on = SubscriptionImpl.on(fo, ft);
+
+        Runnable callback = mock(Runnable.class);
+        on.whenReady(callback);
+        verify(callback, never()).run();
+
+        registered.getValue().run();
+        verify(callback).run();
+    }
+
+    @Test
+    void testAwaitReady() throws Exception {
+        FlowControlledObserver fo = mock(FlowControlledObserver.class);
+        AtomicBoolean ready = new AtomicBoolean(false);
+        when(fo.isReady()).thenAnswer(i -> ready.get());
+        CountDownLatch registered = new CountDownLatch(1);
+        AtomicReference<Runnable> callback = new AtomicReference<>();
+        doAnswer(i -> {
+            callback.set(i.getArgument(0));
+            registered.countDown();
+            return null;
+        }).when(fo).whenReady(any());
+        SubscriptionImpl on = SubscriptionImpl.on(fo, ft);
+
+        CompletableFuture<Long> waited = awaitReadyAsync(on, 10000);
+        assertTrue(registered.await(1, TimeUnit.SECONDS));
+        Thread.sleep(20);
+        assertFalse(waited.isDone());
+
+        ready.set(true);
+        callback.get().run();
+
+        assertTrue(waited.get(1, TimeUnit.SECONDS) > 0);
+        assertTrue(on.waitingForReadyInMillis() >= 20);
+    }
+
+    @Test
+    void testAwaitReadyReturnsWhenClosed() throws Exception {
+        FlowControlledObserver fo = mock(FlowControlledObserver.class);
+        when(fo.isReady()).thenReturn(false);
+        SubscriptionImpl on = SubscriptionImpl.on(fo, ft);
+
+        CompletableFuture<Long> waited = awaitReadyAsync(on, 10000);
+        Thread.sleep(20);
+        on.close();
+
+        // recheck happens once a second
+        waited.get(3, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void testAwaitReadyTimesOut() throws Exception {
+        FlowControlledObserver fo = mock(FlowControlledObserver.class);
+        when(fo.isReady()).thenReturn(false);
+        SubscriptionImpl on = SubscriptionImpl.on(fo, ft);
+
+        assertThrows(TimeoutException.class, () -> on.awaitReady(50));
+    }
+
+    private static CompletableFuture<Long> awaitReadyAsync(SubscriptionImpl on, long millis) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return on.awaitReady(millis);
+            } catch (TimeoutException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
 }
@@ -20,8 +20,13 @@
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.UUID;
 
 import org.factcast.core.spec.FactSpec;
+import org.factcast.core.util.FactCastJson;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
@@ -112,4 +117,94 @@ void testAddSpecs() {
         assertEquals(js, uut.specs().get(1).jsFilterScript());
     }
 
+    @Test
+    void testStartingAfterSerial() {
+        SubscriptionRequest r = SubscriptionRequest.catchup(FactSpec.ns("foo")).fromSerial(42);
+        SubscriptionRequestTO uut = SubscriptionRequestTO.forFacts(r);
+        assertEquals(OptionalLong.of(42), uut.startingAfterSerial());
+        assertFalse(uut.startingAfter().isPresent());
+    }
+
+    @Test
+    void testStartingAfterSerialSurvivesSerialization() {
+        SubscriptionRequest r = SubscriptionRequest.catchup(FactSpec.ns("foo")).fromSerial(42);
+        SubscriptionRequestTO uut = FactCastJson.readValue(SubscriptionRequestTO.class,
+                SubscriptionRequestTO.forFacts(r).dump());
+        assertEquals(OptionalLong.of(42), uut.startingAfterSerial());
+    }
+
+    @Test
+    void testStartingAfterSerialAbsent() {
+        SubscriptionRequest r = SubscriptionRequest.catchup(FactSpec.ns("foo")).fromScratch();
+        SubscriptionRequestTO uut = SubscriptionRequestTO.forFacts(r);
+        assertFalse(uut.startingAfterSerial().isPresent());
+        uut = FactCastJson.readValue(SubscriptionRequestTO.class, uut.dump());
+        assertFalse(uut.startingAfterSerial().isPresent());
+    }
+
+    @Test
+    void testStartingAfterSerialDefaultsToAbsent() {
+        SubscriptionRequest r = new SubscriptionRequest() {
+
+            @Override
+            public long maxBatchDelayInMs() {
+                return 0;
+            }
+
+            @Override
+            public boolean continuous() {
+                return false;
+            }
+
+            @Override
+            public boolean ephemeral() {
+                return false;
+            }
+
+            @Override
+            public Optional<UUID> startingAfter() {
+                return Optional.empty();
+            }
+
+            @Override
+            public List<FactSpec> specs() {
+                return Collections.singletonList(FactSpec.ns("foo"));
+            }
+
+            @Override
+            public String debugInfo() {
+                return "custom";
+            }
+        };
+        SubscriptionRequestTO uut = SubscriptionRequestTO.forFacts(r);
+        assertFalse(uut.startingAfterSerial().isPresent());
+    }
+
+    @Test
+    void testFromSerialUnsupportedByDefault() {
+        SpecBuilder builder = new SpecBuilder() {
+
+            @Override
+            public SpecBuilder or(FactSpec specification) {
+                return this;
+            }
+
+            @Override
+            public SubscriptionRequest from(UUID id) {
+                return null;
+            }
+
+            @Override
+            public SubscriptionRequest fromScratch() {
+                return null;
+            }
+
+            @Override
+            public SubscriptionRequest fromNowOn() {
+                return null;
+            }
+        };
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> builder.fromSerial(
+                42));
+    }
 }
@@ -17,7 +17,7 @@
 
 public enum Capabilities {
 
-    FACTCAST_IMPL_VERSION, CODECS;
+    FACTCAST_IMPL_VERSION, CODECS, PAYLOAD_PROJECTION, JSON_PATH_FILTER;
 
     @Override
     public String toString() {
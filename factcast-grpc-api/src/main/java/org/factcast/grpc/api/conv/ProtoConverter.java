@@ -24,6 +24,7 @@
 import java.util.UUID;
 import java.util.stream.Collectors;
 
+import org.factcast.core.DefaultFact;
 import org.factcast.core.Fact;
 import org.factcast.core.store.StateToken;
 import org.factcast.core.subscription.SubscriptionRequestTO;
@@ -76,10 +77,17 @@ public MSG_Notification createCompleteNotification() {
     public MSG_Notification createNotificationFor(@NonNull Fact t) {
         MSG_Notification.Builder builder = MSG_Notification.newBuilder()
                 .setType(MSG_Notification.Type.Fact);
-        builder.setFact(toProto(t));
+        builder.setFact(toStructuredProto(t));
         return builder.build();
     }
 
+    public MSG_Notification createNotificationFor(@NonNull MSG_Facts facts) {
+        return MSG_Notification.newBuilder()
+                .setType(MSG_Notification.Type.Facts)
+                .setFacts(facts)
+                .build();
+    }
+
     public MSG_Notification createNotificationFor(@NonNull UUID id) {
         MSG_Notification.Builder builder = MSG_Notification.newBuilder()
                 .setType(MSG_Notification.Type.Id);
@@ -100,8 +108,13 @@ public SubscriptionRequestTO fromProto(@NonNull MSG_SubscriptionRequest request)
     }
 
     public MSG_SubscriptionRequest toProto(SubscriptionRequestTO request) {
+        return toProto(request, false);
+    }
+
+    public MSG_SubscriptionRequest toProto(SubscriptionRequestTO request, boolean acceptsBatches) {
         return MSG_SubscriptionRequest.newBuilder()
                 .setJson(FactCastJson.writeValueAsString(request))
+                .setAcceptsBatches(acceptsBatches)
                 .build();
     }
 
@@ -122,6 +135,61 @@ public MSG_Fact toProto(Fact factMark) {
         return proto.build();
     }
 
+    /**
+     * in addition to header and payload, sets the header fields in structured
+     * form, so that the receiving side does not need to parse the header.
+     */
+    public MSG_Fact toStructuredProto(@NonNull Fact fact) {
+        MSG_Fact.Builder proto = MSG_Fact.newBuilder()
+                .setHeader(fact.jsonHeader())
+                .setPayload(fact.jsonPayload())
+                .setId(toProto(fact.id()))
+                .setNs(fact.ns())
+                .setVersion(fact.version())
+                .setSer(serialOrZero(fact));
+        String type = fact.type();
+        if (type != null) {
+            proto.setType(type);
+        }
+        Set<UUID> aggIds = fact.aggIds();
+        if (aggIds != null) {
+            aggIds.forEach(a -> proto.addAggIds(toProto(a)));
+        }
+        return proto.build();
+    }
+
+    private static long serialOrZero(Fact fact) {
+        try {
+            return fact.serial();
+        } catch (IllegalStateException e) {
+            // no serial assigned (yet)
+            return 0;
+        }
+    }
+
+    /**
+     * uses the structured header fields if present, and falls back to parsing
+     * the header otherwise (older servers).
+     */
+    public Fact fromStructuredProto(@NonNull MSG_Fact protoFact) {
+        if (!protoFact.hasId()) {
+            return fromProto(protoFact);
+        }
+        String type = protoFact.getType();
+        Set<UUID> aggIds = new HashSet<>();
+        protoFact.getAggIdsList().forEach(a -> aggIds.add(fromProto(a)));
+        return DefaultFact.of(protoFact.getHeader(), protoFact.getPayload(), fromProto(protoFact
+                .getId()), protoFact.getNs(), type.isEmpty() ? null : type, protoFact
+                        .getVersion(), aggIds, protoFact.getSer());
+    }
+
+    public @NonNull List<? extends Fact> fromStructuredProto(@NonNull MSG_Facts facts) {
+        return facts.getFactList()
+                .stream()
+                .map(this::fromStructuredProto)
+                .collect(Collectors.toList());
+    }
+
     public MSG_OptionalFact toProto(Optional<Fact> optFact) {
         Builder proto = MSG_OptionalFact.newBuilder();
         boolean present = optFact.isPresent();
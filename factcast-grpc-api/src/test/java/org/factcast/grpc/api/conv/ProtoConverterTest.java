@@ -46,6 +46,7 @@
 import org.factcast.grpc.api.gen.FactStoreProto.MSG_ConditionalPublishRequest;
 import org.factcast.grpc.api.gen.FactStoreProto.MSG_CurrentDatabaseTime;
 import org.factcast.grpc.api.gen.FactStoreProto.MSG_Empty;
+import org.factcast.grpc.api.gen.FactStoreProto.MSG_Fact;
 import org.factcast.grpc.api.gen.FactStoreProto.MSG_Facts;
 import org.factcast.grpc.api.gen.FactStoreProto.MSG_Notification;
 import org.factcast.grpc.api.gen.FactStoreProto.MSG_OptionalFact;
@@ -228,6 +229,66 @@ void testCreateNotificationForFact() {
         assertEquals(probe.ns(), uut.fromProto(n.getFact()).ns());
     }
 
+    @Test
+    void testStructuredProtoRoundtrip() {
+        UUID aggId = UUID.randomUUID();
+        final TestFact probe = new TestFact().ns("123").type("foo").version(3).aggId(aggId).meta(
+                "_ser", "42");
+        MSG_Fact msg = uut.toStructuredProto(probe);
+        assertTrue(msg.hasId());
+        assertEquals(42L, msg.getSer());
+
+        Fact copy = uut.fromStructuredProto(msg);
+        assertEquals(probe.id(), copy.id());
+        assertEquals("123", copy.ns());
+        assertEquals("foo", copy.type());
+        assertEquals(3, copy.version());
+        assertEquals(Collections.singleton(aggId), copy.aggIds());
+        assertEquals(42L, copy.serial());
+        assertEquals(probe.jsonHeader(), copy.jsonHeader());
+        assertEquals(probe.jsonPayload(), copy.jsonPayload());
+    }
+
+    @Test
+    void testStructuredProtoWithoutSerialAndType() {
+        final TestFact probe = new TestFact().ns("123");
+        MSG_Fact msg = uut.toStructuredProto(probe);
+        assertEquals(0L, msg.getSer());
+
+        Fact copy = uut.fromStructuredProto(msg);
+        assertEquals(null, copy.type());
+    }
+
+    @Test
+    void testFromStructuredProtoFallsBackToHeader() {
+        final TestFact probe = new TestFact().ns("123");
+        Fact copy = uut.fromStructuredProto(uut.toProto(probe));
+        assertEquals(probe.id(), copy.id());
+        assertEquals("123", copy.ns());
+    }
+
+    @Test
+    void testCreateNotificationForFactIsStructured() {
+        final TestFact probe = new TestFact().ns("123");
+        MSG_Notification n = uut.createNotificationFor(probe);
+        assertTrue(n.getFact().hasId());
+        assertEquals(probe.id(), uut.fromProto(n.getFact().getId()));
+    }
+
+    @Test
+    void testCreateNotificationForFacts() {
+        final TestFact probe1 = new TestFact().ns("123");
+        final TestFact probe2 = new TestFact().ns("456");
+        MSG_Notification n = uut.createNotificationFor(uut.toProto(Arrays.asList(probe1,
+                probe2)));
+        assertNotNull(n);
+        assertEquals(MSG_Notification.Type.Facts, n.getType());
+        List<? extends Fact> facts = uut.fromProto(n.getFacts());
+        assertEquals(2, facts.size());
+        assertEquals(probe1.id(), facts.get(0).id());
+        assertEquals(probe2.id(), facts.get(1).id());
+    }
+
     @Test
     void testCreateNotificationForUUID() {
         final UUID probe = UUID.randomUUID();
@@ -267,6 +328,15 @@ void testToProtoSubscriptionRequest() {
         assertEquals(to.specs().get(0).ns(), copy.specs().get(0).ns());
     }
 
+    @Test
+    void testToProtoSubscriptionRequestAcceptsBatches() {
+        SubscriptionRequestTO to = new SubscriptionRequestTO().debugInfo("test");
+        to.addSpecs(Collections.singletonList(FactSpec.ns("foo")));
+        assertFalse(uut.toProto(to).getAcceptsBatches());
+        assertTrue(uut.toProto(to, true).getAcceptsBatches());
+        assertEquals("test", uut.fromProto(uut.toProto(to, true)).debugInfo());
+    }
+
     @Test
     void testToProtoOptionalLongPresent() {
         MSG_OptionalSerial msg = uut.toProto(OptionalLong.of(133));
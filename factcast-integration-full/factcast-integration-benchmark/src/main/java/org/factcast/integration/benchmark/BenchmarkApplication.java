@@ -0,0 +1,139 @@
+/*
+ * Copyright © 2017-2020 factcast.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.factcast.integration.benchmark;
+
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Optional;
+
+import org.factcast.client.grpc.FactCastGrpcChannelFactory;
+import org.factcast.client.grpc.GrpcFactStore;
+import org.factcast.core.FactCast;
+import org.factcast.spring.boot.autoconfigure.client.grpc.GrpcFactStoreAutoConfiguration;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ClientInterceptors;
+import io.grpc.Codec;
+import io.grpc.CompressorRegistry;
+import io.grpc.DecompressorRegistry;
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+import io.grpc.MethodDescriptor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Starts a FactCast server (pgsql store and gRPC API) in-process, runs the
+ * {@link BenchmarkHarness} through a GrpcFactStore connected to it via
+ * loopback, and writes the report.
+ * <p>
+ * Needs a local PostgreSQL, see application.properties. Workload and server
+ * settings can be passed as arguments, for example
+ * --factcast.benchmark.followers=8 --factcast.store.pgsql.pageSize=5000
+ */
+@SpringBootApplication(exclude = GrpcFactStoreAutoConfiguration.class)
+@EnableConfigurationProperties(BenchmarkProperties.class)
+@Slf4j
+public class BenchmarkApplication {
+
+    static final int MAX_INBOUND_MESSAGE_SIZE = 16 * 1024 * 1024;
+
+    public static void main(String[] args) throws Exception {
+        try (ConfigurableApplicationContext ctx = SpringApplication.run(
+                BenchmarkApplication.class, args)) {
+            Environment env = ctx.getEnvironment();
+            BenchmarkProperties props = ctx.getBean(BenchmarkProperties.class);
+
+            // the codecs are registered with the grpc server only, the plain
+            // channel needs them as well
+            DecompressorRegistry decompressors = DecompressorRegistry.getDefaultInstance();
+            for (Codec codec : ctx.getBeansOfType(Codec.class).values()) {
+                CompressorRegistry.getDefaultInstance().register(codec);
+                decompressors = decompressors.with(codec, true);
+            }
+
+            ManagedChannel channel = ManagedChannelBuilder.forAddress("localhost", env
+                    .getProperty("grpc.server.port", Integer.class, 9090))
+                    .usePlaintext()
+                    .decompressorRegistry(decompressors)
+                    .maxInboundMessageSize(MAX_INBOUND_MESSAGE_SIZE)
+                    .build();
+            try {
+                GrpcFactStore store = new GrpcFactStore(channelFactory(channel, props.getCodec()),
+                        Optional.empty());
+                store.initialize();
+
+                BenchmarkReport report = new BenchmarkHarness(FactCast.from(store), props).run();
+                report.getSettings().put("pageSize", env.getProperty(
+                        "factcast.store.pgsql.pageSize", "1000"));
+                report.getSettings().put("catchupStrategy", env.getProperty(
+                        "factcast.store.pgsql.catchupStrategy", "default"));
+                report.write(Paths.get(props.getReportFile()));
+                log.info("Report written to {}", props.getReportFile());
+            } finally {
+                channel.shutdownNow();
+            }
+        }
+    }
+
+    private static FactCastGrpcChannelFactory channelFactory(ManagedChannel channel,
+            String codec) {
+        Channel c = codec == null ? channel
+                : ClientInterceptors.intercept(channel, new CompressionInterceptor(codec));
+        return new FactCastGrpcChannelFactory() {
+
+            @Override
+            public Channel createChannel(String name) {
+                return c;
+            }
+
+            @Override
+            public Channel createChannel(String name, List<ClientInterceptor> interceptors) {
+                return ClientInterceptors.intercept(c, interceptors);
+            }
+
+            @Override
+            public void close() {
+                channel.shutdown();
+            }
+        };
+    }
+
+    /**
+     * Overrides the codec negotiated by the GrpcFactStore.
+     */
+    static class CompressionInterceptor implements ClientInterceptor {
+
+        private final String codec;
+
+        CompressionInterceptor(String codec) {
+            this.codec = codec;
+        }
+
+        @Override
+        public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(
+                MethodDescriptor<ReqT, RespT> method, CallOptions callOptions, Channel next) {
+            return next.newCall(method, callOptions.withCompression(codec));
+        }
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright © 2017-2020 factcast.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.factcast.integration.benchmark;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.factcast.core.Fact;
+import org.factcast.core.FactCast;
+import org.factcast.core.spec.FactSpec;
+import org.factcast.core.subscription.Subscription;
+import org.factcast.core.subscription.SubscriptionRequest;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Drives the workload defined by {@link BenchmarkProperties} against a
+ * FactCast:
+ * <ul>
+ * <li>publishers publish into a fresh namespace, while followers subscribe to
+ * it. Records the latency of each publish call and the latency from publishing
+ * to onNext of every follower.</li>
+ * <li>catchup rounds read a fresh namespace with catchupFacts facts from
+ * scratch.</li>
+ * </ul>
+ * As publishers and followers run in the same JVM, the publishing time is
+ * passed to the followers as System.nanoTime() in the fact's meta data.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class BenchmarkHarness {
+
+    static final String PUBLISHED_AT = "benchmarkPublishedAt";
+
+    static final String TYPE = "BenchmarkFact";
+
+    static final int PRELOAD_BATCH_SIZE = 1000;
+
+    @NonNull
+    final FactCast fc;
+
+    @NonNull
+    final BenchmarkProperties props;
+
+    public BenchmarkReport run() throws Exception {
+        BenchmarkReport report = new BenchmarkReport();
+        report.setStartedAt(Instant.now().toString());
+        report.setFactcastVersion(FactCast.class.getPackage().getImplementationVersion());
+        report.getSettings().put("publishers", props.getPublishers());
+        report.getSettings().put("followers", props.getFollowers());
+        report.getSettings().put("factsPerPublisher", props.getFactsPerPublisher());
+        report.getSettings().put("publishBatchSize", props.getPublishBatchSize());
+        report.getSettings().put("payloadSize", props.getPayloadSize());
+        report.getSettings().put("catchupFacts", props.getCatchupFacts());
+        report.getSettings().put("maxBatchDelayInMs", props.getMaxBatchDelayInMs());
+        report.getSettings().put("codec", props.getCodec() == null ? "negotiated"
+                : props.getCodec());
+
+        if (props.getWarmupFactsPerPublisher() > 0) {
+            log.info("Warming up with {} facts per publisher", props.getWarmupFactsPerPublisher());
+            publishAndFollow(props.getWarmupFactsPerPublisher(), null);
+        }
+
+        log.info("Publishing {} facts per publisher", props.getFactsPerPublisher());
+        publishAndFollow(props.getFactsPerPublisher(), report);
+        log.info("Publish: {}", report.getPublish());
+        log.info("Follow: {}", report.getFollow());
+
+        if (props.getCatchupFacts() > 0) {
+            String ns = newNamespace();
+            log.info("Preloading {} facts for catchup", props.getCatchupFacts());
+            preload(ns, props.getCatchupFacts());
+            for (int round = 1; round <= props.getCatchupRounds(); round++) {
+                BenchmarkReport.Phase p = catchup(ns);
+                log.info("Catchup round {}: {}", round, p);
+                report.getCatchup().add(p);
+            }
+        }
+        return report;
+    }
+
+    private void publishAndFollow(int factsPerPublisher, BenchmarkReport report)
+            throws Exception {
+        String ns = newNamespace();
+        long facts = (long) factsPerPublisher * props.getPublishers();
+        Recorder publishLatency = new Recorder(3);
+        Recorder followLatency = new Recorder(3);
+        CountDownLatch received = new CountDownLatch(Math.toIntExact(facts * props
+                .getFollowers()));
+
+        List<Subscription> followers = new ArrayList<>();
+        ExecutorService publishers = Executors.newFixedThreadPool(props.getPublishers());
+        try {
+            for (int i = 0; i < props.getFollowers(); i++) {
+                followers.add(fc.subscribe(SubscriptionRequest.follow(props
+                        .getMaxBatchDelayInMs(), FactSpec.ns(ns)).fromNowOn(), f -> {
+                            long publishedAt = Long.parseLong(f.meta(PUBLISHED_AT));
+                            followLatency.recordValue(micros(System.nanoTime() - publishedAt));
+                            received.countDown();
+                        }).awaitCatchup());
+            }
+
+            long start = System.nanoTime();
+            List<Future<?>> running = new ArrayList<>();
+            for (int i = 0; i < props.getPublishers(); i++) {
+                running.add(publishers.submit(() -> publish(ns, factsPerPublisher,
+                        props.getPublishBatchSize(), publishLatency)));
+            }
+            for (Future<?> f : running) {
+                f.get();
+            }
+            long publishDuration = System.nanoTime() - start;
+
+            if (!received.await(props.getTimeoutInSeconds(), TimeUnit.SECONDS)) {
+                throw new TimeoutException("Followers did not receive all facts within "
+                        + props.getTimeoutInSeconds() + "s, missing " + received.getCount());
+            }
+            long followDuration = System.nanoTime() - start;
+
+            if (report != null) {
+                Histogram publish = publishLatency.getIntervalHistogram();
+                Histogram follow = followLatency.getIntervalHistogram();
+                report.setPublish(BenchmarkReport.Phase.of(facts, publishDuration, publish));
+                report.setFollow(BenchmarkReport.Phase.of(facts * props.getFollowers(),
+                        followDuration, follow));
+                report.getHistograms().put("publish", publish);
+                report.getHistograms().put("follow", follow);
+            }
+        } finally {
+            publishers.shutdownNow();
+            for (Subscription s : followers) {
+                s.close();
+            }
+        }
+    }
+
+    private void publish(String ns, int count, int batchSize, Recorder latency) {
+        String payload = payload(props.getPayloadSize());
+        int remaining = count;
+        while (remaining > 0) {
+            int size = Math.min(batchSize, remaining);
+            String publishedAt = String.valueOf(System.nanoTime());
+            List<Fact> batch = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                batch.add(Fact.builder()
+                        .ns(ns)
+                        .type(TYPE)
+                        .aggId(UUID.randomUUID())
+                        .meta(PUBLISHED_AT, publishedAt)
+                        .build(payload));
+            }
+            long start = System.nanoTime();
+            fc.publish(batch);
+            latency.recordValue(micros(System.nanoTime() - start));
+            remaining -= size;
+        }
+    }
+
+    private void preload(String ns, int count) {
+        publish(ns, count, PRELOAD_BATCH_SIZE, new Recorder(3));
+    }
+
+    private BenchmarkReport.Phase catchup(String ns) throws Exception {
+        AtomicLong count = new AtomicLong();
+        long start = System.nanoTime();
+        try (Subscription s = fc.subscribe(SubscriptionRequest.catchup(FactSpec.ns(ns))
+                .fromScratch(), f -> count.incrementAndGet())) {
+            s.awaitComplete(TimeUnit.SECONDS.toMillis(props.getTimeoutInSeconds()));
+        }
+        return BenchmarkReport.Phase.of(count.get(), System.nanoTime() - start, null);
+    }
+
+    private static String newNamespace() {
+        return "benchmark-" + UUID.randomUUID();
+    }
+
+    private static long micros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(Math.max(0, nanos));
+    }
+
+    static String payload(int size) {
+        StringBuilder sb = new StringBuilder(size + 16).append("{\"data\":\"");
+        while (sb.length() < size - 2) {
+            sb.append('x');
+        }
+        return sb.append("\"}").toString();
+    }
+}
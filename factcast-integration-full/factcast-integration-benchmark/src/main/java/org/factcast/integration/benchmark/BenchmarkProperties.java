@@ -0,0 +1,83 @@
+/*
+ * Copyright © 2017-2020 factcast.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.factcast.integration.benchmark;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+/**
+ * Workload of a benchmark run. Server side settings (pageSize etc.) are set
+ * via the usual factcast properties.
+ */
+@ConfigurationProperties(prefix = BenchmarkProperties.PROPERTIES_PREFIX)
+@Data
+@Accessors(fluent = false)
+public class BenchmarkProperties {
+
+    public static final String PROPERTIES_PREFIX = "factcast.benchmark";
+
+    /**
+     * number of threads publishing concurrently
+     */
+    int publishers = 4;
+
+    /**
+     * number of follow subscriptions receiving the published facts
+     */
+    int followers = 4;
+
+    int factsPerPublisher = 10000;
+
+    /**
+     * facts published before the measurement, to warm up the JVM and the
+     * database
+     */
+    int warmupFactsPerPublisher = 1000;
+
+    /**
+     * number of facts per publish call
+     */
+    int publishBatchSize = 1;
+
+    /**
+     * approximate size of the payload of each fact in bytes
+     */
+    int payloadSize = 256;
+
+    /**
+     * number of facts read by each catchup round, 0 to skip the catchup
+     */
+    int catchupFacts = 100000;
+
+    int catchupRounds = 3;
+
+    /**
+     * passed to the follow subscriptions
+     */
+    long maxBatchDelayInMs = 0;
+
+    /**
+     * compression codec to use for the client's calls (lz4, snappy, gzip or
+     * identity), null to use the one negotiated with the server
+     */
+    String codec = null;
+
+    long timeoutInSeconds = 600;
+
+    String reportFile = "target/benchmark-report.json";
+}
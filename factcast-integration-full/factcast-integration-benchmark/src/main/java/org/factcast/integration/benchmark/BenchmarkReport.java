@@ -0,0 +1,134 @@
+/*
+ * Copyright © 2017-2020 factcast.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.factcast.integration.benchmark;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram.Histogram;
+import org.factcast.core.util.FactCastJson;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import lombok.Data;
+import lombok.NonNull;
+import lombok.experimental.Accessors;
+
+/**
+ * Result of a benchmark run. Written as JSON, with the full latency
+ * distributions written next to it as HdrHistogram percentile files (.hgrm,
+ * in milliseconds), which can be plotted to compare runs.
+ */
+@Data
+@Accessors(fluent = false)
+public class BenchmarkReport {
+
+    String startedAt;
+
+    String factcastVersion;
+
+    final Map<String, Object> settings = new LinkedHashMap<>();
+
+    Phase publish;
+
+    Phase follow;
+
+    final List<Phase> catchup = new ArrayList<>();
+
+    @JsonIgnore
+    final Map<String, Histogram> histograms = new LinkedHashMap<>();
+
+    public void write(@NonNull Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Files.write(file, FactCastJson.writeValueAsPrettyString(this).getBytes(
+                StandardCharsets.UTF_8));
+
+        String base = file.getFileName().toString().replaceFirst("\\.json$", "");
+        for (Map.Entry<String, Histogram> e : histograms.entrySet()) {
+            Path hgrm = file.resolveSibling(base + "-" + e.getKey() + ".hgrm");
+            try (PrintStream out = new PrintStream(Files.newOutputStream(hgrm), false, "UTF-8")) {
+                // recorded in micros
+                e.getValue().outputPercentileDistribution(out, 1000.0);
+            }
+        }
+    }
+
+    @Data
+    @Accessors(fluent = false)
+    public static class Phase {
+
+        long facts;
+
+        long durationInMillis;
+
+        double factsPerSecond;
+
+        // null, if latency is not recorded for this phase
+        Latency latencyInMicros;
+
+        static Phase of(long facts, long durationInNanos, Histogram latency) {
+            Phase p = new Phase();
+            p.facts = facts;
+            p.durationInMillis = TimeUnit.NANOSECONDS.toMillis(durationInNanos);
+            p.factsPerSecond = durationInNanos == 0 ? 0
+                    : facts / (durationInNanos / 1_000_000_000.0);
+            p.latencyInMicros = latency == null ? null : Latency.of(latency);
+            return p;
+        }
+    }
+
+    @Data
+    @Accessors(fluent = false)
+    public static class Latency {
+
+        long count;
+
+        double mean;
+
+        long p50;
+
+        long p90;
+
+        long p99;
+
+        long p999;
+
+        long max;
+
+        static Latency of(@NonNull Histogram h) {
+            Latency l = new Latency();
+            l.count = h.getTotalCount();
+            l.mean = h.getMean();
+            l.p50 = h.getValueAtPercentile(50);
+            l.p90 = h.getValueAtPercentile(90);
+            l.p99 = h.getValueAtPercentile(99);
+            l.p999 = h.getValueAtPercentile(99.9);
+            l.max = h.getMaxValue();
+            return l;
+        }
+    }
+}
@@ -0,0 +1,232 @@
+/*
+ * Copyright © 2017-2020 factcast.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.factcast.server.grpc;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+import org.factcast.core.Fact;
+import org.factcast.core.subscription.observer.FactObserver;
+import org.factcast.core.subscription.observer.FlowControl;
+import org.factcast.core.util.ExceptionHelper;
+import org.factcast.grpc.api.conv.ProtoConverter;
+import org.factcast.grpc.api.gen.FactStoreProto.MSG_Fact;
+import org.factcast.grpc.api.gen.FactStoreProto.MSG_Facts;
+import org.factcast.grpc.api.gen.FactStoreProto.MSG_Notification;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import io.grpc.stub.StreamObserver;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * FactObserver implementation, that collects Facts into batch notifications
+ * (type Facts) rather than sending one notification per Fact.
+ * <p>
+ * A batch is sent, when it reaches maxBatchSize facts or maxBatchBytes, when
+ * maxBatchDelayInMillis passed since the first fact was added, or before any
+ * signal (catchup, complete, error) is sent.
+ * <p>
+ * As the catchup fetches whole pages from the store without delay, a batch
+ * will normally contain a page (pageSize defaults to maxBatchSize), while in
+ * follow mode, facts are delayed by maxBatchDelayInMillis at most.
+ */
+@Slf4j
+class BatchingGrpcObserverAdapter implements FactObserver, FlowControl {
+
+    static final int DEFAULT_MAX_BATCH_SIZE = 1000;
+
+    // well below the default max inbound message size of 4MB
+    static final int DEFAULT_MAX_BATCH_BYTES = 1024 * 1024;
+
+    static final long DEFAULT_MAX_BATCH_DELAY_IN_MILLIS = 10;
+
+    // flushes run on the timer threads, as sending never blocks (see
+    // FlowControlledStreamObserver). More than one, so that building and
+    // sending a large batch does not delay the flushes of other
+    // subscriptions.
+    private static final ScheduledExecutorService timer = Executors.newScheduledThreadPool(
+            Runtime.getRuntime().availableProcessors(), new ThreadFactoryBuilder().setDaemon(
+                    true).setNameFormat("factcast-grpc-batch-timer-%d").build());
+
+    final ProtoConverter converter = new ProtoConverter();
+
+    @NonNull
+    final String id;
+
+    @NonNull
+    final StreamObserver<MSG_Notification> observer;
+
+    @NonNull
+    final Function<Fact, MSG_Fact> projection;
+
+    final int maxBatchSize;
+
+    final int maxBatchBytes;
+
+    final long maxBatchDelayInMillis;
+
+    final ReentrantLock lock = new ReentrantLock();
+
+    // all of the following are guarded by lock
+
+    MSG_Facts.Builder batch = MSG_Facts.newBuilder();
+
+    int batchBytes = 0;
+
+    boolean flushScheduled = false;
+
+    Throwable flushFailure = null;
+
+    BatchingGrpcObserverAdapter(@NonNull String id,
+            @NonNull StreamObserver<MSG_Notification> observer,
+            @NonNull Function<Fact, MSG_Fact> projection) {
+        this(id, observer, projection, DEFAULT_MAX_BATCH_SIZE, DEFAULT_MAX_BATCH_BYTES,
+                DEFAULT_MAX_BATCH_DELAY_IN_MILLIS);
+    }
+
+    @VisibleForTesting
+    BatchingGrpcObserverAdapter(@NonNull String id,
+            @NonNull StreamObserver<MSG_Notification> observer,
+            @NonNull Function<Fact, MSG_Fact> projection, int maxBatchSize, int maxBatchBytes,
+            long maxBatchDelayInMillis) {
+        this.id = id;
+        this.observer = observer;
+        this.projection = projection;
+        this.maxBatchSize = maxBatchSize;
+        this.maxBatchBytes = maxBatchBytes;
+        this.maxBatchDelayInMillis = maxBatchDelayInMillis;
+    }
+
+    @Override
+    public void onNext(@NonNull Fact element) {
+        MSG_Fact msg = projection.apply(element);
+        lock.lock();
+        try {
+            if (flushFailure != null) {
+                // escalate to the store, so that the subscription gets closed
+                throw ExceptionHelper.toRuntime(flushFailure);
+            }
+            batch.addFact(msg);
+            batchBytes += msg.getSerializedSize();
+            if (batch.getFactCount() >= maxBatchSize || batchBytes >= maxBatchBytes) {
+                flush();
+            } else if (!flushScheduled) {
+                flushScheduled = true;
+                timer.schedule(this::scheduledFlush, maxBatchDelayInMillis,
+                        TimeUnit.MILLISECONDS);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @VisibleForTesting
+    void scheduledFlush() {
+        lock.lock();
+        try {
+            flushScheduled = false;
+            flush();
+        } catch (Throwable e) {
+            log.debug("{} failed to send batch: {}", id, e.getMessage());
+            // the next fact (if any) escalates to the store, so that the
+            // subscription gets closed. Until then, let the client know.
+            flushFailure = e;
+            onError(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // must be called with lock held
+    private void flush() {
+        if (batch.getFactCount() > 0) {
+            MSG_Notification notification = converter.createNotificationFor(batch.build());
+            batch = MSG_Facts.newBuilder();
+            batchBytes = 0;
+            observer.onNext(notification);
+        }
+    }
+
+    @Override
+    public void onCatchup() {
+        lock.lock();
+        try {
+            flush();
+            log.info("{} onCatchup – sending catchup notification", id);
+            observer.onNext(converter.createCatchupNotification());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void onComplete() {
+        lock.lock();
+        try {
+            flush();
+            log.info("{} onComplete – sending complete notification", id);
+            observer.onNext(converter.createCompleteNotification());
+            tryComplete();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void onError(@NonNull Throwable e) {
+        lock.lock();
+        try {
+            try {
+                flush();
+            } catch (Throwable ignore) {
+                log.trace("{} Exception while flushing before error {}", id, ignore.getMessage());
+            }
+            log.warn("{} onError – sending Error notification {}", id, e.getMessage());
+            observer.onError(e);
+            tryComplete();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean isReady() {
+        return !(observer instanceof FlowControl) || ((FlowControl) observer).isReady();
+    }
+
+    @Override
+    public void whenReady(@NonNull Runnable callback) {
+        if (observer instanceof FlowControl) {
+            ((FlowControl) observer).whenReady(callback);
+        } else {
+            callback.run();
+        }
+    }
+
+    private void tryComplete() {
+        try {
+            observer.onCompleted();
+        } catch (Throwable e) {
+            log.trace("{} Expected exception on completion {}", id, e.getMessage());
+        }
+    }
+}
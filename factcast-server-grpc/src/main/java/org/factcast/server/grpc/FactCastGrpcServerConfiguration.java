@@ -17,15 +17,21 @@
 
 import org.factcast.core.store.FactStore;
 import org.factcast.grpc.api.CompressionCodecs;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+
 @Configuration
 public class FactCastGrpcServerConfiguration {
 
     @Bean
-    public FactStoreGrpcService factStoreGrpcService(FactStore store) {
-        return new FactStoreGrpcService(store);
+    public FactStoreGrpcService factStoreGrpcService(FactStore store,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        return new FactStoreGrpcService(store, meterRegistry.getIfAvailable(
+                () -> Metrics.globalRegistry));
     }
 
     @Bean
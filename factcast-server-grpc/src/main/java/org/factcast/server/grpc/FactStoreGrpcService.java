@@ -31,9 +31,12 @@
 import org.factcast.core.Fact;
 import org.factcast.core.FactValidationException;
 import org.factcast.core.spec.FactSpec;
+import org.factcast.core.spec.PayloadProjection;
 import org.factcast.core.store.FactStore;
 import org.factcast.core.store.StateToken;
+import org.factcast.core.subscription.Subscription;
 import org.factcast.core.subscription.SubscriptionRequestTO;
+import org.factcast.core.subscription.observer.FactObserver;
 import org.factcast.grpc.api.Capabilities;
 import org.factcast.grpc.api.CompressionCodecs;
 import org.factcast.grpc.api.ConditionalPublishRequest;
@@ -68,8 +71,9 @@
 import io.grpc.StatusException;
 import io.grpc.stub.ServerCallStreamObserver;
 import io.grpc.stub.StreamObserver;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
 import lombok.NonNull;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import net.devh.boot.grpc.server.service.GrpcService;
 
@@ -81,12 +85,11 @@
  * @author uwe.schaefer@prisma-capacity.eu
  */
 @Slf4j
-@RequiredArgsConstructor
 @GrpcService
 @SuppressWarnings("all")
 public class FactStoreGrpcService extends RemoteFactStoreImplBase {
 
-    static final ProtocolVersion PROTOCOL_VERSION = ProtocolVersion.of(1, 1, 0);
+    static final ProtocolVersion PROTOCOL_VERSION = ProtocolVersion.of(1, 2, 0);
 
     final FactStore store;
 
@@ -96,6 +99,17 @@ public class FactStoreGrpcService extends RemoteFactStoreImplBase {
 
     static final AtomicLong subscriptionIdStore = new AtomicLong();
 
+    final GrpcSubscriptionMetrics subscriptionMetrics;
+
+    public FactStoreGrpcService(@NonNull FactStore store) {
+        this(store, Metrics.globalRegistry);
+    }
+
+    public FactStoreGrpcService(@NonNull FactStore store, @NonNull MeterRegistry meterRegistry) {
+        this.store = store;
+        subscriptionMetrics = new GrpcSubscriptionMetrics(meterRegistry);
+    }
+
     @Override
     @Secured(FactCastAuthority.AUTHENTICATED)
     public void publish(@NonNull MSG_Facts request, StreamObserver<MSG_Empty> responseObserver) {
@@ -145,13 +159,35 @@ public void subscribe(MSG_SubscriptionRequest request,
         try {
             assertCanRead(namespaces);
 
-            resetDebugInfo(req);
-            BlockingStreamObserver<MSG_Notification> resp = new BlockingStreamObserver<>(
-                    req.toString(),
-                    (ServerCallStreamObserver) responseObserver);
-
-            store.subscribe(req, new GrpcObserverAdapter(req.toString(), resp,
-                    f -> converter.createNotificationFor(f)));
+            String account = getFactcastUser().getUsername();
+            resetDebugInfo(req, account);
+            FlowControlledStreamObserver<MSG_Notification> resp =
+                    new FlowControlledStreamObserver<>(req.toString(),
+                            (ServerCallStreamObserver) responseObserver);
+            GrpcSubscriptionMetrics.SubscriptionMeters meters = subscriptionMetrics.subscribed(
+                    account);
+            resp.whenTerminated(meters::terminated);
+
+            // projection is applied last, so that filters and transformations
+            // still see the full payload
+            PayloadProjection projection = PayloadProjection.of(req.specs());
+            FactObserver observer;
+            if (request.getAcceptsBatches()) {
+                observer = new BatchingGrpcObserverAdapter(req.toString(), resp, f -> {
+                    meters.factSent();
+                    return converter.toStructuredProto(projection.apply(f));
+                });
+            } else {
+                observer = new GrpcObserverAdapter(req.toString(), resp, f -> {
+                    meters.factSent();
+                    return converter.createNotificationFor(projection.apply(f));
+                });
+            }
+            Subscription subscription = store.subscribe(req, observer);
+            // release resources held by the subscription as soon as possible
+            if (subscription != null) {
+                resp.onCancel(() -> tryClose(subscription));
+            }
 
         } catch (StatusException e) {
             responseObserver.onError(e);
@@ -159,6 +195,14 @@ public void subscribe(MSG_SubscriptionRequest request,
 
     }
 
+    private void tryClose(Subscription subscription) {
+        try {
+            subscription.close();
+        } catch (Exception e) {
+            log.debug("Exception while closing subscription: {}", e.getMessage());
+        }
+    }
+
     private void enableResponseCompression(StreamObserver<?> responseObserver) {
         // need to be defensive not to break tests passing mocks here.
         if (responseObserver instanceof ServerCallStreamObserver) {
@@ -178,6 +222,8 @@ private Map<String, String> collectProperties() {
         HashMap<String, String> properties = new HashMap<>();
         retrieveImplementationVersion(properties);
         properties.put(Capabilities.CODECS.toString(), codecs.available());
+        properties.put(Capabilities.PAYLOAD_PROJECTION.toString(), String.valueOf(true));
+        properties.put(Capabilities.JSON_PATH_FILTER.toString(), String.valueOf(true));
         log.info("Handshake properties: {} ", properties);
         return properties;
     }
@@ -212,8 +258,8 @@ URL getProjectProperties() {
                 .getResource("/META-INF/maven/org.factcast/factcast-server-grpc/pom.properties");
     }
 
-    private void resetDebugInfo(SubscriptionRequestTO req) {
-        String newId = "grpc-sub#" + subscriptionIdStore.incrementAndGet();
+    private void resetDebugInfo(SubscriptionRequestTO req, String account) {
+        String newId = "grpc-sub#" + subscriptionIdStore.incrementAndGet() + "@" + account;
         log.info("subscribing {} for {} defined as {}", newId, req, req.dump());
         req.debugInfo(newId);
     }
@@ -0,0 +1,173 @@
+/*
+ * Copyright © 2017-2020 factcast.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.factcast.server.grpc;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.factcast.core.subscription.observer.FlowControl;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * StreamObserver impl that never blocks, but exposes the writeable state of the
+ * stream to the consumer as {@link FlowControl}, so that the FactStore can
+ * pause fetching (and release DB resources) while the consumer is slow.
+ * <p>
+ * Callbacks registered via {@link #whenReady(Runnable)} are run from the
+ * onReady handler of the call, or when it gets cancelled.
+ * <p>
+ * As any StreamObserver, this is not thread-safe, so that calls to onNext etc.
+ * must be serialized by the caller.
+ *
+ * @param <T>
+ */
+@Slf4j
+public class FlowControlledStreamObserver<T> implements StreamObserver<T>, FlowControl {
+
+    final ServerCallStreamObserver<T> delegate;
+
+    final String id;
+
+    final Queue<Runnable> pendingCallbacks = new ConcurrentLinkedQueue<>();
+
+    volatile Runnable onCancel = null;
+
+    final AtomicReference<Runnable> onTermination = new AtomicReference<>();
+
+    FlowControlledStreamObserver(@NonNull String id,
+            @NonNull ServerCallStreamObserver<T> delegate) {
+        this.id = id;
+        this.delegate = delegate;
+        this.delegate.setOnReadyHandler(this::runPendingCallbacks);
+        this.delegate.setOnCancelHandler(this::cancelled);
+    }
+
+    /**
+     * @param onCancel
+     *            to be run when the call gets cancelled, or immediately if it
+     *            already was cancelled.
+     */
+    void onCancel(@NonNull Runnable onCancel) {
+        this.onCancel = onCancel;
+        if (delegate.isCancelled()) {
+            cancelled();
+        }
+    }
+
+    /**
+     * @param onTermination
+     *            to be run once, when the call is completed, failed or
+     *            cancelled.
+     */
+    void whenTerminated(@NonNull Runnable onTermination) {
+        this.onTermination.set(onTermination);
+        if (delegate.isCancelled()) {
+            terminated();
+        }
+    }
+
+    private void terminated() {
+        Runnable r = onTermination.getAndSet(null);
+        if (r != null) {
+            try {
+                r.run();
+            } catch (Throwable e) {
+                log.warn("{} exception while handling termination: {}", id, e.getMessage());
+            }
+        }
+    }
+
+    @VisibleForTesting
+    void cancelled() {
+        log.debug("{} call cancelled by consumer", id);
+        Runnable r = onCancel;
+        onCancel = null;
+        if (r != null) {
+            try {
+                r.run();
+            } catch (Throwable e) {
+                log.warn("{} exception while handling cancellation: {}", id, e.getMessage());
+            }
+        }
+        terminated();
+        // wake up whoever waits for us
+        runPendingCallbacks();
+    }
+
+    @VisibleForTesting
+    void runPendingCallbacks() {
+        Runnable r;
+        while ((r = pendingCallbacks.poll()) != null) {
+            try {
+                r.run();
+            } catch (Throwable e) {
+                log.warn("{} exception from onReady callback: {}", id, e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public boolean isReady() {
+        // a cancelled stream will never become ready again, so there is no
+        // point in waiting for it
+        return delegate.isReady() || delegate.isCancelled();
+    }
+
+    @Override
+    public void whenReady(@NonNull Runnable callback) {
+        pendingCallbacks.add(callback);
+        // might have become ready in the meantime, so that the onReady handler
+        // would not be called anymore
+        if (isReady()) {
+            runPendingCallbacks();
+        } else {
+            log.debug("{} channel not ready. Slow client?", id);
+        }
+    }
+
+    @Override
+    public void onNext(T value) {
+        if (!delegate.isCancelled()) {
+            // grpc buffers the message, if the stream is not ready
+            delegate.onNext(value);
+        }
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        try {
+            delegate.onError(t);
+        } finally {
+            terminated();
+        }
+    }
+
+    @Override
+    public void onCompleted() {
+        try {
+            delegate.onCompleted();
+        } finally {
+            terminated();
+        }
+    }
+}
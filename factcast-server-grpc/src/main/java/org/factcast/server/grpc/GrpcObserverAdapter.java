@@ -19,6 +19,7 @@
 
 import org.factcast.core.Fact;
 import org.factcast.core.subscription.observer.FactObserver;
+import org.factcast.core.subscription.observer.FlowControl;
 import org.factcast.grpc.api.conv.ProtoConverter;
 import org.factcast.grpc.api.gen.FactStoreProto.MSG_Notification;
 
@@ -35,7 +36,7 @@
  */
 @Slf4j
 @RequiredArgsConstructor
-class GrpcObserverAdapter implements FactObserver {
+class GrpcObserverAdapter implements FactObserver, FlowControl {
 
     final ProtoConverter converter = new ProtoConverter();
 
@@ -80,4 +81,18 @@ public void onCatchup() {
     public void onNext(Fact element) {
         observer.onNext(projection.apply(element));
     }
+
+    @Override
+    public boolean isReady() {
+        return !(observer instanceof FlowControl) || ((FlowControl) observer).isReady();
+    }
+
+    @Override
+    public void whenReady(@NonNull Runnable callback) {
+        if (observer instanceof FlowControl) {
+            ((FlowControl) observer).whenReady(callback);
+        } else {
+            callback.run();
+        }
+    }
 }
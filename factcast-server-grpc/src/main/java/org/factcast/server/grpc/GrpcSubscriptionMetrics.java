@@ -0,0 +1,96 @@
+/*
+ * Copyright © 2017-2020 factcast.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.factcast.server.grpc;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Metrics of the subscriptions served via GRPC, tagged by the account that
+ * subscribed.
+ */
+@RequiredArgsConstructor
+class GrpcSubscriptionMetrics {
+
+    static final String METRIC_NAME_SUBSCRIPTIONS = "factcast.server.subscriptions";
+
+    static final String METRIC_NAME_ACTIVE = "factcast.server.subscriptions.active";
+
+    static final String METRIC_NAME_FACTS = "factcast.server.subscriptions.facts";
+
+    static final String METRIC_NAME_DURATION = "factcast.server.subscriptions.duration";
+
+    static final String TAG_ACCOUNT_KEY = "account";
+
+    @NonNull
+    final MeterRegistry registry;
+
+    final Map<String, AtomicInteger> active = new ConcurrentHashMap<>();
+
+    /**
+     * @return the meters of a new subscription of the given account
+     */
+    SubscriptionMeters subscribed(@NonNull String account) {
+        Tags tags = Tags.of(TAG_ACCOUNT_KEY, account);
+        registry.counter(METRIC_NAME_SUBSCRIPTIONS, tags).increment();
+        AtomicInteger gauge = active.computeIfAbsent(account, a -> registry.gauge(
+                METRIC_NAME_ACTIVE, tags, new AtomicInteger()));
+        gauge.incrementAndGet();
+        return new SubscriptionMeters(tags, gauge);
+    }
+
+    class SubscriptionMeters {
+
+        final Tags tags;
+
+        final AtomicInteger activeOfAccount;
+
+        final Counter facts;
+
+        final long start = System.nanoTime();
+
+        private SubscriptionMeters(Tags tags, AtomicInteger activeOfAccount) {
+            this.tags = tags;
+            this.activeOfAccount = activeOfAccount;
+            facts = registry.counter(METRIC_NAME_FACTS, tags);
+        }
+
+        void factSent() {
+            facts.increment();
+        }
+
+        /**
+         * to be called exactly once, when the call completed, failed or got
+         * cancelled.
+         */
+        void terminated() {
+            activeOfAccount.decrementAndGet();
+            Timer.builder(METRIC_NAME_DURATION)
+                    .tags(tags)
+                    .register(registry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright © 2017-2020 factcast.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.factcast.server.grpc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+
+import org.factcast.core.Fact;
+import org.factcast.grpc.api.conv.ProtoConverter;
+import org.factcast.grpc.api.gen.FactStoreProto.MSG_Notification;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import io.grpc.stub.StreamObserver;
+
+@ExtendWith(MockitoExtension.class)
+public class BatchingGrpcObserverAdapterTest {
+
+    @Mock
+    private StreamObserver<MSG_Notification> observer;
+
+    @Captor
+    private ArgumentCaptor<MSG_Notification> msg;
+
+    final ProtoConverter conv = new ProtoConverter();
+
+    private BatchingGrpcObserverAdapter uut(int maxSize, int maxBytes) {
+        // long delay, so that the timer does not interfere
+        return new BatchingGrpcObserverAdapter("foo", observer, conv::toProto, maxSize, maxBytes,
+                60000);
+    }
+
+    private static Fact fact() {
+        return Fact.builder().ns("test").build("{}");
+    }
+
+    @Test
+    void testSendsBatchWhenFull() {
+        BatchingGrpcObserverAdapter uut = uut(3, Integer.MAX_VALUE);
+        doNothing().when(observer).onNext(msg.capture());
+
+        Fact f1 = fact();
+        Fact f2 = fact();
+        uut.onNext(f1);
+        uut.onNext(f2);
+        verify(observer, never()).onNext(any());
+
+        Fact f3 = fact();
+        uut.onNext(f3);
+        verify(observer).onNext(any());
+
+        assertEquals(MSG_Notification.Type.Facts, msg.getValue().getType());
+        List<? extends Fact> facts = conv.fromProto(msg.getValue().getFacts());
+        assertEquals(3, facts.size());
+        assertEquals(f1.id(), facts.get(0).id());
+        assertEquals(f2.id(), facts.get(1).id());
+        assertEquals(f3.id(), facts.get(2).id());
+    }
+
+    @Test
+    void testSendsBatchWhenBytesExceeded() {
+        BatchingGrpcObserverAdapter uut = uut(100, 1);
+        doNothing().when(observer).onNext(msg.capture());
+
+        uut.onNext(fact());
+
+        verify(observer).onNext(any());
+        assertEquals(1, msg.getValue().getFacts().getFactCount());
+    }
+
+    @Test
+    void testScheduledFlush() {
+        BatchingGrpcObserverAdapter uut = uut(100, Integer.MAX_VALUE);
+        doNothing().when(observer).onNext(msg.capture());
+
+        uut.onNext(fact());
+        uut.onNext(fact());
+        verify(observer, never()).onNext(any());
+
+        uut.scheduledFlush();
+        verify(observer).onNext(any());
+        assertEquals(2, msg.getValue().getFacts().getFactCount());
+
+        // nothing left to send
+        uut.scheduledFlush();
+        verify(observer).onNext(any());
+    }
+
+    @Test
+    void testFlushesBeforeCatchup() {
+        BatchingGrpcObserverAdapter uut = uut(100, Integer.MAX_VALUE);
+        doNothing().when(observer).onNext(msg.capture());
+
+        uut.onNext(fact());
+        uut.onCatchup();
+
+        verify(observer, times(2)).onNext(any());
+        List<MSG_Notification> sent = msg.getAllValues();
+        assertEquals(MSG_Notification.Type.Facts, sent.get(0).getType());
+        assertEquals(MSG_Notification.Type.Catchup, sent.get(1).getType());
+    }
+
+    @Test
+    void testFlushesBeforeComplete() {
+        BatchingGrpcObserverAdapter uut = uut(100, Integer.MAX_VALUE);
+        doNothing().when(observer).onNext(msg.capture());
+
+        uut.onNext(fact());
+        uut.onComplete();
+
+        verify(observer, times(2)).onNext(any());
+        List<MSG_Notification> sent = msg.getAllValues();
+        assertEquals(MSG_Notification.Type.Facts, sent.get(0).getType());
+        assertEquals(MSG_Notification.Type.Complete, sent.get(1).getType());
+        verify(observer).onCompleted();
+    }
+
+    @Test
+    void testOnErrorIgnoresFailingFlush() {
+        BatchingGrpcObserverAdapter uut = uut(100, Integer.MAX_VALUE);
+        doThrow(IllegalStateException.class).when(observer).onNext(any());
+
+        uut.onNext(fact());
+        uut.onError(new Exception());
+
+        verify(observer).onError(any());
+    }
+
+    @Test
+    void testFailedScheduledFlushIsEscalated() {
+        BatchingGrpcObserverAdapter uut = uut(100, Integer.MAX_VALUE);
+        doThrow(IllegalStateException.class).when(observer).onNext(any());
+
+        uut.onNext(fact());
+        uut.scheduledFlush();
+
+        verify(observer).onError(any(IllegalStateException.class));
+        assertThrows(IllegalStateException.class, () -> uut.onNext(fact()));
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright © 2017-2020 factcast.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.factcast.server.grpc;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.factcast.core.Fact;
+import org.factcast.core.spec.FactSpec;
+import org.factcast.core.store.FactStore;
+import org.factcast.core.subscription.Subscription;
+import org.factcast.core.subscription.SubscriptionRequest;
+import org.factcast.core.subscription.SubscriptionRequestTO;
+import org.factcast.core.subscription.observer.FactObserver;
+import org.factcast.grpc.api.conv.ProtoConverter;
+import org.factcast.grpc.api.gen.FactStoreProto.MSG_Notification;
+import org.factcast.grpc.api.gen.FactStoreProto.MSG_SubscriptionRequest;
+import org.factcast.grpc.api.gen.RemoteFactStoreGrpc;
+import org.factcast.server.grpc.auth.FactCastAccount;
+import org.factcast.server.grpc.auth.FactCastUser;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.netty.NettyChannelBuilder;
+import io.grpc.netty.NettyServerBuilder;
+
+/**
+ * Measures catchup throughput of small facts over loopback, with and without
+ * batch notifications.
+ * <p>
+ * Not a test, run main() manually. Optional args: numberOfFacts, rounds
+ */
+public class CatchupThroughputBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int numberOfFacts = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        List<Fact> facts = new ArrayList<>(numberOfFacts);
+        for (int i = 0; i < numberOfFacts; i++) {
+            facts.add(Fact.builder()
+                    .ns("benchmark")
+                    .type("small")
+                    .aggId(UUID.randomUUID())
+                    .build("{\"i\":" + i + "}"));
+        }
+
+        // grpc calls are handled on other threads
+        SecurityContextHolder.setStrategyName(SecurityContextHolder.MODE_GLOBAL);
+        SecurityContextHolder.getContext()
+                .setAuthentication(new FactStoreGrpcServiceTest.TestToken(new FactCastUser(
+                        FactCastAccount.GOD, "DISABLED")));
+
+        Server server = NettyServerBuilder.forAddress(new InetSocketAddress("localhost", 0))
+                .addService(new FactStoreGrpcService(replayingStore(facts)))
+                .build()
+                .start();
+        ManagedChannel channel = NettyChannelBuilder.forAddress("localhost", server.getPort())
+                .usePlaintext()
+                .maxInboundMessageSize(16 * 1024 * 1024)
+                .build();
+        try {
+            for (int round = 1; round <= rounds; round++) {
+                for (boolean batched : new boolean[] { false, true }) {
+                    long start = System.nanoTime();
+                    long received = catchup(channel, batched);
+                    long elapsed = System.nanoTime() - start;
+                    System.out.printf("round %d, batched=%-5s: %d facts in %d ms (%.0f facts/s)%n",
+                            round, batched, received, TimeUnit.NANOSECONDS.toMillis(elapsed),
+                            received / (elapsed / 1_000_000_000.0));
+                }
+            }
+        } finally {
+            channel.shutdownNow();
+            server.shutdownNow();
+        }
+    }
+
+    private static long catchup(ManagedChannel channel, boolean batched) {
+        SubscriptionRequestTO req = SubscriptionRequestTO.forFacts(SubscriptionRequest.catchup(
+                FactSpec.ns("benchmark")).fromScratch());
+        MSG_SubscriptionRequest msg = new ProtoConverter().toProto(req, batched);
+        Iterator<MSG_Notification> it = RemoteFactStoreGrpc.newBlockingStub(channel).subscribe(
+                msg);
+        long count = 0;
+        while (it.hasNext()) {
+            MSG_Notification n = it.next();
+            switch (n.getType()) {
+            case Fact:
+                count++;
+                break;
+            case Facts:
+                count += n.getFacts().getFactCount();
+                break;
+            default:
+                break;
+            }
+        }
+        return count;
+    }
+
+    private static FactStore replayingStore(List<Fact> facts) {
+        FactStore store = mock(FactStore.class);
+        when(store.subscribe(any(), any())).thenAnswer(i -> {
+            FactObserver o = i.getArgument(1);
+            CompletableFuture.runAsync(() -> {
+                facts.forEach(o::onNext);
+                o.onCatchup();
+                o.onComplete();
+            });
+            return mock(Subscription.class);
+        });
+        return store;
+    }
+}
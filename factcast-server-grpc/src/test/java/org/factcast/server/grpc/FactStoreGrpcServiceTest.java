@@ -33,6 +33,7 @@
 import org.factcast.core.store.StateToken;
 import org.factcast.core.subscription.SubscriptionRequest;
 import org.factcast.core.subscription.SubscriptionRequestTO;
+import org.factcast.core.subscription.observer.FactObserver;
 import org.factcast.grpc.api.Capabilities;
 import org.factcast.grpc.api.ConditionalPublishRequest;
 import org.factcast.grpc.api.StateForRequest;
@@ -69,6 +70,7 @@
 import io.grpc.StatusRuntimeException;
 import io.grpc.stub.ServerCallStreamObserver;
 import io.grpc.stub.StreamObserver;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 @SuppressWarnings({ "unchecked", "rawtypes" })
 @ExtendWith(MockitoExtension.class)
@@ -166,6 +168,41 @@ void testSubscribeFacts() {
         verify(backend).subscribe(any(), any());
     }
 
+    @Test
+    void testSubscriptionMetrics() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        uut = new FactStoreGrpcService(backend, registry);
+        ArgumentCaptor<FactObserver> observer = ArgumentCaptor.forClass(FactObserver.class);
+        when(backend.subscribe(this.reqCaptor.capture(), observer.capture())).thenReturn(null);
+
+        SubscriptionRequest req = SubscriptionRequest.catchup(FactSpec.ns("foo")).fromScratch();
+        uut.subscribe(new ProtoConverter().toProto(SubscriptionRequestTO.forFacts(req)),
+                mock(ServerCallStreamObserver.class));
+
+        assertEquals("grpc-sub#" + FactStoreGrpcService.subscriptionIdStore.get() + "@GODMODE",
+                reqCaptor.getValue().debugInfo());
+        assertEquals(1, registry.get(GrpcSubscriptionMetrics.METRIC_NAME_ACTIVE)
+                .tag(GrpcSubscriptionMetrics.TAG_ACCOUNT_KEY, "GODMODE")
+                .gauge()
+                .value());
+
+        observer.getValue().onNext(Fact.builder().ns("foo").build("{}"));
+        observer.getValue().onComplete();
+
+        assertEquals(1, registry.get(GrpcSubscriptionMetrics.METRIC_NAME_SUBSCRIPTIONS)
+                .counter()
+                .count());
+        assertEquals(1, registry.get(GrpcSubscriptionMetrics.METRIC_NAME_FACTS)
+                .counter()
+                .count());
+        assertEquals(0, registry.get(GrpcSubscriptionMetrics.METRIC_NAME_ACTIVE)
+                .gauge()
+                .value());
+        assertEquals(1, registry.get(GrpcSubscriptionMetrics.METRIC_NAME_DURATION)
+                .timer()
+                .count());
+    }
+
     @Test
     public void testSerialOf() throws Exception {
         uut = new FactStoreGrpcService(backend);
@@ -0,0 +1,180 @@
+/*
+ * Copyright © 2017-2020 factcast.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.factcast.server.grpc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import io.grpc.stub.ServerCallStreamObserver;
+
+@ExtendWith(MockitoExtension.class)
+public class FlowControlledStreamObserverTest {
+
+    @Mock
+    private ServerCallStreamObserver<Object> delegate;
+
+    private FlowControlledStreamObserver<Object> uut;
+
+    @BeforeEach
+    void setUp() {
+        uut = new FlowControlledStreamObserver<>("foo", delegate);
+    }
+
+    @Test
+    void testOnCompleted() {
+        verify(delegate, never()).onCompleted();
+        uut.onCompleted();
+        verify(delegate).onCompleted();
+    }
+
+    @Test
+    void testNullContract() {
+        assertThrows(NullPointerException.class, () -> {
+            new FlowControlledStreamObserver(null, mock(ServerCallStreamObserver.class));
+        });
+        assertThrows(NullPointerException.class, () -> {
+            new FlowControlledStreamObserver(null, null);
+        });
+        assertThrows(NullPointerException.class, () -> {
+            new FlowControlledStreamObserver("oink", null);
+        });
+    }
+
+    @Test
+    void testOnError() {
+        verify(delegate, never()).onError(any());
+        uut.onError(new Exception());
+        verify(delegate).onError(any());
+    }
+
+    @Test
+    void testOnNextDoesNotBlockWhenNotReady() {
+        uut.onNext(new Object());
+        verify(delegate).onNext(any());
+        verify(delegate, never()).isReady();
+    }
+
+    @Test
+    void testOnNextWhenCancelled() {
+        when(delegate.isCancelled()).thenReturn(true);
+        uut.onNext(new Object());
+        verify(delegate, never()).onNext(any());
+    }
+
+    @Test
+    void testIsReady() {
+        when(delegate.isReady()).thenReturn(false, true);
+        assertFalse(uut.isReady());
+        assertTrue(uut.isReady());
+    }
+
+    @Test
+    void testIsReadyWhenCancelled() {
+        when(delegate.isReady()).thenReturn(false);
+        when(delegate.isCancelled()).thenReturn(true);
+        assertTrue(uut.isReady());
+    }
+
+    @Test
+    void testWhenReadyRunsImmediatelyIfReady() {
+        when(delegate.isReady()).thenReturn(true);
+        Runnable callback = mock(Runnable.class);
+        uut.whenReady(callback);
+        verify(callback).run();
+    }
+
+    @Test
+    void testWhenReadyRunsOnReady() {
+        when(delegate.isReady()).thenReturn(false);
+        Runnable callback = mock(Runnable.class);
+        uut.whenReady(callback);
+        verify(callback, never()).run();
+
+        uut.runPendingCallbacks();
+        verify(callback).run();
+
+        // only once
+        uut.runPendingCallbacks();
+        verify(callback).run();
+    }
+
+    @Test
+    void testWhenReadyRunsOnCancel() {
+        when(delegate.isReady()).thenReturn(false);
+        Runnable callback = mock(Runnable.class);
+        uut.whenReady(callback);
+        verify(callback, never()).run();
+
+        uut.cancelled();
+        verify(callback).run();
+    }
+
+    @Test
+    void testOnCancel() {
+        Runnable onCancel = mock(Runnable.class);
+        uut.onCancel(onCancel);
+        verify(onCancel, never()).run();
+
+        uut.cancelled();
+        verify(onCancel).run();
+    }
+
+    @Test
+    void testOnCancelWhenAlreadyCancelled() {
+        when(delegate.isCancelled()).thenReturn(true);
+        Runnable onCancel = mock(Runnable.class);
+        uut.onCancel(onCancel);
+        verify(onCancel).run();
+    }
+
+    @Test
+    void testWhenTerminatedRunsOnce() {
+        Runnable onTermination = mock(Runnable.class);
+        uut.whenTerminated(onTermination);
+        verify(onTermination, never()).run();
+
+        uut.onCompleted();
+        verify(onTermination).run();
+
+        uut.cancelled();
+        verify(onTermination).run();
+    }
+
+    @Test
+    void testWhenTerminatedRunsOnError() {
+        Runnable onTermination = mock(Runnable.class);
+        uut.whenTerminated(onTermination);
+
+        uut.onError(new Exception());
+        verify(onTermination).run();
+    }
+
+    @Test
+    void testWhenTerminatedRunsOnCancel() {
+        Runnable onTermination = mock(Runnable.class);
+        uut.whenTerminated(onTermination);
+
+        uut.cancelled();
+        verify(onTermination).run();
+    }
+}
@@ -19,7 +19,10 @@
 import java.util.Optional;
 
 import org.factcast.client.grpc.GrpcFactStore;
+import org.factcast.client.grpc.MicrometerSubscriptionMetrics;
 import org.factcast.core.store.FactStore;
+import org.factcast.core.subscription.SubscriptionMetrics;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
@@ -28,6 +31,8 @@
 
 import io.grpc.Channel;
 import io.grpc.ClientInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
 import net.devh.boot.grpc.client.channelfactory.GrpcChannelFactory;
 
 /**
@@ -44,7 +49,8 @@ public class GrpcFactStoreAutoConfiguration {
     @Bean
     @ConditionalOnMissingBean(FactStore.class)
     public FactStore factStore(GrpcChannelFactory af,
-            @Value("${grpc.client.factstore.credentials:#{null}}") Optional<String> credentials) {
+            @Value("${grpc.client.factstore.credentials:#{null}}") Optional<String> credentials,
+            ObjectProvider<MeterRegistry> meterRegistry) {
         org.factcast.client.grpc.FactCastGrpcChannelFactory f = new org.factcast.client.grpc.FactCastGrpcChannelFactory() {
 
             @Override
@@ -62,6 +68,14 @@ public void close() {
                 af.close();
             }
         };
-        return new GrpcFactStore(f, credentials);
+        return new GrpcFactStore(f, credentials, meterRegistry.getIfAvailable(
+                () -> Metrics.globalRegistry));
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(SubscriptionMetrics.class)
+    public SubscriptionMetrics subscriptionMetrics(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new MicrometerSubscriptionMetrics(meterRegistry.getIfAvailable(
+                () -> Metrics.globalRegistry));
     }
 }
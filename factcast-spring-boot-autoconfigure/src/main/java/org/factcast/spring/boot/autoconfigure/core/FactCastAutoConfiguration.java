@@ -17,6 +17,8 @@
 
 import org.factcast.core.FactCast;
 import org.factcast.core.store.FactStore;
+import org.factcast.core.subscription.SubscriptionMetrics;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.context.annotation.Bean;
@@ -31,7 +33,9 @@
 public class FactCastAutoConfiguration {
 
     @Bean
-    public FactCast factCast(FactStore store) {
-        return FactCast.from(store);
+    public FactCast factCast(FactStore store,
+            ObjectProvider<SubscriptionMetrics> subscriptionMetrics) {
+        return FactCast.from(store, subscriptionMetrics.getIfAvailable(
+                () -> SubscriptionMetrics.NOP));
     }
 }
@@ -15,6 +15,7 @@
  */
 package org.factcast.store.pgsql;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -24,6 +25,7 @@
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.DeprecatedConfigurationProperty;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationListener;
 import org.springframework.core.env.AbstractEnvironment;
@@ -46,6 +48,8 @@ public class PgConfigurationProperties implements ApplicationListener<Applicatio
 
     public static final String PROPERTIES_PREFIX = "factcast.store.pgsql";
 
+    private static final long ASSUMED_AVERAGE_FACT_SIZE_IN_BYTES = 1024;
+
     @Autowired
     Environment env;
 
@@ -68,6 +72,19 @@ public class PgConfigurationProperties implements ApplicationListener<Applicatio
      */
     CatchupStrategy catchupStrategy = CatchupStrategy.getDefault();
 
+    /**
+     * Number of threads shared by all subscriptions, to connect and catch up.
+     * Subscriptions connecting while all of them are busy, wait for one to
+     * become free. (Defaults to 32)
+     */
+    int catchupThreads = 32;
+
+    /**
+     * Time a subscription waits for a slow consumer to take more facts, before
+     * it is closed with an error. (Defaults to 60)
+     */
+    int consumerReadyTimeoutInSeconds = 60;
+
     /**
      * Fetch Size used when filling the Queue, defaults to 4 (25% of the
      * queue-size)
@@ -87,6 +104,14 @@ public class PgConfigurationProperties implements ApplicationListener<Applicatio
      */
     boolean persistentRegistry = true;
 
+    /**
+     * Optional path to a local snapshot of the schema registry. If set, the
+     * snapshot is updated whenever the registry changes, and used on startup
+     * instead of fetching everything from the remote registry. Changes since
+     * are then fetched in the background. (Defaults to null)
+     */
+    String registrySnapshotFile;
+
     /**
      * when using the persistent impl of the transformation cache, this is the
      * min number of days a transformation result is not read in order to be
@@ -102,10 +127,60 @@ public class PgConfigurationProperties implements ApplicationListener<Applicatio
     boolean persistentTransformationCache = false;
 
     /**
-     * when using the inmem impl of the transformation cache, this is the max
-     * number of entries cached.
+     * when using the inmem impl of the transformation cache, this is the
+     * approximate max size of the cached facts in megabytes.
+     */
+    int inMemTransformationCacheSizeInMb = 256;
+
+    /**
+     * @deprecated replaced by inMemTransformationCacheSizeInMb. If set, the
+     *             cache is limited to this number of entries times an assumed
+     *             average size of a fact, instead.
+     */
+    @Deprecated
+    Integer inMemTransformationCacheCapacity;
+
+    /**
+     * when using the inmem impl of the transformation cache, this controls if
+     * cached facts are stored deflated, which takes considerably less memory
+     * at the cost of inflating them on every hit. (Defaults to false)
+     */
+    boolean inMemTransformationCacheCompressed = false;
+
+    /**
+     * when using the persistent impl of the transformation cache, this is the
+     * size of an in-memory cache in front of it. New transformation results are
+     * then written to postgres in the background. (Defaults to 0, which
+     * disables the in-memory cache)
+     */
+    int transformationCacheL1SizeInMb = 0;
+
+    /**
+     * when the in-memory cache in front of the persistent transformation cache
+     * is enabled, new entries are written to postgres in batches at this
+     * interval.
+     */
+    long transformationCacheWriteBehindIntervalInMillis = 1000;
+
+    /**
+     * If validation is enabled, facts of these targets are transformed into
+     * the transformation cache in the background, whenever transformations for
+     * them change. Targets are given in the form of ns:type:version.
+     */
+    List<String> transformationPrecomputeTargets = new ArrayList<>();
+
+    /**
+     * max number of facts per second read when precomputing transformations
+     * in the background.
+     */
+    double transformationPrecomputeFactsPerSecond = 1000;
+
+    /**
+     * Number of threads shared by all subscriptions, to transform the facts of
+     * a page, that are not found in the transformation cache. (Defaults to the
+     * number of available processors)
      */
-    int inMemTransformationCacheCapacity = 1_000_000;
+    int transformationThreads = Runtime.getRuntime().availableProcessors();
 
     /**
      * If validation is enabled, this controls if publishing facts, that are not
@@ -115,10 +190,60 @@ public class PgConfigurationProperties implements ApplicationListener<Applicatio
      */
     boolean allowUnvalidatedPublish = false;
 
+    /**
+     * If validation is enabled, publish batches of at least this number of
+     * facts are validated in parallel.
+     */
+    int parallelValidationThreshold = 500;
+
+    /**
+     * Number of threads shared by all publishers, to validate large publish
+     * batches in parallel. (Defaults to the number of available processors)
+     */
+    int validationThreads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * If true, the fact table is converted into a table partitioned by range of
+     * ser on startup (unless it is partitioned already), and partitions are
+     * created ahead of time. Requires PostgreSQL 12+. (Defaults to false)
+     */
+    boolean partitionFactTable = false;
+
+    /**
+     * when the fact table is partitioned, this is the number of serials covered
+     * by one partition.
+     */
+    long factPartitionSize = 10_000_000;
+
+    /**
+     * when the fact table is partitioned, this is the number of partitions
+     * kept ready beyond the latest fact.
+     */
+    int factPartitionsAhead = 2;
+
     public int getFetchSize() {
         return getQueueSize() / queueFetchRatio;
     }
 
+    @Deprecated
+    @DeprecatedConfigurationProperty(
+            replacement = PROPERTIES_PREFIX + ".in-mem-transformation-cache-size-in-mb",
+            reason = "the cache is bounded by size rather than by number of entries")
+    public Integer getInMemTransformationCacheCapacity() {
+        return inMemTransformationCacheCapacity;
+    }
+
+    /**
+     * @return the max size of the inmem transformation cache, derived from
+     *         the deprecated inMemTransformationCacheCapacity, if that is set
+     */
+    public long getInMemTransformationCacheSizeInBytes() {
+        if (inMemTransformationCacheCapacity != null) {
+            return inMemTransformationCacheCapacity * ASSUMED_AVERAGE_FACT_SIZE_IN_BYTES;
+        }
+        return inMemTransformationCacheSizeInMb * 1024L * 1024L;
+    }
+
     @Override
     public void onApplicationEvent(ApplicationReadyEvent event) {
         List<Map.Entry<String, Object>> legacyProperties = findAllProperties().entrySet()
@@ -135,6 +260,13 @@ public void onApplicationEvent(ApplicationReadyEvent event) {
                 log.error("Property {} found in {}", p.getKey(), p.getValue());
             });
         }
+
+        if (getInMemTransformationCacheCapacity() != null) {
+            log.warn("Property {}.inMemTransformationCacheCapacity is deprecated, use "
+                    + "{}.inMemTransformationCacheSizeInMb instead. Limiting the cache to about {}MB",
+                    PROPERTIES_PREFIX, PROPERTIES_PREFIX, getInMemTransformationCacheSizeInBytes()
+                            / 1024 / 1024);
+        }
     }
 
     private Map<String, Object> findAllProperties() {
@@ -18,6 +18,7 @@
 import java.util.Timer;
 import java.util.TimerTask;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 import org.factcast.store.pgsql.internal.listen.PgListener.FactInsertionEvent;
@@ -47,32 +48,78 @@ class CondensedQueryExecutor {
 
     final Supplier<Boolean> connectionStateSupplier;
 
+    // called with a callback to resume, if the target paused because the
+    // consumer was not ready
+    final Consumer<Runnable> pauseHandler;
+
+    final PgSubscriptionMetrics.Meters meters;
+
     Timer timer = new Timer(CondensedQueryExecutor.class.getSimpleName() + ".timer", true);
 
     final AtomicBoolean currentlyScheduled = new AtomicBoolean(false);
 
     public void trigger() {
         if (connectionStateSupplier.get()) {
+            meters.triggered();
             if (maxDelayInMillis < 1) {
                 runTarget();
-            } else if (!currentlyScheduled.getAndSet(true)) {
-                timer.schedule(new TimerTask() {
-
-                    @Override
-                    public void run() {
-                        currentlyScheduled.set(false);
-                        try {
-                            CondensedQueryExecutor.this.runTarget();
-                        } catch (Throwable e) {
-                            log.debug("Scheduled query failed, closing: {}", e.getMessage());
-                            // TODO needed?
-                        }
-                    }
-                }, maxDelayInMillis);
+            } else {
+                schedule(maxDelayInMillis);
             }
         }
     }
 
+    /**
+     * runs the target on the timer thread, as this is called from whatever
+     * thread signals the consumer being ready.
+     */
+    void resume() {
+        if (connectionStateSupplier.get()) {
+            schedule(0);
+        }
+    }
+
+    private void schedule(long delayInMillis) {
+        if (!currentlyScheduled.getAndSet(true)) {
+            timer.schedule(new TimerTask() {
+
+                @Override
+                public void run() {
+                    currentlyScheduled.set(false);
+                    try {
+                        CondensedQueryExecutor.this.runTarget();
+                    } catch (Throwable e) {
+                        log.debug("Scheduled query failed, closing: {}", e.getMessage());
+                        // TODO needed?
+                    }
+                }
+            }, delayInMillis);
+        }
+    }
+
+    /**
+     * runs the given task on the timer thread after delayInMillis, unless
+     * cancelled before.
+     */
+    void runLater(Runnable task, long delayInMillis) {
+        try {
+            timer.schedule(new TimerTask() {
+
+                @Override
+                public void run() {
+                    try {
+                        task.run();
+                    } catch (Throwable e) {
+                        log.warn("Scheduled task failed: {}", e.getMessage());
+                    }
+                }
+            }, delayInMillis);
+        } catch (IllegalStateException e) {
+            // timer was cancelled already, the subscription is gone anyway
+            log.debug("Not scheduling task, as executor was cancelled");
+        }
+    }
+
     // called by the EventBus
     @Subscribe
     public void onEvent(FactInsertionEvent ev) {
@@ -81,8 +128,13 @@ public void onEvent(FactInsertionEvent ev) {
 
     @SuppressWarnings("WeakerAccess")
     protected void runTarget() {
+        long start = System.nanoTime();
         try {
-            target.run(false);
+            boolean done = target.run(false);
+            meters.queried(System.nanoTime() - start);
+            if (!done) {
+                pauseHandler.accept(this::resume);
+            }
         } catch (Throwable e) {
             log.error("cannot run Target: ", e);
         }
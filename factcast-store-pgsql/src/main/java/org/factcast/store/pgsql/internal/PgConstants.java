@@ -85,6 +85,10 @@ public class PgConstants {
             + " WHERE "
             + COLUMN_HEADER + " @> cast (? as jsonb)";
 
+    public static final String SELECT_BY_HEADER_JSON_AFTER_SER = "SELECT " + PROJECTION_FACT
+            + " FROM " + TABLE_FACT + " WHERE " + COLUMN_HEADER + " @> cast (? as jsonb) AND "
+            + COLUMN_SER + ">? ORDER BY " + COLUMN_SER + " ASC LIMIT ?";
+
     public static final String SELECT_LATEST_SER = "SELECT max(" + COLUMN_SER + ") FROM "
             + TABLE_FACT;
 
@@ -94,7 +98,8 @@ public class PgConstants {
                     TABLE_FACT + " WHERE " + COLUMN_SER + //
                     " IN ( " + "   SELECT " + COLUMN_SER + " FROM " + //
                     TABLE_CATCHUP + "   WHERE ( " + COLUMN_CID + "=? AND " + COLUMN_SER + //
-                    ">? ) LIMIT ? " + ") ORDER BY " + COLUMN_SER + " ASC";
+                    ">? ) LIMIT ? " + ") AND " + COLUMN_SER + ">? ORDER BY " + COLUMN_SER
+                    + " ASC";
 
     public static final //
     String SELECT_LATEST_FACTID_FOR_AGGID = //
@@ -133,6 +138,13 @@ public class PgConstants {
             + " WHERE "
             + COLUMN_HEADER + " @> cast (? as jsonb)";
 
+    public static final String SELECT_FACT_IS_PARTITIONED = "SELECT count(*) FROM "
+            + "pg_partitioned_table WHERE partrelid = to_regclass('" + TABLE_FACT + "')";
+
+    public static final String SELECT_FACT_PARTITION_BOUNDS = "SELECT pg_get_expr(c.relpartbound, "
+            + "c.oid) FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid WHERE i.inhparent = "
+            + "to_regclass('" + TABLE_FACT + "')";
+
     public static final String SELECT_STATE_FROM_TOKEN = "SELECT " + COLUMN_STATE + " FROM "
             + TABLE_TOKENSTORE + " WHERE " + COLUMN_TOKEN + "=?";
 
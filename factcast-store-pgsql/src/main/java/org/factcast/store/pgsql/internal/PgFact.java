@@ -75,9 +75,21 @@ public class PgFact implements Fact {
     @NonNull
     final String jsonPayload;
 
+    // taken from the ser column, so that serial() does not need to parse the
+    // header
+    final long ser;
+
     @JsonProperty
     Map<String, String> meta = null;
 
+    @Override
+    public long serial() {
+        if (ser > 0) {
+            return ser;
+        }
+        return Fact.super.serial();
+    }
+
     @Override
     public String meta(String key) {
         if (meta == null) {
@@ -111,8 +123,9 @@ public static Fact from(ResultSet resultSet) {
         String jsonHeader = resultSet.getString(PgConstants.COLUMN_HEADER);
         String jsonPayload = resultSet.getString(PgConstants.COLUMN_PAYLOAD);
         int version = resultSet.getInt(PgConstants.COLUMN_VERSION);
+        long ser = resultSet.getLong(PgConstants.COLUMN_SER);
         return new PgFact(UUID.fromString(id), ns, type, version, toUUIDArray(aggId), jsonHeader,
-                jsonPayload);
+                jsonPayload, ser);
     }
 
     @VisibleForTesting
@@ -16,7 +16,9 @@
 package org.factcast.store.pgsql.internal;
 
 import java.sql.Connection;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Predicate;
 
 import javax.sql.DataSource;
@@ -31,10 +33,16 @@
 import org.factcast.store.pgsql.internal.listen.PgListener;
 import org.factcast.store.pgsql.internal.lock.AdvisoryWriteLock;
 import org.factcast.store.pgsql.internal.lock.FactTableWriteLock;
+import org.factcast.store.pgsql.internal.partition.PgFactPartitionManager;
+import org.factcast.store.pgsql.internal.partition.PgFactPartitioningMigration;
 import org.factcast.store.pgsql.internal.query.PgFactIdToSerialMapper;
 import org.factcast.store.pgsql.internal.query.PgLatestSerialFetcher;
 import org.factcast.store.pgsql.registry.SchemaRegistryConfiguration;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
@@ -46,9 +54,11 @@
 
 import com.google.common.eventbus.AsyncEventBus;
 import com.google.common.eventbus.EventBus;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import liquibase.integration.spring.SpringLiquibase;
 import lombok.NonNull;
 import net.javacrumbs.shedlock.core.LockProvider;
 import net.javacrumbs.shedlock.provider.jdbctemplate.JdbcTemplateLockProvider;
@@ -73,11 +83,11 @@ public EventBus eventBus() {
 
     @Bean
     public PgCatchupFactory pgCatchupFactory(PgConfigurationProperties props, JdbcTemplate jdbc,
-            PgFactIdToSerialMapper serMapper) {
+            PgFactIdToSerialMapper serMapper, PgSubscriptionMetrics metrics) {
         // noinspection SwitchStatementWithTooFewBranches
         switch (props.getCatchupStrategy()) {
         case PAGED:
-            return new PgPagedCatchUpFactory(jdbc, props, serMapper);
+            return new PgPagedCatchUpFactory(jdbc, props, serMapper, metrics);
         default:
             throw new IllegalArgumentException("Unmapped Strategy: " + props.getCatchupStrategy());
         }
@@ -89,16 +99,33 @@ public FactStore factStore(JdbcTemplate jdbcTemplate, PgSubscriptionFactory subs
         return new PgFactStore(jdbcTemplate, subscriptionFactory, tokenStore, lock, registry);
     }
 
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService catchupExecutor(PgConfigurationProperties props) {
+        return Executors.newFixedThreadPool(Math.max(1, props.getCatchupThreads()),
+                new ThreadFactoryBuilder().setDaemon(true)
+                        .setNameFormat("factcast-catchup-%d")
+                        .build());
+    }
+
     @Bean
     public PgSubscriptionFactory pgSubscriptionFactory(JdbcTemplate jdbcTemplate, EventBus eventBus,
             PgFactIdToSerialMapper pgFactIdToSerialMapper,
             PgLatestSerialFetcher pgLatestSerialFetcher, PgCatchupFactory pgCatchupFactory,
-            FactTransformersFactory transformerFactory) {
+            FactTransformersFactory transformerFactory, PgSubscriptionMetrics metrics,
+            @Qualifier("catchupExecutor") ExecutorService executor,
+            PgConfigurationProperties props) {
         return new PgSubscriptionFactory(jdbcTemplate, eventBus, pgFactIdToSerialMapper,
-                pgLatestSerialFetcher, pgCatchupFactory, transformerFactory);
+                pgLatestSerialFetcher, pgCatchupFactory, transformerFactory, metrics, executor,
+                TimeUnit.SECONDS.toMillis(props.getConsumerReadyTimeoutInSeconds()));
 
     }
 
+    @Bean
+    public PgSubscriptionMetrics pgSubscriptionMetrics(MeterRegistry registry,
+            PgLatestSerialFetcher fetcher) {
+        return new PgSubscriptionMetrics(registry, fetcher);
+    }
+
     @Bean
     public PgConnectionSupplier pgConnectionSupplier(DataSource ds) {
         return new PgConnectionSupplier(ds);
@@ -160,4 +187,33 @@ public TaskScheduler taskScheduler(LockProvider lockProvider) {
         return SpringLockableTaskSchedulerFactory.newLockableTaskScheduler(poolSize, lockProvider);
     }
 
+    @Configuration
+    @ConditionalOnProperty(prefix = PgConfigurationProperties.PROPERTIES_PREFIX,
+            name = "partitionFactTable", havingValue = "true")
+    static class PartitioningConfiguration {
+
+        @Bean
+        public PgFactPartitioningMigration pgFactPartitioningMigration(DataSource ds,
+                @Autowired(required = false) SpringLiquibase unused) {
+            return new PgFactPartitioningMigration(ds);
+        }
+
+        @Bean
+        public PgFactPartitionManager pgFactPartitionManager(JdbcTemplate jdbcTemplate,
+                PlatformTransactionManager txManager, PgLatestSerialFetcher pgLatestSerialFetcher,
+                PgConfigurationProperties props, PgFactPartitioningMigration migration) {
+            return new PgFactPartitionManager(jdbcTemplate, txManager, pgLatestSerialFetcher,
+                    props);
+        }
+    }
+
+    @Configuration
+    @ConditionalOnClass(name = "org.springframework.boot.actuate.endpoint.annotation.Endpoint")
+    static class EndpointConfiguration {
+
+        @Bean
+        public PgSubscriptionsEndpoint pgSubscriptionsEndpoint(PgSubscriptionMetrics metrics) {
+            return new PgSubscriptionsEndpoint(metrics);
+        }
+    }
 }
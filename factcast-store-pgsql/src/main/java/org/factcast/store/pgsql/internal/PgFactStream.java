@@ -17,7 +17,12 @@
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalLong;
 import java.util.UUID;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -26,6 +31,7 @@
 import org.factcast.core.subscription.SubscriptionRequest;
 import org.factcast.core.subscription.SubscriptionRequestTO;
 import org.factcast.core.subscription.TransformationException;
+import org.factcast.store.pgsql.internal.PgSubscriptionMetrics.Phase;
 import org.factcast.store.pgsql.internal.catchup.PgCatchupFactory;
 import org.factcast.store.pgsql.internal.query.PgFactIdToSerialMapper;
 import org.factcast.store.pgsql.internal.query.PgLatestSerialFetcher;
@@ -39,6 +45,8 @@
 
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import lombok.experimental.Accessors;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -67,15 +75,36 @@ public class PgFactStream {
 
     final PgCatchupFactory pgCatchupFactory;
 
+    final PgSubscriptionMetrics metrics;
+
+    final long consumerReadyTimeoutInMillis;
+
+    final AtomicBoolean paused = new AtomicBoolean(false);
+
+    static final int FOLLOW_BATCH_SIZE = 1000;
+
     CondensedQueryExecutor condensedExecutor;
 
     SubscriptionRequestTO request;
 
     PgPostQueryMatcher postQueryMatcher;
 
+    PgSubscriptionMetrics.Meters meters;
+
+    volatile Phase phase = Phase.CATCHUP;
+
+    Instant connectedAt;
+
+    // nanoTime the current phase started
+    long phaseStart;
+
     void connect(@NonNull SubscriptionRequestTO request) {
         this.request = request;
         log.debug("{} connecting subscription {}", request, request.dump());
+        meters = metrics.forRequest(request);
+        connectedAt = Instant.now();
+        phaseStart = System.nanoTime();
+        registerIfConnected();
         postQueryMatcher = new PgPostQueryMatcher(request);
         PgQueryBuilder q = new PgQueryBuilder(request);
         initializeSerialToStartAfter();
@@ -83,12 +112,15 @@ void connect(@NonNull SubscriptionRequestTO request) {
         PreparedStatementSetter setter = q.createStatementSetter(serial);
         RowCallbackHandler rsHandler = new FactRowCallbackHandler(subscription, postQueryMatcher);
         PgSynchronizedQuery query = new PgSynchronizedQuery(jdbcTemplate, sql, setter, rsHandler,
-                serial, fetcher);
+                serial, fetcher, subscription::isReady);
         catchupAndFollow(request, subscription, query);
     }
 
     private void initializeSerialToStartAfter() {
-        Long startingSerial = request.startingAfter().map(idToSerMapper::retrieve).orElse(0L);
+        OptionalLong startingAfterSerial = request.startingAfterSerial();
+        // prefer the serial, as it saves us the lookup by id
+        long startingSerial = startingAfterSerial.isPresent() ? startingAfterSerial.getAsLong()
+                : request.startingAfter().map(idToSerMapper::retrieve).orElse(0L);
         serial.set(startingSerial);
         log.trace("{} setting starting point to SER={}", request, startingSerial);
     }
@@ -100,6 +132,7 @@ private void catchupAndFollow(SubscriptionRequest request, SubscriptionImpl subs
             this.serial.set(fetcher.retrieveLatestSer());
         } else {
             catchup(postQueryMatcher);
+            meters.phaseCompleted(Phase.CATCHUP, System.nanoTime() - phaseStart);
         }
         // propagate catchup
         if (isConnected()) {
@@ -109,6 +142,8 @@ private void catchupAndFollow(SubscriptionRequest request, SubscriptionImpl subs
         if (isConnected())
             if (request.continuous()) {
                 log.info("{} entering follow mode", request);
+                phaseStart = System.nanoTime();
+                phase = Phase.FOLLOW;
                 long delayInMs;
                 if (request.maxBatchDelayInMs() < 1) {
                     // ok, instant query after NOTIFY
@@ -126,7 +161,8 @@ private void catchupAndFollow(SubscriptionRequest request, SubscriptionImpl subs
                     log.info("{} setting delay to {}, maxDelay was {}", request, delayInMs, request
                             .maxBatchDelayInMs());
                 }
-                condensedExecutor = new CondensedQueryExecutor(delayInMs, query, this::isConnected);
+                condensedExecutor = new CondensedQueryExecutor(delayInMs, query, this::isConnected,
+                        this::resumeWhenReady, meters);
                 eventBus.register(condensedExecutor);
                 // catchup phase 3 – make sure, we did not miss any fact due to
                 // slow registration
@@ -149,28 +185,105 @@ private void catchup(PgPostQueryMatcher postQueryMatcher) {
         }
     }
 
+    // called, if the follow query was paused, because the consumer was not
+    // ready
+    private void resumeWhenReady(Runnable resume) {
+        if (!paused.getAndSet(true)) {
+            log.debug("{} pausing until consumer is ready", request);
+            long start = System.nanoTime();
+            // either the consumer becomes ready, or we give up on it
+            AtomicBoolean decided = new AtomicBoolean(false);
+            subscription.whenReady(() -> {
+                if (!decided.getAndSet(true)) {
+                    paused.set(false);
+                    meters.waitedForConsumer(Phase.FOLLOW, System.nanoTime() - start);
+                    resume.run();
+                }
+            });
+            CondensedQueryExecutor executor = condensedExecutor;
+            if (executor != null) {
+                executor.runLater(() -> {
+                    if (!decided.getAndSet(true)) {
+                        log.warn("{} giving up on slow consumer", request);
+                        subscription.notifyError(new TimeoutException("Consumer not ready for "
+                                + consumerReadyTimeoutInMillis + "ms"));
+                    }
+                }, consumerReadyTimeoutInMillis);
+            }
+        }
+    }
+
     private boolean isConnected() {
         return !disconnected.get();
     }
 
+    // close might have been called before connect
+    private synchronized void registerIfConnected() {
+        if (isConnected()) {
+            metrics.register(this);
+        }
+    }
+
+    Info info(long headSerial) {
+        long ser = serial.get();
+        return new Info(request.debugInfo(), phase.phase(), ser, Math.max(0, headSerial - ser),
+                String.valueOf(connectedAt), subscription.waitingForReadyInMillis());
+    }
+
     public synchronized void close() {
         log.debug("{} disconnecting ", request);
         disconnected.set(true);
+        metrics.unregister(this);
+        if (phase == Phase.FOLLOW && meters != null) {
+            meters.phaseCompleted(Phase.FOLLOW, System.nanoTime() - phaseStart);
+        }
         if (condensedExecutor != null) {
             eventBus.unregister(condensedExecutor);
             condensedExecutor.cancel();
             condensedExecutor = null;
         }
-        log.info("{} disconnected ", request);
+        log.info("{} disconnected, waited {}ms for consumer", request, subscription
+                .waitingForReadyInMillis());
     }
 
+    /**
+     * State of a subscription, as exposed by the subscriptions endpoint.
+     */
+    @Value
+    @Accessors(fluent = false)
+    public static class Info {
+
+        String id;
+
+        String phase;
+
+        long serial;
+
+        // facts published after serial
+        long lag;
+
+        String connectedAt;
+
+        long waitedForConsumerInMillis;
+    }
+
+    /**
+     * Collects matching facts, so that they can be transformed as a batch. The
+     * facts are passed on, when FOLLOW_BATCH_SIZE is reached, or the query is
+     * done.
+     */
     @RequiredArgsConstructor
-    private class FactRowCallbackHandler implements RowCallbackHandler {
+    private class FactRowCallbackHandler implements
+            PgSynchronizedQuery.BufferingRowCallbackHandler {
 
         final SubscriptionImpl subscription;
 
         final PgPostQueryMatcher postQueryMatcher;
 
+        final List<Fact> pending = new ArrayList<>();
+
+        int filtered = 0;
+
         @SuppressWarnings("NullableProblems")
         @Override
         public void processRow(ResultSet rs) throws SQLException {
@@ -182,35 +295,59 @@ public void processRow(ResultSet rs) throws SQLException {
                 Fact f = PgFact.from(rs);
                 final UUID factId = f.id();
                 if (postQueryMatcher.test(f)) {
+                    pending.add(f);
+                } else {
+                    // TODO add sid
+                    log.trace("{} filtered id={}", request, factId);
+                    filtered++;
+                }
+                serial.set(rs.getLong(PgConstants.COLUMN_SER));
+                if (pending.size() >= FOLLOW_BATCH_SIZE) {
                     try {
-                        subscription.notifyElement(f);
-                        log.trace("{} notifyElement called with id={}", request, factId);
-                    } catch (MissingTransformationInformation | TransformationException e) {
-                        log.warn("{} transformation error: {}", request, e.getMessage());
-                        subscription.notifyError(e);
-                        throw new RuntimeException(e);
+                        flush();
                     } catch (Throwable e) {
-                        // debug level, because it happens regularly on
-                        // disconnecting clients.
-                        // TODO add sid
-                        log.debug("{} exception from subscription: {}", request, e.getMessage());
-                        try {
-                            subscription.close();
-                        } catch (Exception e1) {
-                            // TODO add sid
-                            log.warn("{} exception while closing subscription: {}", request, e1
-                                    .getMessage());
-                        }
-                        // close result set in order to release DB resources as
-                        // early as possible
+                        // close result set in order to release DB resources
+                        // as early as possible
                         rs.close();
                         throw e;
                     }
-                } else {
+                }
+            }
+        }
+
+        @Override
+        public void flush() {
+            if (filtered > 0 || !pending.isEmpty()) {
+                meters.fetched(Phase.FOLLOW, pending.size(), filtered);
+                filtered = 0;
+            }
+            if (pending.isEmpty()) {
+                return;
+            }
+            List<Fact> facts = new ArrayList<>(pending);
+            pending.clear();
+            if (isConnected()) {
+                try {
+                    subscription.notifyElements(facts);
+                    log.trace("{} notifyElements called with {} facts", request, facts.size());
+                } catch (MissingTransformationInformation | TransformationException e) {
+                    log.warn("{} transformation error: {}", request, e.getMessage());
+                    subscription.notifyError(e);
+                    throw new RuntimeException(e);
+                } catch (Throwable e) {
+                    // debug level, because it happens regularly on
+                    // disconnecting clients.
                     // TODO add sid
-                    log.trace("{} filtered id={}", request, factId);
+                    log.debug("{} exception from subscription: {}", request, e.getMessage());
+                    try {
+                        subscription.close();
+                    } catch (Exception e1) {
+                        // TODO add sid
+                        log.warn("{} exception while closing subscription: {}", request, e1
+                                .getMessage());
+                    }
+                    throw e;
                 }
-                serial.set(rs.getLong(PgConstants.COLUMN_SER));
             }
         }
     }
@@ -16,6 +16,7 @@
 package org.factcast.store.pgsql.internal;
 
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 
 import org.factcast.core.subscription.FactTransformersFactory;
 import org.factcast.core.subscription.Subscription;
@@ -48,12 +49,19 @@ class PgSubscriptionFactory {
 
     final FactTransformersFactory transformersFactory;
 
+    final PgSubscriptionMetrics metrics;
+
+    // bounded, so that a burst of subscriptions does not create a thread each
+    final ExecutorService connectExecutor;
+
+    final long consumerReadyTimeoutInMillis;
+
     public Subscription subscribe(SubscriptionRequestTO req, FactObserver observer) {
         final SubscriptionImpl subscription = SubscriptionImpl.on(observer,
                 transformersFactory.createFor(req));
         PgFactStream pgsub = new PgFactStream(jdbcTemplate, eventBus, idToSerialMapper,
-                subscription, fetcher, catchupFactory);
-        CompletableFuture.runAsync(() -> pgsub.connect(req));
+                subscription, fetcher, catchupFactory, metrics, consumerReadyTimeoutInMillis);
+        CompletableFuture.runAsync(() -> pgsub.connect(req), connectExecutor);
         return subscription.onClose(pgsub::close);
     }
 }
@@ -0,0 +1,224 @@
+/*
+ * Copyright © 2017-2020 factcast.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.factcast.store.pgsql.internal;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.factcast.core.subscription.SubscriptionRequest;
+import org.factcast.store.pgsql.internal.query.PgLatestSerialFetcher;
+
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * Metrics collected per subscription, and the registry of active
+ * subscriptions.
+ * <p>
+ * Meters are tagged with a low-cardinality name of the subscription derived
+ * from its debugInfo (see {@link #subscriptionTag(String)}), so that
+ * subscriptions of the same consumer share their meters.
+ */
+public class PgSubscriptionMetrics {
+
+    public static final String METRIC_NAME_WAITING = "factcast.store.subscription.waiting";
+
+    public static final String METRIC_NAME_PHASE = "factcast.store.subscription.phase";
+
+    public static final String METRIC_NAME_FACTS = "factcast.store.subscription.facts";
+
+    public static final String METRIC_NAME_QUERY = "factcast.store.subscription.query";
+
+    public static final String METRIC_NAME_TRIGGERS = "factcast.store.subscription.triggers";
+
+    public static final String METRIC_NAME_ACTIVE = "factcast.store.subscription.active";
+
+    public static final String METRIC_NAME_LAG = "factcast.store.subscription.lag";
+
+    public static final String TAG_PHASE_KEY = "phase";
+
+    public static final String TAG_SUBSCRIPTION_KEY = "subscription";
+
+    public static final String TAG_RESULT_KEY = "result";
+
+    public enum Phase {
+
+        CATCHUP("catchup"),
+
+        FOLLOW("follow");
+
+        @NonNull
+        @Getter
+        final String phase;
+
+        Phase(String phase) {
+            this.phase = phase;
+        }
+    }
+
+    @NonNull
+    private final MeterRegistry meterRegistry;
+
+    private final Set<PgFactStream> active = ConcurrentHashMap.newKeySet();
+
+    // shared by all gauges of a scrape
+    private final Supplier<Long> headSerial;
+
+    public PgSubscriptionMetrics(@NonNull MeterRegistry meterRegistry,
+            @NonNull PgLatestSerialFetcher fetcher) {
+        this.meterRegistry = meterRegistry;
+        headSerial = Suppliers.memoizeWithExpiration(fetcher::retrieveLatestSer, 1,
+                TimeUnit.SECONDS);
+    }
+
+    /**
+     * @return the meters for the given subscription
+     */
+    public Meters forRequest(@NonNull SubscriptionRequest request) {
+        return new Meters(Tags.of(TAG_SUBSCRIPTION_KEY, subscriptionTag(request.debugInfo())));
+    }
+
+    void register(@NonNull PgFactStream stream) {
+        active.add(stream);
+        String tag = subscriptionTag(stream.request.debugInfo());
+        Tags tags = Tags.of(TAG_SUBSCRIPTION_KEY, tag);
+        // registering an existing gauge is a noop
+        Gauge.builder(METRIC_NAME_ACTIVE, this, m -> m.streamsOf(tag).size())
+                .tags(tags)
+                .register(meterRegistry);
+        Gauge.builder(METRIC_NAME_LAG, this, m -> m.maxLag(tag))
+                .description("Facts published, but not yet seen by the subscription")
+                .tags(tags)
+                .register(meterRegistry);
+    }
+
+    void unregister(@NonNull PgFactStream stream) {
+        active.remove(stream);
+    }
+
+    /**
+     * @return the state of all active subscriptions
+     */
+    public List<PgFactStream.Info> activeSubscriptions() {
+        long head = headSerial.get();
+        return active.stream().map(s -> s.info(head)).collect(Collectors.toList());
+    }
+
+    private List<PgFactStream> streamsOf(String tag) {
+        return active.stream()
+                .filter(s -> tag.equals(subscriptionTag(s.request.debugInfo())))
+                .collect(Collectors.toList());
+    }
+
+    private double maxLag(String tag) {
+        List<PgFactStream> streams = streamsOf(tag);
+        if (streams.isEmpty()) {
+            return 0;
+        }
+        long head = headSerial.get();
+        return streams.stream().mapToLong(s -> Math.max(0, head - s.serial.get())).max().orElse(0);
+    }
+
+    /**
+     * Strips the unique part off a debugInfo, so that "grpc-sub#42@account"
+     * becomes "grpc-sub@account", and "&lt;uuid&gt; (Class.method:17)"
+     * becomes "Class.method:17".
+     */
+    static String subscriptionTag(String debugInfo) {
+        if (debugInfo == null || debugInfo.isEmpty()) {
+            return "unknown";
+        }
+        int open = debugInfo.indexOf('(');
+        int close = debugInfo.lastIndexOf(')');
+        if (open >= 0 && close > open) {
+            return debugInfo.substring(open + 1, close);
+        }
+        return debugInfo.replaceFirst("#\\d+", "");
+    }
+
+    /**
+     * Meters of one subscription.
+     */
+    public class Meters {
+
+        final Tags tags;
+
+        final Counter triggers;
+
+        Meters(Tags tags) {
+            this.tags = tags;
+            triggers = meterRegistry.counter(METRIC_NAME_TRIGGERS, tags);
+        }
+
+        /**
+         * records the time, fetching facts was paused, because the consumer was
+         * not ready to take more.
+         */
+        public void waitedForConsumer(@NonNull Phase phase, long nanos) {
+            meterRegistry.timer(METRIC_NAME_WAITING, tags.and(TAG_PHASE_KEY, phase.phase()))
+                    .record(nanos, TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * records the duration of a phase, for follow subscriptions this is
+         * recorded when they are closed.
+         */
+        public void phaseCompleted(@NonNull Phase phase, long nanos) {
+            meterRegistry.timer(METRIC_NAME_PHASE, tags.and(TAG_PHASE_KEY, phase.phase()))
+                    .record(nanos, TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * counts the facts fetched, that were passed to the subscription or
+         * rejected by the post query filter.
+         */
+        public void fetched(@NonNull Phase phase, int delivered, int filtered) {
+            Tags phaseTags = tags.and(TAG_PHASE_KEY, phase.phase());
+            if (delivered > 0) {
+                meterRegistry.counter(METRIC_NAME_FACTS, phaseTags.and(TAG_RESULT_KEY,
+                        "delivered")).increment(delivered);
+            }
+            if (filtered > 0) {
+                meterRegistry.counter(METRIC_NAME_FACTS, phaseTags.and(TAG_RESULT_KEY,
+                        "filtered")).increment(filtered);
+            }
+        }
+
+        /**
+         * counts a notification that could trigger a follow query.
+         */
+        public void triggered() {
+            triggers.increment();
+        }
+
+        /**
+         * records the duration of a follow query.
+         */
+        public void queried(long nanos) {
+            meterRegistry.timer(METRIC_NAME_QUERY, tags).record(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright © 2017-2020 factcast.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.factcast.store.pgsql.internal;
+
+import java.util.List;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Lists the active subscriptions with their current serial and lag, if
+ * actuator is on the classpath.
+ */
+@Endpoint(id = PgSubscriptionsEndpoint.ID)
+@RequiredArgsConstructor
+public class PgSubscriptionsEndpoint {
+
+    public static final String ID = "factcastsubscriptions";
+
+    @NonNull
+    final PgSubscriptionMetrics metrics;
+
+    @ReadOperation
+    public List<PgFactStream.Info> subscriptions() {
+        return metrics.activeSubscriptions();
+    }
+}
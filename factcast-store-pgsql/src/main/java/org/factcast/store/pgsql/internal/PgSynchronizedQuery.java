@@ -15,11 +15,14 @@
  */
 package org.factcast.store.pgsql.internal;
 
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
 import org.factcast.store.pgsql.internal.query.PgLatestSerialFetcher;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.ResultSetExtractor;
 import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.datasource.DataSourceTransactionManager;
 import org.springframework.transaction.support.TransactionTemplate;
@@ -66,11 +69,16 @@ class PgSynchronizedQuery {
     @NonNull
     final PgLatestSerialFetcher latestFetcher;
 
+    @NonNull
+    final Supplier<Boolean> consumerReadySupplier;
+
     PgSynchronizedQuery(@NonNull JdbcTemplate jdbcTemplate, @NonNull String sql,
             @NonNull PreparedStatementSetter setter, @NonNull RowCallbackHandler rowHandler,
-            AtomicLong serialToContinueFrom, PgLatestSerialFetcher fetcher) {
+            AtomicLong serialToContinueFrom, PgLatestSerialFetcher fetcher,
+            @NonNull Supplier<Boolean> consumerReadySupplier) {
         this.serialToContinueFrom = serialToContinueFrom;
         latestFetcher = fetcher;
+        this.consumerReadySupplier = consumerReadySupplier;
         this.jdbcTemplate = jdbcTemplate;
         this.sql = sql;
         this.setter = setter;
@@ -81,19 +89,53 @@ class PgSynchronizedQuery {
         transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
+    /**
+     * @return false, if processing was paused because the consumer was not
+     *         ready, so that the query needs to be run again once it is.
+     */
     // the synchronized here is crucial!
-    @SuppressWarnings("SameReturnValue")
-    public synchronized void run(boolean useIndex) {
+    public synchronized boolean run(boolean useIndex) {
+        if (!consumerReadySupplier.get()) {
+            return false;
+        }
         // TODO recheck latest handling - looks broken
         long latest = latestFetcher.retrieveLatestSer();
+        AtomicBoolean paused = new AtomicBoolean(false);
         transactionTemplate.execute(status -> {
             if (!useIndex)
                 jdbcTemplate.execute("SET LOCAL enable_bitmapscan=0;");
-            jdbcTemplate.query(sql, setter, rowHandler);
+            jdbcTemplate.query(sql, setter, (ResultSetExtractor<Void>) rs -> {
+                while (rs.next()) {
+                    rowHandler.processRow(rs);
+                    if (!consumerReadySupplier.get()) {
+                        // stop reading the remaining rows (and do not move the
+                        // serial), rather than blocking while holding the
+                        // transaction
+                        paused.set(true);
+                        break;
+                    }
+                }
+                return null;
+            });
+            if (rowHandler instanceof BufferingRowCallbackHandler) {
+                ((BufferingRowCallbackHandler) rowHandler).flush();
+            }
             return null;
         });
+        if (paused.get()) {
+            return false;
+        }
         // shift to max(retrievedLatestSer, and ser as updated in
         // rowHandler)
         serialToContinueFrom.set(Math.max(latest, serialToContinueFrom.get()));
+        return true;
+    }
+
+    /**
+     * RowCallbackHandler, that may hold back rows, until flushed after the
+     * query.
+     */
+    interface BufferingRowCallbackHandler extends RowCallbackHandler {
+        void flush();
     }
 }
@@ -65,6 +65,8 @@ private PreparedStatementSetter createSetter(AtomicLong serial, int pageSize) {
             ps.setLong(1, clientId);
             ps.setLong(2, serial.get());
             ps.setLong(3, pageSize);
+            // redundant, but lets a partitioned fact table skip older partitions
+            ps.setLong(4, serial.get());
         };
     }
 
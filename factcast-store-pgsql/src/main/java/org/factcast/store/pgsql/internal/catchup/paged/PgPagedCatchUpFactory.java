@@ -21,6 +21,7 @@
 import org.factcast.core.subscription.SubscriptionRequestTO;
 import org.factcast.store.pgsql.PgConfigurationProperties;
 import org.factcast.store.pgsql.internal.PgPostQueryMatcher;
+import org.factcast.store.pgsql.internal.PgSubscriptionMetrics;
 import org.factcast.store.pgsql.internal.catchup.PgCatchupFactory;
 import org.factcast.store.pgsql.internal.query.PgFactIdToSerialMapper;
 import org.springframework.jdbc.core.JdbcTemplate;
@@ -43,11 +44,14 @@ public class PgPagedCatchUpFactory implements PgCatchupFactory {
     @NonNull
     final PgFactIdToSerialMapper serMapper;
 
+    @NonNull
+    final PgSubscriptionMetrics metrics;
+
     @Override
     public PgPagedCatchup create(@NonNull SubscriptionRequestTO request,
             @NonNull PgPostQueryMatcher postQueryMatcher,
             @NonNull SubscriptionImpl subscription, @NonNull AtomicLong serial) {
         return new PgPagedCatchup(jdbc, props, serMapper, request, postQueryMatcher, subscription,
-                serial);
+                serial, metrics);
     }
 }
@@ -15,8 +15,11 @@
  */
 package org.factcast.store.pgsql.internal.catchup.paged;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
-import java.util.UUID;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.factcast.core.Fact;
@@ -26,6 +29,8 @@
 import org.factcast.store.pgsql.PgConfigurationProperties;
 import org.factcast.store.pgsql.internal.PgConstants;
 import org.factcast.store.pgsql.internal.PgPostQueryMatcher;
+import org.factcast.store.pgsql.internal.PgSubscriptionMetrics;
+import org.factcast.store.pgsql.internal.PgSubscriptionMetrics.Phase;
 import org.factcast.store.pgsql.internal.catchup.PgCatchUpFetchPage;
 import org.factcast.store.pgsql.internal.catchup.PgCatchUpPrepare;
 import org.factcast.store.pgsql.internal.catchup.PgCatchup;
@@ -62,6 +67,9 @@ public class PgPagedCatchup implements PgCatchup {
     @NonNull
     final AtomicLong serial;
 
+    @NonNull
+    final PgSubscriptionMetrics metrics;
+
     @SuppressWarnings("FieldCanBeLocal")
     private long clientId = 0;
 
@@ -74,43 +82,67 @@ public void run() {
         PgCatchUpPrepare prep = new PgCatchUpPrepare(jdbc, request);
         clientId = prep.prepareCatchup(serial);
         if (clientId > 0) {
+            PgSubscriptionMetrics.Meters meters = metrics.forRequest(request);
             try {
                 PgCatchUpFetchPage fetch = new PgCatchUpFetchPage(jdbc, props.getPageSize(),
                         request, clientId);
                 while (true) {
+                    // do not fetch more than the consumer can take, and do not
+                    // hold any DB resources while waiting for it
+                    long waited;
+                    try {
+                        waited = subscription.awaitReady(TimeUnit.SECONDS.toMillis(props
+                                .getConsumerReadyTimeoutInSeconds()));
+                    } catch (TimeoutException e) {
+                        log.warn("{} giving up on slow consumer: {}", request, e.getMessage());
+                        subscription.notifyError(e);
+                        break;
+                    }
+                    if (waited > 0) {
+                        log.debug("{} waited {}ms for consumer to become ready", request,
+                                TimeUnit.NANOSECONDS.toMillis(waited));
+                        meters.waitedForConsumer(Phase.CATCHUP, waited);
+                    }
+                    if (subscription.isClosed()) {
+                        break;
+                    }
                     LinkedList<Fact> facts = doFetch(fetch);
                     if (facts.isEmpty()) {
                         // we have reached the end
                         break;
                     }
-                    while (!facts.isEmpty()) {
-                        Fact f = facts.removeFirst();
-                        UUID factId = f.id();
+                    List<Fact> matching = new ArrayList<>(facts.size());
+                    for (Fact f : facts) {
                         if (postQueryMatcher.test(f)) {
-                            try {
-                                subscription.notifyElement(f);
-                                log.trace("{} notifyElement called with id={}", request, factId);
-                            } catch (MissingTransformationInformation | TransformationException e) {
-                                log.warn("{} transformation error: {}", request, e.getMessage());
-                                subscription.notifyError(e);
-                                throw e;
-                            } catch (Throwable e) {
-                                // debug level, because it happens regularly
-                                // on
-                                // disconnecting clients.
-                                log.debug("{} exception from subscription: {}", request, e
-                                        .getMessage());
-                                try {
-                                    subscription.close();
-                                } catch (Exception e1) {
-                                    log.warn("{} exception while closing subscription: {}", request,
-                                            e1.getMessage());
-                                }
-                                throw e;
-                            }
+                            matching.add(f);
                         } else {
-                            log.trace("{} filtered id={}", request, factId);
+                            log.trace("{} filtered id={}", request, f.id());
+                        }
+                    }
+                    meters.fetched(Phase.CATCHUP, matching.size(), facts.size() - matching
+                            .size());
+                    try {
+                        // transformed as a batch, so that cache lookups can be
+                        // shared
+                        subscription.notifyElements(matching);
+                        log.trace("{} notifyElements called with {} facts", request, matching
+                                .size());
+                    } catch (MissingTransformationInformation | TransformationException e) {
+                        log.warn("{} transformation error: {}", request, e.getMessage());
+                        subscription.notifyError(e);
+                        throw e;
+                    } catch (Throwable e) {
+                        // debug level, because it happens regularly on
+                        // disconnecting clients.
+                        log.debug("{} exception from subscription: {}", request, e
+                                .getMessage());
+                        try {
+                            subscription.close();
+                        } catch (Exception e1) {
+                            log.warn("{} exception while closing subscription: {}", request,
+                                    e1.getMessage());
                         }
+                        throw e;
                     }
                 }
             } catch (Exception e) {
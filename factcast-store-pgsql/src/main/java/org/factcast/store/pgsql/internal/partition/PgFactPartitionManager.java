@@ -0,0 +1,143 @@
+/*
+ * Copyright © 2017-2020 factcast.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.factcast.store.pgsql.internal.partition;
+
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.factcast.store.pgsql.PgConfigurationProperties;
+import org.factcast.store.pgsql.internal.PgConstants;
+import org.factcast.store.pgsql.internal.query.PgLatestSerialFetcher;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import net.javacrumbs.shedlock.core.SchedulerLock;
+
+/**
+ * Creates partitions of the fact table ahead of time, if it is partitioned by
+ * range of ser (see {@link PgFactPartitioningMigration}). Does nothing
+ * otherwise.
+ * <p>
+ * Every partition covers factPartitionSize serials and gets its own BRIN index
+ * on ser, which is tiny compared to a btree, as facts are inserted in order of
+ * ser.
+ */
+@Slf4j
+public class PgFactPartitionManager implements InitializingBean {
+
+    // pg_get_expr renders bounds as FOR VALUES FROM ('1') TO ('101')
+    private static final Pattern UPPER_BOUND = Pattern.compile(
+            "TO \\((?:'?(-?\\d+)'?|MAXVALUE)\\)");
+
+    // do not queue up behind long running queries, as that would block
+    // everyone else waiting for the fact table
+    private static final String LOCK_TIMEOUT = "5s";
+
+    @NonNull
+    final JdbcTemplate jdbcTemplate;
+
+    @NonNull
+    final TransactionTemplate transactionTemplate;
+
+    @NonNull
+    final PgLatestSerialFetcher serialFetcher;
+
+    final long partitionSize;
+
+    final int partitionsAhead;
+
+    public PgFactPartitionManager(@NonNull JdbcTemplate jdbcTemplate,
+            @NonNull PlatformTransactionManager transactionManager,
+            @NonNull PgLatestSerialFetcher serialFetcher,
+            @NonNull PgConfigurationProperties props) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.serialFetcher = serialFetcher;
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        partitionSize = props.getFactPartitionSize();
+        partitionsAhead = props.getFactPartitionsAhead();
+        if (partitionSize < 1) {
+            throw new IllegalArgumentException("factPartitionSize must be positive");
+        }
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        try {
+            createPartitions();
+        } catch (Exception e) {
+            // will be retried by the scheduled run
+            log.warn("Failed to create partitions of the fact table: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(cron = "${factcast.store.pgsql.factPartitionCron:0 */10 * * * *}")
+    @SchedulerLock(name = "factPartitionCreate", lockAtMostFor = 1000 * 60 * 10)
+    public void createPartitions() {
+        if (!isPartitioned()) {
+            return;
+        }
+        long head = serialFetcher.retrieveLatestSer();
+        long from = highestUpperBound().orElse(head + 1);
+        long required = head + partitionsAhead * partitionSize;
+        while (from <= required) {
+            createPartition(from, from + partitionSize);
+            from += partitionSize;
+        }
+    }
+
+    private boolean isPartitioned() {
+        Long count = jdbcTemplate.queryForObject(PgConstants.SELECT_FACT_IS_PARTITIONED,
+                Long.class);
+        return count != null && count > 0;
+    }
+
+    private OptionalLong highestUpperBound() {
+        List<String> bounds = jdbcTemplate.queryForList(PgConstants.SELECT_FACT_PARTITION_BOUNDS,
+                String.class);
+        return bounds.stream().mapToLong(PgFactPartitionManager::upperBound).max();
+    }
+
+    @VisibleForTesting
+    static long upperBound(@NonNull String bound) {
+        Matcher m = UPPER_BOUND.matcher(bound);
+        if (!m.find()) {
+            throw new IllegalStateException("Unexpected partition bound: " + bound);
+        }
+        return m.group(1) == null ? Long.MAX_VALUE : Long.parseLong(m.group(1));
+    }
+
+    private void createPartition(long from, long to) {
+        String name = PgConstants.TABLE_FACT + "_" + from + "_" + to;
+        log.info("Creating partition {} for facts with {} <= ser < {}", name, from, to);
+        transactionTemplate.executeWithoutResult(s -> {
+            jdbcTemplate.execute("SET LOCAL lock_timeout = '" + LOCK_TIMEOUT + "'");
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + name + " PARTITION OF "
+                    + PgConstants.TABLE_FACT + " FOR VALUES FROM (" + from + ") TO (" + to
+                    + ")");
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS " + name + "_ser_brin ON " + name
+                    + " USING brin (" + PgConstants.COLUMN_SER + ")");
+        });
+    }
+}
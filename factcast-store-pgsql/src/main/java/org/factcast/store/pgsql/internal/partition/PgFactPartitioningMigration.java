@@ -0,0 +1,55 @@
+/*
+ * Copyright © 2017-2020 factcast.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.factcast.store.pgsql.internal.partition;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import liquibase.integration.spring.SpringLiquibase;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Converts the fact table into a table partitioned by range of ser, if it is
+ * not partitioned already. Only registered, if
+ * factcast.store.pgsql.partitionFactTable is set, and must run after the
+ * regular schema migration.
+ * <p>
+ * The changelog is kept apart from db.changelog-master.yaml, because it needs
+ * PostgreSQL 12+ and blocks publishing while the existing table is attached.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class PgFactPartitioningMigration implements InitializingBean {
+
+    static final String CHANGELOG = "classpath:db/changelog/db.changelog-partitioning.yaml";
+
+    @NonNull
+    final DataSource dataSource;
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        log.info("Applying {}", CHANGELOG);
+        SpringLiquibase liquibase = new SpringLiquibase();
+        liquibase.setDataSource(dataSource);
+        liquibase.setChangeLog(CHANGELOG);
+        liquibase.setResourceLoader(new DefaultResourceLoader());
+        liquibase.afterPropertiesSet();
+    }
+}
@@ -15,6 +15,8 @@
  */
 package org.factcast.store.pgsql.internal.query;
 
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -23,16 +25,25 @@
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.factcast.core.spec.FactSpec;
+import org.factcast.core.spec.JsonPathFilter;
+import org.factcast.core.spec.JsonPathFilter.Operator;
 import org.factcast.core.subscription.SubscriptionRequestTO;
+import org.factcast.core.util.FactCastJson;
 import org.factcast.store.pgsql.internal.PgConstants;
 import org.springframework.jdbc.core.PreparedStatementSetter;
 
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * Provides {@link PreparedStatementSetter} and the corresponding SQL from a
  * list of {@link FactSpec}s.
+ * <p>
+ * {@link JsonPathFilter}s are translated into jsonb containment (equality,
+ * which can use the GIN index on the header) or type-checked comparisons of
+ * the extracted value (ranges), so that they are evaluated within PostgreSQL.
  *
  * @author uwe.schaefer@prisma-capacity.eu
  */
@@ -66,6 +77,9 @@ public PreparedStatementSetter createStatementSetter(@NonNull AtomicLong serial)
                     p.setString(++count, "{\"meta\":{\"" + e.getKey() + "\":\"" + e.getValue()
                             + "\" }}");
                 }
+                for (JsonPathFilter f : spec.filters()) {
+                    count = setFilterParameters(p, count, f);
+                }
             }
             p.setLong(++count, serial.get());
         };
@@ -89,13 +103,88 @@ private String createWhereClause() {
             meta.forEach((key, value) -> sb.append("AND ")
                     .append(PgConstants.COLUMN_HEADER)
                     .append(" @> ?::jsonb "));
+            spec.filters().forEach(f -> sb.append("AND ").append(filterPredicate(f)).append(" "));
             sb.append(") ");
             predicates.add(sb.toString());
         });
         String predicatesAsString = String.join(" OR ", predicates);
+        // ser has to stay a top level conjunct, so that a partitioned fact
+        // table can skip the partitions before the serial
         return "( " + predicatesAsString + " ) AND " + PgConstants.COLUMN_SER + ">?";
     }
 
+    private static String column(JsonPathFilter f) {
+        switch (f.source()) {
+        case HEADER:
+            return PgConstants.COLUMN_HEADER;
+        case PAYLOAD:
+            return PgConstants.COLUMN_PAYLOAD;
+        default:
+            throw new IllegalArgumentException("Unexpected source " + f.source());
+        }
+    }
+
+    private static String sqlOperator(Operator op) {
+        switch (op) {
+        case LT:
+            return "<";
+        case LTE:
+            return "<=";
+        case GT:
+            return ">";
+        case GTE:
+            return ">=";
+        default:
+            throw new IllegalArgumentException("Unexpected operator " + op);
+        }
+    }
+
+    static String filterPredicate(JsonPathFilter f) {
+        String col = column(f);
+        if (f.operator() == Operator.EQ) {
+            return col + " @> ?::jsonb";
+        }
+        // CASE, so that the cast is only attempted for values of matching
+        // type
+        if (f.value().isNumber()) {
+            return "CASE WHEN jsonb_typeof(" + col + " #> ?) = 'number' THEN (" + col
+                    + " #>> ?)::numeric " + sqlOperator(f.operator()) + " ? ELSE false END";
+        } else {
+            // "C" compares by code point, like String.compareTo
+            return "CASE WHEN jsonb_typeof(" + col + " #> ?) = 'string' THEN (" + col
+                    + " #>> ?) COLLATE \"C\" " + sqlOperator(f.operator()) + " ? ELSE false END";
+        }
+    }
+
+    private static int setFilterParameters(PreparedStatement p, int count, JsonPathFilter f)
+            throws SQLException {
+        if (f.operator() == Operator.EQ) {
+            p.setString(++count, FactCastJson.writeValueAsString(containedDocument(f)));
+        } else {
+            Object[] path = f.pathSegments().toArray();
+            p.setArray(++count, p.getConnection().createArrayOf("text", path));
+            p.setArray(++count, p.getConnection().createArrayOf("text", path));
+            if (f.value().isNumber()) {
+                p.setBigDecimal(++count, f.value().decimalValue());
+            } else {
+                p.setString(++count, f.value().textValue());
+            }
+        }
+        return count;
+    }
+
+    // {"a":{"b":value}} for path a.b
+    static ObjectNode containedDocument(JsonPathFilter f) {
+        ObjectNode root = FactCastJson.newObjectNode();
+        ObjectNode current = root;
+        List<String> segments = f.pathSegments();
+        for (int i = 0; i < segments.size() - 1; i++) {
+            current = current.putObject(segments.get(i));
+        }
+        current.set(segments.get(segments.size() - 1), f.value());
+        return root;
+    }
+
     public String createSQL() {
         final String sql = "SELECT " +
                 PgConstants.PROJECTION_FACT
@@ -16,14 +16,16 @@
 package org.factcast.store.pgsql.registry;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
-import java.util.function.Function;
 import java.util.stream.Collectors;
 
-import org.checkerframework.checker.nullness.qual.Nullable;
 import org.factcast.store.pgsql.registry.http.ValidationConstants;
 import org.factcast.store.pgsql.registry.metrics.RegistryMetrics;
 import org.factcast.store.pgsql.registry.metrics.TimedOperation;
@@ -32,6 +34,7 @@
 import org.factcast.store.pgsql.registry.transformation.TransformationSource;
 import org.factcast.store.pgsql.registry.transformation.TransformationStore;
 import org.factcast.store.pgsql.registry.transformation.TransformationStoreListener;
+import org.factcast.store.pgsql.registry.transformation.chains.JavaTransformer;
 import org.factcast.store.pgsql.registry.validation.schema.SchemaKey;
 import org.factcast.store.pgsql.registry.validation.schema.SchemaSource;
 import org.factcast.store.pgsql.registry.validation.schema.SchemaStore;
@@ -39,11 +42,14 @@
 import com.github.fge.jsonschema.core.exceptions.ProcessingException;
 import com.github.fge.jsonschema.main.JsonSchema;
 import com.google.common.base.Stopwatch;
-import com.google.common.cache.AbstractLoadingCache;
-import com.google.common.cache.LoadingCache;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
+import io.micrometer.core.instrument.Tags;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
 @RequiredArgsConstructor
@@ -64,32 +70,29 @@ public abstract class AbstractSchemaRegistry implements SchemaRegistry {
     @NonNull
     protected final RegistryMetrics registryMetrics;
 
-    protected final Object mutex = new Object();
+    protected static final String TAG_SOURCE = "source";
 
-    private LoadingCache<SchemaKey, JsonSchema> cache = new AbstractLoadingCache<SchemaKey, JsonSchema>() {
+    // compiles restored schemas and fetches deltas after starting from a
+    // snapshot, rather than blocking a thread of the common pool
+    private static final ExecutorService background = Executors.newSingleThreadExecutor(
+            new ThreadFactoryBuilder().setDaemon(true)
+                    .setNameFormat("factcast-registry-%d")
+                    .build());
 
-        @Override
-        public JsonSchema get(SchemaKey key) throws ExecutionException {
-            return schemaStore.get(key).map(createSchema()).get();
-        }
+    protected final Object mutex = new Object();
 
-        private Function<? super String, ? extends JsonSchema> createSchema() {
-            return s -> {
-                try {
-                    return ValidationConstants.JSON_SCHEMA_FACTORY.getJsonSchema(
-                            ValidationConstants.JACKSON.readTree(s));
-                } catch (ProcessingException | IOException e) {
-                    throw new IllegalArgumentException("Cannot create schema from : \n " + s, e);
-                }
-            };
-        }
+    // schemas cannot change once registered, so compiled ones never go stale
+    private final Cache<SchemaKey, JsonSchema> compiledSchemas = CacheBuilder.newBuilder()
+            .build();
 
-        @Override
-        public @Nullable JsonSchema getIfPresent(Object k) {
-            SchemaKey key = (SchemaKey) k;
-            return schemaStore.get(key).map(createSchema()).orElse(null);
-        }
-    };
+    // might be registered by a later refresh, possibly on another node
+    private final Cache<SchemaKey, Boolean> missingSchemas = CacheBuilder.newBuilder()
+            .expireAfterWrite(1, TimeUnit.MINUTES)
+            .build();
+
+    // optional local copy of the registry, to start from
+    @Setter
+    private Path snapshotFile;
 
     @Override
     public void fetchInitial() {
@@ -97,13 +100,86 @@ public void fetchInitial() {
         synchronized (mutex) {
 
             Stopwatch sw = Stopwatch.createStarted();
+            Optional<RegistryIndex> restored = snapshotFile == null ? Optional.empty()
+                    : loadSnapshot();
+            if (restored.isPresent()) {
+                log.info("Registry loaded from snapshot {} in {}ms", snapshotFile, sw.stop()
+                        .elapsed(TimeUnit.MILLISECONDS));
+                // fetching the deltas has to wait for the mutex to be released
+                CompletableFuture.runAsync(() -> {
+                    compileSchemas(restored.get());
+                    refresh();
+                }, background).whenComplete((v, e) -> {
+                    if (e != null) {
+                        log.warn("Registry update after loading snapshot failed", e);
+                    }
+                });
+                return;
+            }
+
             log.info("Registry update started");
-            indexFetcher.fetchIndex().ifPresent(this::process);
+            registryMetrics.timed(TimedOperation.FETCH_INITIAL_REGISTRY, Tags.of(TAG_SOURCE,
+                    "remote"), () -> indexFetcher.fetchIndex().ifPresent(this::process));
             log.info("Registry update finished in {}ms", sw.stop().elapsed(TimeUnit.MILLISECONDS));
 
         }
     }
 
+    /**
+     * @return the index of the snapshot restored, if any
+     */
+    private Optional<RegistryIndex> loadSnapshot() {
+        try {
+            Optional<RegistrySnapshot> snapshot = RegistrySnapshot.read(snapshotFile);
+            if (!snapshot.isPresent()) {
+                log.info("No registry snapshot found at {}", snapshotFile);
+                return Optional.empty();
+            }
+            registryMetrics.timed(TimedOperation.FETCH_INITIAL_REGISTRY, Tags.of(TAG_SOURCE,
+                    "snapshot"), () -> restore(snapshot.get()));
+            return Optional.of(snapshot.get().index());
+        } catch (IOException | RuntimeException e) {
+            log.warn("Cannot load registry snapshot from {}, fetching from remote", snapshotFile,
+                    e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * compiles the schemas of the index ahead of their first use, as the
+     * snapshot only holds their source.
+     */
+    private void compileSchemas(RegistryIndex index) {
+        Stopwatch sw = Stopwatch.createStarted();
+        for (SchemaSource source : index.schemes()) {
+            try {
+                get(source.toKey());
+            } catch (RuntimeException e) {
+                // fails again (and is reported) when the schema is used
+                log.debug("Cannot compile schema {}", source.id(), e);
+            }
+        }
+        log.info("{} schemas compiled in {}ms", index.schemes().size(), sw.stop().elapsed(
+                TimeUnit.MILLISECONDS));
+    }
+
+    private void restore(RegistrySnapshot snapshot) {
+        RegistryIndex index = snapshot.index();
+        index.schemes().forEach(source -> {
+            String schema = snapshot.schemes().get(source.id());
+            if (schema != null && !schemaStore.contains(source)) {
+                schemaStore.register(source, schema);
+            }
+        });
+        index.transformations().forEach(source -> {
+            if (snapshot.transformations().containsKey(source.id()) && !transformationStore
+                    .contains(source)) {
+                transformationStore.store(source, snapshot.transformations().get(source
+                        .id()));
+            }
+        });
+    }
+
     @Override
     public void refresh() {
         synchronized (mutex) {
@@ -117,11 +193,34 @@ public void refresh() {
     }
 
     protected void process(RegistryIndex index) {
-        updateSchemes(index);
-        updateTransformations(index);
+        boolean changed = updateSchemes(index);
+        changed |= updateTransformations(index);
+        missingSchemas.invalidateAll();
+        if (snapshotFile != null && (changed || !Files.exists(snapshotFile))) {
+            writeSnapshot(index);
+        }
+    }
+
+    private void writeSnapshot(RegistryIndex index) {
+        RegistrySnapshot snapshot = new RegistrySnapshot().index(index);
+        index.schemes().forEach(source -> schemaStore.get(source.toKey()).ifPresent(
+                schema -> snapshot.schemes().put(source.id(), schema)));
+        index.transformations().forEach(source -> transformationStore.get(source.toKey())
+                .stream()
+                .filter(t -> t.fromVersion() == source.from() && t.toVersion() == source.to())
+                .findFirst()
+                .ifPresent(t -> snapshot.transformations().put(source.id(), t
+                        .transformationCode()
+                        .orElse(null))));
+        try {
+            snapshot.write(snapshotFile);
+        } catch (IOException e) {
+            // not worth failing for, the next start just takes longer
+            log.warn("Cannot write registry snapshot to {}", snapshotFile, e);
+        }
     }
 
-    private void updateSchemes(RegistryIndex index) {
+    private boolean updateSchemes(RegistryIndex index) {
         List<SchemaSource> toFetch = index.schemes()
                 .stream()
                 .filter(source -> !schemaStore.contains(source))
@@ -138,9 +237,10 @@ private void updateSchemes(RegistryIndex index) {
                 }
             });
         }
+        return !toFetch.isEmpty();
     }
 
-    private void updateTransformations(RegistryIndex index) {
+    private boolean updateTransformations(RegistryIndex index) {
         List<TransformationSource> toFetch = index.transformations()
                 .stream()
                 .filter(source -> !transformationStore.contains(source))
@@ -153,7 +253,9 @@ private void updateTransformations(RegistryIndex index) {
             toFetch.parallelStream().forEach(source -> {
                 try {
                     String transformationCode = null;
-                    if (!source.isSynthetic()) {
+                    if (source.isJava()) {
+                        transformationCode = JavaTransformer.codeFor(source.javaClass());
+                    } else if (!source.isSynthetic()) {
                         transformationCode = registryFileFetcher.fetchTransformation(source);
                     }
                     transformationStore.store(source, transformationCode);
@@ -162,11 +264,38 @@ private void updateTransformations(RegistryIndex index) {
                 }
             });
         }
+        return !toFetch.isEmpty();
     }
 
     @Override
     public Optional<JsonSchema> get(@NonNull SchemaKey key) {
-        return Optional.ofNullable(cache.getIfPresent(key));
+        JsonSchema compiled = compiledSchemas.getIfPresent(key);
+        if (compiled != null) {
+            return Optional.of(compiled);
+        }
+        if (missingSchemas.getIfPresent(key) != null) {
+            return Optional.empty();
+        }
+
+        // concurrent misses might compile the same schema twice, which is
+        // harmless
+        Optional<JsonSchema> loaded = registryMetrics.timed(TimedOperation.COMPILE_SCHEMA,
+                () -> schemaStore.get(key).map(AbstractSchemaRegistry::createSchema));
+        if (loaded.isPresent()) {
+            compiledSchemas.put(key, loaded.get());
+        } else {
+            missingSchemas.put(key, Boolean.TRUE);
+        }
+        return loaded;
+    }
+
+    private static JsonSchema createSchema(String s) {
+        try {
+            return ValidationConstants.JSON_SCHEMA_FACTORY.getJsonSchema(
+                    ValidationConstants.JACKSON.readTree(s));
+        } catch (ProcessingException | IOException e) {
+            throw new IllegalArgumentException("Cannot create schema from : \n " + s, e);
+        }
     }
 
     @Override
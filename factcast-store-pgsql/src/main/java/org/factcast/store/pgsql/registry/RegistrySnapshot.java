@@ -0,0 +1,90 @@
+/*
+ * Copyright © 2017-2020 factcast.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.factcast.store.pgsql.registry;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import org.factcast.store.pgsql.registry.http.ValidationConstants;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+
+import lombok.Data;
+import lombok.NonNull;
+
+/**
+ * Local copy of the registry index, along with the schemes and transformation
+ * code it refers to, so that a restart does not need to fetch them again.
+ *
+ * @see AbstractSchemaRegistry
+ */
+@Data
+public class RegistrySnapshot {
+    @JsonProperty
+    private RegistryIndex index = new RegistryIndex();
+
+    // schema by id of its SchemaSource
+    @JsonProperty
+    private Map<String, String> schemes = new HashMap<>();
+
+    // code by id of its TransformationSource, null for synthetic ones
+    @JsonProperty
+    private Map<String, String> transformations = new HashMap<>();
+
+    public static Optional<RegistrySnapshot> read(@NonNull Path file) throws IOException {
+        if (!Files.isReadable(file)) {
+            return Optional.empty();
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel
+                    .size());
+            try (InputStream in = new ByteBufferBackedInputStream(buffer)) {
+                return Optional.of(ValidationConstants.JACKSON.readValue(in,
+                        RegistrySnapshot.class));
+            }
+        }
+    }
+
+    /**
+     * replaces the given file atomically, so that a crash while writing does
+     * not leave a broken snapshot behind.
+     */
+    public void write(@NonNull Path file) throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                ValidationConstants.JACKSON.writeValue(out, this);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+}
@@ -17,6 +17,7 @@
 
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.file.Paths;
 
 import org.factcast.store.pgsql.PgConfigurationProperties;
 import org.factcast.store.pgsql.registry.classpath.ClasspathSchemaRegistry;
@@ -64,6 +65,8 @@ public SchemaRegistry schemaRegistry(PgConfigurationProperties p,
                     HttpSchemaRegistry httpSchemaRegistry;
                     httpSchemaRegistry = new HttpSchemaRegistry(new URL(fullUrl + "/"),
                             schemaStore, transformationStore, registryMetrics);
+                    if (p.getRegistrySnapshotFile() != null)
+                        httpSchemaRegistry.snapshotFile(Paths.get(p.getRegistrySnapshotFile()));
                     httpSchemaRegistry.fetchInitial();
                     return httpSchemaRegistry;
                 }
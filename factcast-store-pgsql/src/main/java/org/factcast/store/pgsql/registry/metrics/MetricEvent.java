@@ -21,6 +21,13 @@
 public enum MetricEvent {
     TRANSFORMATION_CACHE_HIT("transformation_cache_hit"),
     TRANSFORMATION_CACHE_MISS("transformation_cache_miss"),
+    TRANSFORMATION_CACHE_ACCESS_FLUSHED("transformation_cache_access_flushed"),
+    TRANSFORMATION_CACHE_L1_HIT("transformation_cache_l1_hit"),
+    TRANSFORMATION_CACHE_L1_MISS("transformation_cache_l1_miss"),
+    TRANSFORMATION_CACHE_L2_HIT("transformation_cache_l2_hit"),
+    TRANSFORMATION_CACHE_L2_MISS("transformation_cache_l2_miss"),
+    TRANSFORMATION_CACHE_WRITE_DROPPED("transformation_cache_write_dropped"),
+    TRANSFORMATION_PRECOMPUTED("transformation_precomputed"),
     MISSING_TRANSFORMATION_INFO("missing_transformation_information"),
     TRANSFORMATION_CONFLICT("transformation_conflict"),
     REGISTRY_FILE_FETCH_FAILED("registry_file_fetch_failed"),
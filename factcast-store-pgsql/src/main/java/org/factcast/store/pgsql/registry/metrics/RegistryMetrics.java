@@ -47,4 +47,6 @@ <R, E extends Exception> R timed(TimedOperation operation, Class<E> exceptionCla
     void count(MetricEvent event);
 
     void count(MetricEvent event, Tags tags);
+
+    void increase(MetricEvent event, long amount);
 }
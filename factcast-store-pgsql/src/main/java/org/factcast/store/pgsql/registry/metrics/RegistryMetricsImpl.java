@@ -119,4 +119,9 @@ public void count(@NonNull MetricEvent event, Tags tags) {
     public void count(@NonNull MetricEvent event) {
         count(event, null);
     }
+
+    @Override
+    public void increase(@NonNull MetricEvent event, long amount) {
+        counter(event, null).increment(amount);
+    }
 }
\ No newline at end of file
@@ -21,7 +21,13 @@
 public enum TimedOperation {
 
     REFRESH_REGISTRY("refresh_registry"),
+    FETCH_INITIAL_REGISTRY("fetch_initial_registry"),
+    COMPILE_SCHEMA("compile_schema"),
+    VALIDATE_FACT("validate_fact"),
     COMPACT_TRANSFORMATION_CACHE("compact_transformation_cache"),
+    FLUSH_TRANSFORMATION_CACHE_ACCESS("flush_transformation_cache_access"),
+    FLUSH_TRANSFORMATION_CACHE_WRITES("flush_transformation_cache_writes"),
+    PRECOMPUTE_TRANSFORMATIONS("precompute_transformations"),
     TRANSFORMATION("transform_event"),
     FETCH_REGISTRY_FILE("fetch_registry_file");
 
@@ -15,6 +15,8 @@
  */
 package org.factcast.store.pgsql.registry.transformation;
 
+import java.util.concurrent.ExecutorService;
+
 import org.factcast.core.subscription.FactTransformers;
 import org.factcast.core.subscription.FactTransformersFactory;
 import org.factcast.core.subscription.SubscriptionRequestTO;
@@ -27,7 +29,7 @@
 import lombok.RequiredArgsConstructor;
 
 @RequiredArgsConstructor
-public class FactTransformersFactoryImpl implements FactTransformersFactory {
+public class FactTransformersFactoryImpl implements FactTransformersFactory, AutoCloseable {
 
     private final TransformationChains chains;
 
@@ -37,6 +39,9 @@ public class FactTransformersFactoryImpl implements FactTransformersFactory {
 
     private final RegistryMetrics registryMetrics;
 
+    // shared by all subscriptions
+    private final ExecutorService executor;
+
     @Override
     public FactTransformers createFor(SubscriptionRequestTO sr) {
 
@@ -48,8 +53,13 @@ public FactTransformers createFor(SubscriptionRequestTO sr) {
             }
         });
 
-        return new FactTransformersImpl(rv, chains, trans, cache, registryMetrics);
+        return new FactTransformersImpl(rv, chains, trans, cache, registryMetrics, executor);
 
     }
 
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
 }
@@ -15,8 +15,16 @@
  */
 package org.factcast.store.pgsql.registry.transformation;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.OptionalInt;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 import org.factcast.core.Fact;
 import org.factcast.core.subscription.FactTransformers;
@@ -27,6 +35,7 @@
 import org.factcast.store.pgsql.registry.metrics.RegistryMetrics;
 import org.factcast.store.pgsql.registry.metrics.TimedOperation;
 import org.factcast.store.pgsql.registry.transformation.cache.TransformationCache;
+import org.factcast.store.pgsql.registry.transformation.cache.TransformationCache.Key;
 import org.factcast.store.pgsql.registry.transformation.chains.TransformationChain;
 import org.factcast.store.pgsql.registry.transformation.chains.TransformationChains;
 import org.factcast.store.pgsql.registry.transformation.chains.Transformer;
@@ -35,6 +44,7 @@
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.MoreExecutors;
 
 import io.micrometer.core.instrument.Tag;
 import io.micrometer.core.instrument.Tags;
@@ -59,32 +69,114 @@ public class FactTransformersImpl implements FactTransformers {
     @NonNull
     private final RegistryMetrics registryMetrics;
 
+    // transforms cache misses of a batch in parallel
+    @NonNull
+    private final Executor executor;
+
+    public FactTransformersImpl(@NonNull RequestedVersions requested,
+            @NonNull TransformationChains chains, @NonNull Transformer trans,
+            @NonNull TransformationCache cache, @NonNull RegistryMetrics registryMetrics) {
+        this(requested, chains, trans, cache, registryMetrics, MoreExecutors.directExecutor());
+    }
+
     @Override
     public @NonNull Fact transformIfNecessary(@NonNull Fact e) throws TransformationException {
+        OptionalInt targetVersion = targetVersion(e);
+        if (!targetVersion.isPresent()) {
+            return e;
+        } else {
+            return registryMetrics.timed(TimedOperation.TRANSFORMATION,
+                    TransformationException.class,
+                    () -> transform(targetVersion.getAsInt(), e));
+        }
+    }
+
+    /**
+     * Looks up all facts of the batch, that need transformation, in the cache
+     * at once, transforms the misses in parallel and caches them as a batch.
+     */
+    @Override
+    public @NonNull List<Fact> transformIfNecessary(@NonNull List<Fact> facts)
+            throws TransformationException {
+
+        // index in facts -> cache key, for those to transform
+        Map<Integer, Key> keys = new LinkedHashMap<>();
+        Map<Key, TransformationChain> chainsByKey = new HashMap<>();
+        for (int i = 0; i < facts.size(); i++) {
+            Fact e = facts.get(i);
+            OptionalInt targetVersion = targetVersion(e);
+            if (targetVersion.isPresent()) {
+                TransformationChain chain = chains.get(TransformationKey.of(e.ns(), e.type()), e
+                        .version(), targetVersion.getAsInt());
+                Key key = Key.of(e.id(), targetVersion.getAsInt(), chain.id());
+                keys.put(i, key);
+                chainsByKey.put(key, chain);
+            }
+        }
+        if (keys.isEmpty()) {
+            return facts;
+        }
+
+        Map<Key, Fact> cached = cache.findAll(new ArrayList<>(keys.values()));
+
+        Map<Integer, CompletableFuture<Fact>> misses = new HashMap<>();
+        keys.forEach((i, key) -> {
+            if (!cached.containsKey(key)) {
+                Fact e = facts.get(i);
+                misses.put(i, CompletableFuture.supplyAsync(() -> registryMetrics.timed(
+                        TimedOperation.TRANSFORMATION, () -> transformUncached(key, chainsByKey
+                                .get(key), e)), executor));
+            }
+        });
+
+        List<Fact> result = new ArrayList<>(facts);
+        Map<Key, Fact> transformed = new HashMap<>();
+        for (Map.Entry<Integer, Key> entry : keys.entrySet()) {
+            int i = entry.getKey();
+            Key key = entry.getValue();
+            CompletableFuture<Fact> miss = misses.get(i);
+            if (miss == null) {
+                result.set(i, cached.get(key));
+            } else {
+                Fact t = join(miss);
+                transformed.put(key, t);
+                result.set(i, t);
+            }
+        }
+        cache.putAll(transformed);
+        return result;
+    }
 
+    private OptionalInt targetVersion(Fact e) {
         String ns = e.ns();
         String type = e.type();
 
         if (type == null || requested.dontCare(ns, type) || requested.exactVersion(ns, type, e
                 .version())) {
-            return e;
+            return OptionalInt.empty();
         } else {
+            // find the "best" version if there are more than one requested
             OptionalInt max = requested.get(ns, type).stream().mapToInt(v -> v).max();
-            int targetVersion = max.orElseThrow(() -> new IllegalArgumentException(
-                    "No requested Version !? This must not happen."));
-
-            return registryMetrics.timed(TimedOperation.TRANSFORMATION,
-                    TransformationException.class,
-                    () -> transform(targetVersion, e));
-
+            return OptionalInt.of(max.orElseThrow(() -> new IllegalArgumentException(
+                    "No requested Version !? This must not happen.")));
         }
+    }
 
+    private static Fact join(CompletableFuture<Fact> f) throws TransformationException {
+        try {
+            return f.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedTransformationException) {
+                throw ((UncheckedTransformationException) cause).getCause();
+            }
+            throw e;
+        }
     }
 
     @VisibleForTesting
     protected @NonNull Fact transform(int targetVersion, @NonNull Fact e)
             throws TransformationException {
-        // find the "best" version if there are more than one requested
 
         int sourceVersion = e.version();
 
@@ -98,23 +190,49 @@ public class FactTransformersImpl implements FactTransformers {
         if (cached.isPresent())
             return cached.get();
         else {
-            try {
-                JsonNode input = FactCastJson.readTree(e.jsonPayload());
-                JsonNode header = FactCastJson.readTree(e.jsonHeader());
-                ((ObjectNode) header).put("version", targetVersion);
-                JsonNode transformedPayload = trans.transform(chain, input);
-                Fact transformed = Fact.of(header, transformedPayload);
-                // can be optimized by passing jsonnode?
-                cache.put(transformed, chainId);
-                return transformed;
-            } catch (JsonProcessingException e1) {
-                registryMetrics.count(MetricEvent.TRANSFORMATION_FAILED, Tags.of(
-                        Tag.of(RegistryMetrics.TAG_IDENTITY_KEY, key.toString()),
-                        Tag.of("version", String.valueOf(targetVersion))));
-
-                throw new TransformationException(e1);
-            }
+            Fact transformed = doTransform(targetVersion, chain, e);
+            cache.put(transformed, chainId);
+            return transformed;
+        }
+    }
+
+    private Fact transformUncached(Key key, TransformationChain chain, Fact e) {
+        try {
+            return doTransform(key.version(), chain, e);
+        } catch (TransformationException ex) {
+            throw new UncheckedTransformationException(ex);
+        }
+    }
+
+    private Fact doTransform(int targetVersion, TransformationChain chain, Fact e)
+            throws TransformationException {
+        try {
+            JsonNode input = FactCastJson.readTree(e.jsonPayload());
+            JsonNode header = FactCastJson.readTree(e.jsonHeader());
+            ((ObjectNode) header).put("version", targetVersion);
+            JsonNode transformedPayload = trans.transform(chain, input);
+            return Fact.of(header, transformedPayload);
+        } catch (JsonProcessingException e1) {
+            registryMetrics.count(MetricEvent.TRANSFORMATION_FAILED, Tags.of(
+                    Tag.of(RegistryMetrics.TAG_IDENTITY_KEY, TransformationKey.of(e.ns(), e
+                            .type()).toString()),
+                    Tag.of("version", String.valueOf(targetVersion))));
+
+            throw new TransformationException(e1);
         }
     }
 
+    private static class UncheckedTransformationException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        UncheckedTransformationException(TransformationException e) {
+            super(e);
+        }
+
+        @Override
+        public synchronized TransformationException getCause() {
+            return (TransformationException) super.getCause();
+        }
+    }
 }
@@ -0,0 +1,38 @@
+/*
+ * Copyright © 2017-2020 factcast.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.factcast.store.pgsql.registry.transformation;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import lombok.NonNull;
+
+/**
+ * SPI for transformations implemented in Java rather than in javascript.
+ * <p>
+ * A transformation in the registry refers to an implementation by its
+ * {@link TransformationSource#javaClass()}. The class is loaded from the
+ * server's classpath and must have a public no-arg constructor. One instance
+ * is shared for all facts, so implementations must be thread-safe.
+ */
+public interface JavaTransformation {
+
+    /**
+     * @param payload
+     *            a copy of the payload, that may be modified in place
+     * @return the transformed payload, usually the one passed in
+     */
+    JsonNode transform(@NonNull JsonNode payload) throws Exception;
+}
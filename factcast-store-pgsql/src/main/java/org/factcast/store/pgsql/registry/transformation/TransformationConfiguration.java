@@ -15,26 +15,37 @@
  */
 package org.factcast.store.pgsql.registry.transformation;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 import org.factcast.core.subscription.FactTransformersFactory;
 import org.factcast.store.pgsql.PgConfigurationProperties;
 import org.factcast.store.pgsql.registry.SchemaRegistry;
 import org.factcast.store.pgsql.registry.metrics.RegistryMetrics;
 import org.factcast.store.pgsql.registry.transformation.cache.InMemTransformationCache;
 import org.factcast.store.pgsql.registry.transformation.cache.PgTransformationCache;
+import org.factcast.store.pgsql.registry.transformation.cache.TieredTransformationCache;
 import org.factcast.store.pgsql.registry.transformation.cache.TransformationCache;
+import org.factcast.store.pgsql.registry.transformation.chains.DelegatingTransformer;
+import org.factcast.store.pgsql.registry.transformation.chains.JavaTransformer;
 import org.factcast.store.pgsql.registry.transformation.chains.NashornTransformer;
 import org.factcast.store.pgsql.registry.transformation.chains.TransformationChains;
 import org.factcast.store.pgsql.registry.transformation.chains.Transformer;
 import org.factcast.store.pgsql.registry.transformation.store.InMemTransformationStoreImpl;
 import org.factcast.store.pgsql.registry.transformation.store.PgTransformationStoreImpl;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.jdbc.core.JdbcTemplate;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
 import liquibase.integration.spring.SpringLiquibase;
 import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
 
+@Slf4j
 @Configuration
 public class TransformationConfiguration {
     @Bean
@@ -54,12 +65,17 @@ public TransformationCache transformationCache(@NonNull JdbcTemplate jdbcTemplat
             @NonNull PgConfigurationProperties props, @NonNull RegistryMetrics registryMetrics,
             @Autowired(
                     required = false) SpringLiquibase unused) {
-        if (props.isValidationEnabled() && props.isPersistentTransformationCache())
-            return new PgTransformationCache(jdbcTemplate, registryMetrics);
+        if (props.isValidationEnabled() && props.isPersistentTransformationCache()) {
+            PgTransformationCache pg = new PgTransformationCache(jdbcTemplate, registryMetrics);
+            if (props.getTransformationCacheL1SizeInMb() > 0)
+                return new TieredTransformationCache(pg, props.getTransformationCacheL1SizeInMb()
+                        * 1024L * 1024L, registryMetrics);
+            return pg;
+        }
 
         // otherwise
-        return new InMemTransformationCache(props.getInMemTransformationCacheCapacity(),
-                registryMetrics);
+        return new InMemTransformationCache(props.getInMemTransformationCacheSizeInBytes(), props
+                .isInMemTransformationCacheCompressed(), registryMetrics);
     }
 
     @Bean
@@ -71,13 +87,41 @@ public TransformationChains transformationChains(@NonNull SchemaRegistry r,
     @Bean
     public Transformer transformer() {
         // TODO should test for Graal here, as nashorn is deprecated
-        return new NashornTransformer();
+        return new DelegatingTransformer(new JavaTransformer(), new NashornTransformer());
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService transformationExecutor(PgConfigurationProperties props) {
+        return Executors.newFixedThreadPool(Math.max(1, props.getTransformationThreads()),
+                new ThreadFactoryBuilder().setDaemon(true)
+                        .setNameFormat("factcast-transformation-%d")
+                        .build());
     }
 
     @Bean
     public FactTransformersFactory factTransformersFactory(TransformationChains chains,
-            Transformer trans, TransformationCache cache, RegistryMetrics registryMetrics) {
-        return new FactTransformersFactoryImpl(chains, trans, cache, registryMetrics);
+            Transformer trans, TransformationCache cache, RegistryMetrics registryMetrics,
+            @Qualifier("transformationExecutor") ExecutorService executor) {
+        return new FactTransformersFactoryImpl(chains, trans, cache, registryMetrics, executor);
+    }
+
+    @Bean
+    public TransformationPrecomputer transformationPrecomputer(@NonNull JdbcTemplate jdbcTemplate,
+            @NonNull SchemaRegistry registry, @NonNull TransformationChains chains,
+            @NonNull Transformer trans, @NonNull TransformationCache cache,
+            @NonNull RegistryMetrics registryMetrics, @NonNull PgConfigurationProperties props) {
+        if (!(cache instanceof PgTransformationCache
+                || cache instanceof TieredTransformationCache)) {
+            // would only warm the cache of whichever node runs it
+            if (!props.getTransformationPrecomputeTargets().isEmpty()) {
+                log.warn(
+                        "Ignoring transformationPrecomputeTargets, as they require persistentTransformationCache");
+            }
+            return null;
+        }
+        return new TransformationPrecomputer(jdbcTemplate, registry, chains, trans, cache,
+                registryMetrics, props.getTransformationPrecomputeTargets(), props
+                        .getTransformationPrecomputeFactsPerSecond());
     }
 
     @Bean
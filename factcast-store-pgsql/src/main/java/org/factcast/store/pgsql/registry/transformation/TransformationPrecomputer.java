@@ -0,0 +1,262 @@
+/*
+ * Copyright © 2017-2020 factcast.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.factcast.store.pgsql.registry.transformation;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.factcast.core.Fact;
+import org.factcast.core.subscription.TransformationException;
+import org.factcast.core.util.FactCastJson;
+import org.factcast.store.pgsql.internal.PgConstants;
+import org.factcast.store.pgsql.internal.RequestedVersions;
+import org.factcast.store.pgsql.internal.rowmapper.PgFactExtractor;
+import org.factcast.store.pgsql.registry.SchemaRegistry;
+import org.factcast.store.pgsql.registry.metrics.MetricEvent;
+import org.factcast.store.pgsql.registry.metrics.RegistryMetrics;
+import org.factcast.store.pgsql.registry.metrics.TimedOperation;
+import org.factcast.store.pgsql.registry.transformation.cache.TransformationCache;
+import org.factcast.store.pgsql.registry.transformation.chains.MissingTransformationInformation;
+import org.factcast.store.pgsql.registry.transformation.chains.TransformationChains;
+import org.factcast.store.pgsql.registry.transformation.chains.Transformer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.RateLimiter;
+
+import lombok.NonNull;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import net.javacrumbs.shedlock.core.SchedulerLock;
+
+/**
+ * Fills the transformation cache in the background for configured targets
+ * (ns, type and version), so that the first consumer asking for a new version
+ * does not have to pay for transforming all of the facts during its catchup.
+ * <p>
+ * Only makes sense with a persistent cache, as it runs on one node at a time.
+ * Progress is kept per target in the database, together with a fingerprint of
+ * the transformations for its ns/type, so that it starts over only if they
+ * actually changed. Runs at min thread priority, limited to a number of facts
+ * per second, and processes a bounded number of pages per run, so that it
+ * finishes well before the lock expires.
+ */
+@Slf4j
+public class TransformationPrecomputer implements TransformationStoreListener {
+
+    static final int PAGE_SIZE = 1000;
+
+    // lock is held for at most an hour
+    static final long MAX_RUN_SECONDS = 60 * 10;
+
+    static final String SELECT_PROGRESS =
+            "SELECT ser, fingerprint FROM transformationprecompute WHERE target = ?";
+
+    static final String RESET_PROGRESS =
+            "INSERT INTO transformationprecompute (target, ser, fingerprint) VALUES (?, 0, ?) ON CONFLICT (target) DO UPDATE SET ser = 0, fingerprint = excluded.fingerprint";
+
+    static final String UPDATE_PROGRESS =
+            "UPDATE transformationprecompute SET ser = ? WHERE target = ? AND ser = ? AND fingerprint = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final SchemaRegistry registry;
+
+    private final TransformationChains chains;
+
+    private final Transformer trans;
+
+    private final TransformationCache cache;
+
+    private final RegistryMetrics registryMetrics;
+
+    private final List<Target> targets;
+
+    private final RateLimiter rateLimiter;
+
+    private final long pagesPerRun;
+
+    // keys of transformations changed while a run is in progress
+    private final Set<TransformationKey> changed = ConcurrentHashMap.newKeySet();
+
+    public TransformationPrecomputer(@NonNull JdbcTemplate jdbcTemplate,
+            @NonNull SchemaRegistry registry, @NonNull TransformationChains chains,
+            @NonNull Transformer trans, @NonNull TransformationCache cache,
+            @NonNull RegistryMetrics registryMetrics, @NonNull List<String> targets,
+            double factsPerSecond) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.registry = registry;
+        this.chains = chains;
+        this.trans = trans;
+        this.cache = cache;
+        this.registryMetrics = registryMetrics;
+        this.targets = targets.stream().map(Target::parse).collect(Collectors.toList());
+        rateLimiter = RateLimiter.create(factsPerSecond);
+        pagesPerRun = Math.max(1, (long) (factsPerSecond * MAX_RUN_SECONDS / PAGE_SIZE));
+        registry.register(this);
+    }
+
+    @Override
+    public void notifyFor(TransformationKey key) {
+        // the stored progress is reset by the next run, if the fingerprint
+        // differs. This just stops the current one early.
+        if (targets.stream().anyMatch(t -> t.key().equals(key))) {
+            changed.add(key);
+        }
+    }
+
+    @Scheduled(
+            fixedDelayString = "${factcast.store.pgsql.transformationPrecomputeIntervalInMillis:60000}")
+    @SchedulerLock(name = "transformationPrecompute", lockAtMostFor = 1000 * 60 * 60)
+    public void precompute() {
+        if (targets.isEmpty()) {
+            return;
+        }
+        // must not compete with subscriptions
+        Thread current = Thread.currentThread();
+        int priority = current.getPriority();
+        current.setPriority(Thread.MIN_PRIORITY);
+        try {
+            registryMetrics.timed(TimedOperation.PRECOMPUTE_TRANSFORMATIONS, () -> {
+                long pagesLeft = pagesPerRun;
+                for (Target target : targets) {
+                    if (pagesLeft <= 0) {
+                        // continued with the next run
+                        break;
+                    }
+                    pagesLeft -= precompute(target, pagesLeft);
+                }
+            });
+        } finally {
+            current.setPriority(priority);
+        }
+    }
+
+    /**
+     * @return the number of pages processed
+     */
+    @VisibleForTesting
+    long precompute(@NonNull Target target, long maxPages) {
+        RequestedVersions requested = new RequestedVersions();
+        requested.add(target.ns(), target.type(), target.version());
+        FactTransformersImpl transformers = new FactTransformersImpl(requested, chains, trans,
+                cache, registryMetrics);
+
+        ObjectNode header = FactCastJson.newObjectNode();
+        header.put("ns", target.ns());
+        header.put("type", target.type());
+        String headerJson = header.toString();
+
+        String id = target.toString();
+        changed.remove(target.key());
+        String fingerprint = fingerprint(registry.get(target.key()));
+        List<Progress> progress = jdbcTemplate.query(SELECT_PROGRESS, new Object[] { id }, (rs,
+                i) -> Progress.of(rs.getLong(1), rs.getString(2)));
+        long ser = 0;
+        if (progress.isEmpty() || !fingerprint.equals(progress.get(0).fingerprint())) {
+            log.info("Transformations for {} changed, starting over", target);
+            jdbcTemplate.update(RESET_PROGRESS, id, fingerprint);
+        } else {
+            ser = progress.get(0).ser();
+        }
+
+        long pages = 0;
+        try {
+            while (pages < maxPages && !changed.contains(target.key())) {
+                AtomicLong last = new AtomicLong(ser);
+                List<Fact> page = jdbcTemplate.query(PgConstants.SELECT_BY_HEADER_JSON_AFTER_SER,
+                        new Object[] { headerJson, ser, PAGE_SIZE }, new PgFactExtractor(last));
+                if (page.isEmpty()) {
+                    break;
+                }
+                pages++;
+                rateLimiter.acquire(page.size());
+                transformers.transformIfNecessary(page);
+                registryMetrics.increase(MetricEvent.TRANSFORMATION_PRECOMPUTED, page.size());
+
+                if (jdbcTemplate.update(UPDATE_PROGRESS, last.get(), id, ser, fingerprint) == 0) {
+                    // reset meanwhile, start over next time
+                    break;
+                }
+                ser = last.get();
+            }
+        } catch (TransformationException | MissingTransformationInformation e) {
+            log.warn("Cannot precompute transformations for {}: {}", target, e.getMessage());
+        }
+        return pages;
+    }
+
+    @VisibleForTesting
+    static String fingerprint(@NonNull List<Transformation> transformations) {
+        Hasher hasher = Hashing.sha256().newHasher();
+        transformations.stream()
+                .map(t -> t.fromVersion() + "-" + t.toVersion() + ":" + t.transformationCode()
+                        .orElse(""))
+                .sorted()
+                .forEach(s -> hasher.putString(s, StandardCharsets.UTF_8).putChar('\0'));
+        return hasher.hash().toString();
+    }
+
+    @Value(staticConstructor = "of")
+    static class Progress {
+        long ser;
+
+        @NonNull
+        String fingerprint;
+    }
+
+    @Value(staticConstructor = "of")
+    static class Target {
+        @NonNull
+        String ns;
+
+        @NonNull
+        String type;
+
+        int version;
+
+        /**
+         * @param s
+         *            in the form of ns:type:version
+         */
+        static Target parse(@NonNull String s) {
+            String[] parts = s.split(":");
+            if (parts.length != 3) {
+                throw new IllegalArgumentException(
+                        "Expected a precompute target in the form of ns:type:version, but got "
+                                + s);
+            }
+            return of(parts[0], parts[1], Integer.parseInt(parts[2]));
+        }
+
+        TransformationKey key() {
+            return TransformationKey.of(ns, type);
+        }
+
+        @Override
+        public String toString() {
+            return ns + ":" + type + ":" + version;
+        }
+    }
+}
@@ -46,6 +46,16 @@ public class TransformationSource {
     @JsonProperty(required = true)
     private Integer to;
 
+    // fully qualified name of a JavaTransformation to use instead of fetching
+    // javascript
+    @JsonProperty
+    private String javaClass;
+
+    public TransformationSource(String id, String ns, String type, String hash, Integer from,
+            Integer to) {
+        this(id, ns, type, hash, from, to, null);
+    }
+
     public TransformationKey toKey() {
         return TransformationKey.of(ns, type);
     }
@@ -53,4 +63,8 @@ public TransformationKey toKey() {
     public boolean isSynthetic() {
         return id.startsWith("synthetic/");
     }
+
+    public boolean isJava() {
+        return javaClass != null;
+    }
 }
@@ -29,4 +29,8 @@ static String of(@NonNull Fact fact, @NonNull String transformationChainId) {
     static String of(@NonNull UUID id, int version, @NonNull String transformationChainId) {
         return String.join("-", id.toString(), String.valueOf(version), transformationChainId);
     }
+
+    static String of(@NonNull TransformationCache.Key key) {
+        return CacheKey.of(key.id(), key.version(), key.transformationChainId());
+    }
 }
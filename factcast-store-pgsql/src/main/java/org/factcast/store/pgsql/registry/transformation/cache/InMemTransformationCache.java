@@ -15,85 +15,212 @@
  */
 package org.factcast.store.pgsql.registry.transformation.cache;
 
-import java.util.HashSet;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentMap;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
 
-import org.apache.commons.collections4.map.LRUMap;
 import org.factcast.core.Fact;
 import org.factcast.store.pgsql.registry.metrics.MetricEvent;
 import org.factcast.store.pgsql.registry.metrics.RegistryMetrics;
 import org.factcast.store.pgsql.registry.metrics.TimedOperation;
 import org.joda.time.DateTime;
 
-import lombok.AllArgsConstructor;
-import lombok.Data;
-import lombok.NonNull;
+import com.google.common.cache.CacheBuilder;
 
+import lombok.NonNull;
+import lombok.SneakyThrows;
+
+/**
+ * Transformation cache on the heap, bounded by the (approximate) number of
+ * bytes of the cached facts.
+ * <p>
+ * Based on a segmented guava cache, so that concurrent subscriptions do not
+ * contend on a single lock. Optionally, header and payload are stored
+ * deflated, which trades cpu on every hit for a considerably higher number of
+ * cached facts.
+ */
 public class InMemTransformationCache implements TransformationCache {
     private final RegistryMetrics registryMetrics;
 
     // very low, but ok for tests
-    private static final int DEFAULT_CAPACITY = 1000;
+    private static final long DEFAULT_MAX_BYTES = 10 * 1024 * 1024;
 
-    private Map<String, FactAndAccessTime> cache;
+    private static final int CONCURRENCY_LEVEL = 16;
+
+    private final boolean compressed;
+
+    private final ConcurrentMap<String, Entry> cache;
 
     public InMemTransformationCache(RegistryMetrics registryMetrics) {
-        this(DEFAULT_CAPACITY, registryMetrics);
+        this(DEFAULT_MAX_BYTES, false, registryMetrics);
     }
 
-    public InMemTransformationCache(int capacity, RegistryMetrics registryMetrics) {
-        cache = new LRUMap<String, FactAndAccessTime>(Math.max(capacity, DEFAULT_CAPACITY));
+    public InMemTransformationCache(long maxBytes, boolean compressed,
+            RegistryMetrics registryMetrics) {
+        this.compressed = compressed;
         this.registryMetrics = registryMetrics;
+        cache = CacheBuilder.newBuilder()
+                .concurrencyLevel(CONCURRENCY_LEVEL)
+                .maximumWeight(maxBytes)
+                .weigher((String k, Entry e) -> e.weight(k))
+                .<String, Entry> build()
+                .asMap();
     }
 
     @Override
     public void put(@NonNull Fact f, @NonNull String transformationChainId) {
-        String key = CacheKey.of(f, transformationChainId);
-        synchronized (cache) {
-            cache.put(key, new FactAndAccessTime(f, System.currentTimeMillis()));
-        }
+        cache.put(CacheKey.of(f, transformationChainId), entryFor(f, System.currentTimeMillis()));
     }
 
     @Override
     public Optional<Fact> find(@NonNull UUID eventId, int version,
             @NonNull String transformationChainId) {
-        String key = CacheKey.of(eventId, version, transformationChainId);
-        Optional<FactAndAccessTime> cached;
-        synchronized (cache) {
-            cached = Optional.ofNullable(cache.get(key));
-        }
-        cached.ifPresent(faat -> faat.accessTime(System.currentTimeMillis()));
-        registryMetrics.count(cached.isPresent() ? MetricEvent.TRANSFORMATION_CACHE_HIT
+        Entry e = cache.get(CacheKey.of(eventId, version, transformationChainId));
+        registryMetrics.count(e != null ? MetricEvent.TRANSFORMATION_CACHE_HIT
                 : MetricEvent.TRANSFORMATION_CACHE_MISS);
-        return cached.map(FactAndAccessTime::fact);
+        return Optional.ofNullable(e).map(entry -> entry.access(System.currentTimeMillis()));
+    }
+
+    @Override
+    public Map<Key, Fact> findAll(@NonNull Collection<Key> keys) {
+        Map<Key, Fact> found = new HashMap<>();
+        long now = System.currentTimeMillis();
+        for (Key k : keys) {
+            Entry e = cache.get(CacheKey.of(k));
+            if (e != null) {
+                found.put(k, e.access(now));
+            }
+        }
+        registryMetrics.increase(MetricEvent.TRANSFORMATION_CACHE_HIT, found.size());
+        registryMetrics.increase(MetricEvent.TRANSFORMATION_CACHE_MISS, keys.size() - found
+                .size());
+        return found;
+    }
+
+    @Override
+    public void putAll(@NonNull Map<Key, Fact> transformed) {
+        long now = System.currentTimeMillis();
+        transformed.forEach((k, f) -> cache.put(CacheKey.of(k), entryFor(f, now)));
     }
 
     @Override
     public void compact(@NonNull DateTime thresholdDate) {
         registryMetrics.timed(TimedOperation.COMPACT_TRANSFORMATION_CACHE, () -> {
+            long threshold = thresholdDate.getMillis();
+            // weakly consistent, so no need to copy or lock
+            cache.values().removeIf(e -> e.accessTime < threshold);
+        });
+    }
 
-            HashSet<Entry<String, FactAndAccessTime>> copyOfEntries;
-            synchronized (cache) {
-                copyOfEntries = new HashSet<>(cache.entrySet());
-            }
+    private Entry entryFor(Fact f, long now) {
+        return compressed ? new CompressedEntry(f, now) : new HeapEntry(f, now);
+    }
 
-            copyOfEntries.forEach(e -> {
-                FactAndAccessTime faat = e.getValue();
-                if (thresholdDate.isAfter(faat.accessTime))
-                    cache.remove(e.getKey());
-            });
-        });
+    private abstract static class Entry {
+        // roughly object headers, references and the key's fields
+        static final int OVERHEAD = 128;
+
+        volatile long accessTime;
+
+        Entry(long accessTime) {
+            this.accessTime = accessTime;
+        }
+
+        final Fact access(long now) {
+            accessTime = now;
+            return fact();
+        }
+
+        abstract Fact fact();
+
+        abstract int weight(String key);
+    }
+
+    private static class HeapEntry extends Entry {
+        final Fact fact;
+
+        HeapEntry(Fact fact, long accessTime) {
+            super(accessTime);
+            this.fact = fact;
+        }
+
+        @Override
+        Fact fact() {
+            return fact;
+        }
+
+        @Override
+        int weight(String key) {
+            // two bytes per char
+            long chars = key.length() + fact.jsonHeader().length() + fact.jsonPayload().length();
+            return (int) Math.min(Integer.MAX_VALUE, OVERHEAD + 2 * chars);
+        }
     }
 
-    @Data
-    @AllArgsConstructor
-    private static class FactAndAccessTime {
-        Fact fact;
+    private static class CompressedEntry extends Entry {
+        final byte[] header;
+
+        final byte[] payload;
 
-        long accessTime;
+        CompressedEntry(Fact fact, long accessTime) {
+            super(accessTime);
+            header = deflate(fact.jsonHeader());
+            payload = deflate(fact.jsonPayload());
+        }
+
+        @Override
+        Fact fact() {
+            return Fact.of(inflate(header), inflate(payload));
+        }
+
+        @Override
+        int weight(String key) {
+            return OVERHEAD + 2 * key.length() + header.length + payload.length;
+        }
+    }
+
+    static byte[] deflate(String s) {
+        byte[] input = s.getBytes(StandardCharsets.UTF_8);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(input);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(16, input.length / 4));
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
     }
 
+    @SneakyThrows(DataFormatException.class)
+    static String inflate(byte[] deflated) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(deflated);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(deflated.length * 4);
+            byte[] buffer = new byte[4096];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buffer);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new DataFormatException("truncated input");
+                }
+                out.write(buffer, 0, n);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        } finally {
+            inflater.end();
+        }
+    }
 }
@@ -15,9 +15,17 @@
  */
 package org.factcast.store.pgsql.registry.transformation.cache;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import org.factcast.core.Fact;
 import org.factcast.store.pgsql.registry.metrics.MetricEvent;
@@ -25,16 +33,28 @@
 import org.factcast.store.pgsql.registry.metrics.TimedOperation;
 import org.joda.time.DateTime;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import com.google.common.collect.Lists;
 
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 
+/**
+ * Cache hits are not written through, but the accessed keys are collected and
+ * their last_access is updated periodically in batches. As compaction works
+ * on days, a row is updated at most once per day.
+ */
 @RequiredArgsConstructor
 public class PgTransformationCache implements TransformationCache {
+    private static final int MAX_KEYS_PER_UPDATE = 10_000;
+
     private final JdbcTemplate jdbcTemplate;
 
     private final RegistryMetrics registryMetrics;
 
+    private final Set<String> accessed = ConcurrentHashMap.newKeySet();
+
     @Override
     public void put(@NonNull Fact fact, @NonNull String transformationChainId) {
         String cacheKey = CacheKey.of(fact, transformationChainId);
@@ -65,16 +85,102 @@ public Optional<Fact> find(@NonNull UUID eventId, int version,
             return Optional.empty();
         }
 
-        jdbcTemplate.update("UPDATE transformationcache SET last_access=now() WHERE cache_key = ?",
-                cacheKey);
+        accessed.add(cacheKey);
 
         registryMetrics.count(MetricEvent.TRANSFORMATION_CACHE_HIT);
 
         return Optional.of(facts.get(0));
     }
 
+    @Override
+    public Map<Key, Fact> findAll(@NonNull Collection<Key> keys) {
+        Map<Key, Fact> found = lookup(keys);
+        touch(found.keySet());
+
+        registryMetrics.increase(MetricEvent.TRANSFORMATION_CACHE_HIT, found.size());
+        registryMetrics.increase(MetricEvent.TRANSFORMATION_CACHE_MISS, keys.size() - found
+                .size());
+        return found;
+    }
+
+    // without metrics and access tracking
+    Map<Key, Fact> lookup(@NonNull Collection<Key> keys) {
+        if (keys.isEmpty()) {
+            return new HashMap<>();
+        }
+        Map<String, Key> byCacheKey = keys.stream()
+                .collect(Collectors.toMap(CacheKey::of, Function.identity(), (a, b) -> a));
+        String[] cacheKeys = byCacheKey.keySet().toArray(new String[0]);
+
+        Map<Key, Fact> found = new HashMap<>();
+        jdbcTemplate.query(
+                "SELECT cache_key, header, payload FROM transformationcache WHERE cache_key = ANY(?)",
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("varchar", cacheKeys)),
+                rs -> {
+                    found.put(byCacheKey.get(rs.getString("cache_key")), Fact.of(rs.getString(
+                            "header"), rs.getString("payload")));
+                });
+        return found;
+    }
+
+    /**
+     * registers an access to the entries, to be written with the next flush
+     */
+    void touch(@NonNull Collection<Key> keys) {
+        keys.forEach(k -> accessed.add(CacheKey.of(k)));
+    }
+
+    @Override
+    public void putAll(@NonNull Map<Key, Fact> transformed) {
+        if (!transformed.isEmpty()) {
+            // concurrent subscriptions might have transformed the same facts
+            jdbcTemplate.batchUpdate(
+                    "INSERT INTO transformationcache (cache_key, header, payload) VALUES (?, ?, ?) ON CONFLICT DO NOTHING",
+                    transformed.entrySet()
+                            .stream()
+                            .map(e -> new Object[] { CacheKey.of(e.getKey()), e.getValue()
+                                    .jsonHeader(), e.getValue().jsonPayload() })
+                            .collect(Collectors.toList()));
+        }
+    }
+
+    /**
+     * Writes the last_access of the entries read since the last flush.
+     */
+    @Scheduled(
+            fixedDelayString = "${factcast.store.pgsql.transformationCacheAccessFlushIntervalInMillis:60000}")
+    public void flushAccessTimes() {
+        if (accessed.isEmpty()) {
+            return;
+        }
+        List<String> keys = new ArrayList<>(accessed);
+        registryMetrics.timed(TimedOperation.FLUSH_TRANSFORMATION_CACHE_ACCESS, () -> {
+            for (List<String> chunk : Lists.partition(keys, MAX_KEYS_PER_UPDATE)) {
+                String[] array = chunk.toArray(new String[0]);
+                // rows already touched today are left alone
+                jdbcTemplate.update(
+                        "UPDATE transformationcache SET last_access=now() WHERE cache_key = ANY(?) AND last_access < current_date",
+                        ps -> ps.setArray(1, ps.getConnection().createArrayOf("varchar", array)));
+                // only forget keys once written, so that a failed update is
+                // retried with the next flush
+                accessed.removeAll(chunk);
+                registryMetrics.increase(MetricEvent.TRANSFORMATION_CACHE_ACCESS_FLUSHED, chunk
+                        .size());
+            }
+        });
+    }
+
+    /**
+     * flushes pending access times on shutdown
+     */
+    public void close() {
+        flushAccessTimes();
+    }
+
     @Override
     public void compact(@NonNull DateTime thresholdDate) {
+        // otherwise, entries read recently might be deleted
+        flushAccessTimes();
         registryMetrics.timed(TimedOperation.COMPACT_TRANSFORMATION_CACHE, () -> {
             jdbcTemplate.update("DELETE FROM transformationcache WHERE last_access < ?",
                     thresholdDate
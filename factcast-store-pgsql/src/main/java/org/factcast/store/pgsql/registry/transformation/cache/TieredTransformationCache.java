@@ -0,0 +1,210 @@
+/*
+ * Copyright © 2017-2020 factcast.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.factcast.store.pgsql.registry.transformation.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.factcast.core.Fact;
+import org.factcast.store.pgsql.registry.metrics.MetricEvent;
+import org.factcast.store.pgsql.registry.metrics.RegistryMetrics;
+import org.factcast.store.pgsql.registry.metrics.TimedOperation;
+import org.joda.time.DateTime;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import lombok.NonNull;
+
+/**
+ * Combines a bounded in-memory cache (L1), weighted by the size of the facts,
+ * with the persistent {@link PgTransformationCache} (L2).
+ * <p>
+ * Lookups read through to L2 and populate L1. New entries go to L1 right away
+ * and are written to L2 in batches by the scheduler, never by the thread
+ * putting them, so that a slow L2 does not affect transformation. If L2 cannot
+ * keep up, the oldest pending writes are dropped (and merely transformed again
+ * later on).
+ * <p>
+ * TRANSFORMATION_CACHE_HIT/MISS count the overall result, while the L1/L2
+ * events count per tier.
+ */
+public class TieredTransformationCache implements TransformationCache {
+
+    static final int MAX_PENDING_WRITES = 10_000;
+
+    private final PgTransformationCache l2;
+
+    private final RegistryMetrics registryMetrics;
+
+    private final Cache<String, Fact> l1;
+
+    private final int maxPendingWrites;
+
+    // in order of insertion, guarded by itself
+    private final LinkedHashMap<Key, Fact> pendingWrites = new LinkedHashMap<>();
+
+    public TieredTransformationCache(@NonNull PgTransformationCache l2, long l1MaxBytes,
+            @NonNull RegistryMetrics registryMetrics) {
+        this(l2, l1MaxBytes, registryMetrics, MAX_PENDING_WRITES);
+    }
+
+    @VisibleForTesting
+    TieredTransformationCache(@NonNull PgTransformationCache l2, long l1MaxBytes,
+            @NonNull RegistryMetrics registryMetrics, int maxPendingWrites) {
+        this.l2 = l2;
+        this.registryMetrics = registryMetrics;
+        this.maxPendingWrites = maxPendingWrites;
+        l1 = CacheBuilder.newBuilder()
+                .maximumWeight(l1MaxBytes)
+                .weigher((String k, Fact f) -> weigh(k, f))
+                .build();
+    }
+
+    @Override
+    public void put(@NonNull Fact f, @NonNull String transformationChainId) {
+        putAll(Collections.singletonMap(Key.of(f.id(), f.version(), transformationChainId), f));
+    }
+
+    @Override
+    public void putAll(@NonNull Map<Key, Fact> transformed) {
+        transformed.forEach((k, f) -> l1.put(CacheKey.of(k), f));
+        int dropped = 0;
+        synchronized (pendingWrites) {
+            pendingWrites.putAll(transformed);
+            Iterator<Key> oldest = pendingWrites.keySet().iterator();
+            while (pendingWrites.size() > maxPendingWrites) {
+                oldest.next();
+                oldest.remove();
+                dropped++;
+            }
+        }
+        if (dropped > 0) {
+            registryMetrics.increase(MetricEvent.TRANSFORMATION_CACHE_WRITE_DROPPED, dropped);
+        }
+    }
+
+    @Override
+    public Optional<Fact> find(@NonNull UUID eventId, int version,
+            @NonNull String transformationChainId) {
+        Key key = Key.of(eventId, version, transformationChainId);
+        Optional<Fact> found = Optional.ofNullable(lookup(Collections.singletonList(key)).get(
+                key));
+        registryMetrics.count(found.isPresent() ? MetricEvent.TRANSFORMATION_CACHE_HIT
+                : MetricEvent.TRANSFORMATION_CACHE_MISS);
+        return found;
+    }
+
+    @Override
+    public Map<Key, Fact> findAll(@NonNull Collection<Key> keys) {
+        Map<Key, Fact> found = lookup(keys);
+        registryMetrics.increase(MetricEvent.TRANSFORMATION_CACHE_HIT, found.size());
+        registryMetrics.increase(MetricEvent.TRANSFORMATION_CACHE_MISS, keys.size() - found
+                .size());
+        return found;
+    }
+
+    private Map<Key, Fact> lookup(Collection<Key> keys) {
+        Map<Key, Fact> found = new HashMap<>();
+        List<Key> l1Misses = new ArrayList<>();
+        for (Key k : keys) {
+            Fact f = l1.getIfPresent(CacheKey.of(k));
+            if (f == null) {
+                // might have been evicted before being written
+                synchronized (pendingWrites) {
+                    f = pendingWrites.get(k);
+                }
+            }
+            if (f != null) {
+                found.put(k, f);
+            } else {
+                l1Misses.add(k);
+            }
+        }
+        registryMetrics.increase(MetricEvent.TRANSFORMATION_CACHE_L1_HIT, found.size());
+        registryMetrics.increase(MetricEvent.TRANSFORMATION_CACHE_L1_MISS, l1Misses.size());
+        // keeps them from being compacted in L2
+        l2.touch(found.keySet());
+
+        if (!l1Misses.isEmpty()) {
+            Map<Key, Fact> fromL2 = l2.lookup(l1Misses);
+            registryMetrics.increase(MetricEvent.TRANSFORMATION_CACHE_L2_HIT, fromL2.size());
+            registryMetrics.increase(MetricEvent.TRANSFORMATION_CACHE_L2_MISS, l1Misses.size()
+                    - fromL2.size());
+            l2.touch(fromL2.keySet());
+            fromL2.forEach((k, f) -> l1.put(CacheKey.of(k), f));
+            found.putAll(fromL2);
+        }
+        return found;
+    }
+
+    /**
+     * Writes the entries put since the last flush to L2.
+     */
+    @Scheduled(
+            fixedDelayString = "${factcast.store.pgsql.transformationCacheWriteBehindIntervalInMillis:1000}")
+    public synchronized void flushWrites() {
+        Map<Key, Fact> batch;
+        synchronized (pendingWrites) {
+            if (pendingWrites.isEmpty()) {
+                return;
+            }
+            batch = new HashMap<>(pendingWrites);
+        }
+        // if this fails, the entries stay pending for the next flush
+        registryMetrics.timed(TimedOperation.FLUSH_TRANSFORMATION_CACHE_WRITES, () -> l2.putAll(
+                batch));
+        synchronized (pendingWrites) {
+            batch.forEach(pendingWrites::remove);
+        }
+    }
+
+    @Scheduled(
+            fixedDelayString = "${factcast.store.pgsql.transformationCacheAccessFlushIntervalInMillis:60000}")
+    public void flushAccessTimes() {
+        l2.flushAccessTimes();
+    }
+
+    public void close() {
+        flushWrites();
+        l2.close();
+    }
+
+    @Override
+    public void compact(@NonNull DateTime thresholdDate) {
+        flushWrites();
+        // L1 does not know about access times, so it is refilled from L2
+        // instead of serving entries that were compacted there
+        l1.invalidateAll();
+        l2.compact(thresholdDate);
+    }
+
+    private static int weigh(String key, Fact f) {
+        // roughly the size of the strings on the heap
+        long chars = key.length() + f.jsonHeader().length() + f.jsonPayload().length();
+        return (int) Math.min(Integer.MAX_VALUE, 2 * chars);
+    }
+}
@@ -15,12 +15,18 @@
  */
 package org.factcast.store.pgsql.registry.transformation.cache;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
 import org.factcast.core.Fact;
 import org.joda.time.DateTime;
 
+import lombok.NonNull;
+import lombok.Value;
+
 public interface TransformationCache {
 
     // maybe optimize by passing header and payload separately as
@@ -30,4 +36,34 @@ public interface TransformationCache {
     Optional<Fact> find(UUID eventId, int version, String transformationChainId);
 
     void compact(DateTime thresholdDate);
+
+    /**
+     * @return the cached facts for the keys found, in one lookup if possible
+     */
+    default Map<Key, Fact> findAll(@NonNull Collection<Key> keys) {
+        Map<Key, Fact> found = new HashMap<>();
+        for (Key k : keys) {
+            find(k.id(), k.version(), k.transformationChainId()).ifPresent(f -> found.put(k, f));
+        }
+        return found;
+    }
+
+    /**
+     * stores the transformed facts, in one batch if possible
+     */
+    default void putAll(@NonNull Map<Key, Fact> transformed) {
+        transformed.forEach((k, f) -> put(f, k.transformationChainId()));
+    }
+
+    @Value(staticConstructor = "of")
+    class Key {
+        @NonNull
+        UUID id;
+
+        // the version transformed to
+        int version;
+
+        @NonNull
+        String transformationChainId;
+    }
 }
@@ -0,0 +1,55 @@
+/*
+ * Copyright © 2017-2020 factcast.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.factcast.store.pgsql.registry.transformation.chains;
+
+import org.factcast.core.subscription.TransformationException;
+import org.factcast.store.pgsql.registry.transformation.Transformation;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Runs every segment of a chain on the matching Transformer, so that java
+ * steps do not go through the script engine at all.
+ */
+@RequiredArgsConstructor
+public class DelegatingTransformer implements Transformer {
+
+    @NonNull
+    private final Transformer javaTransformer;
+
+    @NonNull
+    private final Transformer scriptTransformer;
+
+    @Override
+    public JsonNode transform(Transformation t, JsonNode input) throws TransformationException {
+        if (t instanceof TransformationChain) {
+            JsonNode current = input;
+            for (Transformation segment : ((TransformationChain) t).segments()) {
+                current = transformerFor(segment).transform(segment, current);
+            }
+            return current;
+        } else {
+            return transformerFor(t).transform(t, input);
+        }
+    }
+
+    private Transformer transformerFor(Transformation t) {
+        return JavaTransformer.isJava(t) ? javaTransformer : scriptTransformer;
+    }
+}
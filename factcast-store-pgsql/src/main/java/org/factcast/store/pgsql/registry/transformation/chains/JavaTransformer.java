@@ -0,0 +1,86 @@
+/*
+ * Copyright © 2017-2020 factcast.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.factcast.store.pgsql.registry.transformation.chains;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.factcast.core.subscription.TransformationException;
+import org.factcast.store.pgsql.registry.transformation.JavaTransformation;
+import org.factcast.store.pgsql.registry.transformation.Transformation;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import lombok.NonNull;
+
+/**
+ * Runs transformations, whose code refers to a {@link JavaTransformation}
+ * implementation (see {@link #codeFor(String)}).
+ */
+public class JavaTransformer implements Transformer {
+
+    static final String CODE_PREFIX = "java:";
+
+    private final Map<String, JavaTransformation> instances = new ConcurrentHashMap<>();
+
+    /**
+     * @return the transformation code to store for a JavaTransformation
+     *         implementation
+     */
+    public static String codeFor(@NonNull String className) {
+        return CODE_PREFIX + className;
+    }
+
+    public static boolean isJava(@NonNull Transformation t) {
+        return t.transformationCode().map(c -> c.startsWith(CODE_PREFIX)).orElse(false);
+    }
+
+    @Override
+    public JsonNode transform(Transformation t, JsonNode input) throws TransformationException {
+        if (!t.transformationCode().isPresent()) {
+            return input;
+        }
+        if (!isJava(t)) {
+            throw new TransformationException(new IllegalArgumentException(
+                    "Not a java transformation: " + t));
+        }
+        String className = t.transformationCode().get().substring(CODE_PREFIX.length());
+        try {
+            JavaTransformation impl = instances.computeIfAbsent(className,
+                    JavaTransformer::instantiate);
+            return impl.transform(input.deepCopy());
+        } catch (Exception e) {
+            throw new TransformationException(e);
+        }
+    }
+
+    private static JavaTransformation instantiate(String className) {
+        try {
+            ClassLoader cl = Thread.currentThread().getContextClassLoader();
+            // not initialized, so that no static code of classes other than
+            // JavaTransformations is run
+            Class<?> clazz = Class.forName(className, false, cl != null ? cl
+                    : JavaTransformer.class.getClassLoader());
+            if (!JavaTransformation.class.isAssignableFrom(clazz)) {
+                throw new IllegalArgumentException(className + " does not implement "
+                        + JavaTransformation.class.getName());
+            }
+            return clazz.asSubclass(JavaTransformation.class).getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException("Cannot instantiate " + className, e);
+        }
+    }
+}
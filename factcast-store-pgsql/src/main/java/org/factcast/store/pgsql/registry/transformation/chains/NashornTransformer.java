@@ -15,29 +15,54 @@
  */
 package org.factcast.store.pgsql.registry.transformation.chains;
 
-import java.util.Map;
+import java.util.concurrent.ExecutionException;
 
+import javax.script.Bindings;
 import javax.script.Compilable;
-import javax.script.Invocable;
+import javax.script.CompiledScript;
 import javax.script.ScriptEngine;
 import javax.script.ScriptEngineManager;
 import javax.script.ScriptException;
 
 import org.apache.commons.collections4.map.LRUMap;
 import org.factcast.core.subscription.TransformationException;
-import org.factcast.core.util.FactCastJson;
+import org.factcast.core.util.JsonNodeBridge;
 import org.factcast.store.pgsql.registry.transformation.Transformation;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 
+import jdk.nashorn.api.scripting.ScriptObjectMirror;
+
+/**
+ * Runs transformation code on Nashorn.
+ * <p>
+ * Scripts are compiled once and shared between all threads, while each thread
+ * evaluates them into its own global scope, so that transformations can run
+ * in parallel. Only compiling and creating scopes is synchronized on the
+ * engine, which happens once per script and thread. The script works on a copy of the input node
+ * directly (see {@link JsonNodeBridge}), instead of on a Map converted from
+ * and back to JSON.
+ */
 public class NashornTransformer implements Transformer {
 
-    private static final int ENGINE_CACHE_CAPACITY = 128;
+    private static final int COMPILED_SCRIPT_CACHE_CAPACITY = 128;
+
+    private static final int FUNCTION_CACHE_CAPACITY_PER_THREAD = 32;
+
+    private static final String TRANSFORM = "transform";
 
-    private static final ScriptEngineManager scriptEngineManager = new ScriptEngineManager();
+    private static final ScriptEngine engine = new ScriptEngineManager().getEngineByName(
+            "nashorn");
 
-    private static final LRUMap<String, Invocable> warmEngines = new LRUMap<>(
-            ENGINE_CACHE_CAPACITY);
+    private static final Cache<String, CompiledScript> compiledScripts = CacheBuilder
+            .newBuilder()
+            .maximumSize(COMPILED_SCRIPT_CACHE_CAPACITY)
+            .build();
+
+    private static final ThreadLocal<LRUMap<String, ScriptObjectMirror>> functions = ThreadLocal
+            .withInitial(() -> new LRUMap<>(FUNCTION_CACHE_CAPACITY_PER_THREAD));
 
     @Override
     public JsonNode transform(Transformation t, JsonNode input) throws TransformationException {
@@ -46,34 +71,38 @@ public JsonNode transform(Transformation t, JsonNode input) throws Transformatio
             return input;
         } else {
             String js = t.transformationCode().get();
-
-            Invocable invocable = warmEngines.get(js);
-            if (invocable == null) {
-                ScriptEngine engine = null;
-                synchronized (scriptEngineManager) {
-                    // no guarantee is found anywhere, that creating a
-                    // scriptEngine was
-                    // supposed to be threadsafe, so...
-                    engine = scriptEngineManager.getEngineByName("nashorn");
-                }
-                try {
-                    Compilable compilable = (Compilable) engine;
-                    compilable.compile(js).eval();
-                    invocable = (Invocable) engine;
-                    warmEngines.put(js, invocable);
-                } catch (ScriptException e) {
-                    throw new TransformationException(e);
-                }
-            }
-
             try {
-                @SuppressWarnings("unchecked")
-                Map<String, Object> jsonAsMap = FactCastJson.convertValue(input, Map.class);
-                invocable.invokeFunction("transform", jsonAsMap);
-                return FactCastJson.toJsonNode(jsonAsMap);
-            } catch (NoSuchMethodException | ScriptException e) {
+                JsonNode copy = input.deepCopy();
+                function(js).call(null, JsonNodeBridge.toJava(copy));
+                return copy;
+            } catch (ScriptException | ExecutionException | RuntimeException e) {
                 throw new TransformationException(e);
             }
         }
     }
+
+    private static ScriptObjectMirror function(String js) throws ScriptException,
+            ExecutionException {
+        LRUMap<String, ScriptObjectMirror> cache = functions.get();
+        ScriptObjectMirror function = cache.get(js);
+        if (function == null) {
+            Bindings global;
+            CompiledScript script;
+            // the engine itself is not thread-safe, only evaluating into
+            // separate global scopes is
+            synchronized (engine) {
+                global = engine.createBindings();
+                script = compiledScripts.get(js, () -> ((Compilable) engine).compile(js));
+            }
+            script.eval(global);
+            Object f = global.get(TRANSFORM);
+            if (!(f instanceof ScriptObjectMirror && ((ScriptObjectMirror) f).isFunction())) {
+                throw new ScriptException("Transformation code does not define a function '"
+                        + TRANSFORM + "'");
+            }
+            function = (ScriptObjectMirror) f;
+            cache.put(js, function);
+        }
+        return function;
+    }
 }
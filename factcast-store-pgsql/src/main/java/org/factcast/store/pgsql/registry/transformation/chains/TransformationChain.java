@@ -15,10 +15,12 @@
  */
 package org.factcast.store.pgsql.registry.transformation.chains;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
+import org.factcast.store.pgsql.registry.transformation.SingleTransformation;
 import org.factcast.store.pgsql.registry.transformation.Transformation;
 import org.factcast.store.pgsql.registry.transformation.TransformationKey;
 
@@ -27,6 +29,12 @@
 import lombok.NonNull;
 import lombok.Value;
 
+/**
+ * Consecutive javascript steps are composed into one script, while java steps
+ * are kept as they are. The result is available as {@link #segments()}, while
+ * {@link #transformationCode()} is only present, if the chain consists of one
+ * segment.
+ */
 @Value
 public class TransformationChain implements Transformation {
 
@@ -43,6 +51,9 @@ public class TransformationChain implements Transformation {
     @NonNull
     Optional<String> transformationCode;
 
+    @NonNull
+    List<Transformation> segments;
+
     public static TransformationChain of(@NonNull TransformationKey key,
             @NonNull List<Transformation> orderedListOfSteps, String id) {
 
@@ -51,9 +62,36 @@ public static TransformationChain of(@NonNull TransformationKey key,
 
         int from = orderedListOfSteps.get(0).fromVersion();
         int to = orderedListOfSteps.get(orderedListOfSteps.size() - 1).toVersion();
-        String compositeJson = createCompositeJS(orderedListOfSteps);
+        List<Transformation> segments = createSegments(key, orderedListOfSteps);
+        Optional<String> code = segments.size() == 1 ? segments.get(0).transformationCode()
+                : Optional.empty();
+
+        return new TransformationChain(id, key, from, to, code, segments);
+    }
+
+    private static List<Transformation> createSegments(TransformationKey key,
+            List<Transformation> steps) {
+        List<Transformation> segments = new ArrayList<>();
+        List<Transformation> js = new ArrayList<>();
+        for (Transformation t : steps) {
+            if (JavaTransformer.isJava(t)) {
+                addComposite(key, js, segments);
+                segments.add(t);
+            } else {
+                js.add(t);
+            }
+        }
+        addComposite(key, js, segments);
+        return segments;
+    }
 
-        return new TransformationChain(id, key, from, to, Optional.of(compositeJson));
+    private static void addComposite(TransformationKey key, List<Transformation> js,
+            List<Transformation> segments) {
+        if (!js.isEmpty()) {
+            segments.add(SingleTransformation.of(key, js.get(0).fromVersion(), js.get(js.size()
+                    - 1).toVersion(), createCompositeJS(js)));
+            js.clear();
+        }
     }
 
     private static String createCompositeJS(List<Transformation> list) {
@@ -46,6 +46,9 @@ public class TransformationChains implements TransformationStoreListener {
 
     private static final double BASE_COST = 1_000_000d;
 
+    // among paths of equal length, prefers the one with fewer script steps
+    private static final double SCRIPT_COST = BASE_COST / 10;
+
     private final SchemaRegistry registry;
 
     private final RegistryMetrics registryMetrics;
@@ -123,7 +126,8 @@ private TransformationChain build(TransformationKey key, int from, int to)
                 .createDijkstra(GraphSearchProblem.startingFrom(from)
                         .in(g)
                         .extractCostFromEdges(e -> e.fromVersion() * (e.toVersion() - e
-                                .fromVersion()) + BASE_COST)
+                                .fromVersion()) + BASE_COST + (isScript(e.transformation())
+                                        ? SCRIPT_COST : 0))
                         .build());
 
         // run search
@@ -148,6 +152,10 @@ private TransformationChain build(TransformationKey key, int from, int to)
         // choice due to lack of proper Generics.
     }
 
+    private static boolean isScript(Transformation t) {
+        return t.transformationCode().isPresent() && !JavaTransformer.isJava(t);
+    }
+
     private static <N, E> List<E> map(List<N> list, Function<N, E> f) {
         return list.stream().map(f).collect(Collectors.toList());
     }
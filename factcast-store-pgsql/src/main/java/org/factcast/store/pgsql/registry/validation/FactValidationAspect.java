@@ -15,8 +15,12 @@
  */
 package org.factcast.store.pgsql.registry.validation;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
 import java.util.stream.Collectors;
 
 import org.aspectj.lang.ProceedingJoinPoint;
@@ -24,17 +28,50 @@
 import org.aspectj.lang.annotation.Aspect;
 import org.factcast.core.Fact;
 import org.factcast.core.FactValidationException;
+import org.factcast.core.util.ExceptionHelper;
 
-import lombok.RequiredArgsConstructor;
+import com.google.common.annotations.VisibleForTesting;
+
+import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Validates facts before they are published. Batches of at least
+ * parallelThreshold facts are split into chunks, that are validated in
+ * parallel. Errors are reported in the order of the facts, regardless of
+ * which chunk finishes first.
+ */
 @Aspect
 @Slf4j
-@RequiredArgsConstructor
-public class FactValidationAspect {
+public class FactValidationAspect implements AutoCloseable {
+
+    // smaller chunks are not worth the overhead
+    static final int MIN_CHUNK_SIZE = 100;
 
     private final FactValidator validator;
 
+    private final ExecutorService executor;
+
+    private final int threads;
+
+    private final int parallelThreshold;
+
+    public FactValidationAspect(@NonNull FactValidator validator) {
+        this(validator, null, 1, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param executor
+     *            pool of the given number of threads, shut down on close
+     */
+    public FactValidationAspect(@NonNull FactValidator validator, ExecutorService executor,
+            int threads, int parallelThreshold) {
+        this.validator = validator;
+        this.executor = executor;
+        this.threads = threads;
+        this.parallelThreshold = parallelThreshold;
+    }
+
     @SuppressWarnings("unchecked")
     @Around("execution(public void org.factcast.core.store.FactStore.publish(*))")
     public Object interceptPublish(ProceedingJoinPoint joinPoint) throws Throwable {
@@ -49,11 +86,9 @@ public Object interceptPublish(ProceedingJoinPoint joinPoint) throws Throwable {
 
     private void validate(List<? extends Fact> facts) {
 
-        List<FactValidationError> errors = new LinkedList<>();
-
-        facts.forEach(f -> {
-            errors.addAll(validator.validate(f));
-        });
+        List<FactValidationError> errors = executor != null && facts
+                .size() >= parallelThreshold ? validateInParallel(facts) : validate(facts, 0,
+                        facts.size());
 
         if (!errors.isEmpty())
             throw new FactValidationException(
@@ -63,6 +98,38 @@ private void validate(List<? extends Fact> facts) {
 
     }
 
+    @VisibleForTesting
+    List<FactValidationError> validateInParallel(List<? extends Fact> facts) {
+        int chunkSize = Math.max(MIN_CHUNK_SIZE, (facts.size() + threads - 1) / threads);
+        List<CompletableFuture<List<FactValidationError>>> chunks = new ArrayList<>();
+        for (int from = 0; from < facts.size(); from += chunkSize) {
+            int start = from;
+            int end = Math.min(facts.size(), from + chunkSize);
+            chunks.add(CompletableFuture.supplyAsync(() -> validate(facts, start, end),
+                    executor));
+        }
+        // joined in order, so that errors are reported deterministically
+        List<FactValidationError> errors = new LinkedList<>();
+        chunks.forEach(c -> errors.addAll(join(c)));
+        return errors;
+    }
+
+    private static <T> T join(CompletableFuture<T> f) {
+        try {
+            return f.join();
+        } catch (CompletionException e) {
+            throw ExceptionHelper.toRuntime(e.getCause());
+        }
+    }
+
+    private List<FactValidationError> validate(List<? extends Fact> facts, int from, int to) {
+        List<FactValidationError> errors = new LinkedList<>();
+        for (int i = from; i < to; i++) {
+            errors.addAll(validator.validate(facts.get(i)));
+        }
+        return errors;
+    }
+
     @SuppressWarnings("unchecked")
     @Around("execution(public boolean org.factcast.core.store.FactStore.publishIfUnchanged(..))")
     public Object interceptPublishIfUnchanged(ProceedingJoinPoint joinPoint) throws Throwable {
@@ -73,4 +140,11 @@ public Object interceptPublishIfUnchanged(ProceedingJoinPoint joinPoint) throws
 
         return joinPoint.proceed();
     }
+
+    @Override
+    public void close() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
 }
@@ -27,6 +27,7 @@
 import org.factcast.store.pgsql.registry.http.ValidationConstants;
 import org.factcast.store.pgsql.registry.metrics.MetricEvent;
 import org.factcast.store.pgsql.registry.metrics.RegistryMetrics;
+import org.factcast.store.pgsql.registry.metrics.TimedOperation;
 import org.factcast.store.pgsql.registry.validation.schema.SchemaKey;
 
 import com.fasterxml.jackson.databind.JsonNode;
@@ -53,7 +54,8 @@ public class FactValidator {
     public List<FactValidationError> validate(Fact fact) {
         if (props.isValidationEnabled())
             if (isValidateable(fact)) {
-                return doValidate(fact);
+                return registryMetrics.timed(TimedOperation.VALIDATE_FACT, () -> doValidate(
+                        fact));
             } else {
                 if (!props.isAllowUnvalidatedPublish()) {
                     registryMetrics.count(MetricEvent.FACT_VALIDATION_FAILED, Tags.of(
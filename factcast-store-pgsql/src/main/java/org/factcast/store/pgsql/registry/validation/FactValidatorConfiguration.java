@@ -15,6 +15,9 @@
  */
 package org.factcast.store.pgsql.registry.validation;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 import org.factcast.store.pgsql.PgConfigurationProperties;
 import org.factcast.store.pgsql.registry.SchemaRegistry;
 import org.factcast.store.pgsql.registry.metrics.RegistryMetrics;
@@ -22,10 +25,13 @@
 import org.factcast.store.pgsql.registry.validation.schema.store.InMemSchemaStoreImpl;
 import org.factcast.store.pgsql.registry.validation.schema.store.PgSchemaStoreImpl;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.jdbc.core.JdbcTemplate;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
 import liquibase.integration.spring.SpringLiquibase;
 import lombok.NonNull;
 
@@ -52,11 +58,20 @@ public FactValidator factValidator(PgConfigurationProperties props, SchemaRegist
             return null;
     }
 
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService factValidationExecutor(PgConfigurationProperties props) {
+        return Executors.newFixedThreadPool(Math.max(1, props.getValidationThreads()),
+                new ThreadFactoryBuilder().setDaemon(true)
+                        .setNameFormat("factcast-validation-%d")
+                        .build());
+    }
+
     @Bean
     public FactValidationAspect factValidationAspect(PgConfigurationProperties props,
-            FactValidator v) {
+            FactValidator v, @Qualifier("factValidationExecutor") ExecutorService executor) {
         if (props.isValidationEnabled()) {
-            return new FactValidationAspect(v);
+            return new FactValidationAspect(v, executor, Math.max(1, props
+                    .getValidationThreads()), props.getParallelValidationThreshold());
         } else
             return null;
     }
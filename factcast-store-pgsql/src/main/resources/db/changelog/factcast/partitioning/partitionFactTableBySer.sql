@@ -0,0 +1,76 @@
+--liquibase formatted sql
+
+--- Converts the fact table into a table partitioned by range of ser. This is
+--- optional and not part of db.changelog-master.yaml. It is only applied by
+--- PgFactPartitioningMigration, if factcast.store.pgsql.partitionFactTable is
+--- set. Requires PostgreSQL 12+.
+---
+--- The existing table is attached as the first partition (fact_legacy), so
+--- that no facts are copied. Attaching it needs one sequential scan of the
+--- table to validate the partition bounds, during which publishing is blocked.
+--- Following partitions are created by PgFactPartitionManager.
+
+--changeset factcast:partitioning-uniqueFactId splitStatements:false
+--preconditions onFail:HALT onError:HALT
+--precondition-sql-check expectedResult:1 SELECT CASE WHEN current_setting('server_version_num')::int >= 120000 THEN 1 ELSE 0 END
+
+--- unique indexes on a partitioned table have to include the partition key,
+--- so the uniqueness of fact ids is asserted by a trigger instead. This is
+--- safe, as publishing is serialized by an advisory lock.
+CREATE OR REPLACE FUNCTION assertUniqueFactId() RETURNS trigger AS $$
+BEGIN
+  IF EXISTS (SELECT 1 FROM fact WHERE header @> jsonb_build_object('id', NEW.header->'id') AND ser <> NEW.ser) THEN
+    RAISE unique_violation USING MESSAGE = format('duplicate fact id %s', NEW.header->>'id');
+  END IF;
+  RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+--changeset factcast:partitioning-partitionFactTableBySer splitStatements:false
+--preconditions onFail:HALT onError:HALT
+--precondition-sql-check expectedResult:1 SELECT CASE WHEN current_setting('server_version_num')::int >= 120000 THEN 1 ELSE 0 END
+DO $$
+DECLARE
+  bound BIGINT;
+BEGIN
+  IF EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = 'fact'::regclass) THEN
+    RETURN;
+  END IF;
+
+  LOCK TABLE fact IN ACCESS EXCLUSIVE MODE;
+  SELECT COALESCE(max(ser), 0) + 1 INTO bound FROM fact;
+
+  -- index names are unique per schema
+  ALTER TABLE fact RENAME TO fact_legacy;
+  ALTER INDEX fact_pkey RENAME TO fact_legacy_pkey;
+  ALTER INDEX idx_fact_header RENAME TO fact_legacy_header_idx;
+  ALTER INDEX index_for_enum RENAME TO fact_legacy_enum_idx;
+  ALTER INDEX idx_fact_unique_id RENAME TO fact_legacy_id_idx;
+  -- recreated on the partitioned table, and from there on all partitions
+  DROP TRIGGER IF EXISTS tr_deferred_fact_insert ON fact_legacy;
+
+  CREATE TABLE fact (
+    ser BIGINT NOT NULL DEFAULT nextval('fact_ser_seq'),
+    payload JSONB NOT NULL,
+    header JSONB NOT NULL,
+    CONSTRAINT fact_pkey PRIMARY KEY (ser),
+    CONSTRAINT mandatory_ns CHECK (header ? 'ns'),
+    CONSTRAINT mandatory_id CHECK (header ? 'id')
+  ) PARTITION BY RANGE (ser);
+  ALTER SEQUENCE fact_ser_seq OWNED BY fact.ser;
+
+  -- the equivalent indexes of fact_legacy are attached rather than rebuilt
+  CREATE INDEX idx_fact_header ON fact USING GIN (header jsonb_path_ops);
+  CREATE INDEX index_for_enum ON fact USING btree ((header->>'ns'), (header->'type'));
+
+  EXECUTE format('ALTER TABLE fact ATTACH PARTITION fact_legacy FOR VALUES FROM (MINVALUE) TO (%s)', bound);
+  -- so that facts can be published before PgFactPartitionManager ran
+  EXECUTE format('CREATE TABLE fact_%s_%s PARTITION OF fact FOR VALUES FROM (%s) TO (%s)',
+    bound, bound + 10000000, bound, bound + 10000000);
+  EXECUTE format('CREATE INDEX fact_%s_%s_ser_brin ON fact_%s_%s USING brin (ser)',
+    bound, bound + 10000000, bound, bound + 10000000);
+
+  CREATE CONSTRAINT TRIGGER tr_deferred_fact_insert AFTER INSERT ON fact DEFERRABLE INITIALLY DEFERRED FOR EACH ROW EXECUTE PROCEDURE notifyFactInsert();
+  CREATE TRIGGER tr_fact_unique_id AFTER INSERT ON fact FOR EACH ROW EXECUTE PROCEDURE assertUniqueFactId();
+END;
+$$;
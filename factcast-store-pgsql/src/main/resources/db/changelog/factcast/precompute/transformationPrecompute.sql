@@ -0,0 +1,10 @@
+CREATE TABLE transformationprecompute(
+	target 		varchar(2048) PRIMARY KEY,
+
+----   last serial processed for the target (ns:type:version), and a fingerprint of the 
+----   transformations for its ns and type it was processed with. Precomputation starts over, 
+----   when the fingerprint changes.
+
+	ser 		bigint NOT NULL,
+	fingerprint 	varchar(64) NOT NULL
+);
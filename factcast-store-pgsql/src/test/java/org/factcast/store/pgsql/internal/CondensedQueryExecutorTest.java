@@ -15,18 +15,22 @@
  */
 package org.factcast.store.pgsql.internal;
 
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
 
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -45,6 +49,9 @@ public class CondensedQueryExecutorTest {
     @Mock
     PgSynchronizedQuery callback;
 
+    @Mock
+    PgSubscriptionMetrics.Meters meters;
+
     @Captor
     ArgumentCaptor<TimerTask> task;
 
@@ -55,7 +62,8 @@ void setUp() {
 
     @Test
     void testDelayedExecution() {
-        CondensedQueryExecutor uut = new CondensedQueryExecutor(1, callback, () -> true, mockTimer);
+        CondensedQueryExecutor uut = new CondensedQueryExecutor(1, callback, () -> true, r -> {
+        }, meters, mockTimer);
         uut.trigger();
         verify(mockTimer).schedule(any(), eq(1L));
         task.getValue().run();
@@ -64,8 +72,8 @@ void testDelayedExecution() {
 
     @Test
     void testDelayedMultipleExecution() {
-        CondensedQueryExecutor uut = new CondensedQueryExecutor(22, callback, () -> true,
-                mockTimer);
+        CondensedQueryExecutor uut = new CondensedQueryExecutor(22, callback, () -> true, r -> {
+        }, meters, mockTimer);
         verify(mockTimer, never()).schedule(any(), anyLong());
         uut.trigger();
         task.getAllValues().get(0).run();
@@ -76,8 +84,8 @@ void testDelayedMultipleExecution() {
 
     @Test
     void testDelayedCondensedExecution() {
-        CondensedQueryExecutor uut = new CondensedQueryExecutor(104, callback, () -> true,
-                mockTimer);
+        CondensedQueryExecutor uut = new CondensedQueryExecutor(104, callback, () -> true, r -> {
+        }, meters, mockTimer);
         // not yet scheduled anything
         verify(mockTimer, never()).schedule(any(), anyLong());
         uut.trigger();
@@ -103,4 +111,61 @@ void testDelayedCondensedExecution() {
         // no change: second call is scheduled
         verify(mockTimer, times(2)).schedule(any(), eq(104L));
     }
+
+    @Test
+    void testPausedExecutionIsResumedOnTimer() {
+        AtomicReference<Runnable> resume = new AtomicReference<>();
+        CondensedQueryExecutor uut = new CondensedQueryExecutor(0, callback, () -> true,
+                resume::set, meters, mockTimer);
+        when(callback.run(anyBoolean())).thenReturn(false, true);
+
+        uut.trigger();
+        verify(callback).run(anyBoolean());
+        // nothing scheduled, as delay is 0
+        verify(mockTimer, never()).schedule(any(), anyLong());
+
+        resume.get().run();
+        verify(mockTimer).schedule(any(), eq(0L));
+        task.getValue().run();
+        verify(callback, times(2)).run(anyBoolean());
+    }
+
+    @Test
+    void testCompleteExecutionIsNotPaused() {
+        AtomicReference<Runnable> resume = new AtomicReference<>();
+        CondensedQueryExecutor uut = new CondensedQueryExecutor(1, callback, () -> true,
+                resume::set, meters, mockTimer);
+        when(callback.run(anyBoolean())).thenReturn(true);
+
+        uut.trigger();
+        task.getValue().run();
+        assertNull(resume.get());
+    }
+
+    @Test
+    void testRecordsTriggersAndQueries() {
+        CondensedQueryExecutor uut = new CondensedQueryExecutor(0, callback, () -> true, r -> {
+        }, meters, mockTimer);
+        when(callback.run(anyBoolean())).thenReturn(true);
+
+        uut.trigger();
+        uut.trigger();
+
+        verify(meters, times(2)).triggered();
+        verify(meters, times(2)).queried(anyLong());
+    }
+
+    @Test
+    void testRunLaterRunsTaskOnTimer() {
+        CondensedQueryExecutor uut = new CondensedQueryExecutor(0, callback, () -> true, r -> {
+        }, meters, mockTimer);
+        Runnable later = mock(Runnable.class);
+
+        uut.runLater(later, 500);
+
+        verify(mockTimer).schedule(any(), eq(500L));
+        verify(later, never()).run();
+        task.getValue().run();
+        verify(later).run();
+    }
 }
@@ -16,6 +16,7 @@
 package org.factcast.store.pgsql.internal;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
@@ -58,6 +59,35 @@ void testFrom() throws Exception {
         assertEquals("3", uut.meta("baz"));
     }
 
+    @Test
+    void testSerialFromColumn() throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        String id = UUID.randomUUID().toString();
+        when(rs.getString(eq(PgConstants.ALIAS_ID))).thenReturn(id);
+        when(rs.getString(eq(PgConstants.ALIAS_NS))).thenReturn("ns");
+        when(rs.getString(eq(PgConstants.COLUMN_HEADER))).thenReturn(
+                "{\"meta\":{\"_ser\":\"1\"}}");
+        when(rs.getString(eq(PgConstants.COLUMN_PAYLOAD))).thenReturn("{}");
+        when(rs.getLong(eq(PgConstants.COLUMN_SER))).thenReturn(42L);
+        PgFact uut = (PgFact) PgFact.from(rs);
+        assertEquals(42L, uut.serial());
+        // header was not needed
+        assertNull(uut.meta);
+    }
+
+    @Test
+    void testSerialFallsBackToMeta() throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        String id = UUID.randomUUID().toString();
+        when(rs.getString(eq(PgConstants.ALIAS_ID))).thenReturn(id);
+        when(rs.getString(eq(PgConstants.ALIAS_NS))).thenReturn("ns");
+        when(rs.getString(eq(PgConstants.COLUMN_HEADER))).thenReturn(
+                "{\"meta\":{\"_ser\":\"7\"}}");
+        when(rs.getString(eq(PgConstants.COLUMN_PAYLOAD))).thenReturn("{}");
+        PgFact uut = (PgFact) PgFact.from(rs);
+        assertEquals(7L, uut.serial());
+    }
+
     @Test
     void testToUUIDArrayNull() {
         Set<UUID> res = PgFact.toUUIDArray(null);
@@ -0,0 +1,124 @@
+/*
+ * Copyright © 2017-2020 factcast.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.factcast.store.pgsql.internal;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import org.factcast.core.spec.FactSpec;
+import org.factcast.core.subscription.SubscriptionImpl;
+import org.factcast.core.subscription.SubscriptionRequest;
+import org.factcast.core.subscription.SubscriptionRequestTO;
+import org.factcast.store.pgsql.internal.PgSubscriptionMetrics.Phase;
+import org.factcast.store.pgsql.internal.query.PgLatestSerialFetcher;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+public class PgSubscriptionMetricsTest {
+
+    @Mock
+    PgLatestSerialFetcher fetcher;
+
+    @Mock
+    SubscriptionImpl subscription;
+
+    final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    PgSubscriptionMetrics uut;
+
+    @BeforeEach
+    void setUp() {
+        uut = new PgSubscriptionMetrics(registry, fetcher);
+    }
+
+    private static SubscriptionRequestTO request(String debugInfo) {
+        SubscriptionRequestTO req = SubscriptionRequestTO.forFacts(SubscriptionRequest.follow(
+                FactSpec.ns("foo")).fromScratch());
+        req.debugInfo(debugInfo);
+        return req;
+    }
+
+    private PgFactStream stream(String debugInfo, long serial) {
+        PgFactStream s = new PgFactStream(null, null, null, subscription, fetcher, null, uut,
+                1000);
+        s.request = request(debugInfo);
+        s.serial.set(serial);
+        return s;
+    }
+
+    @Test
+    void testSubscriptionTag() {
+        assertThat(PgSubscriptionMetrics.subscriptionTag("grpc-sub#42@account")).isEqualTo(
+                "grpc-sub@account");
+        assertThat(PgSubscriptionMetrics.subscriptionTag("grpc-sub#42")).isEqualTo("grpc-sub");
+        assertThat(PgSubscriptionMetrics.subscriptionTag(
+                "7d7ea5a8-5b4c-4d1e-9d36-0c8e0b1c9f3a (Foo.bar:17)")).isEqualTo("Foo.bar:17");
+        assertThat(PgSubscriptionMetrics.subscriptionTag(null)).isEqualTo("unknown");
+    }
+
+    @Test
+    void testCountsFetchedFacts() {
+        PgSubscriptionMetrics.Meters meters = uut.forRequest(request("grpc-sub#1"));
+
+        meters.fetched(Phase.CATCHUP, 7, 3);
+        meters.fetched(Phase.CATCHUP, 1, 0);
+
+        Tags tags = Tags.of(PgSubscriptionMetrics.TAG_SUBSCRIPTION_KEY, "grpc-sub",
+                PgSubscriptionMetrics.TAG_PHASE_KEY, "catchup");
+        assertThat(registry.get(PgSubscriptionMetrics.METRIC_NAME_FACTS)
+                .tags(tags.and(PgSubscriptionMetrics.TAG_RESULT_KEY, "delivered"))
+                .counter()
+                .count()).isEqualTo(8);
+        assertThat(registry.get(PgSubscriptionMetrics.METRIC_NAME_FACTS)
+                .tags(tags.and(PgSubscriptionMetrics.TAG_RESULT_KEY, "filtered"))
+                .counter()
+                .count()).isEqualTo(3);
+    }
+
+    @Test
+    void testLagOfActiveSubscriptions() {
+        when(fetcher.retrieveLatestSer()).thenReturn(100L);
+        PgFactStream s1 = stream("grpc-sub#1", 90);
+        PgFactStream s2 = stream("grpc-sub#2", 40);
+        uut.register(s1);
+        uut.register(s2);
+
+        assertThat(registry.get(PgSubscriptionMetrics.METRIC_NAME_LAG)
+                .tag(PgSubscriptionMetrics.TAG_SUBSCRIPTION_KEY, "grpc-sub")
+                .gauge()
+                .value()).isEqualTo(60);
+        assertThat(registry.get(PgSubscriptionMetrics.METRIC_NAME_ACTIVE)
+                .tag(PgSubscriptionMetrics.TAG_SUBSCRIPTION_KEY, "grpc-sub")
+                .gauge()
+                .value()).isEqualTo(2);
+        assertThat(uut.activeSubscriptions()).extracting(PgFactStream.Info::getLag)
+                .containsExactlyInAnyOrder(10L, 60L);
+
+        uut.unregister(s2);
+
+        assertThat(registry.get(PgSubscriptionMetrics.METRIC_NAME_LAG)
+                .tag(PgSubscriptionMetrics.TAG_SUBSCRIPTION_KEY, "grpc-sub")
+                .gauge()
+                .value()).isEqualTo(10);
+    }
+}
@@ -15,10 +15,21 @@
  */
 package org.factcast.store.pgsql.internal;
 
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
+import java.sql.ResultSet;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.factcast.store.pgsql.internal.query.PgLatestSerialFetcher;
@@ -29,6 +40,7 @@
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.ResultSetExtractor;
 import org.springframework.jdbc.core.RowCallbackHandler;
 
 @ExtendWith(MockitoExtension.class)
@@ -56,7 +68,7 @@ public class PgSynchronizedQueryTest {
     @Test
     public void testRunWithIndex() throws Exception {
         uut = new PgSynchronizedQuery(jdbcTemplate, sql, setter, rowHandler, serialToContinueFrom,
-                fetcher);
+                fetcher, () -> true);
         uut.run(true);
         verify(jdbcTemplate, never()).execute(startsWith("SET LOCAL enable_bitmapscan"));
     }
@@ -64,8 +76,39 @@ public void testRunWithIndex() throws Exception {
     @Test
     public void testRunWithoutIndex() throws Exception {
         uut = new PgSynchronizedQuery(jdbcTemplate, sql, setter, rowHandler, serialToContinueFrom,
-                fetcher);
+                fetcher, () -> true);
         uut.run(false);
         verify(jdbcTemplate).execute(startsWith("SET LOCAL enable_bitmapscan"));
     }
+
+    @Test
+    public void testRunWhileConsumerNotReady() throws Exception {
+        uut = new PgSynchronizedQuery(jdbcTemplate, sql, setter, rowHandler, serialToContinueFrom,
+                fetcher, () -> false);
+        assertFalse(uut.run(false));
+        verify(jdbcTemplate, never()).query(anyString(), any(PreparedStatementSetter.class), any(
+                ResultSetExtractor.class));
+        verify(serialToContinueFrom, never()).set(anyLong());
+    }
+
+    @Test
+    public void testStopsReadingRowsWhenConsumerBecomesNotReady() throws Exception {
+        AtomicBoolean ready = new AtomicBoolean(true);
+        uut = new PgSynchronizedQuery(jdbcTemplate, sql, setter, rowHandler, serialToContinueFrom,
+                fetcher, ready::get);
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.next()).thenReturn(true);
+        doAnswer(i -> {
+            ready.set(false);
+            return null;
+        }).when(rowHandler).processRow(rs);
+        when(jdbcTemplate.query(eq(sql), eq(setter), any(ResultSetExtractor.class))).thenAnswer(
+                i -> i.getArgument(2, ResultSetExtractor.class).extractData(rs));
+
+        assertFalse(uut.run(false));
+
+        verify(rowHandler, times(1)).processRow(rs);
+        verify(rs, times(1)).next();
+        verify(serialToContinueFrom, never()).set(anyLong());
+    }
 }
@@ -0,0 +1,124 @@
+/*
+ * Copyright © 2017-2020 factcast.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.factcast.store.pgsql.internal.partition;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.factcast.store.pgsql.PgConfigurationProperties;
+import org.factcast.store.pgsql.internal.PgConstants;
+import org.factcast.store.pgsql.internal.query.PgLatestSerialFetcher;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@ExtendWith(MockitoExtension.class)
+public class PgFactPartitionManagerTest {
+
+    @Mock
+    JdbcTemplate jdbcTemplate;
+
+    @Mock
+    PlatformTransactionManager txManager;
+
+    @Mock
+    PgLatestSerialFetcher fetcher;
+
+    PgFactPartitionManager uut;
+
+    @BeforeEach
+    void setUp() {
+        PgConfigurationProperties props = new PgConfigurationProperties();
+        props.setFactPartitionSize(100);
+        props.setFactPartitionsAhead(2);
+        uut = new PgFactPartitionManager(jdbcTemplate, txManager, fetcher, props);
+    }
+
+    @Test
+    void testUpperBound() {
+        assertThat(PgFactPartitionManager.upperBound("FOR VALUES FROM (MINVALUE) TO ('101')"))
+                .isEqualTo(101);
+        assertThat(PgFactPartitionManager.upperBound("FOR VALUES FROM ('101') TO (201)"))
+                .isEqualTo(201);
+        assertThat(PgFactPartitionManager.upperBound("FOR VALUES FROM ('201') TO (MAXVALUE)"))
+                .isEqualTo(Long.MAX_VALUE);
+        assertThatThrownBy(() -> PgFactPartitionManager.upperBound("DEFAULT")).isInstanceOf(
+                IllegalStateException.class);
+    }
+
+    @Test
+    void testDoesNothingIfNotPartitioned() {
+        when(jdbcTemplate.queryForObject(PgConstants.SELECT_FACT_IS_PARTITIONED, Long.class))
+                .thenReturn(0L);
+
+        uut.createPartitions();
+
+        verify(jdbcTemplate, never()).execute(anyString());
+        verifyNoInteractions(fetcher);
+    }
+
+    @Test
+    void testCreatesPartitionsAhead() {
+        when(jdbcTemplate.queryForObject(PgConstants.SELECT_FACT_IS_PARTITIONED, Long.class))
+                .thenReturn(1L);
+        when(jdbcTemplate.queryForList(PgConstants.SELECT_FACT_PARTITION_BOUNDS, String.class))
+                .thenReturn(Arrays.asList("FOR VALUES FROM (MINVALUE) TO ('101')",
+                        "FOR VALUES FROM ('101') TO ('201')"));
+        when(fetcher.retrieveLatestSer()).thenReturn(150L);
+
+        uut.createPartitions();
+
+        InOrder inOrder = inOrder(jdbcTemplate);
+        inOrder.verify(jdbcTemplate).execute(
+                "CREATE TABLE IF NOT EXISTS fact_201_301 PARTITION OF fact FOR VALUES FROM (201) TO (301)");
+        inOrder.verify(jdbcTemplate).execute(
+                "CREATE INDEX IF NOT EXISTS fact_201_301_ser_brin ON fact_201_301 USING brin (ser)");
+        inOrder.verify(jdbcTemplate).execute(
+                "CREATE TABLE IF NOT EXISTS fact_301_401 PARTITION OF fact FOR VALUES FROM (301) TO (401)");
+        verify(jdbcTemplate, never()).execute(contains("fact_401_501"));
+        verify(txManager, times(2)).commit(any());
+    }
+
+    @Test
+    void testNothingToDoIfFarEnoughAhead() {
+        when(jdbcTemplate.queryForObject(PgConstants.SELECT_FACT_IS_PARTITIONED, Long.class))
+                .thenReturn(1L);
+        when(jdbcTemplate.queryForList(PgConstants.SELECT_FACT_PARTITION_BOUNDS, String.class))
+                .thenReturn(Collections.singletonList("FOR VALUES FROM ('101') TO ('401')"));
+        when(fetcher.retrieveLatestSer()).thenReturn(150L);
+
+        uut.createPartitions();
+
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+
+    @Test
+    void testStartupFailureIsNotEscalated() {
+        when(jdbcTemplate.queryForObject(PgConstants.SELECT_FACT_IS_PARTITIONED, Long.class))
+                .thenThrow(new IllegalStateException("no connection"));
+
+        uut.afterPropertiesSet();
+    }
+}
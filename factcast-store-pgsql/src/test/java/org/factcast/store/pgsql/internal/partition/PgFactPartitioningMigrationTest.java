@@ -0,0 +1,144 @@
+/*
+ * Copyright © 2017-2020 factcast.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.factcast.store.pgsql.internal.partition;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.UUID;
+
+import org.factcast.store.pgsql.PgConfigurationProperties;
+import org.factcast.store.pgsql.internal.PgConstants;
+import org.factcast.store.pgsql.internal.query.PgLatestSerialFetcher;
+import org.factcast.store.test.IntegrationTest;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.postgresql.Driver;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import liquibase.integration.spring.SpringLiquibase;
+
+/**
+ * Runs the regular schema migration followed by the partitioning migration
+ * against PostgreSQL 12, as the other integration tests use 11.
+ */
+@IntegrationTest
+public class PgFactPartitioningMigrationTest {
+
+    static PostgreSQLContainer<?> postgres;
+
+    static DriverManagerDataSource ds;
+
+    static JdbcTemplate jdbc;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        postgres = new PostgreSQLContainer<>("postgres:12.3");
+        postgres.start();
+        ds = new DriverManagerDataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres
+                .getPassword());
+        ds.setDriverClassName(Driver.class.getName());
+        jdbc = new JdbcTemplate(ds);
+
+        SpringLiquibase liquibase = new SpringLiquibase();
+        liquibase.setDataSource(ds);
+        liquibase.setChangeLog("classpath:db/changelog/db.changelog-master.yaml");
+        liquibase.setResourceLoader(new DefaultResourceLoader());
+        liquibase.afterPropertiesSet();
+
+        insertFact(UUID.randomUUID());
+        insertFact(UUID.randomUUID());
+
+        new PgFactPartitioningMigration(ds).afterPropertiesSet();
+    }
+
+    @AfterAll
+    static void tearDown() {
+        postgres.stop();
+    }
+
+    static void insertFact(UUID id) {
+        jdbc.update("INSERT INTO " + PgConstants.TABLE_FACT + "(" + PgConstants.COLUMN_HEADER
+                + "," + PgConstants.COLUMN_PAYLOAD + ") VALUES (cast(? as jsonb),'{}')",
+                "{\"ns\":\"test\",\"id\":\"" + id + "\"}");
+    }
+
+    @Test
+    void testFactTableIsPartitioned() {
+        assertThat(jdbc.queryForObject(PgConstants.SELECT_FACT_IS_PARTITIONED, Long.class))
+                .isEqualTo(1);
+        assertThat(jdbc.queryForList(PgConstants.SELECT_FACT_PARTITION_BOUNDS, String.class))
+                .hasSizeGreaterThanOrEqualTo(2)
+                .anyMatch(b -> b.contains("MINVALUE"));
+    }
+
+    @Test
+    void testKeepsExistingFactsAndSequence() {
+        long before = new PgLatestSerialFetcher(jdbc).retrieveLatestSer();
+        assertThat(before).isGreaterThanOrEqualTo(2);
+
+        insertFact(UUID.randomUUID());
+
+        assertThat(new PgLatestSerialFetcher(jdbc).retrieveLatestSer()).isGreaterThan(before);
+        assertThat(jdbc.queryForObject("SELECT count(*) FROM fact WHERE ser>?", Long.class, 0L))
+                .isGreaterThanOrEqualTo(3);
+    }
+
+    @Test
+    void testRejectsDuplicateFactIdAcrossPartitions() {
+        UUID id = UUID.fromString(jdbc.queryForObject(
+                "SELECT header->>'id' FROM fact_legacy ORDER BY ser LIMIT 1", String.class));
+
+        assertThatThrownBy(() -> insertFact(id)).isInstanceOf(DuplicateKeyException.class);
+    }
+
+    @Test
+    void testManagerCreatesPartitionsAhead() {
+        PgConfigurationProperties props = new PgConfigurationProperties();
+        props.setFactPartitionSize(10);
+        props.setFactPartitionsAhead(2);
+        PgLatestSerialFetcher fetcher = new PgLatestSerialFetcher(jdbc);
+        PgFactPartitionManager uut = new PgFactPartitionManager(jdbc,
+                new DataSourceTransactionManager(ds), fetcher, props);
+
+        // fill up the first partition created by the migration
+        long upper = jdbc.queryForList(PgConstants.SELECT_FACT_PARTITION_BOUNDS, String.class)
+                .stream()
+                .mapToLong(PgFactPartitionManager::upperBound)
+                .max()
+                .getAsLong();
+        jdbc.execute("SELECT setval('fact_ser_seq', " + (upper - 2) + ")");
+        insertFact(UUID.randomUUID());
+
+        uut.createPartitions();
+
+        long head = fetcher.retrieveLatestSer();
+        assertThat(jdbc.queryForList(PgConstants.SELECT_FACT_PARTITION_BOUNDS, String.class)
+                .stream()
+                .mapToLong(PgFactPartitionManager::upperBound)
+                .max()
+                .getAsLong()).isGreaterThan(head + 10);
+
+        // lands in a partition created by the manager
+        insertFact(UUID.randomUUID());
+        assertThat(fetcher.retrieveLatestSer()).isGreaterThanOrEqualTo(upper);
+    }
+}
@@ -15,9 +15,13 @@
  */
 package org.factcast.store.pgsql.internal.query;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.mock;
 
+import org.factcast.core.spec.FactSpec;
+import org.factcast.core.spec.JsonPathFilter;
+import org.factcast.core.subscription.SubscriptionRequest;
 import org.factcast.core.subscription.SubscriptionRequestTO;
 import org.junit.jupiter.api.Test;
 
@@ -35,4 +39,39 @@ public void testPGQueryBuilder() throws Exception {
         });
     }
 
+    @Test
+    public void testEqualityFilterUsesContainment() throws Exception {
+        JsonPathFilter f = JsonPathFilter.payload("customer.address.zip").eq("12345");
+
+        assertThat(PgQueryBuilder.filterPredicate(f)).isEqualTo("payload @> ?::jsonb");
+        assertThat(PgQueryBuilder.containedDocument(f).toString()).isEqualTo(
+                "{\"customer\":{\"address\":{\"zip\":\"12345\"}}}");
+    }
+
+    @Test
+    public void testRangeFilterChecksType() throws Exception {
+        assertThat(PgQueryBuilder.filterPredicate(JsonPathFilter.header("meta.count").gt(5)))
+                .isEqualTo(
+                        "CASE WHEN jsonb_typeof(header #> ?) = 'number' THEN (header #>> ?)::numeric > ? ELSE false END");
+        assertThat(PgQueryBuilder.filterPredicate(JsonPathFilter.payload("name").lte("m")))
+                .isEqualTo(
+                        "CASE WHEN jsonb_typeof(payload #> ?) = 'string' THEN (payload #>> ?) COLLATE \"C\" <= ? ELSE false END");
+    }
+
+    @Test
+    public void testFiltersArePartOfTheQuery() throws Exception {
+        PgQueryBuilder uut = new PgQueryBuilder(SubscriptionRequestTO.forFacts(SubscriptionRequest
+                .catchup(FactSpec.ns("foo").filter(JsonPathFilter.payload("a").eq(1))).fromScratch()));
+
+        assertThat(uut.createSQL()).contains("AND payload @> ?::jsonb");
+    }
+
+    @Test
+    public void testSerialIsTopLevelConjunct() throws Exception {
+        PgQueryBuilder uut = new PgQueryBuilder(SubscriptionRequestTO.forFacts(SubscriptionRequest
+                .catchup(FactSpec.ns("foo")).or(FactSpec.ns("bar")).fromScratch()));
+
+        assertThat(uut.createSQL()).endsWith(" ) AND ser>? ORDER BY ser ASC");
+        assertThat(uut.catchupSQL(1)).endsWith(" ) AND ser>?) ORDER BY ser ASC)");
+    }
 }
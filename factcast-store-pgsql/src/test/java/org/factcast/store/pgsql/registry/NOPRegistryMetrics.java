@@ -76,4 +76,9 @@ public void count(MetricEvent event) {
     public void count(MetricEvent event, Tags tags) {
 
     }
+
+    @Override
+    public void increase(MetricEvent event, long amount) {
+
+    }
 }
@@ -0,0 +1,60 @@
+/*
+ * Copyright © 2017-2020 factcast.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.factcast.store.pgsql.registry;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.factcast.store.pgsql.registry.transformation.TransformationSource;
+import org.factcast.store.pgsql.registry.validation.schema.SchemaSource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.google.common.collect.Lists;
+
+public class RegistrySnapshotTest {
+
+    @Test
+    void testRoundtrip(@TempDir Path dir) throws Exception {
+        SchemaSource schema = new SchemaSource("http://foo/1", "123", "ns", "type", 1);
+        TransformationSource transformation = new TransformationSource("http://foo/t", "ns",
+                "type", "hash", 1, 2);
+        TransformationSource synthetic = new TransformationSource("synthetic/http://foo/s",
+                "ns", "type", null, 2, 1);
+        RegistrySnapshot snapshot = new RegistrySnapshot();
+        snapshot.index().schemes(Lists.newArrayList(schema));
+        snapshot.index().transformations(Lists.newArrayList(transformation, synthetic));
+        snapshot.schemes().put(schema.id(), "{\"type\":\"object\"}");
+        snapshot.transformations().put(transformation.id(), "function transform(e) {}");
+        snapshot.transformations().put(synthetic.id(), null);
+        Path file = dir.resolve("sub").resolve("registry.json");
+
+        snapshot.write(file);
+        RegistrySnapshot read = RegistrySnapshot.read(file).get();
+
+        assertThat(read).isEqualTo(snapshot);
+        assertThat(read.transformations()).containsKey(synthetic.id());
+        // no leftovers
+        assertThat(Files.list(file.getParent())).containsExactly(file);
+    }
+
+    @Test
+    void testReadMissing(@TempDir Path dir) throws Exception {
+        assertThat(RegistrySnapshot.read(dir.resolve("nope.json"))).isEmpty();
+    }
+}
@@ -21,8 +21,11 @@
 
 import java.io.IOException;
 import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Optional;
 import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
 
 import org.factcast.store.pgsql.registry.NOPRegistryMetrics;
 import org.factcast.store.pgsql.registry.RegistryIndex;
@@ -39,12 +42,16 @@
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mockito;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import com.github.fge.jsonschema.main.JsonSchema;
 import com.google.common.collect.Lists;
 
+import io.micrometer.core.instrument.Tags;
+
 @ExtendWith(MockitoExtension.class)
 public class HttpSchemaRegistryTest {
     @Spy
@@ -137,6 +144,71 @@ public void testRefresh() throws InterruptedException, ExecutionException, IOExc
         verify(registryMetrics).timed(eq(TimedOperation.REFRESH_REGISTRY), any(Runnable.class));
     }
 
+    @Test
+    public void testCachesCompiledSchema() throws Exception {
+        HttpSchemaRegistry uut = new HttpSchemaRegistry(schemaStore, transformationStore,
+                indexFetcher, fileFetcher, registryMetrics);
+        uut.fetchInitial();
+
+        Optional<JsonSchema> first = uut.get(SchemaKey.of("ns", "type", 1));
+        Optional<JsonSchema> second = uut.get(SchemaKey.of("ns", "type", 1));
+
+        assertTrue(first.isPresent());
+        assertSame(first.get(), second.get());
+        verify(schemaStore).get(SchemaKey.of("ns", "type", 1));
+        verify(registryMetrics).timed(eq(TimedOperation.COMPILE_SCHEMA), any(Supplier.class));
+    }
+
+    @Test
+    public void testMissingSchemaIsLookedUpAgainAfterRefresh() throws Exception {
+        HttpSchemaRegistry uut = new HttpSchemaRegistry(schemaStore, transformationStore,
+                indexFetcher, fileFetcher, registryMetrics);
+        uut.fetchInitial();
+        SchemaKey key = SchemaKey.of("ns", "type", 3);
+
+        assertFalse(uut.get(key).isPresent());
+        assertFalse(uut.get(key).isPresent());
+        verify(schemaStore).get(key);
+
+        index.schemes(Lists.newArrayList(source1, source2, new SchemaSource("http://foo/3",
+                "123", "ns", "type", 3)));
+        uut.refresh();
+
+        assertTrue(uut.get(key).isPresent());
+        verify(schemaStore, times(2)).get(key);
+    }
+
+    @Test
+    public void testStartsFromSnapshot(@TempDir Path dir) throws Exception {
+        Path snapshotFile = dir.resolve("registry.json");
+        HttpSchemaRegistry first = new HttpSchemaRegistry(schemaStore, transformationStore,
+                indexFetcher, fileFetcher, registryMetrics);
+        first.snapshotFile(snapshotFile);
+        first.fetchInitial();
+        assertTrue(Files.exists(snapshotFile));
+
+        SchemaStore otherSchemaStore = new InMemSchemaStoreImpl(registryMetrics);
+        TransformationStore otherTransformationStore = new InMemTransformationStoreImpl(
+                registryMetrics);
+        HttpSchemaRegistry second = new HttpSchemaRegistry(otherSchemaStore,
+                otherTransformationStore, indexFetcher, fileFetcher, registryMetrics);
+        second.snapshotFile(snapshotFile);
+        second.fetchInitial();
+
+        // nothing fetched for the second one
+        verify(fileFetcher, times(2)).fetchSchema(Mockito.any());
+        verify(fileFetcher, times(2)).fetchTransformation(Mockito.any());
+        assertTrue(otherSchemaStore.get(SchemaKey.of("ns", "type", 2)).isPresent());
+        assertEquals(2, otherTransformationStore.get(TransformationKey.of("ns", "type")).size());
+        assertEquals(1, otherTransformationStore.get(TransformationKey.of("ns", "type2"))
+                .size());
+        verify(registryMetrics).timed(eq(TimedOperation.FETCH_INITIAL_REGISTRY), eq(Tags.of(
+                "source", "snapshot")), any(Runnable.class));
+        // restored schemas are compiled in the background
+        verify(registryMetrics, timeout(1000).times(2)).timed(eq(TimedOperation.COMPILE_SCHEMA),
+                any(Supplier.class));
+    }
+
     @Test
     void testNullContracts() throws Exception {
         assertThrows(NullPointerException.class, () -> {
@@ -168,6 +168,13 @@ void testCounter() {
 
     }
 
+    @Test
+    void testIncrease() {
+        uut.increase(MetricEvent.TRANSFORMATION_CACHE_HIT, 42);
+
+        verify(counter).increment(42);
+    }
+
     @Test
     void testCounterWithTags() {
         val customTag = Tag.of("foo", "bar");
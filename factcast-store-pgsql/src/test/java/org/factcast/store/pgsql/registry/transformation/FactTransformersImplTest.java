@@ -19,11 +19,16 @@
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executors;
 
 import org.factcast.core.Fact;
 import org.factcast.core.TestFact;
+import org.factcast.core.subscription.TransformationException;
 import org.factcast.core.util.FactCastJson;
 import org.factcast.store.pgsql.internal.RequestedVersions;
 import org.factcast.store.pgsql.registry.NOPRegistryMetrics;
@@ -139,4 +144,59 @@ public void testTransform() throws Exception {
 
     }
 
+    @Test
+    public void testTransformBatch() throws Exception {
+        String chainId = "chainId";
+        Fact untouched = new TestFact().type("other").version(1);
+        Fact hit = new TestFact().version(1);
+        Fact miss = new TestFact().version(1);
+        Fact cachedHit = new TestFact().id(hit.id()).version(33);
+        RequestedVersions requestedVersions = new RequestedVersions();
+        requestedVersions.add(hit.ns(), hit.type(), 33);
+
+        when(chains.get(eq(TransformationKey.from(hit)), eq(1), eq(33))).thenReturn(chain);
+        when(chain.id()).thenReturn(chainId);
+        TransformationCache.Key hitKey = TransformationCache.Key.of(hit.id(), 33, chainId);
+        TransformationCache.Key missKey = TransformationCache.Key.of(miss.id(), 33, chainId);
+        when(cache.findAll(Arrays.asList(hitKey, missKey))).thenReturn(Collections.singletonMap(
+                hitKey, cachedHit));
+        JsonNode transformedJsonNode = FactCastJson.readTree("{\"transformed\":true}");
+        when(trans.transform(any(), any())).thenReturn(transformedJsonNode);
+
+        FactTransformersImpl uut = new FactTransformersImpl(requestedVersions, chains, trans,
+                cache, registryMetrics, Executors.newFixedThreadPool(2));
+
+        List<Fact> result = uut.transformIfNecessary(Arrays.asList(untouched, hit, miss));
+
+        assertThat(result).hasSize(3);
+        assertThat(result.get(0)).isSameAs(untouched);
+        assertThat(result.get(1)).isSameAs(cachedHit);
+        assertThat(result.get(2).id()).isEqualTo(miss.id());
+        assertThat(result.get(2).version()).isEqualTo(33);
+        assertThat(result.get(2).jsonPayload()).isEqualTo(transformedJsonNode.toString());
+
+        verify(trans).transform(any(), any());
+        verify(cache).putAll(Collections.singletonMap(missKey, result.get(2)));
+        verify(cache, never()).find(any(), anyInt(), any());
+    }
+
+    @Test
+    public void testTransformBatchPropagatesFailure() throws Exception {
+        Fact probe = new TestFact().version(1);
+        RequestedVersions requestedVersions = new RequestedVersions();
+        requestedVersions.add(probe.ns(), probe.type(), 33);
+
+        when(chains.get(any(), anyInt(), anyInt())).thenReturn(chain);
+        when(chain.id()).thenReturn("chainId");
+        when(cache.findAll(any())).thenReturn(Collections.emptyMap());
+        when(trans.transform(any(), any())).thenThrow(new TransformationException(
+                new IllegalArgumentException()));
+
+        FactTransformersImpl uut = new FactTransformersImpl(requestedVersions, chains, trans,
+                cache, registryMetrics, Executors.newFixedThreadPool(2));
+
+        assertThatThrownBy(() -> uut.transformIfNecessary(Collections.singletonList(probe)))
+                .isInstanceOf(TransformationException.class);
+        verify(cache, never()).putAll(any());
+    }
 }
@@ -0,0 +1,259 @@
+/*
+ * Copyright © 2017-2020 factcast.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.factcast.store.pgsql.registry.transformation;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.factcast.core.Fact;
+import org.factcast.store.pgsql.internal.PgConstants;
+import org.factcast.store.pgsql.internal.rowmapper.PgFactExtractor;
+import org.factcast.store.pgsql.registry.NOPRegistryMetrics;
+import org.factcast.store.pgsql.registry.SchemaRegistry;
+import org.factcast.store.pgsql.registry.metrics.MetricEvent;
+import org.factcast.store.pgsql.registry.metrics.RegistryMetrics;
+import org.factcast.store.pgsql.registry.transformation.TransformationPrecomputer.Progress;
+import org.factcast.store.pgsql.registry.transformation.TransformationPrecomputer.Target;
+import org.factcast.store.pgsql.registry.transformation.cache.TransformationCache;
+import org.factcast.store.pgsql.registry.transformation.cache.TransformationCache.Key;
+import org.factcast.store.pgsql.registry.transformation.chains.MissingTransformationInformation;
+import org.factcast.store.pgsql.registry.transformation.chains.TransformationChain;
+import org.factcast.store.pgsql.registry.transformation.chains.TransformationChains;
+import org.factcast.store.pgsql.registry.transformation.chains.Transformer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+@ExtendWith(MockitoExtension.class)
+public class TransformationPrecomputerTest {
+
+    @Mock
+    JdbcTemplate jdbcTemplate;
+
+    @Mock
+    SchemaRegistry registry;
+
+    @Mock
+    TransformationChains chains;
+
+    @Mock
+    Transformer trans;
+
+    @Mock
+    TransformationCache cache;
+
+    @Mock
+    TransformationChain chain;
+
+    @Spy
+    RegistryMetrics registryMetrics = new NOPRegistryMetrics();
+
+    private TransformationPrecomputer uut(String... targets) {
+        return new TransformationPrecomputer(jdbcTemplate, registry, chains, trans, cache,
+                registryMetrics, Arrays.asList(targets), 1_000_000);
+    }
+
+    @Test
+    void testRegistersAsListener() {
+        TransformationPrecomputer uut = uut();
+
+        verify(registry).register(uut);
+    }
+
+    @Test
+    void testParseTarget() {
+        assertThat(Target.parse("ns:type:3")).isEqualTo(Target.of("ns", "type", 3));
+        assertThatThrownBy(() -> Target.parse("ns:type")).isInstanceOf(
+                IllegalArgumentException.class);
+        assertThatThrownBy(() -> Target.parse("ns:type:x")).isInstanceOf(
+                NumberFormatException.class);
+    }
+
+    @Test
+    void testNothingToDoWithoutTargets() {
+        uut().precompute();
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void testPrecomputesUntilNoMoreFacts() throws Exception {
+        Fact f = Fact.builder().ns("ns").type("type").version(1).build("{}");
+        progress(Progress.of(0, FINGERPRINT));
+        when(jdbcTemplate.query(eq(PgConstants.SELECT_BY_HEADER_JSON_AFTER_SER), any(
+                Object[].class), any(PgFactExtractor.class))).thenReturn(Collections
+                        .singletonList(f), Collections.emptyList());
+        // progress not reset meanwhile
+        when(jdbcTemplate.update(TransformationPrecomputer.UPDATE_PROGRESS, 0L, "ns:type:2", 0L,
+                FINGERPRINT)).thenReturn(1);
+        when(chains.get(TransformationKey.of("ns", "type"), 1, 2)).thenReturn(chain);
+        when(chain.id()).thenReturn("chainId");
+        Key key = Key.of(f.id(), 2, "chainId");
+        // already in the cache
+        when(cache.findAll(Collections.singletonList(key))).thenReturn(Collections.singletonMap(
+                key, f));
+
+        uut("ns:type:2").precompute();
+
+        verify(jdbcTemplate, times(2)).query(eq(PgConstants.SELECT_BY_HEADER_JSON_AFTER_SER),
+                any(Object[].class), any(PgFactExtractor.class));
+        verify(registryMetrics).increase(MetricEvent.TRANSFORMATION_PRECOMPUTED, 1);
+        verify(jdbcTemplate, never()).update(eq(TransformationPrecomputer.RESET_PROGRESS),
+                any(Object[].class));
+        verifyNoInteractions(trans);
+    }
+
+    @Test
+    void testResumesFromStoredProgress() {
+        progress(Progress.of(42, FINGERPRINT));
+        noFacts();
+
+        uut("ns:type:2").precompute();
+
+        assertThat(queriedAfterSerial()).isEqualTo(42L);
+    }
+
+    @Test
+    void testStartsOverWithoutProgress() {
+        progress();
+        noFacts();
+
+        uut("ns:type:2").precompute();
+
+        verify(jdbcTemplate).update(TransformationPrecomputer.RESET_PROGRESS, "ns:type:2",
+                FINGERPRINT);
+        assertThat(queriedAfterSerial()).isEqualTo(0L);
+    }
+
+    @Test
+    void testStartsOverWhenTransformationsChanged() {
+        progress(Progress.of(42, "before"));
+        noFacts();
+
+        uut("ns:type:2").precompute();
+
+        verify(jdbcTemplate).update(TransformationPrecomputer.RESET_PROGRESS, "ns:type:2",
+                FINGERPRINT);
+        assertThat(queriedAfterSerial()).isEqualTo(0L);
+    }
+
+    @Test
+    void testProcessesBoundedNumberOfPages() throws Exception {
+        Fact f = Fact.builder().ns("ns").type("type").version(1).build("{}");
+        progress(Progress.of(0, FINGERPRINT));
+        when(jdbcTemplate.query(eq(PgConstants.SELECT_BY_HEADER_JSON_AFTER_SER), any(
+                Object[].class), any(PgFactExtractor.class))).thenReturn(Collections
+                        .singletonList(f));
+        when(jdbcTemplate.update(eq(TransformationPrecomputer.UPDATE_PROGRESS), any(
+                Object[].class))).thenReturn(1);
+        when(chains.get(TransformationKey.of("ns", "type"), 1, 2)).thenReturn(chain);
+        when(chain.id()).thenReturn("chainId");
+        Key key = Key.of(f.id(), 2, "chainId");
+        when(cache.findAll(Collections.singletonList(key))).thenReturn(Collections.singletonMap(
+                key, f));
+
+        assertThat(uut("ns:type:2").precompute(Target.parse("ns:type:2"), 3)).isEqualTo(3);
+
+        verify(jdbcTemplate, times(3)).query(eq(PgConstants.SELECT_BY_HEADER_JSON_AFTER_SER),
+                any(Object[].class), any(PgFactExtractor.class));
+    }
+
+    @Test
+    void testNotifyForStopsCurrentRun() throws Exception {
+        Fact f = Fact.builder().ns("ns").type("type").version(1).build("{}");
+        TransformationPrecomputer uut = uut("ns:type:2");
+        progress(Progress.of(0, FINGERPRINT));
+        when(jdbcTemplate.query(eq(PgConstants.SELECT_BY_HEADER_JSON_AFTER_SER), any(
+                Object[].class), any(PgFactExtractor.class))).thenReturn(Collections
+                        .singletonList(f));
+        when(jdbcTemplate.update(eq(TransformationPrecomputer.UPDATE_PROGRESS), any(
+                Object[].class))).thenAnswer(i -> {
+                    uut.notifyFor(TransformationKey.of("ns", "type"));
+                    return 1;
+                });
+        when(chains.get(TransformationKey.of("ns", "type"), 1, 2)).thenReturn(chain);
+        when(chain.id()).thenReturn("chainId");
+        Key key = Key.of(f.id(), 2, "chainId");
+        when(cache.findAll(Collections.singletonList(key))).thenReturn(Collections.singletonMap(
+                key, f));
+
+        uut.precompute();
+
+        verify(jdbcTemplate, times(1)).query(eq(PgConstants.SELECT_BY_HEADER_JSON_AFTER_SER),
+                any(Object[].class), any(PgFactExtractor.class));
+    }
+
+    @Test
+    void testFingerprint() {
+        TransformationKey key = TransformationKey.of("ns", "type");
+        Transformation one = SingleTransformation.of(key, 1, 2, "a");
+        Transformation two = SingleTransformation.of(key, 2, 3, "b");
+
+        assertThat(TransformationPrecomputer.fingerprint(Arrays.asList(one, two))).isEqualTo(
+                TransformationPrecomputer.fingerprint(Arrays.asList(two, one)));
+        assertThat(TransformationPrecomputer.fingerprint(Arrays.asList(one, two))).isNotEqualTo(
+                TransformationPrecomputer.fingerprint(Arrays.asList(one, SingleTransformation.of(
+                        key, 2, 3, "c"))));
+    }
+
+    @Test
+    void testSkipsTargetOnMissingTransformation() {
+        Fact f = Fact.builder().ns("ns").type("type").version(1).build("{}");
+        List<Fact> page = Collections.singletonList(f);
+        progress(Progress.of(0, FINGERPRINT));
+        when(jdbcTemplate.query(eq(PgConstants.SELECT_BY_HEADER_JSON_AFTER_SER), any(
+                Object[].class), any(PgFactExtractor.class))).thenReturn(page);
+        when(chains.get(TransformationKey.of("ns", "type"), 1, 2)).thenThrow(
+                new MissingTransformationInformation("nope"));
+
+        uut("ns:type:2").precompute();
+
+        verify(registryMetrics, never()).increase(eq(MetricEvent.TRANSFORMATION_PRECOMPUTED),
+                anyLong());
+    }
+
+    // no transformations registered for ns/type
+    static final String FINGERPRINT = TransformationPrecomputer.fingerprint(Collections
+            .emptyList());
+
+    @SuppressWarnings("unchecked")
+    private void progress(Progress... progress) {
+        when(jdbcTemplate.query(eq(TransformationPrecomputer.SELECT_PROGRESS), eq(new Object[] {
+                "ns:type:2" }), any(RowMapper.class))).thenReturn(Arrays.asList(progress));
+    }
+
+    private void noFacts() {
+        when(jdbcTemplate.query(eq(PgConstants.SELECT_BY_HEADER_JSON_AFTER_SER), any(
+                Object[].class), any(PgFactExtractor.class))).thenReturn(Collections.emptyList());
+    }
+
+    private Object queriedAfterSerial() {
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        verify(jdbcTemplate).query(eq(PgConstants.SELECT_BY_HEADER_JSON_AFTER_SER), args
+                .capture(), any(PgFactExtractor.class));
+        return args.getValue()[1];
+    }
+}
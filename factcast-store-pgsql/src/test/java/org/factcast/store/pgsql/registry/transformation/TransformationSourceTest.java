@@ -17,6 +17,7 @@
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import org.factcast.core.util.FactCastJson;
 import org.junit.jupiter.api.Test;
 
 class TransformationSourceTest {
@@ -31,4 +32,14 @@ public void testToKey() {
         assertEquals(key.type(), "type");
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testJavaClass() throws Exception {
+        TransformationSource uut = FactCastJson.readValue(TransformationSource.class,
+                "{\"id\":\"ns/type/2-1\",\"ns\":\"ns\",\"type\":\"type\",\"from\":2,\"to\":1,"
+                        + "\"javaClass\":\"com.acme.V2toV1\"}");
+
+        assertTrue(uut.isJava());
+        assertEquals("com.acme.V2toV1", uut.javaClass());
+        assertFalse(new TransformationSource("id", "ns", "type", "hash", 2, 1).isJava());
+    }
+}
@@ -19,6 +19,10 @@
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.verify;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -141,4 +145,33 @@ void testRespectsVersion() throws Exception {
         uut.put(f, "foo");
         assertThat(uut.find(f.id(), 2, "foo")).isEmpty();
     }
+
+    @Test
+    void testFindAllAfterPutAll() throws Exception {
+        Fact f1 = Fact.builder().ns("name").type("type").version(2).build("{}");
+        Fact f2 = Fact.builder().ns("name").type("type").version(2).build("{}");
+        TransformationCache.Key k1 = TransformationCache.Key.of(f1.id(), 2, "foo");
+        TransformationCache.Key k2 = TransformationCache.Key.of(f2.id(), 2, "foo");
+        TransformationCache.Key unknown = TransformationCache.Key.of(UUID.randomUUID(), 2,
+                "foo");
+        Map<TransformationCache.Key, Fact> transformed = new HashMap<>();
+        transformed.put(k1, f1);
+        transformed.put(k2, f2);
+
+        uut.putAll(transformed);
+        // puts the same facts again, as a concurrent subscription might do
+        uut.putAll(transformed);
+        Map<TransformationCache.Key, Fact> found = uut.findAll(Arrays.asList(k1, k2, unknown));
+
+        assertThat(found).containsOnlyKeys(k1, k2);
+        assertEquals(f1, found.get(k1));
+        assertEquals(f2, found.get(k2));
+        verify(registryMetrics).increase(MetricEvent.TRANSFORMATION_CACHE_HIT, 2);
+        verify(registryMetrics).increase(MetricEvent.TRANSFORMATION_CACHE_MISS, 1);
+    }
+
+    @Test
+    void testFindAllEmpty() throws Exception {
+        assertThat(uut.findAll(Collections.emptyList())).isEmpty();
+    }
 }
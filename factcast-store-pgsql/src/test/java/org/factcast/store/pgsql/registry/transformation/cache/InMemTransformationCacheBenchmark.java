@@ -0,0 +1,89 @@
+/*
+ * Copyright © 2017-2020 factcast.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.factcast.store.pgsql.registry.transformation.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.factcast.core.Fact;
+import org.factcast.store.pgsql.registry.NOPRegistryMetrics;
+
+/**
+ * Measures throughput of concurrent find/put (90% reads) on the
+ * InMemTransformationCache, with and without compression.
+ * <p>
+ * Not a test, run main() manually. Optional args: numberOfFacts,
+ * operationsPerThread, rounds
+ */
+public class InMemTransformationCacheBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int numberOfFacts = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int operationsPerThread = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+
+        List<Fact> facts = new ArrayList<>(numberOfFacts);
+        for (int i = 0; i < numberOfFacts; i++) {
+            facts.add(Fact.builder()
+                    .ns("benchmark")
+                    .type("type")
+                    .version(2)
+                    .build("{\"i\":" + i + ",\"name\":\"some name\",\"list\":[1,2,3,4,5]}"));
+        }
+
+        for (int round = 1; round <= rounds; round++) {
+            for (boolean compressed : new boolean[] { false, true }) {
+                for (int threads : new int[] { 1, 2, 4, 8, 16 }) {
+                    InMemTransformationCache uut = new InMemTransformationCache(512L * 1024
+                            * 1024, compressed, new NOPRegistryMetrics());
+                    facts.forEach(f -> uut.put(f, "1-2"));
+
+                    long start = System.nanoTime();
+                    run(uut, facts, threads, operationsPerThread);
+                    long elapsed = System.nanoTime() - start;
+                    long ops = (long) threads * operationsPerThread;
+                    System.out.printf(
+                            "round %d, compressed=%-5s, threads=%2d: %d ops in %d ms (%.0f ops/s)%n",
+                            round, compressed, threads, ops, TimeUnit.NANOSECONDS.toMillis(
+                                    elapsed), ops / (elapsed / 1_000_000_000.0));
+                }
+            }
+        }
+    }
+
+    private static void run(InMemTransformationCache uut, List<Fact> facts, int threads,
+            int operationsPerThread) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                for (int i = 0; i < operationsPerThread; i++) {
+                    Fact f = facts.get(rnd.nextInt(facts.size()));
+                    if (rnd.nextInt(10) == 0) {
+                        uut.put(f, "1-2");
+                    } else {
+                        uut.find(f.id(), 2, "1-2");
+                    }
+                }
+                done.countDown();
+            }).start();
+        }
+        done.await();
+    }
+}
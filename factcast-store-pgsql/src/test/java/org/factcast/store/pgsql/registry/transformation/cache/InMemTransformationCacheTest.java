@@ -15,6 +15,12 @@
  */
 package org.factcast.store.pgsql.registry.transformation.cache;
 
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.UUID;
+
+import org.factcast.core.Fact;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
 
@@ -24,4 +30,51 @@ class InMemTransformationCacheTest extends AbstractTransformationCacheTest {
     protected TransformationCache createUUT() {
         return new InMemTransformationCache(registryMetrics);
     }
+
+    @Test
+    void testEvictsByWeight() {
+        InMemTransformationCache uut = new InMemTransformationCache(64 * 1024, false,
+                registryMetrics);
+        StringBuilder sb = new StringBuilder("{\"x\":\"");
+        for (int i = 0; i < 10_000; i++) {
+            sb.append('x');
+        }
+        String bigPayload = sb.append("\"}").toString();
+
+        Fact first = Fact.builder().ns("ns").version(1).build(bigPayload);
+        uut.put(first, "foo");
+        for (int i = 0; i < 10; i++) {
+            uut.put(Fact.builder().ns("ns").version(1).build(bigPayload), "foo");
+        }
+
+        assertThat(uut.find(first.id(), 1, "foo")).isEmpty();
+    }
+
+    @Test
+    void testCompressedRoundtrip() {
+        InMemTransformationCache uut = new InMemTransformationCache(1024 * 1024, true,
+                registryMetrics);
+        Fact f = Fact.builder()
+                .ns("ns")
+                .type("type")
+                .id(UUID.randomUUID())
+                .version(2)
+                .build("{\"name\":\"äöü\",\"list\":[1,2,3]}");
+
+        uut.put(f, "foo");
+
+        Fact found = uut.find(f.id(), 2, "foo").get();
+        assertThat(found.jsonHeader()).isEqualTo(f.jsonHeader());
+        assertThat(found.jsonPayload()).isEqualTo(f.jsonPayload());
+    }
+
+    @Test
+    void testDeflateInflate() {
+        String s = "";
+        assertThat(InMemTransformationCache.inflate(InMemTransformationCache.deflate(s)))
+                .isEqualTo(s);
+        s = "{\"foo\":\"bar\"}";
+        assertThat(InMemTransformationCache.inflate(InMemTransformationCache.deflate(s)))
+                .isEqualTo(s);
+    }
 }
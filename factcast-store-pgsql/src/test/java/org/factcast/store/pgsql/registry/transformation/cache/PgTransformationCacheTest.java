@@ -15,19 +15,26 @@
  */
 package org.factcast.store.pgsql.registry.transformation.cache;
 
+import static org.assertj.core.api.Assertions.*;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
 
+import java.util.Collections;
 import java.util.Date;
 import java.util.UUID;
 
 import org.factcast.core.Fact;
 import org.factcast.store.pgsql.internal.PgTestConfiguration;
+import org.factcast.store.pgsql.registry.metrics.MetricEvent;
 import org.factcast.store.test.IntegrationTest;
+import org.joda.time.DateTime;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.QueryTimeoutException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.jdbc.Sql;
 import org.springframework.test.context.jdbc.SqlConfig;
@@ -58,14 +65,89 @@ void testLastAccessUpdateAfterFind() {
         String chainId = "1-2-3";
 
         uut.put(fact, chainId);
+        tpl.update("UPDATE transformationcache SET last_access = now() - interval '2 days'");
 
         Date dateOnInsert = getLastAccessDate();
 
         uut.find(fact.id(), fact.version(), chainId);
 
+        // write-behind
+        assertEquals(dateOnInsert, getLastAccessDate());
+
+        ((PgTransformationCache) uut).flushAccessTimes();
+
         Date dateAfterUpdate = getLastAccessDate();
 
         assertTrue(dateOnInsert.before(dateAfterUpdate));
+        verify(registryMetrics).increase(MetricEvent.TRANSFORMATION_CACHE_ACCESS_FLUSHED, 1);
+    }
+
+    @Test
+    void testLastAccessUpdatedOncePerDay() {
+        Fact fact = Fact.builder()
+                .ns("ns")
+                .type("type")
+                .id(UUID.randomUUID())
+                .version(1)
+                .build("{}");
+        String chainId = "1-2-3";
+
+        uut.put(fact, chainId);
+        Date dateOnInsert = getLastAccessDate();
+
+        uut.findAll(Collections.singletonList(TransformationCache.Key.of(fact.id(), fact
+                .version(), chainId)));
+        ((PgTransformationCache) uut).flushAccessTimes();
+
+        // already accessed today
+        assertEquals(dateOnInsert, getLastAccessDate());
+    }
+
+    @Test
+    void testCompactFlushesAccessTimes() {
+        Fact fact = Fact.builder()
+                .ns("ns")
+                .type("type")
+                .id(UUID.randomUUID())
+                .version(1)
+                .build("{}");
+        String chainId = "1-2-3";
+
+        uut.put(fact, chainId);
+        tpl.update("UPDATE transformationcache SET last_access = now() - interval '20 days'");
+        uut.find(fact.id(), fact.version(), chainId);
+
+        uut.compact(DateTime.now().minusDays(14));
+
+        assertThat(uut.find(fact.id(), fact.version(), chainId)).isPresent();
+    }
+
+    @Test
+    void testFailedAccessFlushIsRetried() {
+        JdbcTemplate failingOnce = spy(tpl);
+        PgTransformationCache cache = new PgTransformationCache(failingOnce, registryMetrics);
+        Fact fact = Fact.builder()
+                .ns("ns")
+                .type("type")
+                .id(UUID.randomUUID())
+                .version(1)
+                .build("{}");
+        String chainId = "1-2-3";
+
+        cache.put(fact, chainId);
+        tpl.update("UPDATE transformationcache SET last_access = now() - interval '2 days'");
+        Date dateOnInsert = getLastAccessDate();
+        cache.find(fact.id(), fact.version(), chainId);
+
+        doThrow(new QueryTimeoutException("timeout")).doCallRealMethod().when(failingOnce)
+                .update(startsWith("UPDATE transformationcache"), any(
+                        PreparedStatementSetter.class));
+        assertThrows(QueryTimeoutException.class, cache::flushAccessTimes);
+        assertEquals(dateOnInsert, getLastAccessDate());
+
+        cache.flushAccessTimes();
+
+        assertTrue(dateOnInsert.before(getLastAccessDate()));
     }
 
     private Date getLastAccessDate() {
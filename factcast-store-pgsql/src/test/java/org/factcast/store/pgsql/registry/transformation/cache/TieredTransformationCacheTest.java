@@ -0,0 +1,130 @@
+/*
+ * Copyright © 2017-2020 factcast.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.factcast.store.pgsql.registry.transformation.cache;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.UUID;
+
+import org.factcast.core.Fact;
+import org.factcast.store.pgsql.internal.PgTestConfiguration;
+import org.factcast.store.pgsql.registry.metrics.MetricEvent;
+import org.factcast.store.test.IntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlConfig;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+@ContextConfiguration(classes = { PgTestConfiguration.class })
+@Sql(scripts = "/test_schema.sql", config = @SqlConfig(separator = "#"))
+@ExtendWith(SpringExtension.class)
+@ExtendWith(MockitoExtension.class)
+@IntegrationTest
+class TieredTransformationCacheTest extends AbstractTransformationCacheTest {
+    @Autowired
+    private JdbcTemplate tpl;
+
+    @Override
+    protected TransformationCache createUUT() {
+        return newTieredCache();
+    }
+
+    private TieredTransformationCache newTieredCache() {
+        return new TieredTransformationCache(new PgTransformationCache(tpl, registryMetrics),
+                1024 * 1024, registryMetrics);
+    }
+
+    private static Fact fact() {
+        return Fact.builder()
+                .ns("ns")
+                .type("type")
+                .id(UUID.randomUUID())
+                .version(1)
+                .build("{}");
+    }
+
+    @Test
+    void testWritesBehind() {
+        Fact fact = fact();
+
+        uut.put(fact, "1-2-3");
+        assertThat(countRows()).isEqualTo(0);
+
+        ((TieredTransformationCache) uut).flushWrites();
+        assertThat(countRows()).isEqualTo(1);
+    }
+
+    @Test
+    void testFindsFromL1() {
+        Fact fact = fact();
+
+        uut.put(fact, "1-2-3");
+        ((TieredTransformationCache) uut).flushWrites();
+
+        assertThat(uut.find(fact.id(), fact.version(), "1-2-3")).contains(fact);
+        verify(registryMetrics).increase(MetricEvent.TRANSFORMATION_CACHE_L1_HIT, 1);
+        verify(registryMetrics, never()).increase(eq(MetricEvent.TRANSFORMATION_CACHE_L2_HIT),
+                anyLong());
+    }
+
+    @Test
+    void testReadsThroughToL2() {
+        Fact fact = fact();
+
+        uut.put(fact, "1-2-3");
+        ((TieredTransformationCache) uut).close();
+
+        TieredTransformationCache other = newTieredCache();
+        assertThat(other.find(fact.id(), fact.version(), "1-2-3")).isPresent();
+        verify(registryMetrics).increase(MetricEvent.TRANSFORMATION_CACHE_L2_HIT, 1);
+
+        // now in L1
+        assertThat(other.find(fact.id(), fact.version(), "1-2-3")).isPresent();
+        verify(registryMetrics).increase(MetricEvent.TRANSFORMATION_CACHE_L1_HIT, 1);
+    }
+
+    @Test
+    void testDropsOldestPendingWritesInsteadOfWriting() {
+        TieredTransformationCache cache = new TieredTransformationCache(new PgTransformationCache(
+                tpl, registryMetrics), 1024 * 1024, registryMetrics, 2);
+        Fact oldest = fact();
+
+        cache.put(oldest, "1-2-3");
+        cache.put(fact(), "1-2-3");
+        cache.put(fact(), "1-2-3");
+
+        // never written by the putting thread
+        assertThat(countRows()).isEqualTo(0);
+        verify(registryMetrics).increase(MetricEvent.TRANSFORMATION_CACHE_WRITE_DROPPED, 1);
+
+        cache.flushWrites();
+        assertThat(countRows()).isEqualTo(2);
+        assertThat(tpl.queryForObject(
+                "SELECT count(*) FROM transformationcache WHERE cache_key = ?", Integer.class,
+                CacheKey.of(oldest, "1-2-3"))).isEqualTo(0);
+    }
+
+    private int countRows() {
+        return tpl.queryForObject("SELECT count(*) FROM transformationcache", Integer.class);
+    }
+}
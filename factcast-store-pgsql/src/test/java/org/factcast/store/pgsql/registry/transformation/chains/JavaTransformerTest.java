@@ -0,0 +1,115 @@
+/*
+ * Copyright © 2017-2020 factcast.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.factcast.store.pgsql.registry.transformation.chains;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.factcast.core.subscription.TransformationException;
+import org.factcast.core.util.FactCastJson;
+import org.factcast.store.pgsql.registry.transformation.JavaTransformation;
+import org.factcast.store.pgsql.registry.transformation.SingleTransformation;
+import org.factcast.store.pgsql.registry.transformation.Transformation;
+import org.factcast.store.pgsql.registry.transformation.TransformationKey;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import lombok.NonNull;
+
+public class JavaTransformerTest {
+
+    final JavaTransformer uut = new JavaTransformer();
+
+    final TransformationKey key = TransformationKey.of("ns", "UserCreated");
+
+    public static class DisplayName implements JavaTransformation {
+        @Override
+        public JsonNode transform(@NonNull JsonNode payload) {
+            ((ObjectNode) payload).put("displayName", payload.get("firstName").asText() + " "
+                    + payload.get("lastName").asText());
+            return payload;
+        }
+    }
+
+    public static class NotATransformation {
+    }
+
+    static final AtomicBoolean initialized = new AtomicBoolean(false);
+
+    public static class NotATransformationWithStaticInit {
+        static {
+            initialized.set(true);
+        }
+    }
+
+    private Transformation java(Class<?> clazz) {
+        return SingleTransformation.of(key, 1, 2, JavaTransformer.codeFor(clazz.getName()));
+    }
+
+    @Test
+    void testIsJava() {
+        assertThat(JavaTransformer.isJava(java(DisplayName.class))).isTrue();
+        assertThat(JavaTransformer.isJava(SingleTransformation.of(key, 1, 2,
+                "function (e) {}"))).isFalse();
+        assertThat(JavaTransformer.isJava(SingleTransformation.empty(key, 1, 2))).isFalse();
+    }
+
+    @Test
+    void testTransforms() throws Exception {
+        JsonNode input = FactCastJson.readTree("{\"firstName\":\"Peter\",\"lastName\":\"Lustig\"}");
+
+        JsonNode actual = uut.transform(java(DisplayName.class), input);
+
+        assertThat(actual.get("displayName").asText()).isEqualTo("Peter Lustig");
+        // input untouched
+        assertThat(input.has("displayName")).isFalse();
+    }
+
+    @Test
+    void testNoCode() throws Exception {
+        JsonNode input = FactCastJson.readTree("{}");
+
+        assertThat(uut.transform(SingleTransformation.empty(key, 1, 2), input)).isSameAs(input);
+    }
+
+    @Test
+    void testFailures() throws Exception {
+        JsonNode input = FactCastJson.readTree("{}");
+
+        assertThatThrownBy(() -> uut.transform(SingleTransformation.of(key, 1, 2,
+                JavaTransformer.codeFor("does.not.Exist")), input)).isInstanceOf(
+                        TransformationException.class);
+        assertThatThrownBy(() -> uut.transform(java(NotATransformation.class), input))
+                .isInstanceOf(TransformationException.class);
+        assertThatThrownBy(() -> uut.transform(SingleTransformation.of(key, 1, 2,
+                "function (e) {}"), input)).isInstanceOf(TransformationException.class);
+        // missing fields
+        assertThatThrownBy(() -> uut.transform(java(DisplayName.class), input)).isInstanceOf(
+                TransformationException.class);
+    }
+
+    @Test
+    void testDoesNotInitializeOtherClasses() throws Exception {
+        JsonNode input = FactCastJson.readTree("{}");
+
+        assertThatThrownBy(() -> uut.transform(java(NotATransformationWithStaticInit.class),
+                input)).isInstanceOf(TransformationException.class);
+        assertThat(initialized.get()).isFalse();
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright © 2017-2020 factcast.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.factcast.store.pgsql.registry.transformation.chains;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.factcast.core.util.FactCastJson;
+import org.factcast.store.pgsql.registry.transformation.SingleTransformation;
+import org.factcast.store.pgsql.registry.transformation.Transformation;
+import org.factcast.store.pgsql.registry.transformation.TransformationKey;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Measures transformation throughput of the NashornTransformer on one and on
+ * several threads.
+ * <p>
+ * Not a test, run main() manually. Optional args: numberOfFacts, rounds,
+ * threads
+ */
+public class NashornTransformerBenchmark {
+
+    static final String SCRIPT = "function transform(e) {"
+            + " e.displayName = e.firstName + ' ' + e.lastName;"
+            + " e.address.country = 'DE';"
+            + " e.itemCount = e.items.length;"
+            + "}";
+
+    public static void main(String[] args) throws Exception {
+        int numberOfFacts = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime()
+                .availableProcessors();
+
+        List<JsonNode> inputs = new ArrayList<>(numberOfFacts);
+        for (int i = 0; i < numberOfFacts; i++) {
+            inputs.add(FactCastJson.readTree("{\"firstName\":\"Peter\",\"lastName\":\"Lustig"
+                    + i + "\",\"address\":{\"zip\":\"12345\",\"city\":\"Hamburg\"},"
+                    + "\"items\":[{\"sku\":\"a\",\"qty\":1},{\"sku\":\"b\",\"qty\":2}]}"));
+        }
+        Transformation t = SingleTransformation.of(TransformationKey.of("benchmark", "type"), 1,
+                2, SCRIPT);
+        NashornTransformer uut = new NashornTransformer();
+
+        ExecutorService es = Executors.newFixedThreadPool(threads);
+        try {
+            for (int round = 1; round <= rounds; round++) {
+                run("1 thread", round, inputs, () -> {
+                    for (JsonNode input : inputs) {
+                        uut.transform(t, input);
+                    }
+                });
+                run(threads + " threads", round, inputs, () -> {
+                    List<Future<JsonNode>> results = new ArrayList<>(inputs.size());
+                    for (JsonNode input : inputs) {
+                        results.add(es.submit(() -> uut.transform(t, input)));
+                    }
+                    for (Future<JsonNode> f : results) {
+                        f.get();
+                    }
+                });
+            }
+        } finally {
+            es.shutdownNow();
+        }
+    }
+
+    private static void run(String name, int round, List<JsonNode> inputs, Run r)
+            throws Exception {
+        long start = System.nanoTime();
+        r.run();
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("round %d, %-10s: %d transformations in %d ms (%.0f/s)%n", round,
+                name, inputs.size(), TimeUnit.NANOSECONDS.toMillis(elapsed), inputs.size()
+                        / (elapsed / 1_000_000_000.0));
+    }
+
+    @FunctionalInterface
+    interface Run {
+        void run() throws Exception;
+    }
+}
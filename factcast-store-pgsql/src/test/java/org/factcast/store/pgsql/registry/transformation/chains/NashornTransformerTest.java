@@ -0,0 +1,154 @@
+/*
+ * Copyright © 2017-2020 factcast.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.factcast.store.pgsql.registry.transformation.chains;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.factcast.core.subscription.TransformationException;
+import org.factcast.core.util.FactCastJson;
+import org.factcast.store.pgsql.registry.transformation.SingleTransformation;
+import org.factcast.store.pgsql.registry.transformation.Transformation;
+import org.factcast.store.pgsql.registry.transformation.TransformationKey;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+public class NashornTransformerTest {
+
+    final NashornTransformer uut = new NashornTransformer();
+
+    final TransformationKey key = TransformationKey.of("ns", "UserCreated");
+
+    private Transformation js(String code) {
+        return SingleTransformation.of(key, 1, 2, code);
+    }
+
+    @Test
+    void testAddsField() throws Exception {
+        JsonNode input = FactCastJson.readTree("{\"firstName\":\"Peter\",\"lastName\":\"Lustig\"}");
+
+        JsonNode actual = uut.transform(js(
+                "function transform(e) {e.displayName = e.firstName + ' ' + e.lastName}"),
+                input);
+
+        assertThat(actual).isEqualTo(FactCastJson.readTree(
+                "{\"firstName\":\"Peter\",\"lastName\":\"Lustig\",\"displayName\":\"Peter Lustig\"}"));
+    }
+
+    @Test
+    void testDoesNotModifyInput() throws Exception {
+        JsonNode input = FactCastJson.readTree("{\"x\":1}");
+
+        uut.transform(js("function transform(e) {e.x = 2; e.y = 3}"), input);
+
+        assertThat(input).isEqualTo(FactCastJson.readTree("{\"x\":1}"));
+    }
+
+    @Test
+    void testNestedObjectsAndArrays() throws Exception {
+        JsonNode input = FactCastJson.readTree(
+                "{\"address\":{\"zip\":\"12345\"},\"items\":[{\"qty\":1},{\"qty\":2}]}");
+
+        JsonNode actual = uut.transform(js("function transform(e) {"
+                + " e.address.city = 'Hamburg';"
+                + " var sum = 0; for (var i = 0; i < e.items.length; i++) { sum += e.items[i].qty }"
+                + " e.total = sum;"
+                + " e.items[0].qty = 5;"
+                + " e.items.add({qty: 7});"
+                + "}"), input);
+
+        assertThat(actual).isEqualTo(FactCastJson.readTree(
+                "{\"address\":{\"zip\":\"12345\",\"city\":\"Hamburg\"},"
+                        + "\"items\":[{\"qty\":5},{\"qty\":2},{\"qty\":7}],\"total\":3}"));
+    }
+
+    @Test
+    void testAssignsScriptLiterals() throws Exception {
+        JsonNode input = FactCastJson.readTree("{}");
+
+        JsonNode actual = uut.transform(js("function transform(e) {"
+                + " e.obj = {a: 1, b: [true, 'x', null], c: 1.5};"
+                + " e.nothing = undefined;"
+                + "}"), input);
+
+        assertThat(actual).isEqualTo(FactCastJson.readTree(
+                "{\"obj\":{\"a\":1,\"b\":[true,\"x\",null],\"c\":1.5},\"nothing\":null}"));
+    }
+
+    @Test
+    void testNoCode() throws Exception {
+        JsonNode input = FactCastJson.readTree("{}");
+        Transformation t = SingleTransformation.empty(key, 1, 2);
+
+        assertThat(uut.transform(t, input)).isSameAs(input);
+    }
+
+    @Test
+    void testBrokenScript() throws Exception {
+        JsonNode input = FactCastJson.readTree("{}");
+
+        assertThatThrownBy(() -> uut.transform(js("function transform(e) {"), input))
+                .isInstanceOf(TransformationException.class);
+        assertThatThrownBy(() -> uut.transform(js("function foo(e) {}"), input))
+                .isInstanceOf(TransformationException.class);
+        assertThatThrownBy(() -> uut.transform(js(
+                "function transform(e) {throw 'fail'}"), input))
+                        .isInstanceOf(TransformationException.class);
+    }
+
+    @Test
+    void testConcurrentTransformations() throws Exception {
+        Transformation t = js("function transform(e) {e.y = e.x * 2}");
+        ExecutorService es = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<JsonNode>> results = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                JsonNode input = FactCastJson.readTree("{\"x\":" + i + "}");
+                results.add(es.submit(() -> uut.transform(t, input)));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                assertThat(results.get(i).get().get("y").asInt()).isEqualTo(i * 2);
+            }
+        } finally {
+            es.shutdownNow();
+        }
+    }
+
+    @Test
+    void testConcurrentCompilation() throws Exception {
+        ExecutorService es = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<JsonNode>> results = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                // distinct scripts, so that every task compiles
+                Transformation t = js("function transform(e) {e.y = e.x + " + i + "}");
+                JsonNode input = FactCastJson.readTree("{\"x\":" + i + "}");
+                results.add(es.submit(() -> uut.transform(t, input)));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                assertThat(results.get(i).get().get("y").asInt()).isEqualTo(i * 2);
+            }
+        } finally {
+            es.shutdownNow();
+        }
+    }
+}
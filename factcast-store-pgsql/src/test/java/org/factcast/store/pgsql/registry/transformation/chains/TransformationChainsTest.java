@@ -26,16 +26,19 @@
 import org.factcast.store.pgsql.registry.SchemaRegistry;
 import org.factcast.store.pgsql.registry.metrics.MetricEvent;
 import org.factcast.store.pgsql.registry.metrics.RegistryMetrics;
+import org.factcast.store.pgsql.registry.transformation.JavaTransformation;
 import org.factcast.store.pgsql.registry.transformation.SingleTransformation;
 import org.factcast.store.pgsql.registry.transformation.Transformation;
 import org.factcast.store.pgsql.registry.transformation.TransformationKey;
 import org.junit.jupiter.api.Test;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.common.collect.Lists;
 
 import io.micrometer.core.instrument.Tag;
 import io.micrometer.core.instrument.Tags;
+import lombok.NonNull;
 
 public class TransformationChainsTest {
     SchemaRegistry r = mock(SchemaRegistry.class);
@@ -203,6 +206,60 @@ void testNoTransformationForKey() throws Exception {
 
     }
 
+    @Test
+    void testMixedChain() throws Exception {
+
+        ArrayList<Transformation> all = Lists.newArrayList();
+        all.add(SingleTransformation.of(key, 1, 2, js(1)));
+        all.add(SingleTransformation.of(key, 2, 3, js(2)));
+        all.add(SingleTransformation.of(key, 3, 4, java()));
+        all.add(SingleTransformation.of(key, 4, 5, js(4)));
+
+        when(r.get(key)).thenReturn(all);
+
+        TransformationChain chain = uut.get(key, 1, 5);
+
+        assertThat(chain.segments()).hasSize(3);
+        assertThat(chain.transformationCode()).isEmpty();
+
+        JsonNode input = FactCastJson.readTree("{}");
+        JsonNode actual = new DelegatingTransformer(new JavaTransformer(),
+                new NashornTransformer()).transform(chain, input);
+        assertThat(actual.toString()).isEqualTo(
+                "{\"stage1\":true,\"stage2\":true,\"stage3\":true,\"stage4\":true}");
+    }
+
+    @Test
+    void testPrefersJavaOnEqualLength() throws Exception {
+
+        ArrayList<Transformation> all = Lists.newArrayList();
+        all.add(SingleTransformation.of(key, 1, 2, java()));
+        all.add(SingleTransformation.of(key, 2, 3, java()));
+        all.add(SingleTransformation.of(key, 1, 3, js(1)));
+        all.add(SingleTransformation.of(key, 1, 3, java()));
+
+        when(r.get(key)).thenReturn(all);
+
+        TransformationChain chain = uut.get(key, 1, 3);
+
+        // shorter wins, and java over javascript
+        assertEquals("[1, 3]", chain.id());
+        assertThat(chain.segments()).hasSize(1);
+        assertThat(JavaTransformer.isJava(chain.segments().get(0))).isTrue();
+    }
+
+    public static class Stage implements JavaTransformation {
+        @Override
+        public JsonNode transform(@NonNull JsonNode payload) {
+            ((ObjectNode) payload).put("stage" + (payload.size() + 1), true);
+            return payload;
+        }
+    }
+
+    private String java() {
+        return JavaTransformer.codeFor(Stage.class.getName());
+    }
+
     private String js(int n) {
         return "function transform(event){ event.stage" + n + " = true }";
     }
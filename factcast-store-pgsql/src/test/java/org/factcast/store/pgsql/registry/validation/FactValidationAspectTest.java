@@ -18,8 +18,12 @@
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.factcast.core.Fact;
@@ -72,4 +76,39 @@ void testInterceptPublishPropagatesErros() throws Throwable {
         }
         verify(jp, never()).proceed();
     }
+
+    @Test
+    void testValidatesLargeBatchesInParallel() throws Throwable {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try (FactValidationAspect parallel = new FactValidationAspect(v, executor, 4, 10)) {
+            List<Fact> facts = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                Fact fact = Fact.builder().ns("ns").type("type").version(1).buildWithoutPayload();
+                facts.add(fact);
+                when(v.validate(fact)).thenReturn(i % 100 == 0 ? Collections.singletonList(
+                        new FactValidationError("error " + i)) : Collections.emptyList());
+            }
+
+            List<FactValidationError> errors = parallel.validateInParallel(facts);
+
+            // in order of the facts
+            assertEquals(10, errors.size());
+            for (int i = 0; i < 10; i++) {
+                assertEquals("error " + (i * 100), errors.get(i).message());
+            }
+            facts.forEach(f -> verify(v).validate(f));
+        }
+        assertTrue(executor.isShutdown());
+    }
+
+    @Test
+    void testParallelValidationPropagatesExceptions() throws Throwable {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try (FactValidationAspect parallel = new FactValidationAspect(v, executor, 2, 1)) {
+            when(v.validate(f)).thenThrow(new IllegalArgumentException("broken schema"));
+
+            assertThrows(IllegalArgumentException.class, () -> parallel.validateInParallel(
+                    Collections.singletonList(f)));
+        }
+    }
 }
@@ -0,0 +1,111 @@
+/*
+ * Copyright © 2017-2020 factcast.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.factcast.store.pgsql.registry.validation;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.factcast.core.Fact;
+import org.factcast.store.pgsql.PgConfigurationProperties;
+import org.factcast.store.pgsql.registry.AbstractSchemaRegistry;
+import org.factcast.store.pgsql.registry.IndexFetcher;
+import org.factcast.store.pgsql.registry.NOPRegistryMetrics;
+import org.factcast.store.pgsql.registry.RegistryFileFetcher;
+import org.factcast.store.pgsql.registry.RegistryIndex;
+import org.factcast.store.pgsql.registry.metrics.RegistryMetrics;
+import org.factcast.store.pgsql.registry.transformation.store.InMemTransformationStoreImpl;
+import org.factcast.store.pgsql.registry.validation.schema.SchemaSource;
+import org.factcast.store.pgsql.registry.validation.schema.store.InMemSchemaStoreImpl;
+
+/**
+ * Measures the latency of validating facts on publish, as done by the
+ * FactValidationAspect, with a number of concurrent publishers. Run it on the
+ * previous commit as well, in order to compare.
+ * <p>
+ * Not a test, run main() manually. Optional args: numberOfFacts, threads,
+ * rounds
+ */
+public class FactValidationBenchmark {
+
+    static final String SCHEMA = "{\"type\":\"object\",\"additionalProperties\":false,"
+            + "\"properties\":{\"firstName\":{\"type\":\"string\"},\"age\":{\"type\":\"integer\"}},"
+            + "\"required\":[\"firstName\"]}";
+
+    public static void main(String[] args) throws Exception {
+        int numberOfFacts = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        RegistryMetrics metrics = new NOPRegistryMetrics();
+        RegistryIndex index = new RegistryIndex();
+        List<SchemaSource> schemes = new ArrayList<>();
+        for (int v = 1; v <= 10; v++) {
+            schemes.add(new SchemaSource("bench/" + v, "hash" + v, "bench", "type", v));
+        }
+        index.schemes(schemes);
+        index.transformations(Collections.emptyList());
+        IndexFetcher indexFetcher = () -> Optional.of(index);
+        RegistryFileFetcher fileFetcher = mock(RegistryFileFetcher.class);
+        when(fileFetcher.fetchSchema(any())).thenReturn(SCHEMA);
+
+        AbstractSchemaRegistry registry = new AbstractSchemaRegistry(indexFetcher, fileFetcher,
+                new InMemSchemaStoreImpl(metrics), new InMemTransformationStoreImpl(metrics),
+                metrics) {
+        };
+        registry.fetchInitial();
+
+        PgConfigurationProperties props = new PgConfigurationProperties();
+        props.setSchemaRegistryUrl("classpath:bench");
+        FactValidator validator = new FactValidator(props, registry, metrics);
+
+        List<Fact> facts = new ArrayList<>(numberOfFacts);
+        for (int i = 0; i < numberOfFacts; i++) {
+            facts.add(Fact.builder()
+                    .ns("bench")
+                    .type("type")
+                    .version(1 + i % 10)
+                    .build("{\"firstName\":\"Peter\",\"age\":" + i + "}"));
+        }
+
+        for (int round = 1; round <= rounds; round++) {
+            CountDownLatch done = new CountDownLatch(threads);
+            long start = System.nanoTime();
+            for (int t = 0; t < threads; t++) {
+                new Thread(() -> {
+                    facts.forEach(f -> {
+                        if (!validator.validate(f).isEmpty()) {
+                            throw new IllegalStateException("unexpected validation error");
+                        }
+                    });
+                    done.countDown();
+                }).start();
+            }
+            done.await();
+            long elapsed = System.nanoTime() - start;
+            long validated = (long) threads * numberOfFacts;
+            System.out.printf("round %d, threads=%d: %d facts in %d ms (%.1f µs/fact)%n", round,
+                    threads, validated, TimeUnit.NANOSECONDS.toMillis(elapsed), elapsed
+                            / 1000.0 / validated * threads);
+        }
+    }
+}
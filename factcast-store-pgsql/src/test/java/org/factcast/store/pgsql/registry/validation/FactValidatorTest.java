@@ -115,7 +115,7 @@ public void testValidateWithMatchingSchema() throws Exception {
                 .getJsonSchema(ValidationConstants.JACKSON.readTree(schemaJson));
         when(sr.get(Mockito.any(SchemaKey.class))).thenReturn(Optional.of(schema));
 
-        FactValidator uut = new FactValidator(props, sr, mock(RegistryMetrics.class));
+        FactValidator uut = new FactValidator(props, sr, new NOPRegistryMetrics());
         Fact probeFact = Fact.builder()
                 .ns("foo")
                 .type("bar")
@@ -135,7 +135,7 @@ public void testValidateWithoutMatchingSchema() throws Exception {
         SchemaRegistry sr = mock(SchemaRegistry.class);
         when(sr.get(Mockito.any(SchemaKey.class))).thenReturn(Optional.empty());
 
-        FactValidator uut = new FactValidator(props, sr, mock(RegistryMetrics.class));
+        FactValidator uut = new FactValidator(props, sr, new NOPRegistryMetrics());
         Fact probeFact = Fact.builder()
                 .ns("foo")
                 .type("bar")
@@ -13,6 +13,7 @@ DROP TABLE IF EXISTS catchup CASCADE;
 DROP TABLE IF EXISTS schemastore cascade;
 DROP TABLE IF EXISTS transformationstore cascade;
 DROP TABLE IF EXISTS transformationcache cascade;
+DROP TABLE IF EXISTS transformationprecompute cascade;
 
 #
 
@@ -92,3 +93,8 @@ CREATE INDEX IF NOT EXISTS idx_transformationstore on transformationstore(ns,typ
 	last_access 		TIMESTAMP WITH TIME ZONE DEFAULT now() NOT NULL
 );
 
+ CREATE TABLE IF NOT EXISTS transformationprecompute(
+	target 		varchar(2048) PRIMARY KEY,
+	ser 		bigint NOT NULL,
+	fingerprint 	varchar(64) NOT NULL
+);
@@ -0,0 +1,212 @@
+/*
+ * Copyright © 2017-2020 factcast.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.factcast.store.test;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.factcast.core.Fact;
+import org.factcast.core.FactCast;
+import org.factcast.core.lock.Attempt;
+import org.factcast.core.spec.FactSpec;
+import org.factcast.core.store.FactStore;
+import org.factcast.core.subscription.Subscription;
+import org.factcast.core.subscription.SubscriptionRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Performance scenarios any FactStore can run, next to the functional ones of
+ * {@link AbstractFactStoreTest}.
+ * <p>
+ * Each scenario fails, if the measured throughput falls below its budget. Sizes
+ * and budgets default to values a developer machine should easily meet, and can
+ * be overridden per store by overriding {@link #config(String, long)}, or per
+ * run by system properties, for example
+ * -Dfactcast.store.performance.catchup.minFactsPerSecond=50000
+ */
+@Slf4j
+public abstract class AbstractFactStorePerformanceTest {
+
+    public static final String PROPERTIES_PREFIX = "factcast.store.performance.";
+
+    protected FactCast uut;
+
+    @BeforeEach
+    void setUp() {
+        // no spies here, they would distort the measurement
+        uut = FactCast.from(createStoreToTest());
+    }
+
+    protected abstract FactStore createStoreToTest();
+
+    /**
+     * @return the size or budget for the given key, see the scenarios for the
+     *         keys used
+     */
+    protected long config(String key, long defaultValue) {
+        return Long.getLong(PROPERTIES_PREFIX + key, defaultValue);
+    }
+
+    @Test
+    public void publishBatches() {
+        long batches = config("publish.batches", 100);
+        int batchSize = (int) config("publish.batchSize", 1000);
+        long minFactsPerSecond = config("publish.minFactsPerSecond", 5000);
+        String ns = newNamespace();
+
+        long start = System.nanoTime();
+        for (long i = 0; i < batches; i++) {
+            uut.publish(facts(ns, batchSize));
+        }
+        long elapsed = System.nanoTime() - start;
+
+        assertThroughput("publish", batches * batchSize, elapsed, minFactsPerSecond);
+    }
+
+    @Test
+    public void catchup() throws Exception {
+        int facts = (int) config("catchup.facts", 1_000_000);
+        long minFactsPerSecond = config("catchup.minFactsPerSecond", 20000);
+        long timeout = config("catchup.timeoutInSeconds", 600);
+        String ns = newNamespace();
+        preload(ns, facts);
+
+        AtomicLong received = new AtomicLong();
+        long start = System.nanoTime();
+        try (Subscription s = uut.subscribe(SubscriptionRequest.catchup(FactSpec.ns(ns))
+                .fromScratch(), f -> received.incrementAndGet())) {
+            s.awaitComplete(TimeUnit.SECONDS.toMillis(timeout));
+        }
+        long elapsed = System.nanoTime() - start;
+
+        assertThat(received.get()).isEqualTo(facts);
+        assertThroughput("catchup", facts, elapsed, minFactsPerSecond);
+    }
+
+    @Test
+    public void concurrentFollowers() throws Exception {
+        int followers = (int) config("followers.subscriptions", 500);
+        int facts = (int) config("followers.facts", 200);
+        long minFactsPerSecond = config("followers.minFactsPerSecond", 5000);
+        long timeout = config("followers.timeoutInSeconds", 300);
+        String ns = newNamespace();
+
+        CountDownLatch received = new CountDownLatch(followers * facts);
+        List<Subscription> subscriptions = new ArrayList<>(followers);
+        try {
+            for (int i = 0; i < followers; i++) {
+                subscriptions.add(uut.subscribe(SubscriptionRequest.follow(FactSpec.ns(ns))
+                        .fromNowOn(), f -> received.countDown()).awaitCatchup());
+            }
+
+            long start = System.nanoTime();
+            uut.publish(facts(ns, facts));
+            assertThat(received.await(timeout, TimeUnit.SECONDS))
+                    .describedAs("all followers received all facts within %ss", timeout)
+                    .isTrue();
+            long elapsed = System.nanoTime() - start;
+
+            assertThroughput("followers", (long) followers * facts, elapsed,
+                    minFactsPerSecond);
+        } finally {
+            for (Subscription s : subscriptions) {
+                s.close();
+            }
+        }
+    }
+
+    @Test
+    public void optimisticLockContention() throws Exception {
+        int threads = (int) config("lock.threads", 8);
+        int attemptsPerThread = (int) config("lock.attemptsPerThread", 50);
+        long minAttemptsPerSecond = config("lock.minAttemptsPerSecond", 50);
+        String ns = newNamespace();
+        UUID aggId = UUID.randomUUID();
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            long start = System.nanoTime();
+            List<Future<?>> running = new ArrayList<>(threads);
+            for (int t = 0; t < threads; t++) {
+                running.add(pool.submit(() -> {
+                    for (int i = 0; i < attemptsPerThread; i++) {
+                        uut.lock(ns)
+                                .on(aggId)
+                                .optimistic()
+                                .retry(threads * attemptsPerThread)
+                                .attempt(() -> Attempt.publish(fact(ns, aggId)));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> f : running) {
+                f.get();
+            }
+            long elapsed = System.nanoTime() - start;
+
+            assertThroughput("lock", (long) threads * attemptsPerThread, elapsed,
+                    minAttemptsPerSecond);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private void preload(String ns, int facts) {
+        int remaining = facts;
+        while (remaining > 0) {
+            int size = Math.min(1000, remaining);
+            uut.publish(facts(ns, size));
+            remaining -= size;
+        }
+    }
+
+    private static void assertThroughput(String scenario, long count, long elapsedNanos,
+            long minPerSecond) {
+        double perSecond = count / (elapsedNanos / 1_000_000_000.0);
+        log.info("{}: {} in {}ms, {}/s (budget {}/s)", scenario, count, TimeUnit.NANOSECONDS
+                .toMillis(elapsedNanos), (long) perSecond, minPerSecond);
+        assertThat(perSecond).describedAs("throughput of %s per second", scenario)
+                .isGreaterThanOrEqualTo(minPerSecond);
+    }
+
+    private static String newNamespace() {
+        return "perf-" + UUID.randomUUID();
+    }
+
+    private static List<Fact> facts(String ns, int count) {
+        List<Fact> l = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            l.add(fact(ns, UUID.randomUUID()));
+        }
+        return l;
+    }
+
+    private static Fact fact(String ns, UUID aggId) {
+        return Fact.builder().ns(ns).type("perf").aggId(aggId).build("{}");
+    }
+}
@@ -42,6 +42,7 @@
 import org.factcast.core.lock.PublishingResult;
 import org.factcast.core.lock.WithOptimisticLock.OptimisticRetriesExceededException;
 import org.factcast.core.spec.FactSpec;
+import org.factcast.core.spec.JsonPathFilter;
 import org.factcast.core.store.FactStore;
 import org.factcast.core.subscription.Subscription;
 import org.factcast.core.subscription.SubscriptionRequest;
@@ -702,6 +703,50 @@ public void testSubscribeStartingAfter() throws Exception {
 
     }
 
+    @Test
+    public void testSubscribeStartingAfterSerial() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            uut.publish(Fact.builder().id(new UUID(1L, i)).ns("ns2").type("t1").build("{}"));
+        }
+        long ser = uut.serialOf(new UUID(1L, 7L)).getAsLong();
+
+        ToListObserver toListObserver = new ToListObserver();
+
+        SubscriptionRequest request = SubscriptionRequest.catchup(FactSpec.ns("ns2"))
+                .fromSerial(ser);
+        Subscription s = uut.subscribeToFacts(request, toListObserver);
+        s.awaitComplete();
+
+        assertEquals(2, toListObserver.list().size());
+        assertEquals(new UUID(1L, 8L), toListObserver.list().get(0).id());
+    }
+
+    @Test
+    public void testJsonPathFilters() throws Exception {
+        uut.publish(Fact.builder().id(new UUID(2L, 1L)).ns("ns3").type("order").meta("tenant",
+                "a").build("{\"amount\":5,\"customer\":{\"zip\":\"12345\"}}"));
+        uut.publish(Fact.builder().id(new UUID(2L, 2L)).ns("ns3").type("order").meta("tenant",
+                "a").build("{\"amount\":50,\"customer\":{\"zip\":\"54321\"}}"));
+        uut.publish(Fact.builder().id(new UUID(2L, 3L)).ns("ns3").type("order").meta("tenant",
+                "b").build("{\"amount\":500,\"customer\":{\"zip\":\"12345\"}}"));
+        uut.publish(Fact.builder().id(new UUID(2L, 4L)).ns("ns3").type("order").meta("tenant",
+                "a").build("{\"amount\":\"unknown\"}"));
+
+        assertThat(ids(FactSpec.ns("ns3").filter(JsonPathFilter.payload("amount").gte(50))))
+                .containsExactly(new UUID(2L, 2L), new UUID(2L, 3L));
+        assertThat(ids(FactSpec.ns("ns3").filter(JsonPathFilter.payload("customer.zip").eq(
+                "12345"), JsonPathFilter.header("meta.tenant").eq("a"))))
+                        .containsExactly(new UUID(2L, 1L));
+        assertThat(ids(FactSpec.ns("ns3").filter(JsonPathFilter.payload("amount").lt(100),
+                JsonPathFilter.payload("amount").gt(5)))).containsExactly(new UUID(2L, 2L));
+        assertThat(ids(FactSpec.ns("ns3").filter(JsonPathFilter.payload("amount").gt("a"))))
+                .containsExactly(new UUID(2L, 4L));
+    }
+
+    private List<UUID> ids(FactSpec spec) {
+        return catchup(spec).stream().map(Fact::id).collect(Collectors.toList());
+    }
+
     @Test
     public void testSubscribeToFactsParameterContract() throws Exception {
         FactObserver observer = mock(FactObserver.class);
@@ -13,19 +13,22 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-package org.factcast.server.grpc;
+package org.factcast.store.test;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import org.junit.jupiter.api.*;
 
 /**
- * Signals an uncatched Exception in the Transport layer, normally leading to a
- * subscription being cancelled.
- *
- * @author <uwe.schaefer@prisma-capacity.eu>
+ * Performance tests are excluded from the regular build, run them with
+ * -Pperformance
  */
-class TransportLayerException extends RuntimeException {
-
-    private static final long serialVersionUID = 1L;
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+@Tag("performance")
+public @interface PerformanceTest {
 
-    TransportLayerException(@SuppressWarnings("SameParameterValue") String msg) {
-        super(msg);
-    }
 }